@@ -0,0 +1,114 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.bootloader;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import se.bitcraze.crazyflie.lib.bootloader.Target.TargetTypes;
+import se.bitcraze.crazyflie.lib.crazyradio.ConnectionData;
+import se.bitcraze.crazyflie.lib.crazyradio.Crazyradio;
+import se.bitcraze.crazyflie.lib.crazyradio.RadioDriver;
+import se.bitcraze.crazyflie.lib.sim.SimulatedCrazyflie;
+import se.bitcraze.crazyflie.lib.sim.SimulatedCrazyradio;
+
+/**
+ * Flashes a sequence of 200kB STM32 images into one simulated bootloader, like a firmware tuning loop:
+ * a plain flash without delta mode as the reference, then with delta flashing a build with 3 changed pages,
+ * the same build again, the build after the copter has been flashed with the previous build by another client,
+ * and the build after the copter has been flashed with another image.
+ */
+public class DeltaFlashBenchmark {
+
+    private final static int IMAGE_SIZE = 200 * 1024;
+    private final static long TRANSFER_TIME_MICROS = 300;
+    // programming a 1kB page of the STM32F405 (256 words)
+    private final static long PAGE_WRITE_TIME_MICROS = 4000;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Random random = new Random(1);
+        byte[] image = new byte[IMAGE_SIZE];
+        random.nextBytes(image);
+        byte[] changedImage = image.clone();
+        for (int page : new int[] {3, 70, 150}) {
+            changedImage[page * 1024 + 100]++;
+        }
+        byte[] otherImage = new byte[IMAGE_SIZE];
+        random.nextBytes(otherImage);
+
+        SimulatedCrazyflie crazyflie = SimulatedCrazyflie.createDefault();
+        crazyflie.getBootloader().setPageWriteTimeMicros(PAGE_WRITE_TIME_MICROS);
+        ConnectionData connectionData = new ConnectionData(0, Crazyradio.DR_2MPS);
+        SimulatedCrazyradio radio = new SimulatedCrazyradio(crazyflie, connectionData);
+        radio.setTransferLatencyMicros(TRANSFER_TIME_MICROS);
+
+        Bootloader bootloader = new Bootloader(new RadioDriver(radio));
+        Cloader cloader = bootloader.getCloader();
+        cloader.setConnectionData(connectionData);
+        cloader.openBootloaderConnection();
+        if (!cloader.checkLinkAndGetInfo(TargetTypes.STM32)) {
+            throw new IllegalStateException("No bootloader found");
+        }
+        Target target = cloader.getTargets().get(TargetTypes.STM32);
+
+        System.out.println("Flash | time (ms) | pages written/skipped | flash ok");
+        flash(crazyflie, bootloader, target, "plain flash", image);
+        bootloader.setDeltaFlash(true);
+        flash(crazyflie, bootloader, target, "3 pages changed", changedImage);
+        flash(crazyflie, bootloader, target, "unchanged", changedImage);
+        crazyflie.getBootloader().setFlash(TargetTypes.STM32, image);
+        flash(crazyflie, bootloader, target, "previous build flashed elsewhere", changedImage);
+        crazyflie.getBootloader().setFlash(TargetTypes.STM32, otherImage);
+        flash(crazyflie, bootloader, target, "other image flashed elsewhere", changedImage);
+        bootloader.close();
+        // the driver threads of the simulated links are not daemon threads
+        System.exit(0);
+    }
+
+    private static void flash(SimulatedCrazyflie crazyflie, Bootloader bootloader, Target target, String name, byte[] image) throws IOException {
+        File file = File.createTempFile("firmware", ".bin");
+        file.deleteOnExit();
+        FileOutputStream fos = new FileOutputStream(file);
+        try {
+            fos.write(image);
+        } finally {
+            fos.close();
+        }
+        long start = System.nanoTime();
+        boolean flashed = bootloader.flash(file, "stm32");
+        long durationMs = (System.nanoTime() - start) / 1000000;
+
+        byte[] flash = crazyflie.getBootloader().getFlash(TargetTypes.STM32);
+        int offset = target.getStartPage() * target.getPageSize();
+        boolean ok = flashed && Arrays.equals(image, Arrays.copyOfRange(flash, offset, offset + image.length));
+        System.out.println(String.format("%s | %d | %d/%d | %b", name, durationMs, bootloader.getWrittenPageCount(), bootloader.getSkippedPageCount(), ok));
+    }
+}
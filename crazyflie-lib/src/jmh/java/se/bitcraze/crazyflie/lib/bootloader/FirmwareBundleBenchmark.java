@@ -0,0 +1,188 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.bootloader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import se.bitcraze.crazyflie.lib.bootloader.Bootloader.FlashTarget;
+import se.bitcraze.crazyflie.lib.bootloader.Target.TargetTypes;
+import se.bitcraze.crazyflie.lib.crazyradio.ConnectionData;
+import se.bitcraze.crazyflie.lib.crazyradio.Crazyradio;
+import se.bitcraze.crazyflie.lib.crazyradio.RadioDriver;
+import se.bitcraze.crazyflie.lib.sim.SimulatedCrazyflie;
+import se.bitcraze.crazyflie.lib.sim.SimulatedCrazyradio;
+
+/**
+ * Reads a CF2 firmware zip file with a 900kB STM32 and a 100kB nRF51 image, once by extracting it into memory and
+ * to disk and reading the extracted files back (like the bootloader did before), and once by streaming the images
+ * from the zip file through a page buffer, and reports the time and the bytes allocated by the reading thread.
+ * Then flashes the zip file into a simulated bootloader.
+ */
+public class FirmwareBundleBenchmark {
+
+    private final static int STM32_IMAGE_SIZE = 900 * 1024;
+    private final static int NRF51_IMAGE_SIZE = 100 * 1024;
+    private final static int RUNS = 5;
+
+    public static void main(String[] args) throws IOException {
+        Random random = new Random(1);
+        byte[] stm32Image = new byte[STM32_IMAGE_SIZE];
+        random.nextBytes(stm32Image);
+        byte[] nrf51Image = new byte[NRF51_IMAGE_SIZE];
+        random.nextBytes(nrf51Image);
+        File zipFile = createBundle(stm32Image, nrf51Image);
+
+        SimulatedCrazyflie crazyflie = SimulatedCrazyflie.createDefault();
+        ConnectionData connectionData = new ConnectionData(0, Crazyradio.DR_2MPS);
+        Bootloader bootloader = new Bootloader(new RadioDriver(new SimulatedCrazyradio(crazyflie, connectionData)));
+        Cloader cloader = bootloader.getCloader();
+        cloader.setConnectionData(connectionData);
+        cloader.openBootloaderConnection();
+        if (!cloader.checkLinkAndGetInfo(TargetTypes.STM32) || !cloader.checkLinkAndGetInfo(TargetTypes.NRF51)) {
+            throw new IllegalStateException("No bootloader found");
+        }
+
+        System.out.println("Read | time (ms) | allocated (kB)");
+        for (int i = 0; i < RUNS; i++) {
+            long allocated = getAllocatedBytes();
+            long start = System.nanoTime();
+            extractAndRead(zipFile);
+            System.out.println(String.format("extract and read files | %d | %d", (System.nanoTime() - start) / 1000000, (getAllocatedBytes() - allocated) / 1024));
+
+            allocated = getAllocatedBytes();
+            start = System.nanoTime();
+            byte[] page = new byte[1024];
+            for (FlashTarget flashTarget : bootloader.getFlashTargets(zipFile, "")) {
+                InputStream image = flashTarget.openImage();
+                try {
+                    while (image.read(page) != -1) {
+                        // the flash pipeline reads the image page by page
+                    }
+                } finally {
+                    image.close();
+                }
+            }
+            System.out.println(String.format("stream from zip file | %d | %d", (System.nanoTime() - start) / 1000000, (getAllocatedBytes() - allocated) / 1024));
+        }
+
+        long start = System.nanoTime();
+        boolean flashed = bootloader.flash(zipFile, "");
+        long durationMs = (System.nanoTime() - start) / 1000000;
+        boolean ok = flashed && isFlashed(crazyflie, cloader, TargetTypes.STM32, stm32Image) && isFlashed(crazyflie, cloader, TargetTypes.NRF51, nrf51Image);
+        System.out.println(String.format("Flash zip file: %d ms, flash ok: %b", durationMs, ok));
+        bootloader.close();
+        // the driver threads of the simulated links are not daemon threads
+        System.exit(0);
+    }
+
+    private static File createBundle(byte[] stm32Image, byte[] nrf51Image) throws IOException {
+        Map<String, FirmwareDetails> files = new HashMap<String, FirmwareDetails>();
+        files.put("cf2-stm32.bin", new FirmwareDetails("cf2", "stm32", "fw", "2026.01", "crazyflie-firmware"));
+        files.put("cf2-nrf51.bin", new FirmwareDetails("cf2", "nrf51", "fw", "2026.01", "crazyflie2-nrf-firmware"));
+        File manifestFile = File.createTempFile("manifest", ".json");
+        manifestFile.deleteOnExit();
+        Bootloader.writeManifest(manifestFile.getAbsolutePath(), new Manifest(1, 0, "2026.01", files));
+
+        File zipFile = File.createTempFile("firmware", ".zip");
+        zipFile.deleteOnExit();
+        ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(zipFile));
+        try {
+            addEntry(zos, FirmwareBundle.MANIFEST_FILENAME, Bootloader.readFile(manifestFile));
+            addEntry(zos, "cf2-stm32.bin", stm32Image);
+            addEntry(zos, "cf2-nrf51.bin", nrf51Image);
+        } finally {
+            zos.close();
+        }
+        return zipFile;
+    }
+
+    private static void addEntry(ZipOutputStream zos, String name, byte[] data) throws IOException {
+        zos.putNextEntry(new ZipEntry(name));
+        zos.write(data);
+        zos.closeEntry();
+    }
+
+    /**
+     * Extract all entries into memory and to disk and read the extracted images back
+     */
+    private static void extractAndRead(File zipFile) throws IOException {
+        File dir = new File(zipFile.getParentFile(), zipFile.getName() + ".extracted");
+        dir.mkdirs();
+        ZipInputStream zis = new ZipInputStream(new FileInputStream(zipFile));
+        try {
+            ZipEntry ze;
+            while ((ze = zis.getNextEntry()) != null) {
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                byte[] buffer = new byte[1024];
+                int count;
+                while ((count = zis.read(buffer)) != -1) {
+                    baos.write(buffer, 0, count);
+                }
+                File file = new File(dir, ze.getName());
+                file.deleteOnExit();
+                FileOutputStream fos = new FileOutputStream(file);
+                try {
+                    fos.write(baos.toByteArray());
+                } finally {
+                    fos.close();
+                }
+                if (ze.getName().endsWith(".bin")) {
+                    Bootloader.readFile(file);
+                }
+            }
+        } finally {
+            zis.close();
+        }
+        dir.deleteOnExit();
+    }
+
+    private static boolean isFlashed(SimulatedCrazyflie crazyflie, Cloader cloader, int targetId, byte[] image) {
+        Target target = cloader.getTargets().get(targetId);
+        byte[] flash = crazyflie.getBootloader().getFlash(targetId);
+        int offset = target.getStartPage() * target.getPageSize();
+        return Arrays.equals(image, Arrays.copyOfRange(flash, offset, offset + image.length));
+    }
+
+    private static long getAllocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
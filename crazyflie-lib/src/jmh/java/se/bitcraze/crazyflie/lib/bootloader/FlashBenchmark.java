@@ -0,0 +1,124 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.bootloader;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import se.bitcraze.crazyflie.lib.bootloader.Target.TargetTypes;
+import se.bitcraze.crazyflie.lib.crazyradio.ConnectionData;
+import se.bitcraze.crazyflie.lib.crazyradio.Crazyradio;
+import se.bitcraze.crazyflie.lib.crazyradio.RadioDriver;
+import se.bitcraze.crazyflie.lib.sim.SimulatedCrazyflie;
+import se.bitcraze.crazyflie.lib.sim.SimulatedCrazyradio;
+
+/**
+ * Flashes a 200kB STM32 image into a simulated bootloader and reports the throughput, for the page by page
+ * upload with Cloader.uploadBuffer/writeFlash and for the flash pipeline with and without overlapping
+ * the buffer loads with the flash writes.
+ */
+public class FlashBenchmark {
+
+    private final static int IMAGE_SIZE = 200 * 1024;
+    private final static long TRANSFER_TIME_MICROS = 300;
+    // programming a 1kB page of the STM32F405 (256 words)
+    private final static long PAGE_WRITE_TIME_MICROS = 4000;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        byte[] image = new byte[IMAGE_SIZE];
+        new Random(1).nextBytes(image);
+        File file = File.createTempFile("firmware", ".bin");
+        file.deleteOnExit();
+        FileOutputStream fos = new FileOutputStream(file);
+        try {
+            fos.write(image);
+        } finally {
+            fos.close();
+        }
+
+        System.out.println("Mode | time (ms) | throughput (kB/s) | flash ok");
+        for (String mode : new String[] {"uploadBuffer", "pipeline", "pipeline, overlap"}) {
+            SimulatedCrazyflie crazyflie = SimulatedCrazyflie.createDefault();
+            crazyflie.getBootloader().setPageWriteTimeMicros(PAGE_WRITE_TIME_MICROS);
+            ConnectionData connectionData = new ConnectionData(0, Crazyradio.DR_2MPS);
+            SimulatedCrazyradio radio = new SimulatedCrazyradio(crazyflie, connectionData);
+            radio.setTransferLatencyMicros(TRANSFER_TIME_MICROS);
+
+            Bootloader bootloader = new Bootloader(new RadioDriver(radio));
+            Cloader cloader = bootloader.getCloader();
+            cloader.setConnectionData(connectionData);
+            cloader.openBootloaderConnection();
+            if (!cloader.checkLinkAndGetInfo(TargetTypes.STM32)) {
+                throw new IllegalStateException("No bootloader found");
+            }
+            Target target = cloader.getTargets().get(TargetTypes.STM32);
+
+            long start = System.nanoTime();
+            boolean flashed;
+            if ("uploadBuffer".equals(mode)) {
+                flashed = flashPageByPage(cloader, target, image);
+            } else {
+                bootloader.setOverlapFlashWrites(mode.endsWith("overlap"));
+                flashed = bootloader.flash(file, "stm32");
+            }
+            long durationMs = (System.nanoTime() - start) / 1000000;
+
+            byte[] flash = crazyflie.getBootloader().getFlash(TargetTypes.STM32);
+            int offset = target.getStartPage() * target.getPageSize();
+            boolean ok = flashed && Arrays.equals(image, Arrays.copyOfRange(flash, offset, offset + image.length));
+            System.out.println(String.format("%s | %d | %.1f | %b", mode, durationMs, image.length / 1.024 / durationMs, ok));
+            bootloader.close();
+        }
+        // the driver threads of the simulated links are not daemon threads
+        System.exit(0);
+    }
+
+    /**
+     * Page by page upload with a write whenever the page buffer is full
+     */
+    private static boolean flashPageByPage(Cloader cloader, Target target, byte[] image) {
+        int pageSize = target.getPageSize();
+        int bufferCounter = 0;
+        int pages = (image.length + pageSize - 1) / pageSize;
+        for (int i = 0; i < pages; i++) {
+            byte[] buffer = Arrays.copyOfRange(image, i * pageSize, Math.min((i + 1) * pageSize, image.length));
+            cloader.uploadBuffer(target.getId(), bufferCounter, 0, buffer);
+            bufferCounter++;
+            if (bufferCounter >= target.getBufferPages() || i == pages - 1) {
+                if (!cloader.writeFlash(target.getId(), 0, target.getStartPage() + i - (bufferCounter - 1), bufferCounter)) {
+                    return false;
+                }
+                bufferCounter = 0;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.bootloader;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+import se.bitcraze.crazyflie.lib.bootloader.Target.TargetTypes;
+import se.bitcraze.crazyflie.lib.crazyradio.ConnectionData;
+import se.bitcraze.crazyflie.lib.crazyradio.Crazyradio;
+import se.bitcraze.crazyflie.lib.crazyradio.RadioDriver;
+import se.bitcraze.crazyflie.lib.sim.SimulatedCrazyflie;
+import se.bitcraze.crazyflie.lib.sim.SimulatedCrazyradio;
+
+/**
+ * Reads back a 200kB STM32 image from a simulated bootloader, page by page with {@link Cloader#readFlash(int, int)}
+ * and with the pipelined verification for different window sizes, and verifies a copy with 3 corrupted pages.
+ */
+public class FlashVerifyBenchmark {
+
+    private final static int IMAGE_SIZE = 200 * 1024;
+    private final static long TRANSFER_TIME_MICROS = 300;
+    private final static int[] WINDOW_SIZES = {1, 4, 8, 16};
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        byte[] image = new byte[IMAGE_SIZE];
+        new Random(1).nextBytes(image);
+
+        SimulatedCrazyflie crazyflie = SimulatedCrazyflie.createDefault();
+        ConnectionData connectionData = new ConnectionData(0, Crazyradio.DR_2MPS);
+        SimulatedCrazyradio radio = new SimulatedCrazyradio(crazyflie, connectionData);
+        radio.setTransferLatencyMicros(TRANSFER_TIME_MICROS);
+
+        Bootloader bootloader = new Bootloader(new RadioDriver(radio));
+        Cloader cloader = bootloader.getCloader();
+        cloader.setConnectionData(connectionData);
+        cloader.openBootloaderConnection();
+        if (!cloader.checkLinkAndGetInfo(TargetTypes.STM32)) {
+            throw new IllegalStateException("No bootloader found");
+        }
+        Target target = cloader.getTargets().get(TargetTypes.STM32);
+
+        File file = File.createTempFile("firmware", ".bin");
+        file.deleteOnExit();
+        FileOutputStream fos = new FileOutputStream(file);
+        try {
+            fos.write(image);
+        } finally {
+            fos.close();
+        }
+        bootloader.setVerifyFlash(true);
+        long start = System.nanoTime();
+        boolean flashed = bootloader.flash(file, "stm32");
+        System.out.println(String.format("Flash and verify: %d ms, %b, verify %.1f kB/s", (System.nanoTime() - start) / 1000000, flashed, bootloader.getVerifyBytesPerSecond() / 1024));
+
+        int pageSize = target.getPageSize();
+        int pageCount = (IMAGE_SIZE + pageSize - 1) / pageSize;
+        int[] lengths = new int[pageCount];
+        int[] crcs = new int[pageCount];
+        CRC32 crc = new CRC32();
+        for (int i = 0; i < pageCount; i++) {
+            lengths[i] = Math.min(pageSize, IMAGE_SIZE - i * pageSize);
+            crc.reset();
+            crc.update(image, i * pageSize, lengths[i]);
+            crcs[i] = (int) crc.getValue();
+        }
+
+        System.out.println("Read back | time (ms) | kB/s | READ_FLASH packets | mismatching pages");
+        long packetsBefore = crazyflie.getBootloader().getReadFlashPacketCount();
+        start = System.nanoTime();
+        int mismatches = 0;
+        for (int i = 0; i < pageCount; i++) {
+            byte[] page = cloader.readFlash(TargetTypes.STM32, target.getStartPage() + i);
+            if (page.length != pageSize || !Arrays.equals(Arrays.copyOf(page, lengths[i]), Arrays.copyOfRange(image, i * pageSize, i * pageSize + lengths[i]))) {
+                mismatches++;
+            }
+        }
+        long durationNanos = System.nanoTime() - start;
+        System.out.println(String.format("readFlash page by page | %d | %.1f | %d | %d", durationNanos / 1000000,
+                IMAGE_SIZE / 1024.0 / (durationNanos / 1e9), crazyflie.getBootloader().getReadFlashPacketCount() - packetsBefore, mismatches));
+
+        for (int windowSize : WINDOW_SIZES) {
+            verify(crazyflie, cloader, target, "window " + windowSize, windowSize, pageCount, lengths, crcs);
+        }
+
+        byte[] corrupted = image.clone();
+        for (int page : new int[] {3, 70, 150}) {
+            corrupted[page * pageSize + 100]++;
+        }
+        crazyflie.getBootloader().setFlash(TargetTypes.STM32, corrupted);
+        verify(crazyflie, cloader, target, "window 8, 3 pages corrupted", 8, pageCount, lengths, crcs);
+        bootloader.close();
+        // the driver threads of the simulated links are not daemon threads
+        System.exit(0);
+    }
+
+    private static void verify(SimulatedCrazyflie crazyflie, Cloader cloader, Target target, String name, int windowSize, int pageCount, int[] lengths, int[] crcs) {
+        long packetsBefore = crazyflie.getBootloader().getReadFlashPacketCount();
+        FlashVerifier flashVerifier = new FlashVerifier(cloader, target, target.getStartPage(), windowSize, null);
+        long start = System.nanoTime();
+        flashVerifier.verify(pageCount, lengths, crcs);
+        long durationMs = (System.nanoTime() - start) / 1000000;
+        System.out.println(String.format("%s | %d | %.1f | %d | %s", name, durationMs, flashVerifier.getBytesPerSecond() / 1024,
+                crazyflie.getBootloader().getReadFlashPacketCount() - packetsBefore, flashVerifier.getMismatchPages()));
+    }
+}
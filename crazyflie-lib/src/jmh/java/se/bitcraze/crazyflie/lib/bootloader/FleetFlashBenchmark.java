@@ -0,0 +1,153 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.bootloader;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import se.bitcraze.crazyflie.lib.bootloader.Bootloader.BootloaderListener;
+import se.bitcraze.crazyflie.lib.bootloader.Target.TargetTypes;
+import se.bitcraze.crazyflie.lib.crazyradio.ConnectionData;
+import se.bitcraze.crazyflie.lib.crazyradio.Crazyradio;
+import se.bitcraze.crazyflie.lib.crazyradio.RadioMultiplexer;
+import se.bitcraze.crazyflie.lib.sim.SimulatedCrazyflie;
+import se.bitcraze.crazyflie.lib.sim.SimulatedCrazyradio;
+
+/**
+ * Flashes a 50kB STM32 image into a fleet of simulated bootloaders that share one Crazyradio, once copter
+ * after copter and once all copters at the same time with the {@link FleetFlasher}, for different fleet sizes,
+ * page write times and burst sizes of the radio multiplexer. Reports the total time, when the first and the
+ * last copter reported its last page, and the radio reconfigurations between copters.
+ */
+public class FleetFlashBenchmark {
+
+    private final static int IMAGE_SIZE = 50 * 1024;
+    private final static long TRANSFER_TIME_MICROS = 300;
+    // changing the radio address is a USB control transfer
+    private final static long CONTROL_TRANSFER_TIME_MICROS = 250;
+    // programming a 1kB page of the STM32F405 and a slow page write (e.g. including a sector erase)
+    private final static long[] PAGE_WRITE_TIMES_MICROS = {4000, 30000};
+    private final static int[] FLEET_SIZES = {1, 4, 8};
+    private final static ConnectionData CONNECTION_DATA = new ConnectionData(0, Crazyradio.DR_2MPS);
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        byte[] image = new byte[IMAGE_SIZE];
+        new Random(1).nextBytes(image);
+        File file = File.createTempFile("firmware", ".bin");
+        file.deleteOnExit();
+        FileOutputStream fos = new FileOutputStream(file);
+        try {
+            fos.write(image);
+        } finally {
+            fos.close();
+        }
+
+        // warm up the JIT
+        flash(file, image, 2, 4000, RadioMultiplexer.DEFAULT_BURST_SIZE, false);
+        System.out.println("Copters | page write (ms) | mode | burst | time (ms) | first/last copter done (ms) | reconfigurations | flash ok");
+        for (long pageWriteTime : PAGE_WRITE_TIMES_MICROS) {
+            for (int copters : FLEET_SIZES) {
+                flash(file, image, copters, pageWriteTime, RadioMultiplexer.DEFAULT_BURST_SIZE, true);
+                if (copters > 1) {
+                    flash(file, image, copters, pageWriteTime, RadioMultiplexer.DEFAULT_BURST_SIZE, false);
+                }
+            }
+            flash(file, image, 8, pageWriteTime, 1, false);
+        }
+        // the driver threads of the simulated links are not daemon threads
+        System.exit(0);
+    }
+
+    private static void flash(File file, byte[] image, int copters, long pageWriteTime, int burstSize, boolean sequential) throws InterruptedException {
+        SimulatedCrazyflie[] crazyflies = new SimulatedCrazyflie[copters];
+        SimulatedCrazyradio radio = null;
+        for (int i = 0; i < copters; i++) {
+            crazyflies[i] = SimulatedCrazyflie.createDefault();
+            crazyflies[i].getBootloader().setPageWriteTimeMicros(pageWriteTime);
+            if (radio == null) {
+                radio = new SimulatedCrazyradio(crazyflies[i], CONNECTION_DATA, getAddress(i), 0);
+            } else {
+                radio.addCrazyflie(crazyflies[i], CONNECTION_DATA, getAddress(i));
+            }
+        }
+        radio.setTransferLatencyMicros(TRANSFER_TIME_MICROS);
+        radio.setControlTransferLatencyMicros(CONTROL_TRANSFER_TIME_MICROS);
+
+        final long start = System.nanoTime();
+        final long[] doneNanos = new long[copters];
+        long reconfigurations = 0;
+        boolean ok = true;
+        for (int first = 0; first < copters; first += sequential ? 1 : copters) {
+            FleetFlasher fleetFlasher = new FleetFlasher(radio);
+            fleetFlasher.getMultiplexer().setBurstSize(burstSize);
+            for (int i = first; i < (sequential ? first + 1 : copters); i++) {
+                final int copter = i;
+                fleetFlasher.addCopter(CONNECTION_DATA, getAddress(i), new BootloaderListener() {
+                    public void updateProgress(int progress, int max) {
+                        if (progress == max) {
+                            doneNanos[copter] = System.nanoTime() - start;
+                        }
+                    }
+
+                    public void updateStatus(String status) {
+                    }
+
+                    public void updateError(String error) {
+                        System.out.println("Copter " + copter + ": " + error);
+                    }
+                });
+            }
+            for (boolean flashed : fleetFlasher.flash(file, "stm32")) {
+                ok &= flashed;
+            }
+            reconfigurations += fleetFlasher.getMultiplexer().getReconfigurationCount();
+            fleetFlasher.close();
+        }
+        long durationMs = (System.nanoTime() - start) / 1000000;
+
+        long firstDone = Long.MAX_VALUE;
+        long lastDone = 0;
+        for (int i = 0; i < copters; i++) {
+            firstDone = Math.min(firstDone, doneNanos[i] / 1000000);
+            lastDone = Math.max(lastDone, doneNanos[i] / 1000000);
+            byte[] flash = crazyflies[i].getBootloader().getFlash(TargetTypes.STM32);
+            // the image starts at the first page after the bootloader (page 16)
+            int offset = 16 * 1024;
+            ok &= Arrays.equals(image, Arrays.copyOfRange(flash, offset, offset + image.length));
+        }
+        System.out.println(String.format("%d | %d | %s | %d | %d | %d/%d | %d | %b", copters, pageWriteTime / 1000, sequential ? "sequential" : "fleet",
+                burstSize, durationMs, firstDone, lastDone, reconfigurations, ok));
+    }
+
+    private static byte[] getAddress(int copter) {
+        return new byte[] {(byte) 0xE7, (byte) 0xE7, (byte) 0xE7, (byte) 0xE7, (byte) copter};
+    }
+}
@@ -0,0 +1,162 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.crazyradio;
+
+import java.util.concurrent.TimeUnit;
+
+import se.bitcraze.crazyflie.lib.crtp.CommanderPacket;
+import se.bitcraze.crazyflie.lib.crtp.CrtpPacket;
+import se.bitcraze.crazyflie.lib.sim.SimulatedCrazyflie;
+import se.bitcraze.crazyflie.lib.sim.SimulatedCrazyradio;
+
+/**
+ * Compares the polling strategies of the RadioDriver against a simulated Crazyradio/Crazyflie.
+ *
+ * For every strategy the driver runs a bursty log scenario (log bursts and 50Hz commander packets)
+ * and an idle scenario and reports downlink throughput, downlink and commander latency and
+ * the number of USB transfers per second.
+ */
+public class PollingStrategyBenchmark {
+
+    private final static long RUN_TIME_MS = 3000;
+    private final static long TRANSFER_TIME_MICROS = 300;
+    private final static int COMMANDER_PERIOD_MS = 20;
+
+    public static void main(String[] args) throws InterruptedException {
+        PollingStrategy[] strategies = new PollingStrategy[] {
+            new FixedPollingStrategy(),
+            new BackoffPollingStrategy(),
+            new AdaptivePollingStrategy()
+        };
+        System.out.println("Scenario | Strategy | downlink pkt/s | downlink latency (mean/max us) | commander latency (mean/max us) | USB transfers/s");
+        for (PollingStrategy strategy : strategies) {
+            // 20 log packets every 50ms
+            run("bursts", strategy, 20, 50);
+        }
+        for (PollingStrategy strategy : strategies) {
+            // no log traffic
+            run("idle", strategy, 0, 50);
+        }
+    }
+
+    private static void run(String scenario, PollingStrategy strategy, int burstSize, int burstPeriodMs) throws InterruptedException {
+        ConnectionData connectionData = new ConnectionData(80, Crazyradio.DR_2MPS);
+        BurstCrazyflie crazyflie = new BurstCrazyflie(burstSize, burstPeriodMs);
+        SimulatedCrazyradio radio = new SimulatedCrazyradio(crazyflie, connectionData);
+        radio.setTransferLatencyMicros(TRANSFER_TIME_MICROS);
+        RadioDriver driver = new RadioDriver(radio);
+        driver.setConnectionData(connectionData);
+        driver.setZeroAllocation(true);
+        driver.setPollingStrategy(strategy);
+        driver.connect();
+
+        long start = System.currentTimeMillis();
+        long nextCommander = start;
+        int received = 0;
+        char seq = 0;
+        while (System.currentTimeMillis() - start < RUN_TIME_MS) {
+            if (System.currentTimeMillis() >= nextCommander) {
+                crazyflie.mCommanderSendTimes[seq] = System.nanoTime();
+                driver.sendPacket(new CommanderPacket(0, 0, 0, seq));
+                seq = (char) ((seq + 1) % crazyflie.mCommanderSendTimes.length);
+                nextCommander += COMMANDER_PERIOD_MS;
+            }
+            CrtpPacket packet = driver.receivePacket(0);
+            if (packet != null) {
+                received++;
+                packet.release();
+            }
+        }
+        long duration = System.currentTimeMillis() - start;
+        driver.disconnect();
+
+        System.out.println(String.format("%s | %s | %d | %d/%d | %d/%d | %d", scenario, strategy,
+                received * 1000 / duration,
+                crazyflie.getMeanDownlinkLatencyMicros(), crazyflie.getMaxDownlinkLatencyMicros(),
+                crazyflie.mCommanderLatency.mean(), crazyflie.mCommanderLatency.mMax,
+                radio.getTransferCount() * 1000 / duration));
+    }
+
+    private static class Latency {
+        private long mCount;
+        private long mTotal;
+        private long mMax;
+
+        void add(long nanos) {
+            long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+            mCount++;
+            mTotal += micros;
+            mMax = Math.max(mMax, micros);
+        }
+
+        long mean() {
+            return mCount == 0 ? 0 : mTotal / mCount;
+        }
+    }
+
+    /**
+     * Simulated Crazyflie that sends log packets in bursts and measures the commander latency
+     * (the thrust of the commander packets is used as sequence number).
+     */
+    private static class BurstCrazyflie extends SimulatedCrazyflie {
+
+        private final int mBurstSize;
+        private final long mBurstPeriodNanos;
+        private long mNextBurst;
+
+        final long[] mCommanderSendTimes = new long[256];
+        final Latency mCommanderLatency = new Latency();
+
+        BurstCrazyflie(int burstSize, int burstPeriodMs) {
+            this.mBurstSize = burstSize;
+            this.mBurstPeriodNanos = TimeUnit.MILLISECONDS.toNanos(burstPeriodMs);
+            this.mNextBurst = System.nanoTime();
+        }
+
+        @Override
+        protected void update(long nowNanos) {
+            super.update(nowNanos);
+            if (mBurstSize > 0 && nowNanos >= mNextBurst) {
+                for (int i = 0; i < mBurstSize; i++) {
+                    // log data packet (port 5, channel 2) with 30 bytes of payload
+                    byte[] packet = new byte[31];
+                    packet[0] = 0x52;
+                    queuePacket(packet, nowNanos);
+                }
+                mNextBurst += mBurstPeriodNanos;
+            }
+        }
+
+        @Override
+        protected void handleCommanderPacket(byte[] packet) {
+            // thrust at offset 13 (header, roll, pitch, yaw)
+            int seq = (packet[13] & 0xFF) | ((packet[14] & 0xFF) << 8);
+            mCommanderLatency.add(System.nanoTime() - mCommanderSendTimes[seq % mCommanderSendTimes.length]);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.crtp;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Encoding and decoding of CRTP packets, executed for every packet sent to or received from the Crazyflie.
+ *
+ * Run with the gc profiler (default in the jmh task) to get the bytes allocated per operation (gc.alloc.rate.norm).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CrtpPacketBenchmark {
+
+    private final byte mHeader = new CrtpPacket.Header(2, CrtpPort.LOGGING).getByte();
+    private final byte[] mPayload = new byte[30];
+    private final byte[] mRawPacket = new byte[31];
+    private CrtpPacketPool mPacketPool;
+    private float mRoll;
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < mPayload.length; i++) {
+            mPayload[i] = (byte) i;
+        }
+        mRawPacket[0] = mHeader;
+        System.arraycopy(mPayload, 0, mRawPacket, 1, mPayload.length);
+        mPacketPool = new CrtpPacketPool(4);
+    }
+
+    @Benchmark
+    public byte[] encodeCrtpPacket() {
+        return new CrtpPacket(mHeader, mPayload).toByteArray();
+    }
+
+    @Benchmark
+    public byte[] encodeCommanderPacket() {
+        mRoll += 0.1f;
+        return new CommanderPacket(mRoll, -2.5f, 10.0f, (char) 32000).toByteArray();
+    }
+
+    @Benchmark
+    public byte[] encodeZDistancePacket() {
+        mRoll += 0.1f;
+        return new ZDistancePacket(mRoll, -2.5f, 10.0f, 0.4f).toByteArray();
+    }
+
+    @Benchmark
+    public CrtpPacket decodeCrtpPacket() {
+        return new CrtpPacket(mRawPacket);
+    }
+
+    @Benchmark
+    public int decodePooledCrtpPacket() {
+        CrtpPacket packet = mPacketPool.acquire(mRawPacket, 0, mRawPacket.length);
+        int header = packet.getHeaderByte();
+        packet.release();
+        return header;
+    }
+}
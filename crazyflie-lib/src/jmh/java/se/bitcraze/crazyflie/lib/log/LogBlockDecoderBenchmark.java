@@ -0,0 +1,107 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.log;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import se.bitcraze.crazyflie.lib.crtp.CrtpPacket;
+import se.bitcraze.crazyflie.lib.toc.VariableType;
+
+/**
+ * Decode throughput (log data packets per microsecond) of the precompiled {@link LogBlockDecoder}
+ * compared to parsing every variable with {@link VariableType#parse(ByteBuffer)}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LogBlockDecoderBenchmark {
+
+    /**
+     * floats: 6 floats (24 bytes), mixed: 3 floats, uint16, int8, int32 (19 bytes), bytes: 26 uint8
+     */
+    @Param({"floats", "mixed", "bytes"})
+    public String layout;
+
+    private LogConfig mLogConfig;
+    private LogBlockDecoder mDecoder;
+    private byte[] mPayload;
+    private int[] mValues;
+
+    @Setup
+    public void setup() {
+        mLogConfig = new LogConfig(layout, 10);
+        if ("floats".equals(layout)) {
+            for (int i = 0; i < 6; i++) {
+                mLogConfig.addVariable("float." + i, VariableType.FLOAT);
+            }
+        } else if ("mixed".equals(layout)) {
+            mLogConfig.addVariable("stabilizer.roll", VariableType.FLOAT);
+            mLogConfig.addVariable("stabilizer.pitch", VariableType.FLOAT);
+            mLogConfig.addVariable("stabilizer.yaw", VariableType.FLOAT);
+            mLogConfig.addVariable("stabilizer.thrust", VariableType.UINT16_T);
+            mLogConfig.addVariable("pm.state", VariableType.INT8_T);
+            mLogConfig.addVariable("motor.m1", VariableType.INT32_T);
+        } else {
+            for (int i = 0; i < 26; i++) {
+                mLogConfig.addVariable("byte." + i, VariableType.UINT8_T);
+            }
+        }
+        mDecoder = new LogBlockDecoder(mLogConfig.getLogVariables());
+        mValues = new int[mDecoder.size()];
+        mPayload = new byte[LogRecord.DATA_OFFSET + mDecoder.getDataLength()];
+        for (int i = 0; i < mPayload.length; i++) {
+            mPayload[i] = (byte) (i * 31);
+        }
+    }
+
+    @Benchmark
+    public int precompiledDecoder() {
+        mDecoder.decode(mPayload, LogRecord.DATA_OFFSET, mValues, 0);
+        return mValues[0];
+    }
+
+    @Benchmark
+    public double variableTypeParse() {
+        ByteBuffer buffer = ByteBuffer.wrap(mPayload, LogRecord.DATA_OFFSET, mPayload.length - LogRecord.DATA_OFFSET).order(CrtpPacket.BYTE_ORDER);
+        double sum = 0;
+        for (LogVariable logVariable : mLogConfig.getLogVariables()) {
+            sum += logVariable.getVariableType().parse(buffer).doubleValue();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.log;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import se.bitcraze.crazyflie.lib.crtp.CrtpPacket;
+import se.bitcraze.crazyflie.lib.toc.VariableType;
+
+/**
+ * Unpacking of log data packets, executed for every log block at its logging period.
+ *
+ * The log block mixes the common variable types (3 floats, uint16, int8 and int32, 19 bytes).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LogDataBenchmark {
+
+    private LogConfig mLogConfig;
+    private byte[] mPayload;
+    private byte[] mLogData;
+
+    @Setup
+    public void setup() {
+        mLogConfig = new LogConfig("benchmark", 10);
+        mLogConfig.addVariable("stabilizer.roll", VariableType.FLOAT);
+        mLogConfig.addVariable("stabilizer.pitch", VariableType.FLOAT);
+        mLogConfig.addVariable("stabilizer.yaw", VariableType.FLOAT);
+        mLogConfig.addVariable("stabilizer.thrust", VariableType.UINT16_T);
+        mLogConfig.addVariable("pm.state", VariableType.INT8_T);
+        mLogConfig.addVariable("motor.m1", VariableType.INT32_T);
+        mLogConfig.setId(1);
+
+        // id, timestamp (3 bytes), log data
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 19).order(CrtpPacket.BYTE_ORDER);
+        buffer.put((byte) 1);
+        buffer.put(new byte[] {0x10, 0x27, 0x00});
+        buffer.putFloat(1.5f);
+        buffer.putFloat(-2.25f);
+        buffer.putFloat(90.0f);
+        buffer.putShort((short) 40000);
+        buffer.put((byte) -1);
+        buffer.putInt(123456);
+        mPayload = buffer.array();
+        mLogData = new byte[19];
+        System.arraycopy(mPayload, 4, mLogData, 0, mLogData.length);
+    }
+
+    /**
+     * The complete path of Logg for a log data packet
+     */
+    @Benchmark
+    public Map<String, Number> parseLogData() {
+        Map<String, Number> logDataMap = new HashMap<String, Number>();
+        Logg.parseLogData(mPayload, mLogConfig, logDataMap);
+        return logDataMap;
+    }
+
+    @Benchmark
+    public Map<String, Number> unpackLogData() {
+        return mLogConfig.unpackLogData(mLogData);
+    }
+
+    /**
+     * Typed decoding into the reused record of the log configuration
+     */
+    @Benchmark
+    public float decodeLogRecord() {
+        LogRecord logRecord = mLogConfig.getLogRecord();
+        logRecord.decode(mLogConfig.getLogBlocks().get(0), mPayload);
+        return logRecord.getFloat(0);
+    }
+
+    @Benchmark
+    public int parseTimestamp() {
+        return Logg.parseTimestamp(mPayload[1], mPayload[2], mPayload[3]);
+    }
+}
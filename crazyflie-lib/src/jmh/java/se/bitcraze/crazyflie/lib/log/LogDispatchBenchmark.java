@@ -0,0 +1,123 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.log;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import se.bitcraze.crazyflie.lib.crazyflie.Crazyflie;
+import se.bitcraze.crazyflie.lib.crazyradio.ConnectionData;
+import se.bitcraze.crazyflie.lib.crazyradio.Crazyradio;
+import se.bitcraze.crazyflie.lib.crazyradio.RadioDriver;
+import se.bitcraze.crazyflie.lib.crtp.CrtpPacket;
+import se.bitcraze.crazyflie.lib.crtp.CrtpPort;
+import se.bitcraze.crazyflie.lib.sim.SimulatedCrazyflie;
+import se.bitcraze.crazyflie.lib.sim.SimulatedCrazyradio;
+import se.bitcraze.crazyflie.lib.toc.Toc;
+import se.bitcraze.crazyflie.lib.toc.TocElement;
+import se.bitcraze.crazyflie.lib.toc.VariableType;
+
+/**
+ * Cost per received packet on the receive path: parsing the raw packet, finding the log block
+ * of a log data packet and the TOC element of a param reply, with a large TOC and many active log blocks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LogDispatchBenchmark {
+
+    @Param({"250"})
+    public int tocSize;
+
+    @Param({"1", "16", "64"})
+    public int logBlocks;
+
+    private Logg mLogg;
+    private Toc mToc;
+    private byte[] mLogDataPacket;
+    private byte[] mParamReplyPacket;
+
+    @Setup
+    public void setup() {
+        ConnectionData connectionData = new ConnectionData(80, Crazyradio.DR_2MPS);
+        RadioDriver driver = new RadioDriver(new SimulatedCrazyradio(new SimulatedCrazyflie(), connectionData));
+        mLogg = new Logg(new Crazyflie(driver));
+
+        mToc = new Toc();
+        for (int i = 0; i < tocSize; i++) {
+            TocElement tocElement = new TocElement();
+            tocElement.setIdent(i);
+            tocElement.setGroup("group" + (i / 10));
+            tocElement.setName("name" + i);
+            tocElement.setCtype(VariableType.FLOAT);
+            mToc.addElement(tocElement);
+        }
+        mLogg.setToc(mToc);
+
+        // 6 floats per log block, the packets are for the last one
+        LogConfig logConfig = null;
+        for (int i = 0; i < logBlocks; i++) {
+            logConfig = new LogConfig("config" + i, 10);
+            for (int j = 0; j < 6; j++) {
+                int ident = (i * 6 + j) % tocSize;
+                logConfig.addVariable("group" + (ident / 10) + ".name" + ident);
+            }
+            mLogg.addConfig(logConfig);
+        }
+
+        mLogDataPacket = new byte[1 + LogRecord.DATA_OFFSET + 6 * 4];
+        mLogDataPacket[0] = new CrtpPacket.Header(2, CrtpPort.LOGGING).getByte();
+        mLogDataPacket[1] = (byte) logConfig.getId();
+        for (int i = 2; i < mLogDataPacket.length; i++) {
+            mLogDataPacket[i] = (byte) (i * 31);
+        }
+
+        mParamReplyPacket = new byte[] {new CrtpPacket.Header(1, CrtpPort.PARAMETERS).getByte(), (byte) (tocSize - 1), 0, 0, (byte) 0x80, 0x3F};
+    }
+
+    @Benchmark
+    public CrtpPacket logDataPacket() {
+        CrtpPacket packet = new CrtpPacket(mLogDataPacket);
+        mLogg.newPacketReceived(packet);
+        return packet;
+    }
+
+    @Benchmark
+    public TocElement paramReplyPacket() {
+        CrtpPacket packet = new CrtpPacket(mParamReplyPacket);
+        return mToc.getElementById(packet.getPayload()[0] & 0xFF);
+    }
+}
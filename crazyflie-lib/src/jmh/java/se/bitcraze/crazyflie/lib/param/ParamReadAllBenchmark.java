@@ -0,0 +1,118 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.param;
+
+import se.bitcraze.crazyflie.lib.crazyflie.Crazyflie;
+import se.bitcraze.crazyflie.lib.crazyradio.ConnectionData;
+import se.bitcraze.crazyflie.lib.crazyradio.Crazyradio;
+import se.bitcraze.crazyflie.lib.crazyradio.RadioDriver;
+import se.bitcraze.crazyflie.lib.sim.SimulatedCrazyflie;
+import se.bitcraze.crazyflie.lib.sim.SimulatedCrazyradio;
+import se.bitcraze.crazyflie.lib.toc.MemoryTocCache;
+import se.bitcraze.crazyflie.lib.toc.VariableType;
+
+/**
+ * Reads all 150 parameters of a simulated Crazyflie and reports the mean time until all values
+ * have been received and the number of resends, for a request per parameter through the request queue
+ * (window 0) and for the bulk read with different window sizes and downlink loss rates.
+ */
+public class ParamReadAllBenchmark {
+
+    private final static int[] WINDOW_SIZES = {0, 1, 4, 8, 16};
+    private final static double[] LOSS_RATES = {0.0, 0.05, 0.1};
+    private final static int RUNS = 3;
+    private final static long TRANSFER_TIME_MICROS = 300;
+    private final static long TIMEOUT_MS = 60000;
+
+    public static void main(String[] args) throws InterruptedException {
+        // warm up the JIT, otherwise the first configuration is slower
+        run(8, 0.0);
+        System.out.println("Window | downlink loss | read time (mean/max ms) | resends");
+        for (double lossRate : LOSS_RATES) {
+            for (int windowSize : WINDOW_SIZES) {
+                long[] result = run(windowSize, lossRate);
+                System.out.println(String.format("%d | %.2f | %d/%d | %d", windowSize, lossRate, result[0], result[1], result[2]));
+            }
+        }
+        // the driver threads of the simulated links are not daemon threads
+        System.exit(0);
+    }
+
+    /**
+     * @return mean and max read time in ms and mean number of resends
+     */
+    private static long[] run(int windowSize, double lossRate) throws InterruptedException {
+        long total = 0;
+        long max = 0;
+        long resends = 0;
+        for (int i = 0; i < RUNS; i++) {
+            SimulatedCrazyflie crazyflie = SimulatedCrazyflie.createDefault();
+            for (int j = 0; j < 135; j++) {
+                crazyflie.addParam("group" + (j / 10), "param" + j, VariableType.UINT8_T, false, j);
+            }
+            ConnectionData connectionData = new ConnectionData(80, Crazyradio.DR_2MPS);
+            SimulatedCrazyradio radio = new SimulatedCrazyradio(crazyflie, connectionData);
+            radio.setTransferLatencyMicros(TRANSFER_TIME_MICROS);
+
+            Crazyflie cf = new Crazyflie(new RadioDriver(radio), new MemoryTocCache(null));
+            cf.setConnectionData(connectionData);
+            cf.connect();
+            long start = System.currentTimeMillis();
+            while (!cf.isConnected() && System.currentTimeMillis() - start < TIMEOUT_MS) {
+                Thread.sleep(1);
+            }
+            crazyflie.setDownlinkLossRate(lossRate, i);
+            long resendsBefore = cf.getResendScheduler().getResendCount();
+
+            final Param param = cf.getParam();
+            final boolean[] finished = new boolean[1];
+            start = System.currentTimeMillis();
+            if (windowSize == 0) {
+                for (String completeName : param.getToc().getTocElementMap().keySet()) {
+                    param.requestParamUpdate(completeName);
+                }
+            } else {
+                param.setReadWindowSize(windowSize);
+                param.requestUpdateOfAllParams(new AllParamsUpdatedListener() {
+                    public void allParamsUpdated() {
+                        finished[0] = true;
+                    }
+                });
+            }
+            while (!(windowSize == 0 ? param.checkIfAllUpdated() : finished[0]) && System.currentTimeMillis() - start < TIMEOUT_MS) {
+                Thread.sleep(1);
+            }
+            long duration = System.currentTimeMillis() - start;
+            total += duration;
+            max = Math.max(max, duration);
+            resends += cf.getResendScheduler().getResendCount() - resendsBefore;
+            cf.disconnect();
+        }
+        return new long[] {total / RUNS, max, resends / RUNS};
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.param;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import se.bitcraze.crazyflie.lib.crazyflie.Crazyflie;
+import se.bitcraze.crazyflie.lib.crazyradio.ConnectionData;
+import se.bitcraze.crazyflie.lib.crazyradio.Crazyradio;
+import se.bitcraze.crazyflie.lib.crazyradio.RadioDriver;
+import se.bitcraze.crazyflie.lib.crtp.CrtpPacket;
+import se.bitcraze.crazyflie.lib.crtp.CrtpPort;
+import se.bitcraze.crazyflie.lib.sim.SimulatedCrazyflie;
+import se.bitcraze.crazyflie.lib.sim.SimulatedCrazyradio;
+import se.bitcraze.crazyflie.lib.toc.Toc;
+import se.bitcraze.crazyflie.lib.toc.TocElement;
+import se.bitcraze.crazyflie.lib.toc.VariableType;
+
+/**
+ * Cost of a param reply (storing the value and calling the listeners) and of reading values,
+ * with a large param TOC and a listener for every group.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ParamUpdateBenchmark {
+
+    @org.openjdk.jmh.annotations.Param({"250"})
+    public int tocSize;
+
+    private Param mParam;
+    private byte[] mParamReplyPacket;
+    private String mCompleteName;
+    private float mSum;
+
+    @Setup
+    public void setup() {
+        ConnectionData connectionData = new ConnectionData(80, Crazyradio.DR_2MPS);
+        RadioDriver driver = new RadioDriver(new SimulatedCrazyradio(new SimulatedCrazyflie(), connectionData));
+        mParam = new Param(new Crazyflie(driver));
+
+        Toc toc = mParam.getToc();
+        for (int i = 0; i < tocSize; i++) {
+            TocElement tocElement = new TocElement();
+            tocElement.setIdent(i);
+            tocElement.setGroup("group" + (i / 10));
+            tocElement.setName("name" + i);
+            tocElement.setCtype(VariableType.FLOAT);
+            toc.addElement(tocElement);
+        }
+        toc.freeze();
+        for (int i = 0; i < tocSize / 10; i++) {
+            mParam.addParamListener(new ParamListener("group" + i, null) {
+                @Override
+                public void updated(String name, Number value) {
+                    mSum += value.floatValue();
+                }
+            });
+        }
+        // all but the last parameter have been read once
+        for (int i = 0; i < tocSize - 1; i++) {
+            mParam.paramUpdated(new CrtpPacket(new byte[] {new CrtpPacket.Header(1, CrtpPort.PARAMETERS).getByte(), (byte) i, 0, 0, (byte) 0x80, 0x3F}));
+        }
+
+        mParamReplyPacket = new byte[] {new CrtpPacket.Header(1, CrtpPort.PARAMETERS).getByte(), (byte) (tocSize / 2), 0, 0, (byte) 0x80, 0x3F};
+        // not the instance that is stored in the TOC, like a name that comes from the UI
+        mCompleteName = new String("group" + (tocSize / 20) + ".name" + (tocSize / 2));
+    }
+
+    @Benchmark
+    public float paramReplyPacket() {
+        mParam.paramUpdated(new CrtpPacket(mParamReplyPacket));
+        return mSum;
+    }
+
+    @Benchmark
+    public boolean checkIfAllUpdated() {
+        return mParam.checkIfAllUpdated();
+    }
+
+    @Benchmark
+    public Number getValue() {
+        return mParam.getValue(mCompleteName);
+    }
+
+    @Benchmark
+    public Map<String, Map<String, Number>> getValuesMap() {
+        return mParam.getValuesMap();
+    }
+}
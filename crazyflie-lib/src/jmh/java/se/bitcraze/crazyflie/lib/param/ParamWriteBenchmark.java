@@ -0,0 +1,100 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.param;
+
+import se.bitcraze.crazyflie.lib.crazyflie.Crazyflie;
+import se.bitcraze.crazyflie.lib.crazyradio.ConnectionData;
+import se.bitcraze.crazyflie.lib.crazyradio.Crazyradio;
+import se.bitcraze.crazyflie.lib.crazyradio.RadioDriver;
+import se.bitcraze.crazyflie.lib.sim.SimulatedCrazyflie;
+import se.bitcraze.crazyflie.lib.sim.SimulatedCrazyradio;
+import se.bitcraze.crazyflie.lib.toc.MemoryTocCache;
+import se.bitcraze.crazyflie.lib.toc.VariableType;
+
+/**
+ * Sets a parameter of a simulated Crazyflie 500 times, once per ms like a slider in the UI, and reports
+ * the number of writes that have been sent and coalesced and the time from the last value until the
+ * Crazyflie has confirmed it, for different write intervals and downlink loss rates.
+ */
+public class ParamWriteBenchmark {
+
+    private final static long[] WRITE_INTERVALS_MS = {0, 10, 20, 50};
+    private final static double[] LOSS_RATES = {0.0, 0.1};
+    private final static int WRITES = 500;
+    private final static long TRANSFER_TIME_MICROS = 300;
+    private final static long TIMEOUT_MS = 60000;
+
+    public static void main(String[] args) throws InterruptedException {
+        // warm up the JIT, otherwise the first configuration is slower
+        run(0, 0.0);
+        System.out.println("Interval (ms) | downlink loss | sent | coalesced | confirmed | last value confirmed after (ms)");
+        for (double lossRate : LOSS_RATES) {
+            for (long interval : WRITE_INTERVALS_MS) {
+                long[] result = run(interval, lossRate);
+                System.out.println(String.format("%d | %.2f | %d | %d | %d | %d", interval, lossRate, result[0], result[1], result[2], result[3]));
+            }
+        }
+        // the driver threads of the simulated links are not daemon threads
+        System.exit(0);
+    }
+
+    /**
+     * @return sent, coalesced and confirmed writes and the time in ms until the last value has been confirmed
+     */
+    private static long[] run(long interval, double lossRate) throws InterruptedException {
+        SimulatedCrazyflie crazyflie = SimulatedCrazyflie.createDefault();
+        crazyflie.addParam("slider", "value", VariableType.UINT16_T, false, 0);
+        ConnectionData connectionData = new ConnectionData(80, Crazyradio.DR_2MPS);
+        SimulatedCrazyradio radio = new SimulatedCrazyradio(crazyflie, connectionData);
+        radio.setTransferLatencyMicros(TRANSFER_TIME_MICROS);
+
+        Crazyflie cf = new Crazyflie(new RadioDriver(radio), new MemoryTocCache(null));
+        cf.setConnectionData(connectionData);
+        cf.connect();
+        long start = System.currentTimeMillis();
+        while (!cf.isConnected() && System.currentTimeMillis() - start < TIMEOUT_MS) {
+            Thread.sleep(1);
+        }
+        crazyflie.setDownlinkLossRate(lossRate, 1);
+
+        Param param = cf.getParam();
+        param.setWriteInterval(interval);
+        for (int i = 1; i <= WRITES; i++) {
+            param.setValue("slider.value", i);
+            Thread.sleep(1);
+        }
+        start = System.currentTimeMillis();
+        while (!Integer.valueOf(WRITES).equals(param.getValue("slider.value")) && System.currentTimeMillis() - start < TIMEOUT_MS) {
+            Thread.sleep(1);
+        }
+        long duration = System.currentTimeMillis() - start;
+        long[] result = new long[] {param.getSentWriteCount(), param.getCoalescedWriteCount(), param.getConfirmedWriteCount(), duration};
+        cf.disconnect();
+        return result;
+    }
+}
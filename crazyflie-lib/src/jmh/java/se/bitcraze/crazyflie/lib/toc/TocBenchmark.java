@@ -0,0 +1,99 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.toc;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * TOC lookups, eg. when a parameter update is received, in a TOC that is being filled and in a frozen TOC.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TocBenchmark {
+
+    // typical log/param TOC sizes of the Crazyflie 2.0 firmware
+    @Param({"50", "250"})
+    public int tocSize;
+
+    @Param({"false", "true"})
+    public boolean frozen;
+
+    private Toc mToc;
+    private int mIdent;
+    private String mCompleteName;
+
+    @Setup
+    public void setup() {
+        mToc = new Toc();
+        for (int i = 0; i < tocSize; i++) {
+            TocElement tocElement = new TocElement();
+            tocElement.setIdent(i);
+            tocElement.setGroup("group" + (i / 10));
+            tocElement.setName("name" + i);
+            tocElement.setCtype(VariableType.FLOAT);
+            mToc.addElement(tocElement);
+        }
+        if (frozen) {
+            mToc.freeze();
+        }
+        mIdent = tocSize / 2;
+        // not the instance that is stored in the TOC, like a name that comes from the UI
+        mCompleteName = new String("group" + (mIdent / 10) + ".name" + mIdent);
+    }
+
+    @Benchmark
+    public TocElement getElementById() {
+        return mToc.getElementById(mIdent);
+    }
+
+    @Benchmark
+    public TocElement getElementByCompleteName() {
+        return mToc.getElementByCompleteName(mCompleteName);
+    }
+
+    @Benchmark
+    public List<TocElement> getElements() {
+        return mToc.getElements();
+    }
+
+    @Benchmark
+    public int getVariableTypeIdLog() {
+        return mToc.getVariableTypeIdLog(VariableType.FLOAT);
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.toc;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import se.bitcraze.crazyflie.lib.crtp.CrtpPort;
+
+/**
+ * JSON (TocCache) against binary (BinaryTocCache) TOC cache and the in-memory cache in front of the binary cache
+ * (MemoryTocCache), with the TOCs of four firmware versions in the cache.
+ *
+ * A cold connect creates the cache (e.g. after the app has been started) and looks up the TOC,
+ * a warm connect looks up the TOC in a cache that is already open. Insert stores a newly fetched TOC.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TocCacheBenchmark {
+
+    @Param({"json", "binary", "memory"})
+    public String format;
+
+    @Param({"250"})
+    public int tocSize;
+
+    private static final int FIRMWARE_VERSIONS = 4;
+
+    private File mCacheDir;
+    private TocCache mTocCache;
+    private Toc mToc;
+    private int mCrc;
+
+    @Setup
+    public void setup() throws IOException {
+        mCacheDir = Files.createTempDirectory("toccache").toFile();
+        mTocCache = createCache();
+        for (int i = 0; i < FIRMWARE_VERSIONS; i++) {
+            mTocCache.insert(0x1000 + i, CrtpPort.LOGGING, createToc(tocSize, "log" + i));
+            mTocCache.insert(0x1000 + i, CrtpPort.PARAMETERS, createToc(tocSize / 2, "param" + i));
+        }
+        mToc = createToc(tocSize, "new");
+        mCrc = 0x1000 + FIRMWARE_VERSIONS - 1;
+    }
+
+    private TocCache createCache() {
+        if ("memory".equals(format)) {
+            return new MemoryTocCache(new BinaryTocCache(mCacheDir));
+        }
+        return "binary".equals(format) ? new BinaryTocCache(mCacheDir) : new TocCache(mCacheDir);
+    }
+
+    private static Toc createToc(int size, String prefix) {
+        Toc toc = new Toc();
+        for (int i = 0; i < size; i++) {
+            TocElement tocElement = new TocElement();
+            tocElement.setIdent(i);
+            tocElement.setGroup(prefix + "group" + (i / 10));
+            tocElement.setName("variable" + i);
+            tocElement.setCtype(VariableType.FLOAT);
+            toc.addElement(tocElement);
+        }
+        return toc;
+    }
+
+    @TearDown
+    public void tearDown() {
+        mTocCache.clear();
+        delete(mCacheDir);
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    @Benchmark
+    public Toc coldConnect() {
+        return createCache().fetch(mCrc, CrtpPort.LOGGING);
+    }
+
+    @Benchmark
+    public Toc warmConnect() {
+        return mTocCache.fetch(mCrc, CrtpPort.LOGGING);
+    }
+
+    @Benchmark
+    public void insert() {
+        mTocCache.insert(0x2000, CrtpPort.LOGGING, mToc);
+    }
+}
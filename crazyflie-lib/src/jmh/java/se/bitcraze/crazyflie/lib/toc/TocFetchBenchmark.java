@@ -0,0 +1,125 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.toc;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import se.bitcraze.crazyflie.lib.crazyflie.Crazyflie;
+import se.bitcraze.crazyflie.lib.crazyradio.ConnectionData;
+import se.bitcraze.crazyflie.lib.crazyradio.Crazyradio;
+import se.bitcraze.crazyflie.lib.crazyradio.RadioDriver;
+import se.bitcraze.crazyflie.lib.sim.SimulatedCrazyflie;
+import se.bitcraze.crazyflie.lib.sim.SimulatedCrazyradio;
+
+/**
+ * Connects to a simulated Crazyflie with about 250 log variables and 150 parameters (empty TOC cache)
+ * and reports the mean connection setup time for different TOC fetch window sizes and downlink loss rates,
+ * with the log and param TOCs fetched one after another (sequential) and at the same time (parallel).
+ */
+public class TocFetchBenchmark {
+
+    private final static int[] WINDOW_SIZES = {1, 2, 4, 8, 16};
+    private final static double[] LOSS_RATES = {0.0, 0.02, 0.05, 0.1};
+    private final static int RUNS = 3;
+    private final static long TRANSFER_TIME_MICROS = 300;
+    private final static long TIMEOUT_MS = 60000;
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        // warm up the JIT, otherwise the first configuration is slower
+        run(1, 0.0, false);
+        System.out.println("Window | downlink loss | sequential (mean/max ms) | resends | parallel (mean/max ms) | resends");
+        for (double lossRate : LOSS_RATES) {
+            for (int windowSize : WINDOW_SIZES) {
+                long[] sequential = run(windowSize, lossRate, false);
+                long[] parallel = run(windowSize, lossRate, true);
+                System.out.println(String.format("%d | %.2f | %d/%d | %d | %d/%d | %d", windowSize, lossRate,
+                        sequential[0], sequential[1], sequential[2], parallel[0], parallel[1], parallel[2]));
+            }
+        }
+        // the driver threads of the simulated links are not daemon threads
+        System.exit(0);
+    }
+
+    /**
+     * @return mean and max connect time in ms and mean number of resends
+     */
+    private static long[] run(int windowSize, double lossRate, boolean parallel) throws InterruptedException, IOException {
+        long total = 0;
+        long max = 0;
+        long resends = 0;
+        for (int i = 0; i < RUNS; i++) {
+            SimulatedCrazyflie crazyflie = createCrazyflie();
+            crazyflie.setDownlinkLossRate(lossRate, i);
+            ConnectionData connectionData = new ConnectionData(80, Crazyradio.DR_2MPS);
+            SimulatedCrazyradio radio = new SimulatedCrazyradio(crazyflie, connectionData);
+            radio.setTransferLatencyMicros(TRANSFER_TIME_MICROS);
+
+            File cacheDir = Files.createTempDirectory("toccache").toFile();
+            Crazyflie cf = new Crazyflie(new RadioDriver(radio), cacheDir);
+            cf.setConnectionData(connectionData);
+            cf.setTocFetchWindowSize(windowSize);
+            cf.setParallelConnectionSetup(parallel);
+
+            long start = System.currentTimeMillis();
+            cf.connect();
+            while (!cf.isConnected() && System.currentTimeMillis() - start < TIMEOUT_MS) {
+                Thread.sleep(1);
+            }
+            long duration = System.currentTimeMillis() - start;
+            total += duration;
+            max = Math.max(max, duration);
+            resends += cf.getResendScheduler().getResendCount();
+            cf.disconnect();
+            delete(cacheDir);
+        }
+        return new long[] {total / RUNS, max, resends / RUNS};
+    }
+
+    private static SimulatedCrazyflie createCrazyflie() {
+        SimulatedCrazyflie crazyflie = SimulatedCrazyflie.createDefault();
+        for (int i = 0; i < 230; i++) {
+            crazyflie.addLogVariable("group" + (i / 10), "var" + i, VariableType.FLOAT);
+        }
+        for (int i = 0; i < 135; i++) {
+            crazyflie.addParam("group" + (i / 10), "param" + i, VariableType.UINT8_T, false, 0);
+        }
+        return crazyflie;
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -28,11 +28,9 @@
 package se.bitcraze.crazyflie.lib.bootloader;
 
 import java.io.BufferedInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.RandomAccessFile;
@@ -42,10 +40,8 @@ import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
-import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
-import java.util.zip.ZipInputStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -72,9 +68,18 @@ public class Bootloader {
     final Logger mLogger = LoggerFactory.getLogger("Bootloader");
 
     private static ObjectMapper mMapper = new ObjectMapper(); // can reuse, share globally
-    private static final String MANIFEST_FILENAME = "manifest.json";
     private Cloader mCload;
     private boolean mCancelled = false;
+    private boolean mOverlapFlashWrites = true;
+    private volatile FlashPipeline mFlashPipeline;
+    private double mFlashBytesPerSecond = 0;
+    private boolean mDeltaFlash = false;
+    private int mWrittenPages = 0;
+    private int mSkippedPages = 0;
+    private boolean mVerifyFlash = false;
+    private int mVerifyWindowSize = FlashReader.DEFAULT_WINDOW_SIZE;
+    private double mVerifyBytesPerSecond = 0;
+    private List<Integer> mMismatchPages = new ArrayList<Integer>();
     private List<BootloaderListener> mBootloaderListeners = Collections.synchronizedList(new LinkedList<BootloaderListener>());
 
     /**
@@ -231,16 +236,12 @@ public class Bootloader {
         // check if supplied targetNames are known TargetTypes, if so, continue, else return
 
         if (isZipFile(file)) {
-            // unzip
-            unzip(file);
-
-            // read manifest.json
-            File basePath = new File(file.getAbsoluteFile().getParent() + "/" + getFileNameWithoutExtension(file));
-            File manifestFile = new File(basePath.getAbsolutePath(), MANIFEST_FILENAME);
-            if (basePath.exists() && manifestFile.exists()) {
+            // read manifest.json and stream the images from the zip file while flashing them
+            FirmwareBundle bundle = new FirmwareBundle(file);
+            try {
                 Manifest mf = null;
                 try {
-                    mf = readManifest(manifestFile);
+                    mf = bundle.readManifest();
                 } catch (IOException ioe) {
                     mLogger.error("Error while trying to read manifest file:\n" + ioe.getMessage());
                 }
@@ -255,10 +256,12 @@ public class Bootloader {
                     FirmwareDetails firmwareDetails = mf.getFiles().get(fileName);
                     Target t = this.mCload.getTargets().get(TargetTypes.fromString(firmwareDetails.getTarget()));
                     if (t != null) {
-                        // use path to extracted file
-                        //File flashFile = new File(file.getParent() + "/" + file.getName() + "/" + fileName);
-                        File flashFile = new File(basePath.getAbsolutePath(), fileName);
-                        FlashTarget ft = new FlashTarget(t, readFile(flashFile), firmwareDetails.getType(), t.getStartPage()); //TODO: does startPage HAVE to be an extra argument!? (it's already included in Target)
+                        long size = bundle.getEntrySize(fileName);
+                        if (size < 0 || size > Integer.MAX_VALUE) {
+                            mLogger.error("Zip file " + file.getName() + " does not include " + fileName);
+                            continue;
+                        }
+                        FlashTarget ft = new FlashTarget(t, file, fileName, (int) size, firmwareDetails.getType(), t.getStartPage()); //TODO: does startPage HAVE to be an extra argument!? (it's already included in Target)
                         // add flash target
                         // if no target names are specified, flash everything
                         if (targetNames == null || targetNames.length == 0 || targetNames[0].isEmpty()) {
@@ -280,8 +283,8 @@ public class Bootloader {
                         mLogger.error("No target found for " + firmwareDetails.getTarget());
                     }
                 }
-            } else {
-                mLogger.error("Zip file " + file.getName() + " does not include a " + MANIFEST_FILENAME);
+            } finally {
+                bundle.close();
             }
         } else { // File is not a Zip file
             // add single flash target
@@ -291,7 +294,7 @@ public class Bootloader {
                 for (String tn : targetNames) {
                     if (!tn.isEmpty()) {
                         Target target = this.mCload.getTargets().get(TargetTypes.fromString(tn));
-                        FlashTarget ft = new FlashTarget(target, readFile(file), "binary", target.getStartPage());
+                        FlashTarget ft = new FlashTarget(target, file, null, (int) file.length(), "binary", target.getStartPage());
                         filesToFlash.add(ft);
                     }
                 }
@@ -300,66 +303,6 @@ public class Bootloader {
         return filesToFlash;
     }
 
-    private void unzip(File zipFile) {
-        mLogger.debug("Trying to unzip " + zipFile + "...");
-        InputStream fis = null;
-        ZipInputStream zis = null;
-        FileOutputStream fos = null;
-        String parent = zipFile.getAbsoluteFile().getParent();
-
-        try {
-            fis = new FileInputStream(zipFile);
-            zis = new ZipInputStream(new BufferedInputStream(fis));
-            ZipEntry ze;
-            while ((ze = zis.getNextEntry()) != null) {
-                ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                byte[] buffer = new byte[1024];
-                int count;
-                while ((count = zis.read(buffer)) != -1) {
-                    baos.write(buffer, 0, count);
-                }
-                String filename = ze.getName();
-                byte[] bytes = baos.toByteArray();
-                // write files
-                File filePath = new File(parent + "/" + getFileNameWithoutExtension(zipFile) + "/" + filename);
-                // create subdir
-                filePath.getParentFile().mkdirs();
-                fos = new FileOutputStream(filePath);
-                fos.write(bytes);
-                //check
-                if(filePath.exists() && filePath.length() > 0) {
-                    mLogger.debug(filename + " successfully extracted to " + filePath.getAbsolutePath());
-                } else {
-                    mLogger.error(filename + " was not extracted.");
-                }
-            }
-        } catch (FileNotFoundException ffe) {
-            mLogger.error(ffe.getMessage());
-        } catch (IOException ioe) {
-            mLogger.error(ioe.getMessage());
-        } finally {
-            if (zis != null) {
-                try {
-                    zis.close();
-                } catch (IOException e) {
-                    mLogger.error(e.getMessage());
-                }
-            }
-            if (fos != null) {
-                try {
-                    fos.close();
-                } catch (IOException e) {
-                    mLogger.error(e.getMessage());
-                }
-            }
-
-        }
-    }
-
-    private static String getFileNameWithoutExtension (File file) {
-        return file.getName().substring(0, file.getName().length()-4);
-    }
-
     /**
      * Basic check if a file is a Zip file
      *
@@ -419,81 +362,204 @@ public class Bootloader {
     // def _internal_flash(self, target, current_file_number=1, total_files=1):
     private boolean internalFlash(FlashTarget flashTarget, int currentFileNo, int totalFiles) {
         Target t_data = flashTarget.getTarget();
-        byte[] image = flashTarget.getData();
+        int imageLength = flashTarget.getLength();
         int pageSize = t_data.getPageSize();
-        int startPage = flashTarget.getStartPage();
 
         String flashingTo = "Flashing to " + TargetTypes.toString(t_data.getId()) + " (" + flashTarget.getType() + ")";
         mLogger.info(flashingTo);
         notifyUpdateStatus(flashingTo);
 
         //if len(image) > ((t_data.flash_pages - start_page) * t_data.page_size):
-        if (image.length > ((t_data.getFlashPages() - startPage) * pageSize)) {
+        if (imageLength > ((t_data.getFlashPages() - flashTarget.getStartPage()) * pageSize)) {
             mLogger.error("Error: Not enough space to flash the image file.");
             //raise Exception()
             return false;
         }
 
-        int noOfPages = (image.length / pageSize) + 1;
-        mLogger.info(image.length - 1 + " bytes (" + noOfPages + " pages) ");
+        int noOfPages = (imageLength + pageSize - 1) / pageSize;
+        mLogger.info(imageLength + " bytes (" + noOfPages + " pages) ");
 
-        // For each page
-        int bufferCounter = 0; // Buffer counter
-        int i = 0;
-        for (i = 0; i < ((image.length - 1) / pageSize) + 1; i++) {
-            // Load the buffer
-            int end = 0;
-            if (((i + 1) * pageSize) > image.length) {
-                //buff = image[i * t_data.page_size:]
-                end = image.length;
-            } else {
-                //buff = image[i * t_data.page_size:(i + 1) * t_data.page_size])
-                end = (i + 1) * pageSize;
+        FlashPipeline flashPipeline = new FlashPipeline(this.mCload, t_data, flashTarget.getStartPage(), mOverlapFlashWrites, new BootloaderListener() {
+            public void updateProgress(int progress, int max) {
+                notifyUpdateProgress(progress, max);
             }
-            byte[] buffer = Arrays.copyOfRange(image, i * pageSize, end);
-
-            notifyUpdateProgress(i+1, noOfPages);
 
-            if (isCancelled()) {
-                break;
+            public void updateStatus(String status) {
+                notifyUpdateStatus(status);
             }
 
-            this.mCload.uploadBuffer(t_data.getId(), bufferCounter, 0, buffer);
-
-            bufferCounter++;
-
-            // Flash when the complete buffers are full
-            if (bufferCounter >= t_data.getBufferPages()) {
-                String buffersFull = "Flashing page " + (i+1) + "...";
-                mLogger.info(buffersFull);
-                notifyUpdateStatus(buffersFull);
-                notifyUpdateProgress(i+1, noOfPages);
-                if (!this.mCload.writeFlash(t_data.getId(), 0, startPage + i - (bufferCounter - 1), bufferCounter)) {
-                    handleFlashError();
-                    //raise Exception()
-                    return false;
+            public void updateError(String error) {
+                notifyUpdateError(error);
+            }
+        });
+        flashPipeline.setDelta(mDeltaFlash);
+        mFlashPipeline = flashPipeline;
+        if (isCancelled()) {
+            flashPipeline.cancel();
+        }
+        boolean flashed;
+        InputStream image = null;
+        try {
+            image = flashTarget.openImage();
+            flashed = flashPipeline.flash(image, imageLength);
+        } catch (IOException ioe) {
+            mLogger.error("Error while reading the image: " + ioe.getMessage());
+            flashed = false;
+        } finally {
+            mFlashPipeline = null;
+            if (image != null) {
+                try {
+                    image.close();
+                } catch (IOException ioe) {
+                    mLogger.error(ioe.getMessage());
                 }
-                bufferCounter = 0;
             }
         }
         if (isCancelled()) {
             mLogger.info("Flashing cancelled!");
             return false;
         }
-        if (bufferCounter > 0) {
-            mLogger.info("BufferCounter: " + bufferCounter);
-            notifyUpdateProgress(i, noOfPages);
-            if (!this.mCload.writeFlash(t_data.getId(), 0, (startPage + ((image.length - 1) / pageSize)) - (bufferCounter - 1), bufferCounter)) {
-                handleFlashError();
-                //raise Exception()
-                return false;
+        if (!flashed) {
+            handleFlashError();
+            //raise Exception()
+            return false;
+        }
+        mFlashBytesPerSecond = flashPipeline.getBytesPerSecond();
+        mWrittenPages = flashPipeline.getWrittenPageCount();
+        mSkippedPages = flashPipeline.getSkippedPageCount();
+        String flashingDone = String.format("Flashing done! (%.1f kB/s)", mFlashBytesPerSecond / 1024);
+        if (mDeltaFlash) {
+            flashingDone = String.format("Flashing done! (%d of %d pages changed, %.1f kB/s)", mWrittenPages, mWrittenPages + mSkippedPages, mFlashBytesPerSecond / 1024);
+        }
+        mLogger.info(flashingDone);
+        notifyUpdateStatus(flashingDone);
+        if (mVerifyFlash) {
+            return verify(flashPipeline, t_data, flashTarget.getStartPage());
+        }
+        return true;
+    }
+
+    private boolean verify(FlashPipeline flashPipeline, Target target, int startPage) {
+        mLogger.info("Verifying flash...");
+        notifyUpdateStatus("Verifying flash...");
+        FlashVerifier flashVerifier = new FlashVerifier(this.mCload, target, startPage, mVerifyWindowSize, new BootloaderListener() {
+            public void updateProgress(int progress, int max) {
+                notifyUpdateProgress(progress, max);
+            }
+
+            public void updateStatus(String status) {
+                notifyUpdateStatus(status);
+            }
+
+            public void updateError(String error) {
+                notifyUpdateError(error);
             }
+        });
+        boolean verified = flashVerifier.verify(flashPipeline.getPageCount(), flashPipeline.getPageLengths(), flashPipeline.getPageCrcs());
+        mMismatchPages = new ArrayList<Integer>(flashVerifier.getMismatchPages());
+        mVerifyBytesPerSecond = flashVerifier.getBytesPerSecond();
+        if (!mMismatchPages.isEmpty()) {
+            notifyUpdateError("Flash verification failed, " + mMismatchPages.size() + " pages differ from the image: " + mMismatchPages);
+            return false;
         }
-        mLogger.info("Flashing done!");
-        notifyUpdateStatus("Flashing done!");
+        if (!verified) {
+            notifyUpdateError("Flash verification failed, could not read back the flash.");
+            return false;
+        }
+        String verifyDone = String.format("Verification done! (%.1f kB/s)", mVerifyBytesPerSecond / 1024);
+        mLogger.info(verifyDone);
+        notifyUpdateStatus(verifyDone);
         return true;
     }
 
+    /**
+     * Load the next page group into the page buffer while the previous one is written to flash (default),
+     * otherwise the page buffer is only loaded while the target does not write flash.
+     */
+    public void setOverlapFlashWrites(boolean overlap) {
+        this.mOverlapFlashWrites = overlap;
+    }
+
+    public boolean isOverlapFlashWrites() {
+        return mOverlapFlashWrites;
+    }
+
+    /**
+     * Returns the throughput of the last successful flash operation in bytes per second
+     */
+    public double getFlashBytesPerSecond() {
+        return mFlashBytesPerSecond;
+    }
+
+    /**
+     * Only write the pages of an image that differ from the flash content.
+     *
+     * Every page of the image is read back from flash and compared with the image page by its CRC,
+     * so it does not matter who has flashed the copter before. The bootloader has no checksum command and
+     * reading a page back takes as many radio transfers as loading it: delta flashing does not make flashing
+     * faster, an image with a few changed pages takes about as long as a full flash. It saves the erase and write
+     * cycles of the unchanged pages. If none of the first pages is in flash, the copter holds another image and
+     * the rest is flashed without reading it back, which limits the extra time to reading those pages.
+     */
+    public void setDeltaFlash(boolean deltaFlash) {
+        this.mDeltaFlash = deltaFlash;
+    }
+
+    public boolean isDeltaFlash() {
+        return mDeltaFlash;
+    }
+
+    /**
+     * Returns the number of pages that have been written by the last successful flash operation
+     */
+    public int getWrittenPageCount() {
+        return mWrittenPages;
+    }
+
+    /**
+     * Returns the number of unchanged pages that have been skipped by the last successful flash operation
+     */
+    public int getSkippedPageCount() {
+        return mSkippedPages;
+    }
+
+    /**
+     * Read back the flashed pages after flashing and compare them with the image
+     */
+    public void setVerifyFlash(boolean verifyFlash) {
+        this.mVerifyFlash = verifyFlash;
+    }
+
+    public boolean isVerifyFlash() {
+        return mVerifyFlash;
+    }
+
+    /**
+     * Set the number of outstanding READ_FLASH requests of the verification
+     *
+     * @param windowSize number of outstanding requests, at least 1
+     */
+    public void setVerifyWindowSize(int windowSize) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("Window size must be at least 1.");
+        }
+        this.mVerifyWindowSize = windowSize;
+    }
+
+    /**
+     * Returns the flash pages that differed from the image in the last verification
+     */
+    public List<Integer> getMismatchPages() {
+        return mMismatchPages;
+    }
+
+    /**
+     * Returns the throughput of the last verification in bytes per second
+     */
+    public double getVerifyBytesPerSecond() {
+        return mVerifyBytesPerSecond;
+    }
+
     private boolean isCancelled() {
         return mCancelled;
     }
@@ -503,6 +569,10 @@ public class Bootloader {
         if (mCload != null) {
             mCload.cancel();
         }
+        FlashPipeline flashPipeline = mFlashPipeline;
+        if (flashPipeline != null) {
+            flashPipeline.cancel();
+        }
     }
 
     private void handleFlashError() {
@@ -553,19 +623,50 @@ public class Bootloader {
     /* package private */ class FlashTarget {
 
         private Target mTarget;
-        private byte[] mData = new byte[0];
+        private byte[] mData;
+        private File mFile;
+        private String mEntryName;
+        private int mLength;
         private String mType = "";
         private int mStartPage;
 
         public FlashTarget(Target target, byte[] data, String type, int startPage) {
             this.mTarget = target;
             this.mData = data;
+            this.mLength = data.length;
+            this.mType = type;
+            this.mStartPage = startPage;
+        }
+
+        /**
+         * @param file image file or firmware zip file
+         * @param entryName name of the image in the zip file, null if the file is the image
+         * @param length length of the image in bytes
+         */
+        public FlashTarget(Target target, File file, String entryName, int length, String type, int startPage) {
+            this.mTarget = target;
+            this.mFile = file;
+            this.mEntryName = entryName;
+            this.mLength = length;
             this.mType = type;
             this.mStartPage = startPage;
         }
 
-        public byte[] getData() {
-            return mData;
+        /**
+         * Open the image for reading, the caller has to close the stream
+         */
+        public InputStream openImage() throws IOException {
+            if (mData != null) {
+                return new ByteArrayInputStream(mData);
+            }
+            if (mEntryName != null) {
+                return FirmwareBundle.openEntry(mFile, mEntryName);
+            }
+            return new BufferedInputStream(new FileInputStream(mFile));
+        }
+
+        public int getLength() {
+            return mLength;
         }
 
         public Target getTarget() {
@@ -582,7 +683,7 @@ public class Bootloader {
 
         @Override
         public String toString() {
-            return "FlashTarget [target ID=" + TargetTypes.toString(mTarget.getId()) + ", data.length=" + mData.length + ", type=" + mType + ", startPage=" + mStartPage + "]";
+            return "FlashTarget [target ID=" + TargetTypes.toString(mTarget.getId()) + ", length=" + mLength + ", type=" + mType + ", startPage=" + mStartPage + "]";
         }
 
     }
@@ -600,6 +701,19 @@ public class Bootloader {
         return null;
     }
 
+    /* package private */ static Manifest readManifest (InputStream in, String name) throws IOException {
+        String errorMessage = "";
+        try {
+            return mMapper.readValue(in, Manifest.class);
+        } catch (JsonParseException jpe) {
+            errorMessage = jpe.getMessage();
+        } catch (JsonMappingException jme) {
+            errorMessage = jme.getMessage();
+        }
+        LoggerFactory.getLogger("Bootloader").error("Error while parsing manifest " + name + ": " + errorMessage);
+        return null;
+    }
+
     public static void writeManifest (String fileName, Manifest manifest) throws IOException {
         String errorMessage = "";
         mMapper.enable(SerializationFeature.INDENT_OUTPUT);
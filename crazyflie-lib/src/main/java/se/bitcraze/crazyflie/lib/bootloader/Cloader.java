@@ -79,6 +79,8 @@ public class Cloader {
     public final static int WRITE_FLASH = 0x18;
     public final static int READ_FLASH = 0x1C;
 
+    public final static long WRITE_FLASH_TIMEOUT_MS = 10000;
+
 
     /**
      * Init the communication class by starting to communicate with the link given.
@@ -476,52 +478,25 @@ public class Cloader {
      */
     //def read_flash(self, addr=0xFF, page=0x00):
     public byte[] readFlash(int addr, int page) {
-        ByteBuffer buff = null;
-
         Target target = this.mTargets.get(addr);
-        if (target != null) {
-            int pageSize = target.getPageSize();
-            buff = ByteBuffer.allocate(pageSize + 1);
-
-            for (int i = 0; i < Math.ceil(pageSize / 25.0); i++) {
-                CrtpPacket replyPk = null;
-                int retryCounter = 5;
-
-                while (retryCounter >= 0) {
-                    ByteBuffer bb = ByteBuffer.allocate(6).order(ByteOrder.LITTLE_ENDIAN);
-                    bb.put((byte) addr);
-                    bb.put((byte) READ_FLASH);
-                    bb.putChar((char) page);
-                    bb.putChar((char) (i*25));
-
-                    sendBootloaderPacket(bb.array());
-
-                    //System.out.println("ByteString send: " + getHexString(pk.getPayload()) + " " + UsbLinkJava.getByteString(pk.getPayload()));
-
-                    //TODO: why is this different than in Python?
-                    //does it have something to do with the queue size??
-                    //yes, the queue is filled with empty packets
-                    //how can this be avoided?
-                    while(!isBootloaderReplyPacket(replyPk, addr, READ_FLASH)) {
-                        replyPk = this.mDriver.receivePacket(10);
-                    }
-                    if (replyPk != null) {
-                        break;
-                    }
-                    retryCounter--;
-                }
-                if (retryCounter < 0) {
-                    mLogger.debug("Returning null...");
-                    return new byte[0];
-                } else {
-                    buff.put(replyPk.getPayload(), 6, replyPk.getPayload().length - 6);
-                }
-            }
-
+        if (target == null) {
+            return new byte[0];
+        }
+        int pageSize = target.getPageSize();
+        int chunks = (pageSize + FlashReader.CHUNK_SIZE - 1) / FlashReader.CHUNK_SIZE;
+        int[] pages = new int[chunks];
+        int[] addresses = new int[chunks];
+        for (int i = 0; i < chunks; i++) {
+            pages[i] = page;
+            addresses[i] = i * FlashReader.CHUNK_SIZE;
         }
-        //return buff[0:page_size]  # For some reason we get one byte extra here...
-        //-> because of the ceil function?
-        return buff.array();
+        byte[] buff = new byte[pageSize];
+        if (!new FlashReader(this, target, FlashReader.DEFAULT_WINDOW_SIZE).read(chunks, pages, addresses, buff, addresses)) {
+            mLogger.debug("Returning null...");
+            return new byte[0];
+        }
+        //return buff[0:page_size]
+        return buff;
     }
 
     /**
@@ -532,8 +507,14 @@ public class Cloader {
         #print "Write page", flashPage
         #print "Writing page [%d] and [%d] forward" % (flashPage, nPage)
         */
-        CrtpPacket replyPk = null;
-        int retryCounter = 5;
+        sendWriteFlash(addr, pageBuffer, targetPage, pageCount);
+        return waitForWriteFlash(addr, WRITE_FLASH_TIMEOUT_MS);
+    }
+
+    /**
+     * Send a WRITE_FLASH request without waiting for the reply
+     */
+    /* package private */ void sendWriteFlash(int addr, int pageBuffer, int targetPage, int pageCount) {
         //#print "Flashing to 0x{:X}".format(addr)
 
         //pk.data = struct.pack("<BBHHH", addr, 0x18, page_buffer, target_page, page_count)
@@ -544,16 +525,29 @@ public class Cloader {
         bb.putChar((char) targetPage);
         bb.putChar((char) pageCount);
         sendBootloaderPacket(bb.array());
+    }
 
-        while(!isBootloaderReplyPacket(replyPk, addr, WRITE_FLASH) && retryCounter >= 0 && !isCancelled()) {
+    /**
+     * Wait for the reply to a WRITE_FLASH request
+     *
+     * @param addr target
+     * @param timeoutMillis time to wait for the reply
+     * @return true if the pages have been written
+     */
+    /* package private */ boolean waitForWriteFlash(int addr, long timeoutMillis) {
+        CrtpPacket replyPk = null;
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while(!isBootloaderReplyPacket(replyPk, addr, WRITE_FLASH) && !isCancelled()) {
+            if (System.currentTimeMillis() >= deadline) {
+                mLogger.debug("No reply to WRITE_FLASH within {}ms", timeoutMillis);
+                mErrorMessage = "Timeout while writing flash";
+                //self.error_code = -1
+                return false;
+            }
             replyPk = this.mDriver.receivePacket(1);
-            //TODO: why does it not work, when the retryCounter is activated?
-//            retryCounter--;
         }
-
-        if (retryCounter < 0) {
-            mLogger.debug("RetryCounter is < 0!");
-            //self.error_code = -1
+        if (replyPk == null) {
+            // cancelled
             return false;
         }
 
@@ -575,7 +569,7 @@ public class Cloader {
         }
         if (errorCode != 0) {
           //TODO: also call listener
-          mLogger.error("%s (error code: %s)", mErrorMessage, errorCode);
+          mLogger.error("{} (error code: {})", mErrorMessage, errorCode);
         }
 
         return replyPk.getPayload()[2] == 1;
@@ -605,6 +599,26 @@ public class Cloader {
         this.mDriver.sendPacket(pk);
     }
 
+    /* package private */ void sendBootloaderPacket(CrtpPacket packet) {
+        this.mDriver.sendPacket(packet);
+    }
+
+    /**
+     * Send a READ_FLASH request without waiting for the reply
+     */
+    /* package private */ void sendReadFlash(int addr, int page, int address) {
+        ByteBuffer bb = ByteBuffer.allocate(6).order(ByteOrder.LITTLE_ENDIAN);
+        bb.put((byte) addr);
+        bb.put((byte) READ_FLASH);
+        bb.putChar((char) page);
+        bb.putChar((char) address);
+        sendBootloaderPacket(bb.array());
+    }
+
+    /* package private */ CrtpPacket receivePacket(int timeoutSeconds) {
+        return this.mDriver.receivePacket(timeoutSeconds);
+    }
+
     private boolean isBootloaderReplyPacket(CrtpPacket paket, int firstByte, int secondByte) {
         if (paket == null) {
             return false;
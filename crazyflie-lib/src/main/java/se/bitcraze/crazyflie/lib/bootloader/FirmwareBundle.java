@@ -0,0 +1,118 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.bootloader;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Firmware zip file with a manifest.json, read in place without extracting it.
+ *
+ * The images are streamed from their zip entries while they are flashed, so only the page
+ * that is currently loaded is held in memory, regardless of the size of the images.
+ */
+final class FirmwareBundle {
+
+    final static String MANIFEST_FILENAME = "manifest.json";
+
+    final Logger mLogger = LoggerFactory.getLogger("FirmwareBundle");
+
+    private final File mFile;
+    private final ZipFile mZipFile;
+
+    FirmwareBundle(File file) throws IOException {
+        this.mFile = file;
+        this.mZipFile = new ZipFile(file);
+    }
+
+    File getFile() {
+        return mFile;
+    }
+
+    /**
+     * @return the manifest of the bundle, null if the bundle has no manifest or it could not be parsed
+     */
+    Manifest readManifest() throws IOException {
+        ZipEntry entry = mZipFile.getEntry(MANIFEST_FILENAME);
+        if (entry == null) {
+            mLogger.error("Zip file " + mFile.getName() + " does not include a " + MANIFEST_FILENAME);
+            return null;
+        }
+        InputStream in = mZipFile.getInputStream(entry);
+        try {
+            return Bootloader.readManifest(in, mFile.getName() + "/" + MANIFEST_FILENAME);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * @return uncompressed size of the entry in bytes, -1 if the bundle has no such entry
+     */
+    long getEntrySize(String name) {
+        ZipEntry entry = mZipFile.getEntry(name);
+        return entry == null ? -1 : entry.getSize();
+    }
+
+    void close() {
+        try {
+            mZipFile.close();
+        } catch (IOException e) {
+            mLogger.error(e.getMessage());
+        }
+    }
+
+    /**
+     * Open an entry of a bundle for reading, closing the stream closes the bundle
+     */
+    static InputStream openEntry(File file, String name) throws IOException {
+        final ZipFile zipFile = new ZipFile(file);
+        ZipEntry entry = zipFile.getEntry(name);
+        if (entry == null) {
+            zipFile.close();
+            throw new IOException("Zip file " + file.getName() + " does not include " + name);
+        }
+        return new FilterInputStream(zipFile.getInputStream(entry)) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    zipFile.close();
+                }
+            }
+        };
+    }
+}
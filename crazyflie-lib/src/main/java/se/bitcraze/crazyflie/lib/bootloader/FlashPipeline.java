@@ -0,0 +1,375 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.bootloader;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import se.bitcraze.crazyflie.lib.bootloader.Bootloader.BootloaderListener;
+import se.bitcraze.crazyflie.lib.crtp.CrtpPacket;
+
+/**
+ * Streams a firmware image into the flash of a target.
+ *
+ * The image is read page by page, so only one page is held in memory. The LOAD_BUFFER packets
+ * are preallocated for the page buffer of the target and reused for every page group. With overlapping
+ * enabled the page buffer is split in two halves: while the target writes one half to flash, the next
+ * page group is loaded into the other half. A half (and its packets) is reused only after the target
+ * has confirmed the write of the page group that was loaded into it.
+ *
+ * In delta mode, the pages of the image are read back from flash one read group (the size of the page
+ * buffer) at a time, before the group is loaded. A page whose CRC in flash equals the CRC of the image page
+ * is skipped, only the runs of changed pages are loaded and written. If none of the first pages is in flash,
+ * the target holds another image and the rest is flashed without reading it back.
+ */
+final class FlashPipeline {
+
+    final Logger mLogger = LoggerFactory.getLogger("FlashPipeline");
+
+    // target id, command, page and address
+    private final static int LOAD_BUFFER_HEADER_SIZE = 6;
+    private final static int LOAD_BUFFER_DATA_SIZE = 25;
+    // delta mode stops reading back when none of these first pages is in flash
+    private final static int READ_BACK_PROBE_PAGES = 8;
+
+    private final Cloader mCloader;
+    private final Target mTarget;
+    private final int mStartPage;
+    private final BootloaderListener mListener;
+    private final int mPageSize;
+    private final int mGroupPages;
+    private final int mPacketsPerPage;
+    // by buffer half, page in group and chunk
+    private final LoadBufferPacket[][] mPackets;
+    private final byte[] mPage;
+    private final CRC32 mCrc = new CRC32();
+
+    private boolean mDelta = false;
+    private final int mReadGroupPages;
+    // read group: flash page, address and position in mReadData of every chunk, allocated in delta mode only
+    private FlashReader mFlashReader;
+    private int[] mReadPages;
+    private int[] mReadAddresses;
+    private int[] mReadOffsets;
+    private byte[] mReadData;
+    // CRC32 of the flash pages of the current read group
+    private final int[] mFlashCrcs;
+    // by page of the image, for the verification
+    private int[] mPageLengths = new int[0];
+    private int[] mPageCrcs = new int[0];
+
+    // page group that is loaded into the current half
+    private int mHalf = 0;
+    private int mGroupStart;
+    private int mGroupCount = 0;
+    // buffer half of the write that has not been confirmed yet, -1 if there is none
+    private int mPendingWriteHalf = -1;
+    private volatile boolean mCancelled = false;
+
+    private long mBytes = 0;
+    private long mDurationNanos = 0;
+    private int mWrittenPages = 0;
+    private int mSkippedPages = 0;
+
+    /**
+     * @param cloader connected bootloader
+     * @param target target to flash
+     * @param startPage first flash page of the image
+     * @param overlap load the next page group while the previous one is written, if the page buffer has at least 2 pages
+     * @param listener progress listener, can be null
+     */
+    FlashPipeline(Cloader cloader, Target target, int startPage, boolean overlap, BootloaderListener listener) {
+        this.mCloader = cloader;
+        this.mTarget = target;
+        this.mStartPage = startPage;
+        this.mListener = listener;
+        this.mPageSize = target.getPageSize();
+        int halves = (overlap && target.getBufferPages() >= 2) ? 2 : 1;
+        this.mGroupPages = target.getBufferPages() / halves;
+        this.mPacketsPerPage = (mPageSize + LOAD_BUFFER_DATA_SIZE - 1) / LOAD_BUFFER_DATA_SIZE;
+        this.mPackets = new LoadBufferPacket[halves][mGroupPages * mPacketsPerPage];
+        for (int half = 0; half < halves; half++) {
+            for (int i = 0; i < mPackets[half].length; i++) {
+                int address = (i % mPacketsPerPage) * LOAD_BUFFER_DATA_SIZE;
+                mPackets[half][i] = new LoadBufferPacket(Math.min(LOAD_BUFFER_DATA_SIZE, mPageSize - address));
+            }
+        }
+        this.mPage = new byte[mPageSize];
+        this.mReadGroupPages = Math.max(1, target.getBufferPages());
+        this.mFlashCrcs = new int[mReadGroupPages];
+    }
+
+    /**
+     * Only write the pages that differ from the pages in flash
+     */
+    void setDelta(boolean delta) {
+        this.mDelta = delta;
+    }
+
+    /**
+     * Flash an image
+     *
+     * @param image stream of the image, read up to length
+     * @param length length of the image in bytes
+     * @return true if all pages have been written
+     * @throws IOException if the image could not be read
+     */
+    boolean flash(InputStream image, int length) throws IOException {
+        int totalPages = (length + mPageSize - 1) / mPageSize;
+        if (totalPages > mTarget.getFlashPages() - mStartPage) {
+            throw new IllegalArgumentException("Image (" + length + " bytes) does not fit into flash.");
+        }
+        long startTime = System.nanoTime();
+        mPageLengths = new int[totalPages];
+        mPageCrcs = new int[totalPages];
+        boolean readBack = mDelta;
+        if (mDelta && mFlashReader == null) {
+            int chunksPerPage = (mPageSize + FlashReader.CHUNK_SIZE - 1) / FlashReader.CHUNK_SIZE;
+            mFlashReader = new FlashReader(mCloader, mTarget, FlashReader.DEFAULT_WINDOW_SIZE);
+            mReadPages = new int[mReadGroupPages * chunksPerPage];
+            mReadAddresses = new int[mReadPages.length];
+            mReadOffsets = new int[mReadPages.length];
+            mReadData = new byte[mReadGroupPages * mPageSize];
+        }
+        for (int page = 0; page < totalPages; page++) {
+            if (mCancelled) {
+                mLogger.info("Flashing cancelled!");
+                return false;
+            }
+            if (readBack && page % mReadGroupPages == 0) {
+                if (page >= READ_BACK_PROBE_PAGES && mSkippedPages == 0) {
+                    mLogger.debug("None of the first {} pages is in flash, writing the image without reading it back", page);
+                    readBack = false;
+                } else if (!readBackGroup(page, Math.min(mReadGroupPages, totalPages - page), length)) {
+                    return false;
+                }
+            }
+            int pageLength = Math.min(mPageSize, length - page * mPageSize);
+            readFully(image, page * mPageSize, pageLength);
+            mCrc.reset();
+            mCrc.update(mPage, 0, pageLength);
+            int crc = (int) mCrc.getValue();
+            mPageLengths[page] = pageLength;
+            mPageCrcs[page] = crc;
+            if (readBack && mFlashCrcs[page % mReadGroupPages] == crc) {
+                mSkippedPages++;
+                if (mGroupCount > 0 && !writeGroup()) {
+                    return false;
+                }
+            } else {
+                if (mGroupCount == 0) {
+                    if (mPendingWriteHalf == mHalf && !waitForWrite()) {
+                        return false;
+                    }
+                    mGroupStart = page;
+                }
+                loadPage(mHalf, mGroupCount, pageLength);
+                mGroupCount++;
+                if (mGroupCount == mGroupPages && !writeGroup()) {
+                    return false;
+                }
+            }
+            if (mListener != null) {
+                mListener.updateProgress(page + 1, totalPages);
+            }
+        }
+        if (mGroupCount > 0 && !writeGroup()) {
+            return false;
+        }
+        if (mPendingWriteHalf >= 0 && !waitForWrite()) {
+            return false;
+        }
+        mBytes = length;
+        mDurationNanos = System.nanoTime() - startTime;
+        return true;
+    }
+
+    /**
+     * Write the page group that has been loaded into the current half
+     */
+    private boolean writeGroup() {
+        if (mPendingWriteHalf >= 0 && !waitForWrite()) {
+            return false;
+        }
+        mLogger.debug("Writing {} pages from page {}", mGroupCount, mStartPage + mGroupStart);
+        mCloader.sendWriteFlash(mTarget.getId(), mHalf * mGroupPages, mStartPage + mGroupStart, mGroupCount);
+        mWrittenPages += mGroupCount;
+        mPendingWriteHalf = mHalf;
+        mHalf = (mHalf + 1) % mPackets.length;
+        mGroupCount = 0;
+        return true;
+    }
+
+    private boolean waitForWrite() {
+        mPendingWriteHalf = -1;
+        return mCloader.waitForWriteFlash(mTarget.getId(), Cloader.WRITE_FLASH_TIMEOUT_MS);
+    }
+
+    /**
+     * Read back a group of image pages from flash with pipelined READ_FLASH requests and keep the CRC of every page.
+     * A pending write is confirmed first, the reader would drop its reply.
+     */
+    private boolean readBackGroup(int firstPage, int pageCount, int imageLength) {
+        if (mPendingWriteHalf >= 0 && !waitForWrite()) {
+            return false;
+        }
+        int count = 0;
+        for (int i = 0; i < pageCount; i++) {
+            int length = Math.min(mPageSize, imageLength - (firstPage + i) * mPageSize);
+            for (int address = 0; address < length; address += FlashReader.CHUNK_SIZE) {
+                mReadPages[count] = mStartPage + firstPage + i;
+                mReadAddresses[count] = address;
+                mReadOffsets[count] = i * mPageSize + address;
+                count++;
+            }
+        }
+        if (!mFlashReader.read(count, mReadPages, mReadAddresses, mReadData, mReadOffsets)) {
+            mLogger.error("Could not read back the flash.");
+            return false;
+        }
+        for (int i = 0; i < pageCount; i++) {
+            mCrc.reset();
+            mCrc.update(mReadData, i * mPageSize, Math.min(mPageSize, imageLength - (firstPage + i) * mPageSize));
+            mFlashCrcs[i] = (int) mCrc.getValue();
+        }
+        return true;
+    }
+
+    private void readFully(InputStream image, int position, int length) throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            int count = image.read(mPage, offset, length - offset);
+            if (count < 0) {
+                throw new EOFException("Image ended after " + (position + offset) + " bytes.");
+            }
+            offset += count;
+        }
+    }
+
+    /**
+     * Send a page of the image to a page of the buffer
+     */
+    private void loadPage(int half, int pageInGroup, int pageLength) {
+        int bufferPage = half * mGroupPages + pageInGroup;
+        for (int address = 0; address < pageLength; address += LOAD_BUFFER_DATA_SIZE) {
+            int chunkLength = Math.min(LOAD_BUFFER_DATA_SIZE, pageLength - address);
+            LoadBufferPacket packet = mPackets[half][pageInGroup * mPacketsPerPage + address / LOAD_BUFFER_DATA_SIZE];
+            if (packet.getDataLength() != chunkLength) {
+                // end of the image in the middle of a chunk
+                packet = new LoadBufferPacket(chunkLength);
+            }
+            packet.set(mTarget.getId(), bufferPage, address, mPage, address);
+            mCloader.sendBootloaderPacket(packet);
+        }
+    }
+
+    void cancel() {
+        this.mCancelled = true;
+    }
+
+    int getPageCount() {
+        return mPageLengths.length;
+    }
+
+    /**
+     * @return number of bytes of the image in every page
+     */
+    int[] getPageLengths() {
+        return mPageLengths;
+    }
+
+    /**
+     * @return CRC32 of every page of the image
+     */
+    int[] getPageCrcs() {
+        return mPageCrcs;
+    }
+
+    /**
+     * @return number of pages that have been written
+     */
+    int getWrittenPageCount() {
+        return mWrittenPages;
+    }
+
+    /**
+     * @return number of pages that have been skipped because they were unchanged
+     */
+    int getSkippedPageCount() {
+        return mSkippedPages;
+    }
+
+    /**
+     * @return bytes per second of the last successful flash, 0 if there was none
+     */
+    double getBytesPerSecond() {
+        return mDurationNanos > 0 ? mBytes * 1e9 / mDurationNanos : 0;
+    }
+
+    /**
+     * LOAD_BUFFER packet that is filled again for every page group, it's serialized into the same array every time
+     */
+    private static final class LoadBufferPacket extends CrtpPacket {
+
+        private final byte[] mPacket;
+
+        LoadBufferPacket(int dataLength) {
+            super((byte) 0xFF, new byte[LOAD_BUFFER_HEADER_SIZE + dataLength]);
+            this.mPacket = new byte[1 + LOAD_BUFFER_HEADER_SIZE + dataLength];
+            mPacket[0] = (byte) 0xFF;
+        }
+
+        int getDataLength() {
+            return mPacket.length - 1 - LOAD_BUFFER_HEADER_SIZE;
+        }
+
+        void set(int targetId, int bufferPage, int address, byte[] data, int offset) {
+            // pk.data = struct.pack("=BBHH", target_id, 0x14, page, address)
+            byte[] payload = getPayload();
+            payload[0] = (byte) targetId;
+            payload[1] = (byte) Cloader.LOAD_BUFFER;
+            payload[2] = (byte) bufferPage;
+            payload[3] = (byte) (bufferPage >> 8);
+            payload[4] = (byte) address;
+            payload[5] = (byte) (address >> 8);
+            System.arraycopy(data, offset, payload, LOAD_BUFFER_HEADER_SIZE, payload.length - LOAD_BUFFER_HEADER_SIZE);
+        }
+
+        @Override
+        public byte[] toByteArray() {
+            byte[] payload = getPayload();
+            System.arraycopy(payload, 0, mPacket, 1, payload.length);
+            return mPacket;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.bootloader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import se.bitcraze.crazyflie.lib.crtp.CrtpPacket;
+
+/**
+ * Reads chunks of flash with a window of outstanding READ_FLASH requests.
+ *
+ * The replies are matched with the requests by their page and address, so they can arrive in any order.
+ * When no reply arrives, the outstanding requests are sent again.
+ */
+final class FlashReader {
+
+    final Logger mLogger = LoggerFactory.getLogger("FlashReader");
+
+    final static int DEFAULT_WINDOW_SIZE = 8;
+    final static int CHUNK_SIZE = 25;
+    private final static int MAX_RETRIES = 5;
+
+    private final Cloader mCloader;
+    private final int mTargetId;
+    private final int mPageSize;
+    private final int mWindowSize;
+    private final int[] mOutstanding;
+
+    private long mRequestCount = 0;
+
+    /**
+     * @param cloader connected bootloader
+     * @param target target to read from
+     * @param windowSize maximum number of outstanding requests
+     */
+    FlashReader(Cloader cloader, Target target, int windowSize) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("Window size must be at least 1.");
+        }
+        this.mCloader = cloader;
+        this.mTargetId = target.getId();
+        this.mPageSize = target.getPageSize();
+        this.mWindowSize = windowSize;
+        this.mOutstanding = new int[windowSize];
+    }
+
+    /**
+     * Read chunks of {@link #CHUNK_SIZE} bytes, the last chunk of a page ends at the end of the page
+     *
+     * @param count number of chunks
+     * @param pages flash page of every chunk
+     * @param addresses address in the page of every chunk
+     * @param data receives the chunks
+     * @param offsets position of every chunk in data
+     * @return true if all chunks have been read
+     */
+    boolean read(int count, int[] pages, int[] addresses, byte[] data, int[] offsets) {
+        int outstandingCount = 0;
+        int next = 0;
+        int received = 0;
+        int retries = 0;
+        while (received < count) {
+            while (outstandingCount < mWindowSize && next < count) {
+                sendRequest(pages[next], addresses[next]);
+                mOutstanding[outstandingCount++] = next++;
+            }
+            CrtpPacket replyPk = mCloader.receivePacket(1);
+            if (replyPk == null) {
+                if (++retries > MAX_RETRIES) {
+                    mLogger.debug("No reply to READ_FLASH after {} retries", MAX_RETRIES);
+                    return false;
+                }
+                for (int i = 0; i < outstandingCount; i++) {
+                    sendRequest(pages[mOutstanding[i]], addresses[mOutstanding[i]]);
+                }
+                continue;
+            }
+            byte[] payload = replyPk.getPayload();
+            if (replyPk.getHeaderByte() == (byte) 0xFF && payload.length > 6
+                    && payload[0] == (byte) mTargetId && payload[1] == (byte) Cloader.READ_FLASH) {
+                int page = (payload[2] & 0xFF) | (payload[3] & 0xFF) << 8;
+                int address = (payload[4] & 0xFF) | (payload[5] & 0xFF) << 8;
+                for (int i = 0; i < outstandingCount; i++) {
+                    int index = mOutstanding[i];
+                    if (pages[index] == page && addresses[index] == address) {
+                        int length = Math.min(Math.min(CHUNK_SIZE, payload.length - 6), mPageSize - address);
+                        System.arraycopy(payload, 6, data, offsets[index], length);
+                        mOutstanding[i] = mOutstanding[--outstandingCount];
+                        received++;
+                        retries = 0;
+                        break;
+                    }
+                }
+            }
+            replyPk.release();
+        }
+        return true;
+    }
+
+    private void sendRequest(int page, int address) {
+        mRequestCount++;
+        mCloader.sendReadFlash(mTargetId, page, address);
+    }
+
+    /**
+     * @return number of READ_FLASH requests including the resent ones
+     */
+    long getRequestCount() {
+        return mRequestCount;
+    }
+}
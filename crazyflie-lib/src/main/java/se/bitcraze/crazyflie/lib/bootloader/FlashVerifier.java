@@ -0,0 +1,152 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.bootloader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import se.bitcraze.crazyflie.lib.bootloader.Bootloader.BootloaderListener;
+
+/**
+ * Reads back flashed pages and compares them with the CRCs of the image.
+ *
+ * The pages are read in groups: the READ_FLASH requests of a whole group are pipelined and the replies
+ * are put into a preallocated group buffer by their page and address, in whatever order they arrive.
+ * Every page is then checked with a CRC, so the image does not need to be kept or read again.
+ */
+final class FlashVerifier {
+
+    final Logger mLogger = LoggerFactory.getLogger("FlashVerifier");
+
+    private final FlashReader mFlashReader;
+    private final Target mTarget;
+    private final int mStartPage;
+    private final BootloaderListener mListener;
+    private final int mGroupPages;
+    private final int mChunksPerPage;
+    // page j of the group starts at j * page size
+    private final byte[] mGroupData;
+    private final int[] mPages;
+    private final int[] mAddresses;
+    private final int[] mOffsets;
+    private final CRC32 mCrc = new CRC32();
+
+    private final List<Integer> mMismatchPages = new ArrayList<Integer>();
+    private long mBytes = 0;
+    private long mDurationNanos = 0;
+
+    /**
+     * @param cloader connected bootloader
+     * @param target target to read from
+     * @param startPage first flash page of the image
+     * @param windowSize maximum number of outstanding READ_FLASH requests
+     * @param listener progress listener, can be null
+     */
+    FlashVerifier(Cloader cloader, Target target, int startPage, int windowSize, BootloaderListener listener) {
+        this.mFlashReader = new FlashReader(cloader, target, windowSize);
+        this.mTarget = target;
+        this.mStartPage = startPage;
+        this.mListener = listener;
+        this.mGroupPages = Math.max(1, target.getBufferPages());
+        this.mChunksPerPage = (target.getPageSize() + FlashReader.CHUNK_SIZE - 1) / FlashReader.CHUNK_SIZE;
+        this.mGroupData = new byte[mGroupPages * target.getPageSize()];
+        this.mPages = new int[mGroupPages * mChunksPerPage];
+        this.mAddresses = new int[mGroupPages * mChunksPerPage];
+        this.mOffsets = new int[mGroupPages * mChunksPerPage];
+    }
+
+    /**
+     * Verify the pages of an image
+     *
+     * @param pageCount number of pages of the image
+     * @param lengths number of bytes of the image in every page
+     * @param crcs CRC32 of every page of the image
+     * @return true if the pages have been read and match, see {@link #getMismatchPages()} otherwise
+     */
+    boolean verify(int pageCount, int[] lengths, int[] crcs) {
+        mMismatchPages.clear();
+        long startTime = System.nanoTime();
+        long bytes = 0;
+        for (int groupStart = 0; groupStart < pageCount; groupStart += mGroupPages) {
+            int groupPages = Math.min(mGroupPages, pageCount - groupStart);
+            int count = 0;
+            for (int i = 0; i < groupPages; i++) {
+                for (int address = 0; address < lengths[groupStart + i]; address += FlashReader.CHUNK_SIZE) {
+                    mPages[count] = mStartPage + groupStart + i;
+                    mAddresses[count] = address;
+                    mOffsets[count] = i * mTarget.getPageSize() + address;
+                    count++;
+                }
+            }
+            if (!mFlashReader.read(count, mPages, mAddresses, mGroupData, mOffsets)) {
+                mLogger.error("Could not read back page group {}.", mStartPage + groupStart);
+                return false;
+            }
+            for (int i = 0; i < groupPages; i++) {
+                int page = groupStart + i;
+                mCrc.reset();
+                mCrc.update(mGroupData, i * mTarget.getPageSize(), lengths[page]);
+                if ((int) mCrc.getValue() != crcs[page]) {
+                    mMismatchPages.add(mStartPage + page);
+                }
+                bytes += lengths[page];
+            }
+            if (mListener != null) {
+                mListener.updateProgress(groupStart + groupPages, pageCount);
+            }
+        }
+        mBytes = bytes;
+        mDurationNanos = System.nanoTime() - startTime;
+        if (!mMismatchPages.isEmpty()) {
+            mLogger.error("Flash verification failed, pages {} differ from the image.", mMismatchPages);
+        }
+        return mMismatchPages.isEmpty();
+    }
+
+    /**
+     * @return flash pages that differ from the image in the last verification
+     */
+    List<Integer> getMismatchPages() {
+        return mMismatchPages;
+    }
+
+    /**
+     * @return bytes per second of the last verification, 0 if it did not finish
+     */
+    double getBytesPerSecond() {
+        return mDurationNanos > 0 ? mBytes * 1e9 / mDurationNanos : 0;
+    }
+
+    long getRequestCount() {
+        return mFlashReader.getRequestCount();
+    }
+}
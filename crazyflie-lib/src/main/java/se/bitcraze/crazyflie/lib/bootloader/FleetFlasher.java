@@ -0,0 +1,161 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.bootloader;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import se.bitcraze.crazyflie.lib.bootloader.Bootloader.BootloaderListener;
+import se.bitcraze.crazyflie.lib.bootloader.Target.TargetTypes;
+import se.bitcraze.crazyflie.lib.crazyradio.ConnectionData;
+import se.bitcraze.crazyflie.lib.crazyradio.RadioMultiplexer;
+import se.bitcraze.crazyflie.lib.usb.CrazyUsbInterface;
+
+/**
+ * Flashes several Crazyflies in bootloader mode through one Crazyradio.
+ *
+ * Every copter gets its own {@link Bootloader} on a link of a {@link RadioMultiplexer} and is flashed by its
+ * own thread, so the page buffers of some copters are loaded while the others write flash. Progress, status
+ * and errors of a copter are reported to the listener it has been added with.
+ */
+public class FleetFlasher {
+
+    final Logger mLogger = LoggerFactory.getLogger("FleetFlasher");
+
+    private final RadioMultiplexer mMultiplexer;
+    private final List<Bootloader> mBootloaders = new ArrayList<Bootloader>();
+
+    public FleetFlasher(CrazyUsbInterface usbInterface) {
+        this.mMultiplexer = new RadioMultiplexer(usbInterface);
+    }
+
+    public RadioMultiplexer getMultiplexer() {
+        return mMultiplexer;
+    }
+
+    /**
+     * Add a copter that is in bootloader mode
+     *
+     * @param connectionData channel and data rate of the bootloader
+     * @param address radio address of the bootloader
+     * @param listener progress listener of this copter, can be null
+     * @return the bootloader of the copter, e.g. to enable delta flashing or verification
+     */
+    public Bootloader addCopter(ConnectionData connectionData, byte[] address, BootloaderListener listener) {
+        Bootloader bootloader = new Bootloader(mMultiplexer.createLink(connectionData, address));
+        if (listener != null) {
+            bootloader.addBootloaderListener(listener);
+        }
+        mBootloaders.add(bootloader);
+        return bootloader;
+    }
+
+    /**
+     * @return the bootloaders of the copters in the order they have been added
+     */
+    public List<Bootloader> getBootloaders() {
+        return Collections.unmodifiableList(mBootloaders);
+    }
+
+    /**
+     * Flash a firmware file to all copters at the same time
+     *
+     * @param file firmware zip file or binary image
+     * @param targetNames targets to flash, see {@link Bootloader#flash(File, String...)}
+     * @return for every copter in the order they have been added, true if it has been flashed
+     * @throws InterruptedException if interrupted while waiting for the copters
+     */
+    public boolean[] flash(final File file, final String... targetNames) throws InterruptedException {
+        final boolean[] flashed = new boolean[mBootloaders.size()];
+        Thread[] threads = new Thread[mBootloaders.size()];
+        for (int i = 0; i < threads.length; i++) {
+            final int copter = i;
+            threads[i] = new Thread(new Runnable() {
+                public void run() {
+                    flashed[copter] = flashCopter(copter, file, targetNames);
+                }
+            }, "FleetFlasher-" + i);
+            threads[i].start();
+        }
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            cancel();
+            throw e;
+        }
+        return flashed;
+    }
+
+    private boolean flashCopter(int copter, File file, String... targetNames) {
+        Bootloader bootloader = mBootloaders.get(copter);
+        Cloader cloader = bootloader.getCloader();
+        try {
+            cloader.openBootloaderConnection();
+            if (!cloader.checkLinkAndGetInfo(TargetTypes.STM32)) {
+                mLogger.error("Copter " + copter + ": no bootloader found");
+                return false;
+            }
+            if (cloader.getProtocolVersion() == BootVersion.CF2_PROTO_VER) {
+                cloader.requestInfoUpdate(TargetTypes.NRF51);
+            }
+            boolean flashed = bootloader.flash(file, targetNames);
+            mLogger.info("Copter " + copter + (flashed ? " flashed" : " not flashed"));
+            return flashed;
+        } catch (IOException ioe) {
+            mLogger.error("Copter " + copter + ": " + ioe.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Cancel flashing of all copters
+     */
+    public void cancel() {
+        for (Bootloader bootloader : mBootloaders) {
+            bootloader.cancel();
+        }
+    }
+
+    /**
+     * Close the links to all copters and the radio
+     */
+    public void close() {
+        for (Bootloader bootloader : mBootloaders) {
+            bootloader.close();
+        }
+        mMultiplexer.close();
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.crazyflie;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import se.bitcraze.crazyflie.lib.crtp.CrtpPort;
+
+/**
+ * Timing breakdown of the connection setup of a Crazyflie.
+ *
+ * The link phase lasts from connect() until the first packet from the Crazyflie has been received.
+ * After that every subsystem that is refreshed during the setup (log TOC, param TOC) is a phase
+ * of its own, identified by its port. The setup is finished when no phase is running anymore.
+ */
+public final class ConnectionSetupTiming {
+
+    private long mConnectNanos = -1;
+    private long mLinkNanos = -1;
+    private long mFinishedNanos = -1;
+    private final Map<CrtpPort, long[]> mPhases = new EnumMap<CrtpPort, long[]>(CrtpPort.class);
+    private int mRunningPhases = 0;
+
+    synchronized void reset(long nowNanos) {
+        mConnectNanos = nowNanos;
+        mLinkNanos = -1;
+        mFinishedNanos = -1;
+        mPhases.clear();
+        mRunningPhases = 0;
+    }
+
+    synchronized void linkEstablished(long nowNanos) {
+        mLinkNanos = nowNanos;
+    }
+
+    synchronized void phaseStarted(CrtpPort port, long nowNanos) {
+        if (mPhases.containsKey(port)) {
+            throw new IllegalStateException("Setup phase " + port + " has already been started.");
+        }
+        mPhases.put(port, new long[] {nowNanos, -1});
+        mRunningPhases++;
+    }
+
+    /**
+     * @return true if this was the last running phase, i.e. the setup is finished
+     */
+    synchronized boolean phaseFinished(CrtpPort port, long nowNanos) {
+        long[] phase = mPhases.get(port);
+        if (phase == null || phase[1] != -1) {
+            return false;
+        }
+        phase[1] = nowNanos;
+        mRunningPhases--;
+        if (mRunningPhases == 0) {
+            mFinishedNanos = nowNanos;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return time from connect() until the first packet from the Crazyflie was received, -1 if not known (yet)
+     */
+    public synchronized long getLinkMillis() {
+        return millis(mConnectNanos, mLinkNanos);
+    }
+
+    /**
+     * @param port port of the phase, e.g. CrtpPort.LOGGING for the log TOC
+     * @return duration of the phase, -1 if the phase has not finished (yet)
+     */
+    public synchronized long getPhaseMillis(CrtpPort port) {
+        long[] phase = mPhases.get(port);
+        return phase == null ? -1 : millis(phase[0], phase[1]);
+    }
+
+    /**
+     * @return time from the first packet until all phases had finished, -1 if the setup is not finished (yet)
+     */
+    public synchronized long getSetupMillis() {
+        return millis(mLinkNanos, mFinishedNanos);
+    }
+
+    /**
+     * @return time from connect() until the setup was finished, -1 if the setup is not finished (yet)
+     */
+    public synchronized long getTotalMillis() {
+        return millis(mConnectNanos, mFinishedNanos);
+    }
+
+    private static long millis(long startNanos, long endNanos) {
+        if (startNanos == -1 || endNanos == -1) {
+            return -1;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(endNanos - startNanos);
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder("ConnectionSetupTiming [link: " + getLinkMillis() + "ms");
+        for (Map.Entry<CrtpPort, long[]> entry : mPhases.entrySet()) {
+            sb.append(", ").append(entry.getKey()).append(": ").append(millis(entry.getValue()[0], entry.getValue()[1])).append("ms");
+        }
+        sb.append(", setup: ").append(getSetupMillis()).append("ms, total: ").append(getTotalMillis()).append("ms]");
+        return sb.toString();
+    }
+
+}
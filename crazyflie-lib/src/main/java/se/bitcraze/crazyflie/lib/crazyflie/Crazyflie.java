@@ -29,9 +29,10 @@ package se.bitcraze.crazyflie.lib.crazyflie;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Set;
-import java.util.concurrent.CopyOnWriteArraySet;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,6 +47,7 @@ import se.bitcraze.crazyflie.lib.log.Logg;
 import se.bitcraze.crazyflie.lib.param.Param;
 import se.bitcraze.crazyflie.lib.toc.TocCache;
 import se.bitcraze.crazyflie.lib.toc.TocFetchFinishedListener;
+import se.bitcraze.crazyflie.lib.toc.TocFetcher;
 
 public class Crazyflie {
 
@@ -54,10 +56,11 @@ public class Crazyflie {
     private CrtpDriver mDriver;
     private Thread mIncomingPacketHandlerThread;
 
-    private LinkedBlockingDeque<CrtpPacket> mResendQueue = new LinkedBlockingDeque<CrtpPacket>();
+    // 5ms resolution, one round of the wheel is longer than the maximum RTO
+    private final ResendScheduler mResendScheduler = new ResendScheduler(5, 512);
     private Thread mResendQueueHandlerThread;
 
-    private Set<DataListener> mDataListeners = new CopyOnWriteArraySet<DataListener>();
+    private final PacketDispatcher mPacketDispatcher = new PacketDispatcher();
 
     private State mState = State.DISCONNECTED;
 
@@ -66,6 +69,9 @@ public class Crazyflie {
     private Param mParam;
     private Logg mLogg;
     private TocCache mTocCache;
+    private int mTocFetchWindowSize = TocFetcher.DEFAULT_WINDOW_SIZE;
+    private boolean mParallelConnectionSetup = false;
+    private final ConnectionSetupTiming mConnectionSetupTiming = new ConnectionSetupTiming();
 
     /**
      * State of the connection procedure
@@ -88,7 +94,7 @@ public class Crazyflie {
      * @param driver driver to use (e.g. RadioDriver or BleLink)
      */
     public Crazyflie(CrtpDriver driver) {
-        this(driver, null);
+        this(driver, (File) null);
     }
 
     /**
@@ -98,13 +104,24 @@ public class Crazyflie {
      * @param tocCacheDir TOC cache files dir
      */
     public Crazyflie(CrtpDriver driver, File tocCacheDir) {
+        this(driver, new TocCache(tocCacheDir));
+    }
+
+    /**
+     * Crazyflie constructor
+     *
+     * @param driver driver to use (e.g. RadioDriver or BleLink)
+     * @param tocCache TOC cache to use (e.g. BinaryTocCache)
+     */
+    public Crazyflie(CrtpDriver driver, TocCache tocCache) {
         this.mDriver = driver;
-        this.mTocCache = new TocCache(tocCacheDir);
+        this.mTocCache = tocCache;
     }
 
     public void connect() {
         mLogger.debug("connect()");
         mState = State.INITIALIZED;
+        mConnectionSetupTiming.reset(System.nanoTime());
 
         // try to connect
         try {
@@ -151,6 +168,7 @@ public class Crazyflie {
             if(mResendQueueHandlerThread != null) {
                 mResendQueueHandlerThread.interrupt();
             }
+            mResendScheduler.clear();
             mState = State.DISCONNECTED;
         }
     }
@@ -180,15 +198,20 @@ public class Crazyflie {
 
             if (packet.getExpectedReply() != null && packet.getExpectedReply().length > 0) {
                 //add packet to resend queue
-                if(!mResendQueue.contains(packet)) {
-                    mResendQueue.add(packet);
-                } else {
-                    mLogger.warn("Packet already exists in Queue.");
+                if(!mResendScheduler.add(packet, System.nanoTime())) {
+                    mLogger.debug("Packet is already waiting for a reply, sent it again.");
                 }
             }
         }
     }
 
+    /**
+     * Returns the scheduler of the packets waiting for a reply, eg. to configure the RTO or read the retry and RTT metrics
+     */
+    public ResendScheduler getResendScheduler() {
+        return mResendScheduler;
+    }
+
     /**
      * Callback called for every packet received to check if we are
      * waiting for a packet like this. If so, then remove it from the queue.
@@ -197,40 +220,26 @@ public class Crazyflie {
      */
     private void checkReceivedPackets(CrtpPacket packet) {
         // compare received packet with expectedReplies in resend queue
-        for(CrtpPacket resendQueuePacket : mResendQueue) {
-            if(isPacketMatchingExpectedReply(resendQueuePacket, packet)) {
-                mResendQueue.remove(resendQueuePacket);
-                // mLogger.debug("QUEUE REMOVE: " + resendQueuePacket);
-                break;
-            }
-        }
-    }
-
-    private boolean isPacketMatchingExpectedReply(CrtpPacket resendQueuePacket, CrtpPacket packet) {
-        //Only check equality for the amount of bytes in expected reply
-        byte[] expectedReply = resendQueuePacket.getExpectedReply();
-        for(int i = 0; i < expectedReply.length;i++) {
-            if(expectedReply[i] != packet.getPayload()[i]) {
-                return false;
-            }
-        }
-        return true;
+        mResendScheduler.ack(packet, System.nanoTime());
     }
 
     private class ResendQueueHandler implements Runnable {
 
         public void run() {
             mLogger.debug("ResendQueueHandlerThread was started.");
+            List<CrtpPacket> resendPackets = new ArrayList<CrtpPacket>();
+            long tickMillis = TimeUnit.NANOSECONDS.toMillis(mResendScheduler.getTickNanos());
             while(true) {
-                if (!mResendQueue.isEmpty()) {
-                    CrtpPacket resendPacket = mResendQueue.poll();
-                    if (resendPacket != null) {
-                        mLogger.debug("RESEND: {} ID: {}", resendPacket, resendPacket.getPayload()[0]);
-                        sendPacket(resendPacket);
+                mResendScheduler.expire(System.nanoTime(), resendPackets);
+                for (CrtpPacket resendPacket : resendPackets) {
+                    mLogger.debug("RESEND: {} ID: {}", resendPacket, resendPacket.getPayload()[0]);
+                    if (mDriver.isConnected()) {
+                        mDriver.sendPacket(resendPacket);
                     }
                 }
+                resendPackets.clear();
                 try {
-                    Thread.sleep(500);
+                    Thread.sleep(tickMillis);
                 } catch (InterruptedException e) {
                     mLogger.debug("ResendQueueHandlerThread was interrupted.");
                     break;
@@ -253,6 +262,7 @@ public class Crazyflie {
         if (this.mState == State.INITIALIZED) {
             mLogger.info("Initial packet has been received! => State.CONNECTED");
             this.mState = State.CONNECTED;
+            mConnectionSetupTiming.linkEstablished(System.nanoTime());
             //self.link_established.call(self.link_uri)
             //FIXME: Crazyflie should not call mDriver.notifyConnected()
             this.mDriver.notifyConnected();
@@ -268,6 +278,7 @@ public class Crazyflie {
     public void startConnectionSetup_BLE() {
         if (this.mState == State.INITIALIZED) {
             this.mState = State.CONNECTED;
+            mConnectionSetupTiming.linkEstablished(System.nanoTime());
             startConnectionSetup();
         }
     }
@@ -279,6 +290,9 @@ public class Crazyflie {
 
     /**
      * Start the connection setup by refreshing the TOCs
+     *
+     * In parallel mode the log and param TOCs are fetched at the same time, otherwise the param TOC
+     * is fetched after the log TOC. SETUP_FINISHED is reached when all fetches have finished.
      */
     private void startConnectionSetup() {
         String connection = "";
@@ -290,16 +304,12 @@ public class Crazyflie {
         mLogger.info("We are connected [{}], requesting connection setup...", connection);
 
         mParam = new Param(this);
-        //must be defined first to be usable in Log TocFetchFinishedListener
         final TocFetchFinishedListener paramTocFetchFinishedListener = new TocFetchFinishedListener(CrtpPort.PARAMETERS) {
             public void tocFetchFinished() {
                 //_param_toc_updated_cb(self):
                 mLogger.info("Param TOC finished updating.");
                 //mParam.requestUpdateOfAllParams();
-                //TODO: should be set only after log, param, mems are all updated
-                mState = State.SETUP_FINISHED;
-                //TODO: fix hacky-di-hack
-                mDriver.notifySetupFinished();
+                connectionSetupPhaseFinished(CrtpPort.PARAMETERS);
             }
         };
 
@@ -307,13 +317,25 @@ public class Crazyflie {
         TocFetchFinishedListener loggTocFetchFinishedListener = new TocFetchFinishedListener(CrtpPort.LOGGING) {
             public void tocFetchFinished() {
                 mLogger.info("Logg TOC finished updating.");
-                //after log toc has been fetched, fetch param toc
-                mParam.refreshToc(paramTocFetchFinishedListener, mTocCache);
+                if (!mParallelConnectionSetup) {
+                    //after log toc has been fetched, fetch param toc
+                    mConnectionSetupTiming.phaseStarted(CrtpPort.PARAMETERS, System.nanoTime());
+                    mParam.refreshToc(paramTocFetchFinishedListener, mTocCache);
+                }
+                connectionSetupPhaseFinished(CrtpPort.LOGGING);
             }
         };
         //mLog.refreshToc(self._log_toc_updated_cb, self._toc_cache);
         if (mDriver instanceof RadioDriver) {
+            // register all phases before starting a fetch, so the first one that finishes does not end the setup
+            mConnectionSetupTiming.phaseStarted(CrtpPort.LOGGING, System.nanoTime());
+            if (mParallelConnectionSetup) {
+                mConnectionSetupTiming.phaseStarted(CrtpPort.PARAMETERS, System.nanoTime());
+            }
             mLogg.refreshToc(loggTocFetchFinishedListener, mTocCache);
+            if (mParallelConnectionSetup) {
+                mParam.refreshToc(paramTocFetchFinishedListener, mTocCache);
+            }
         } else {
             //TODO: shortcut for BLELink
             mState = State.SETUP_FINISHED; //important, otherwise BLE keeps trying to reconnect
@@ -323,6 +345,35 @@ public class Crazyflie {
         //TODO: self.mem.refresh(self._mems_updated_cb)
     }
 
+    private void connectionSetupPhaseFinished(CrtpPort port) {
+        if (mConnectionSetupTiming.phaseFinished(port, System.nanoTime())) {
+            mLogger.info("Connection setup finished: {}", mConnectionSetupTiming);
+            mState = State.SETUP_FINISHED;
+            //TODO: fix hacky-di-hack
+            mDriver.notifySetupFinished();
+        }
+    }
+
+    /**
+     * Fetch the log and param TOCs at the same time during the connection setup instead of one after another
+     *
+     * @param parallel true to fetch the TOCs in parallel, false (default) to fetch the param TOC after the log TOC
+     */
+    public void setParallelConnectionSetup(boolean parallel) {
+        this.mParallelConnectionSetup = parallel;
+    }
+
+    public boolean isParallelConnectionSetup() {
+        return mParallelConnectionSetup;
+    }
+
+    /**
+     * Returns the timing breakdown of the last connection setup
+     */
+    public ConnectionSetupTiming getConnectionSetupTiming() {
+        return mConnectionSetupTiming;
+    }
+
     public Param getParam() {
         return mParam;
     }
@@ -331,6 +382,22 @@ public class Crazyflie {
         return mLogg;
     }
 
+    /**
+     * Set the number of TOC element requests that are outstanding at the same time when fetching the TOCs
+     *
+     * @param windowSize 1 (default) to request the elements one after another
+     */
+    public void setTocFetchWindowSize(int windowSize) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("Window size must be at least 1.");
+        }
+        this.mTocFetchWindowSize = windowSize;
+    }
+
+    public int getTocFetchWindowSize() {
+        return mTocFetchWindowSize;
+    }
+
     public void clearTocCache() {
         mTocCache.clear();
     }
@@ -351,7 +418,7 @@ public class Crazyflie {
     public void addDataListener(DataListener dataListener) {
         if (dataListener != null) {
             mLogger.debug("Adding data listener for port [" + dataListener.getPort() + "]");
-            this.mDataListeners.add(dataListener);
+            this.mPacketDispatcher.addDataListener(dataListener);
         }
     }
 
@@ -363,10 +430,21 @@ public class Crazyflie {
     public void removeDataListener(DataListener dataListener) {
         if (dataListener != null) {
             mLogger.debug("Removing data listener for port [" + dataListener.getPort() + "]");
-            this.mDataListeners.remove(dataListener);
+            this.mPacketDispatcher.removeDataListener(dataListener);
         }
     }
 
+    /**
+     * Call the data listeners of a port on an executor instead of the thread receiving the packets,
+     * eg. for listeners that update the UI or are slow for another reason
+     *
+     * @param port port of the data listeners
+     * @param executor executor or null to call the data listeners on the receiving thread
+     */
+    public void setDataListenerExecutor(CrtpPort port, Executor executor) {
+        this.mPacketDispatcher.setExecutor(port, executor);
+    }
+
     //public void removeDataListener(CrtpPort); ?
 
     /**
@@ -375,13 +453,7 @@ public class Crazyflie {
      * @param packet received packet
      */
     private void notifyDataReceived(CrtpPacket packet) {
-        boolean found = false;
-        for (DataListener dataListener : mDataListeners) {
-            if (dataListener.getPort() == packet.getHeader().getPort()) {
-                dataListener.dataReceived(packet);
-                found = true;
-            }
-        }
+        boolean found = mPacketDispatcher.dispatch(packet);
         if (!found) {
             //mLogger.warn("Got packet on port [" + packet.getHeader().getPort() + "] but found no data listener to handle it.");
         }
@@ -406,6 +478,9 @@ public class Crazyflie {
                     checkReceivedPackets(packet);
 
                     notifyDataReceived(packet);
+
+                    // pooled packets (RadioDriver in zero allocation mode) are only valid during dispatch
+                    packet.release();
                 }
             }
             mLogger.debug("IncomingPacketHandlerThread was interrupted.");
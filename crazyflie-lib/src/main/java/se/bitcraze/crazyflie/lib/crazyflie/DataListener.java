@@ -0,0 +1,83 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2013 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.crazyflie;
+
+import se.bitcraze.crazyflie.lib.crtp.CrtpPacket;
+import se.bitcraze.crazyflie.lib.crtp.CrtpPort;
+
+/**
+ * Interface for receiving notifications about data received from the Crazyflie.
+ *
+ * A listener receives the packets of one port (or of all ports with {@link CrtpPort#ALL}),
+ * either on all channels or on one channel.
+ */
+public abstract class DataListener {
+
+    /**
+     * Channel of listeners that receive the packets of all channels
+     */
+    public final static int ALL_CHANNELS = -1;
+
+    private CrtpPort mPort;
+    private int mChannel;
+
+    public DataListener(CrtpPort port) {
+        this(port, ALL_CHANNELS);
+    }
+
+    /**
+     * @param port port of the packets
+     * @param channel channel (0-3) of the packets or {@link #ALL_CHANNELS}
+     */
+    public DataListener(CrtpPort port, int channel) {
+        if (channel < ALL_CHANNELS || channel > 3) {
+            throw new IllegalArgumentException("Channel must be between 0 and 3 (or ALL_CHANNELS): " + channel);
+        }
+        mPort = port;
+        mChannel = channel;
+    }
+
+    public CrtpPort getPort() {
+        return mPort;
+    }
+
+    public int getChannel() {
+        return mChannel;
+    }
+
+    /**
+     * Called for every received packet on the port of this listener.
+     *
+     * The packet may be pooled by the driver (see {@link CrtpPacket#isPooled()}), so it and its payload
+     * must not be kept or modified after this method returns. Copy the data that needs to be kept.
+     *
+     * @param packet received packet
+     */
+    public abstract void dataReceived(CrtpPacket packet);
+
+}
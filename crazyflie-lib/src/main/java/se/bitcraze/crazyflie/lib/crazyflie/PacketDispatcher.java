@@ -0,0 +1,184 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.crazyflie;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import se.bitcraze.crazyflie.lib.crtp.CrtpPacket;
+import se.bitcraze.crazyflie.lib.crtp.CrtpPort;
+
+/**
+ * Routes received packets to the {@link DataListener}s of their port and channel.
+ *
+ * The listeners are kept in immutable arrays indexed by port (16) and channel (4), so dispatching
+ * a packet costs one array lookup. Listeners of a port with an executor are called on that executor
+ * instead of the receiving thread, eg. to keep a slow console listener from delaying log and param packets.
+ */
+/* package private */ final class PacketDispatcher {
+
+    private final static int NO_OF_PORTS = 16;
+    private final static int NO_OF_CHANNELS = 4;
+    private final static DataListener[] NO_LISTENERS = new DataListener[0];
+
+    private final Logger mLogger = LoggerFactory.getLogger("PacketDispatcher");
+
+    // index: port << 2 | channel
+    private final AtomicReferenceArray<DataListener[]> mListeners = new AtomicReferenceArray<DataListener[]>(NO_OF_PORTS * NO_OF_CHANNELS);
+    private final AtomicReferenceArray<Executor> mExecutors = new AtomicReferenceArray<Executor>(NO_OF_PORTS);
+
+    PacketDispatcher() {
+        for (int i = 0; i < mListeners.length(); i++) {
+            mListeners.set(i, NO_LISTENERS);
+        }
+    }
+
+    /**
+     * Add a listener, a listener of {@link CrtpPort#ALL} is added to every port
+     */
+    synchronized void addDataListener(DataListener dataListener) {
+        for (int index : getIndexes(dataListener)) {
+            DataListener[] listeners = mListeners.get(index);
+            if (!contains(listeners, dataListener)) {
+                DataListener[] newListeners = Arrays.copyOf(listeners, listeners.length + 1);
+                newListeners[listeners.length] = dataListener;
+                mListeners.set(index, newListeners);
+            }
+        }
+    }
+
+    synchronized void removeDataListener(DataListener dataListener) {
+        for (int index : getIndexes(dataListener)) {
+            DataListener[] listeners = mListeners.get(index);
+            if (contains(listeners, dataListener)) {
+                DataListener[] newListeners = new DataListener[listeners.length - 1];
+                int i = 0;
+                for (DataListener listener : listeners) {
+                    if (listener != dataListener) {
+                        newListeners[i++] = listener;
+                    }
+                }
+                mListeners.set(index, newListeners.length == 0 ? NO_LISTENERS : newListeners);
+            }
+        }
+    }
+
+    /**
+     * Set the executor the listeners of a port are called on
+     *
+     * @param port port (not {@link CrtpPort#ALL})
+     * @param executor executor or null to call the listeners on the receiving thread
+     */
+    void setExecutor(CrtpPort port, Executor executor) {
+        mExecutors.set(getPortNumber(port), executor);
+    }
+
+    /**
+     * Dispatch a received packet
+     *
+     * @return true if at least one listener has been found
+     */
+    boolean dispatch(CrtpPacket packet) {
+        CrtpPort port = packet.getHeader().getPort();
+        if (port == null || port.getNumber() < 0 || port.getNumber() >= NO_OF_PORTS) {
+            return false;
+        }
+        final DataListener[] listeners = mListeners.get(port.getNumber() << 2 | packet.getHeader().getChannel());
+        if (listeners.length == 0) {
+            return false;
+        }
+        Executor executor = mExecutors.get(port.getNumber());
+        if (executor == null) {
+            for (DataListener listener : listeners) {
+                listener.dataReceived(packet);
+            }
+        } else {
+            // pooled packets are reused after dispatch, hand a copy to the executor
+            final CrtpPacket copy = packet.isPooled() ? new CrtpPacket(packet.getHeaderByte(), packet.getPayload().clone()) : packet;
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    for (DataListener listener : listeners) {
+                        try {
+                            listener.dataReceived(copy);
+                        } catch (RuntimeException e) {
+                            mLogger.error("DataListener for port " + listener.getPort() + " failed: " + e.getMessage());
+                        }
+                    }
+                }
+            });
+        }
+        return true;
+    }
+
+    private static int[] getIndexes(DataListener dataListener) {
+        int firstChannel = 0;
+        int lastChannel = NO_OF_CHANNELS - 1;
+        if (dataListener.getChannel() != DataListener.ALL_CHANNELS) {
+            firstChannel = dataListener.getChannel();
+            lastChannel = dataListener.getChannel();
+        }
+        int firstPort;
+        int lastPort;
+        if (dataListener.getPort() == CrtpPort.ALL) {
+            firstPort = 0;
+            lastPort = NO_OF_PORTS - 1;
+        } else {
+            firstPort = getPortNumber(dataListener.getPort());
+            lastPort = firstPort;
+        }
+        int channels = lastChannel - firstChannel + 1;
+        int[] indexes = new int[(lastPort - firstPort + 1) * channels];
+        for (int port = firstPort; port <= lastPort; port++) {
+            for (int channel = firstChannel; channel <= lastChannel; channel++) {
+                indexes[(port - firstPort) * channels + channel - firstChannel] = port << 2 | channel;
+            }
+        }
+        return indexes;
+    }
+
+    private static int getPortNumber(CrtpPort port) {
+        if (port == null || port.getNumber() < 0 || port.getNumber() >= NO_OF_PORTS) {
+            throw new IllegalArgumentException("Port " + port + " has no CRTP port number.");
+        }
+        return port.getNumber();
+    }
+
+    private static boolean contains(DataListener[] listeners, DataListener dataListener) {
+        for (DataListener listener : listeners) {
+            if (listener == dataListener) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
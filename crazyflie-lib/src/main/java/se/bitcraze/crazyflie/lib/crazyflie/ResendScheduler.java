@@ -0,0 +1,486 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.crazyflie;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import se.bitcraze.crazyflie.lib.crtp.CrtpPacket;
+import se.bitcraze.crazyflie.lib.crtp.CrtpPort;
+
+/**
+ * Keeps track of the sent packets that wait for a reply and resends them when their deadline has passed.
+ *
+ * The packets are indexed by their port, channel and expected reply in an open addressing table with
+ * primitive keys, so a received packet is matched with a few lookups that do not allocate. The deadlines are kept in a hashed timer wheel. The retransmission timeout (RTO)
+ * adapts to the measured round-trip time like TCP (RFC 6298): SRTT + 4 * RTTVAR, doubled for every resend
+ * of the same packet and limited by the configured minimum and maximum.
+ */
+public final class ResendScheduler {
+
+    public final static long DEFAULT_INITIAL_RTO_MS = 250;
+    public final static long DEFAULT_MIN_RTO_MS = 20;
+    public final static long DEFAULT_MAX_RTO_MS = 2000;
+
+    // the first 6 bytes of the expected reply are part of the key, longer replies are compared on match
+    private final static int KEY_PREFIX_LENGTH = 6;
+    private final static int MAX_REPLY_LENGTH = 31;
+    private final static int INITIAL_TABLE_SIZE = 64;
+
+    private final long mTickNanos;
+    private final Pending[] mWheel;
+    private final int mWheelMask;
+    private long mCurrentTick = -1;
+
+    // oldest pending packet per key with linear probing, a slot is free if its head is null
+    private long[] mKeys = new long[INITIAL_TABLE_SIZE];
+    private Pending[] mHeads = new Pending[INITIAL_TABLE_SIZE];
+    private int mKeyCount = 0;
+    // number of pending packets per port/channel and expected reply length
+    private final int[] mReplyLengthCounts = new int[64 * (MAX_REPLY_LENGTH + 1)];
+
+    private long mInitialRtoNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_INITIAL_RTO_MS);
+    private long mMinRtoNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_MIN_RTO_MS);
+    private long mMaxRtoNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_MAX_RTO_MS);
+
+    // round-trip time estimation, 0 until the first sample
+    private long mSrttNanos = 0;
+    private long mRttVarNanos = 0;
+    private long mMinRttNanos = Long.MAX_VALUE;
+    private long mRtoNanos = mInitialRtoNanos;
+
+    // statistics
+    private long mSentCount = 0;
+    private long mReplyCount = 0;
+    private long mResendCount = 0;
+    private int mPendingCount = 0;
+
+    /**
+     * @param tickMillis resolution of the deadlines
+     * @param wheelSize number of slots of the timer wheel (power of two)
+     */
+    ResendScheduler(int tickMillis, int wheelSize) {
+        if (tickMillis <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("tickMillis must be positive and wheelSize a power of two.");
+        }
+        this.mTickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.mWheel = new Pending[wheelSize];
+        this.mWheelMask = wheelSize - 1;
+    }
+
+    /**
+     * Set the RTO used until the first round-trip time has been measured
+     */
+    public synchronized void setInitialRto(long rtoMillis) {
+        this.mInitialRtoNanos = TimeUnit.MILLISECONDS.toNanos(rtoMillis);
+        if (mSrttNanos == 0) {
+            mRtoNanos = clampRto(mInitialRtoNanos);
+        }
+    }
+
+    /**
+     * Set the limits of the adaptive RTO
+     */
+    public synchronized void setRtoLimits(long minRtoMillis, long maxRtoMillis) {
+        if (minRtoMillis <= 0 || maxRtoMillis < minRtoMillis) {
+            throw new IllegalArgumentException("Invalid RTO limits: " + minRtoMillis + ", " + maxRtoMillis);
+        }
+        this.mMinRtoNanos = TimeUnit.MILLISECONDS.toNanos(minRtoMillis);
+        this.mMaxRtoNanos = TimeUnit.MILLISECONDS.toNanos(maxRtoMillis);
+        mRtoNanos = clampRto(mRtoNanos);
+    }
+
+    long getTickNanos() {
+        return mTickNanos;
+    }
+
+    /**
+     * Register a sent packet that has an expected reply
+     *
+     * @return false if the packet is already waiting for its reply
+     */
+    synchronized boolean add(CrtpPacket packet, long nowNanos) {
+        int portChannel = getPortChannel(packet);
+        byte[] expectedReply = packet.getExpectedReply();
+        if (portChannel < 0 || expectedReply == null || expectedReply.length == 0 || expectedReply.length > MAX_REPLY_LENGTH) {
+            throw new IllegalArgumentException("Packet has no valid port or expected reply: " + packet);
+        }
+        long key = getKey(portChannel, expectedReply, expectedReply.length);
+        Pending last = null;
+        for (Pending p = getHead(key); p != null; p = p.mNextSameKey) {
+            if (p.mPacket == packet) {
+                return false;
+            }
+            last = p;
+        }
+        Pending pending = new Pending(packet, key, portChannel, nowNanos, mRtoNanos);
+        if (last == null) {
+            putHead(key, pending);
+        } else {
+            last.mNextSameKey = pending;
+        }
+        mReplyLengthCounts[portChannel * (MAX_REPLY_LENGTH + 1) + expectedReply.length]++;
+        schedule(pending, nowNanos + pending.mRtoNanos);
+        mSentCount++;
+        mPendingCount++;
+        return true;
+    }
+
+    /**
+     * Match a received packet with the expected replies, the oldest matching packet is removed
+     *
+     * @return true if a packet was waiting for this reply
+     */
+    synchronized boolean ack(CrtpPacket reply, long nowNanos) {
+        if (mPendingCount == 0) {
+            return false;
+        }
+        int portChannel = getPortChannel(reply);
+        if (portChannel < 0) {
+            return false;
+        }
+        byte[] payload = reply.getPayload();
+        int base = portChannel * (MAX_REPLY_LENGTH + 1);
+        int maxLength = Math.min(payload.length, MAX_REPLY_LENGTH);
+        for (int length = 1; length <= maxLength; length++) {
+            if (mReplyLengthCounts[base + length] == 0) {
+                continue;
+            }
+            long key = getKey(portChannel, payload, length);
+            Pending previous = null;
+            for (Pending p = getHead(key); p != null; p = p.mNextSameKey) {
+                if (matches(p.mPacket.getExpectedReply(), payload)) {
+                    remove(p, previous);
+                    if (p.mResends == 0) {
+                        // Karn's algorithm: only packets that have not been resent give unambiguous samples
+                        updateRtt(nowNanos - p.mSentTime);
+                    }
+                    mReplyCount++;
+                    return true;
+                }
+                previous = p;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Collect the packets whose deadline has passed and schedule them again with a doubled RTO
+     *
+     * @param resends list the packets to resend are added to
+     */
+    synchronized void expire(long nowNanos, List<CrtpPacket> resends) {
+        long nowTick = nowNanos / mTickNanos;
+        if (mCurrentTick < 0) {
+            mCurrentTick = nowTick;
+            return;
+        }
+        // every slot only has to be visited once, even if the thread was delayed for more than a round
+        long ticks = Math.min(nowTick - mCurrentTick, mWheel.length);
+        for (long i = 0; i < ticks; i++) {
+            int slot = (int) ((mCurrentTick + 1 + i) & mWheelMask);
+            Pending p = mWheel[slot];
+            while (p != null) {
+                Pending next = p.mWheelNext;
+                if (p.mDeadlineTick <= nowTick) {
+                    unschedule(p);
+                    p.mResends++;
+                    p.mRtoNanos = Math.min(p.mRtoNanos * 2, mMaxRtoNanos);
+                    mResendCount++;
+                    resends.add(p.mPacket);
+                    schedule(p, nowNanos + p.mRtoNanos);
+                }
+                p = next;
+            }
+        }
+        mCurrentTick = nowTick;
+    }
+
+    /**
+     * Remove all pending packets, eg. on disconnect
+     */
+    synchronized void clear() {
+        Arrays.fill(mHeads, null);
+        mKeyCount = 0;
+        Arrays.fill(mWheel, null);
+        Arrays.fill(mReplyLengthCounts, 0);
+        mPendingCount = 0;
+    }
+
+    private void schedule(Pending pending, long deadlineNanos) {
+        long tick = deadlineNanos / mTickNanos;
+        // never schedule into a slot that has already been visited
+        if (mCurrentTick >= 0 && tick <= mCurrentTick) {
+            tick = mCurrentTick + 1;
+        }
+        pending.mDeadlineTick = tick;
+        int slot = (int) (tick & mWheelMask);
+        pending.mWheelPrev = null;
+        pending.mWheelNext = mWheel[slot];
+        if (mWheel[slot] != null) {
+            mWheel[slot].mWheelPrev = pending;
+        }
+        mWheel[slot] = pending;
+    }
+
+    private void unschedule(Pending pending) {
+        if (pending.mWheelPrev != null) {
+            pending.mWheelPrev.mWheelNext = pending.mWheelNext;
+        } else {
+            mWheel[(int) (pending.mDeadlineTick & mWheelMask)] = pending.mWheelNext;
+        }
+        if (pending.mWheelNext != null) {
+            pending.mWheelNext.mWheelPrev = pending.mWheelPrev;
+        }
+        pending.mWheelPrev = null;
+        pending.mWheelNext = null;
+    }
+
+    private void remove(Pending pending, Pending previous) {
+        unschedule(pending);
+        if (previous == null) {
+            if (pending.mNextSameKey == null) {
+                removeHead(pending.mKey);
+            } else {
+                putHead(pending.mKey, pending.mNextSameKey);
+            }
+        } else {
+            previous.mNextSameKey = pending.mNextSameKey;
+        }
+        mReplyLengthCounts[pending.mPortChannel * (MAX_REPLY_LENGTH + 1) + pending.mPacket.getExpectedReply().length]--;
+        mPendingCount--;
+    }
+
+    /**
+     * Returns the slot of the key, or the complement of the free slot where it would be inserted
+     */
+    private int indexOf(long key) {
+        int mask = mKeys.length - 1;
+        int i = hash(key) & mask;
+        while (mHeads[i] != null) {
+            if (mKeys[i] == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return ~i;
+    }
+
+    private Pending getHead(long key) {
+        int i = indexOf(key);
+        return (i >= 0) ? mHeads[i] : null;
+    }
+
+    private void putHead(long key, Pending head) {
+        int i = indexOf(key);
+        if (i < 0) {
+            // keep the table at most half full so the probe sequences stay short
+            if (2 * (mKeyCount + 1) > mKeys.length) {
+                resize(mKeys.length * 2);
+                i = indexOf(key);
+            }
+            i = ~i;
+            mKeys[i] = key;
+            mKeyCount++;
+        }
+        mHeads[i] = head;
+    }
+
+    private void removeHead(long key) {
+        int i = indexOf(key);
+        if (i < 0) {
+            return;
+        }
+        // shift the following keys of the probe sequence back instead of leaving a tombstone
+        int mask = mKeys.length - 1;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (mHeads[j] == null) {
+                break;
+            }
+            int home = hash(mKeys[j]) & mask;
+            if ((j > i) ? (home <= i || home > j) : (home <= i && home > j)) {
+                mKeys[i] = mKeys[j];
+                mHeads[i] = mHeads[j];
+                i = j;
+            }
+        }
+        mHeads[i] = null;
+        mKeyCount--;
+    }
+
+    private void resize(int size) {
+        long[] keys = mKeys;
+        Pending[] heads = mHeads;
+        mKeys = new long[size];
+        mHeads = new Pending[size];
+        for (int i = 0; i < keys.length; i++) {
+            if (heads[i] != null) {
+                int slot = ~indexOf(keys[i]);
+                mKeys[slot] = keys[i];
+                mHeads[slot] = heads[i];
+            }
+        }
+    }
+
+    // the port, channel and length are in the high bits of the key, mix them into the low bits used as index
+    private static int hash(long key) {
+        long h = (key ^ (key >>> 33)) * 0xFF51AFD7ED558CCDL;
+        return (int) (h ^ (h >>> 33));
+    }
+
+    private void updateRtt(long rttNanos) {
+        if (mSrttNanos == 0) {
+            mSrttNanos = rttNanos;
+            mRttVarNanos = rttNanos / 2;
+        } else {
+            mRttVarNanos = (3 * mRttVarNanos + Math.abs(mSrttNanos - rttNanos)) / 4;
+            mSrttNanos = (7 * mSrttNanos + rttNanos) / 8;
+        }
+        mMinRttNanos = Math.min(mMinRttNanos, rttNanos);
+        mRtoNanos = clampRto(mSrttNanos + Math.max(mTickNanos, 4 * mRttVarNanos));
+    }
+
+    private long clampRto(long rtoNanos) {
+        return Math.max(mMinRtoNanos, Math.min(mMaxRtoNanos, rtoNanos));
+    }
+
+    private static int getPortChannel(CrtpPacket packet) {
+        CrtpPort port = packet.getHeader().getPort();
+        if (port == null || port.getNumber() < 0 || port.getNumber() > 15) {
+            return -1;
+        }
+        return port.getNumber() << 2 | packet.getHeader().getChannel();
+    }
+
+    private static long getKey(int portChannel, byte[] data, int length) {
+        long key = (long) length << 56 | (long) portChannel << 48;
+        for (int i = 0; i < Math.min(length, KEY_PREFIX_LENGTH); i++) {
+            key |= (long) (data[i] & 0xFF) << (8 * i);
+        }
+        return key;
+    }
+
+    private static boolean matches(byte[] expectedReply, byte[] payload) {
+        if (payload.length < expectedReply.length) {
+            return false;
+        }
+        for (int i = KEY_PREFIX_LENGTH; i < expectedReply.length; i++) {
+            if (expectedReply[i] != payload[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /* Statistics */
+
+    /**
+     * Returns the number of sent packets that waited for a reply
+     */
+    public synchronized long getSentCount() {
+        return mSentCount;
+    }
+
+    /**
+     * Returns the number of matched replies
+     */
+    public synchronized long getReplyCount() {
+        return mReplyCount;
+    }
+
+    public synchronized long getResendCount() {
+        return mResendCount;
+    }
+
+    /**
+     * Returns the number of packets currently waiting for a reply
+     */
+    public synchronized int getPendingCount() {
+        return mPendingCount;
+    }
+
+    /**
+     * Returns the smoothed round-trip time in microseconds (0 if not measured yet)
+     */
+    public synchronized long getSmoothedRttMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(mSrttNanos);
+    }
+
+    /**
+     * Returns the round-trip time variation in microseconds
+     */
+    public synchronized long getRttVariationMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(mRttVarNanos);
+    }
+
+    /**
+     * Returns the minimum measured round-trip time in microseconds (0 if not measured yet)
+     */
+    public synchronized long getMinRttMicros() {
+        return mMinRttNanos == Long.MAX_VALUE ? 0 : TimeUnit.NANOSECONDS.toMicros(mMinRttNanos);
+    }
+
+    /**
+     * Returns the current retransmission timeout in milliseconds
+     */
+    public synchronized long getRtoMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(mRtoNanos);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ResendScheduler [sent: " + mSentCount + ", replies: " + mReplyCount + ", resends: " + mResendCount
+                + ", pending: " + mPendingCount + ", srtt: " + getSmoothedRttMicros() + "us, rttvar: " + getRttVariationMicros()
+                + "us, rto: " + getRtoMillis() + "ms]";
+    }
+
+    private static final class Pending {
+        private final CrtpPacket mPacket;
+        private final long mKey;
+        private final int mPortChannel;
+        private final long mSentTime;
+        private long mRtoNanos;
+        private int mResends = 0;
+
+        private long mDeadlineTick;
+        private Pending mWheelPrev;
+        private Pending mWheelNext;
+        private Pending mNextSameKey;
+
+        Pending(CrtpPacket packet, long key, int portChannel, long sentTime, long rtoNanos) {
+            this.mPacket = packet;
+            this.mKey = key;
+            this.mPortChannel = portChannel;
+            this.mSentTime = sentTime;
+            this.mRtoNanos = rtoNanos;
+        }
+    }
+}
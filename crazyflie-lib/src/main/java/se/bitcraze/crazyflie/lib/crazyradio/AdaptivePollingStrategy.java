@@ -0,0 +1,98 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.crazyradio;
+
+/**
+ * Adapts the wait time to the recent downlink rate and the depth of the out queue.
+ *
+ * The downlink activity is the exponentially weighted fraction of acks that contained data.
+ * As long as the activity is above the threshold (e.g. during log bursts or TOC downloads) or packets
+ * are waiting to be sent, the Crazyflie is polled without waiting. Below the threshold the wait time
+ * grows linearly up to the max. wait time when the link is completely idle.
+ */
+public class AdaptivePollingStrategy implements PollingStrategy {
+
+    public final static long DEFAULT_MAX_WAIT_TIME_MICROS = 10000;
+    public final static float DEFAULT_ACTIVITY_THRESHOLD = 0.2f;
+    public final static float DEFAULT_SMOOTHING = 0.1f;
+
+    private final long mMaxWaitTimeMicros;
+    private final float mActivityThreshold;
+    private final float mSmoothing;
+    private float mActivity = 1.0f;
+
+    public AdaptivePollingStrategy() {
+        this(DEFAULT_MAX_WAIT_TIME_MICROS, DEFAULT_ACTIVITY_THRESHOLD, DEFAULT_SMOOTHING);
+    }
+
+    /**
+     * @param maxWaitTimeMicros wait time when the link is idle
+     * @param activityThreshold downlink activity (0-1) above which the Crazyflie is polled without waiting
+     * @param smoothing weight (0-1) of the latest ack in the downlink activity
+     */
+    public AdaptivePollingStrategy(long maxWaitTimeMicros, float activityThreshold, float smoothing) {
+        if (maxWaitTimeMicros < 0) {
+            throw new IllegalArgumentException("Max. wait time must not be negative");
+        }
+        if (activityThreshold <= 0 || activityThreshold > 1 || smoothing <= 0 || smoothing > 1) {
+            throw new IllegalArgumentException("Activity threshold and smoothing must be in range (0, 1]");
+        }
+        this.mMaxWaitTimeMicros = maxWaitTimeMicros;
+        this.mActivityThreshold = activityThreshold;
+        this.mSmoothing = smoothing;
+    }
+
+    @Override
+    public long nextWaitTimeMicros(boolean receivedData, int outQueueDepth) {
+        mActivity += mSmoothing * ((receivedData ? 1.0f : 0.0f) - mActivity);
+        if (outQueueDepth > 0 || mActivity >= mActivityThreshold) {
+            return 0;
+        }
+        return (long) (mMaxWaitTimeMicros * (1.0f - mActivity / mActivityThreshold));
+    }
+
+    /**
+     * Returns the current downlink activity
+     *
+     * @return fraction (0-1) of recent acks that contained data
+     */
+    public float getActivity() {
+        return mActivity;
+    }
+
+    @Override
+    public void reset() {
+        // start in fast polling mode, the connection setup is downlink heavy
+        mActivity = 1.0f;
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptivePollingStrategy [max. " + mMaxWaitTimeMicros + "us, threshold " + mActivityThreshold + "]";
+    }
+}
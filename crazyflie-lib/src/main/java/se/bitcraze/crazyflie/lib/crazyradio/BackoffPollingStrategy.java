@@ -0,0 +1,80 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.crazyradio;
+
+/**
+ * Exponential backoff: every empty ack doubles the wait time (starting at the min. wait time)
+ * up to the max. wait time. Received data resets the wait time to zero.
+ */
+public class BackoffPollingStrategy implements PollingStrategy {
+
+    public final static long DEFAULT_MIN_WAIT_TIME_MICROS = 250;
+    public final static long DEFAULT_MAX_WAIT_TIME_MICROS = 10000;
+
+    private final long mMinWaitTimeMicros;
+    private final long mMaxWaitTimeMicros;
+    private long mWaitTimeMicros = 0;
+
+    public BackoffPollingStrategy() {
+        this(DEFAULT_MIN_WAIT_TIME_MICROS, DEFAULT_MAX_WAIT_TIME_MICROS);
+    }
+
+    /**
+     * @param minWaitTimeMicros wait time after the first empty ack
+     * @param maxWaitTimeMicros upper limit of the wait time
+     */
+    public BackoffPollingStrategy(long minWaitTimeMicros, long maxWaitTimeMicros) {
+        if (minWaitTimeMicros <= 0 || maxWaitTimeMicros < minWaitTimeMicros) {
+            throw new IllegalArgumentException("Min. wait time must be positive and not larger than max. wait time");
+        }
+        this.mMinWaitTimeMicros = minWaitTimeMicros;
+        this.mMaxWaitTimeMicros = maxWaitTimeMicros;
+    }
+
+    @Override
+    public long nextWaitTimeMicros(boolean receivedData, int outQueueDepth) {
+        if (receivedData) {
+            mWaitTimeMicros = 0;
+        } else if (mWaitTimeMicros == 0) {
+            mWaitTimeMicros = mMinWaitTimeMicros;
+        } else {
+            mWaitTimeMicros = Math.min(mWaitTimeMicros * 2, mMaxWaitTimeMicros);
+        }
+        return mWaitTimeMicros;
+    }
+
+    @Override
+    public void reset() {
+        mWaitTimeMicros = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "BackoffPollingStrategy [" + mMinWaitTimeMicros + "-" + mMaxWaitTimeMicros + "us]";
+    }
+}
@@ -80,6 +80,9 @@ public class Crazyradio {
 
     protected final static byte[] NULL_PACKET = new byte[] { (byte) 0xff };
 
+    // reused by sendPacket(byte[], RadioAck) to avoid allocating a receive buffer for every transfer
+    private final byte[] mReceiveBuffer = new byte[33];
+
     /**
      * Create object and scan for USB dongle if no device is supplied
      *
@@ -424,7 +427,7 @@ public class Crazyradio {
         if (mUsbInterface == null || !mUsbInterface.isUsbConnected()) {
             return null;
         }
-        mUsbInterface.sendBulkTransfer(dataOut, data);
+        int received = mUsbInterface.sendBulkTransfer(dataOut, data);
 
         // if data is not None:
         ackIn = new RadioAck();
@@ -432,13 +435,54 @@ public class Crazyradio {
             ackIn.setAck((data[0] & 0x01) != 0);
             ackIn.setPowerDet((data[0] & 0x02) != 0);
             ackIn.setRetry(data[0] >> 4);
-            ackIn.setData(Arrays.copyOfRange(data, 1, data.length));
+            ackIn.setData(Arrays.copyOfRange(data, 1, getTransferLength(received, data)));
+        } else {
+            ackIn.setRetry(mArc);
+        }
+        return ackIn;
+    }
+
+    /**
+     * Send a packet and receive the ack from the radio dongle without allocating.
+     * The receive buffer of the Crazyradio is reused and the ack status and payload
+     * are written into the supplied ack, which is only valid until the next transfer.
+     *
+     * Must only be called from one thread at a time (i.e. the radio driver thread).
+     *
+     * @param dataOut bytes to send
+     * @param ackIn ack that is reset and filled with the result of the transfer
+     * @return ackIn or <code>null</code> if the USB device is not connected
+     */
+    public RadioAck sendPacket(byte[] dataOut, RadioAck ackIn) {
+        if (mUsbInterface == null || !mUsbInterface.isUsbConnected()) {
+            return null;
+        }
+        byte[] data = mReceiveBuffer;
+        // same content as a freshly allocated buffer if the transfer returns less than 33 bytes
+        Arrays.fill(data, (byte) 0);
+        int received = mUsbInterface.sendBulkTransfer(dataOut, data);
+
+        ackIn.reset();
+        if (data[0] != 0) {
+            ackIn.setAck((data[0] & 0x01) != 0);
+            ackIn.setPowerDet((data[0] & 0x02) != 0);
+            ackIn.setRetry(data[0] >> 4);
+            ackIn.setData(data, 1, getTransferLength(received, data) - 1);
         } else {
             ackIn.setRetry(mArc);
         }
         return ackIn;
     }
 
+    /**
+     * Only the received bytes belong to the ack (data = data[1:] in the python cflib),
+     * otherwise an empty ack would look like a packet full of zeros.
+     * If the USB interface does not report the number of bytes, the whole buffer is used.
+     */
+    private static int getTransferLength(int received, byte[] data) {
+        return (received > 0 && received <= data.length) ? received : data.length;
+    }
+
     private void sendVendorSetup(int request, int value, int index, byte[] data) {
         // usb.TYPE_VENDOR = 64 <=> 0x40
         int usbTypeVendor = 0x40;
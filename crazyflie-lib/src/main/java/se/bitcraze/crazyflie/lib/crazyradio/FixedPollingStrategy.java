@@ -0,0 +1,83 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.crazyradio;
+
+/**
+ * Waits a fixed time after a number of consecutive empty acks, otherwise polls immediately.
+ *
+ * With the default values this is the rule of the python cflib: relax 10ms after 10 empty acks.
+ */
+public class FixedPollingStrategy implements PollingStrategy {
+
+    public final static int DEFAULT_EMPTY_ACK_THRESHOLD = 10;
+    public final static long DEFAULT_WAIT_TIME_MICROS = 10000;
+
+    private final int mEmptyAckThreshold;
+    private final long mWaitTimeMicros;
+    private int mEmptyCtr = 0;
+
+    public FixedPollingStrategy() {
+        this(DEFAULT_EMPTY_ACK_THRESHOLD, DEFAULT_WAIT_TIME_MICROS);
+    }
+
+    /**
+     * @param emptyAckThreshold number of consecutive empty acks before waiting
+     * @param waitTimeMicros wait time in microseconds
+     */
+    public FixedPollingStrategy(int emptyAckThreshold, long waitTimeMicros) {
+        if (emptyAckThreshold < 0 || waitTimeMicros < 0) {
+            throw new IllegalArgumentException("Threshold and wait time must not be negative");
+        }
+        this.mEmptyAckThreshold = emptyAckThreshold;
+        this.mWaitTimeMicros = waitTimeMicros;
+    }
+
+    @Override
+    public long nextWaitTimeMicros(boolean receivedData, int outQueueDepth) {
+        if (receivedData) {
+            mEmptyCtr = 0;
+            return 0;
+        }
+        if (mEmptyCtr < mEmptyAckThreshold) {
+            mEmptyCtr++;
+            return 0;
+        }
+        // Relaxation time if the last packets were empty
+        return mWaitTimeMicros;
+    }
+
+    @Override
+    public void reset() {
+        mEmptyCtr = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "FixedPollingStrategy [" + mEmptyAckThreshold + " empty acks, " + mWaitTimeMicros + "us]";
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.crazyradio;
+
+/**
+ * Decides how long the radio driver thread waits for an outgoing packet before it polls the
+ * Crazyflie with a null packet.
+ *
+ * Short waits give more downlink bandwidth (the Crazyflie can only send data in acks), long waits
+ * save USB transfers and CPU when the link is idle.
+ */
+public interface PollingStrategy {
+
+    /**
+     * Called after every successful transfer
+     *
+     * @param receivedData <code>true</code> if the ack contained a packet from the Crazyflie
+     * @param outQueueDepth number of packets waiting to be sent
+     * @return time in microseconds to wait for an outgoing packet before sending a null packet
+     */
+    public long nextWaitTimeMicros(boolean receivedData, int outQueueDepth);
+
+    /**
+     * Reset the state of the strategy (e.g. when the link is (re)started)
+     */
+    public void reset();
+
+}
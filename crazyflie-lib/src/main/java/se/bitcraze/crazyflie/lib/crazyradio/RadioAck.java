@@ -0,0 +1,125 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2015 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.crazyradio;
+
+import java.util.Arrays;
+
+/**
+ * Status and payload of an ack received from the Crazyradio.
+ *
+ * A RadioAck can be reused for several transfers (see {@link Crazyradio#sendPacket(byte[], RadioAck)}),
+ * in that case the payload is copied into a buffer owned by the ack and is only valid until the next transfer.
+ */
+public class RadioAck {
+
+    // max size of the ack payload (33 byte USB transfer minus the status byte)
+    public final static int MAX_DATA_LENGTH = 32;
+
+    private boolean ack = false;
+    private boolean powerDet = false;
+    private int retry = 0;
+    private byte[] data;
+    private final byte[] mDataBuffer = new byte[MAX_DATA_LENGTH];
+    private int mDataLength = 0;
+
+    public boolean isAck() {
+        return ack;
+    }
+    public void setAck(boolean ack) {
+        this.ack = ack;
+    }
+    public boolean isPowerDet() {
+        return powerDet;
+    }
+    public void setPowerDet(boolean powerDet) {
+        this.powerDet = powerDet;
+    }
+    public int getRetry() {
+        return retry;
+    }
+    public void setRetry(int retry) {
+        this.retry = retry;
+    }
+
+    /**
+     * Returns the ack payload as a new array (allocates if the payload was set with {@link #setData(byte[], int, int)})
+     *
+     * @return ack payload or <code>null</code> if the ack did not contain any data
+     */
+    public byte[] getData() {
+        if (data == null && mDataLength > 0) {
+            data = Arrays.copyOf(mDataBuffer, mDataLength);
+        }
+        return data;
+    }
+    public void setData(byte[] data) {
+        this.data = data;
+        this.mDataLength = (data == null) ? 0 : data.length;
+    }
+
+    /**
+     * Copy the ack payload into the buffer owned by this ack without allocating.
+     *
+     * @param src array containing the payload
+     * @param offset start of the payload in src
+     * @param length number of payload bytes (max. {@link #MAX_DATA_LENGTH})
+     */
+    public void setData(byte[] src, int offset, int length) {
+        if (length > MAX_DATA_LENGTH) {
+            throw new IllegalArgumentException("Ack payload must not be longer than " + MAX_DATA_LENGTH + " bytes");
+        }
+        System.arraycopy(src, offset, mDataBuffer, 0, length);
+        this.mDataLength = length;
+        this.data = null;
+    }
+
+    /**
+     * Returns the buffer holding the payload set with {@link #setData(byte[], int, int)}.
+     * Only the first {@link #getDataLength()} bytes are valid.
+     *
+     * @return payload buffer owned by this ack
+     */
+    public byte[] getDataBuffer() {
+        return (data != null) ? data : mDataBuffer;
+    }
+
+    public int getDataLength() {
+        return mDataLength;
+    }
+
+    /**
+     * Reset the ack so that it can be reused for the next transfer
+     */
+    public void reset() {
+        this.ack = false;
+        this.powerDet = false;
+        this.retry = 0;
+        this.data = null;
+        this.mDataLength = 0;
+    }
+}
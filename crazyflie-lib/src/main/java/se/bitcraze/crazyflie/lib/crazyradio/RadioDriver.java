@@ -31,6 +31,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -41,6 +42,8 @@ import org.slf4j.LoggerFactory;
 import se.bitcraze.crazyflie.lib.Utilities;
 import se.bitcraze.crazyflie.lib.crtp.CrtpDriver;
 import se.bitcraze.crazyflie.lib.crtp.CrtpPacket;
+import se.bitcraze.crazyflie.lib.crtp.CrtpPacketPool;
+import se.bitcraze.crazyflie.lib.crtp.PriorityPacketQueue;
 import se.bitcraze.crazyflie.lib.usb.CrazyUsbInterface;
 
 /**
@@ -56,11 +59,24 @@ public class RadioDriver extends CrtpDriver {
 
     private CrazyUsbInterface mUsbInterface;
 
-    private final BlockingQueue<CrtpPacket> mOutQueue = new LinkedBlockingQueue<CrtpPacket>();
-    //TODO: Limit size of out queue to avoid "ReadBack" effect?
-    private final BlockingQueue<CrtpPacket> mInQueue = new LinkedBlockingQueue<CrtpPacket>();
+    // bounded to avoid the "ReadBack" effect, commander setpoints are sent first and never queue up
+    private final static int OUT_QUEUE_CONTROL_CAPACITY = 32;
+    private final static int OUT_QUEUE_BULK_CAPACITY = 64;
+    private final static int OUT_QUEUE_TIMEOUT_MS = 2000;
+    private final PriorityPacketQueue mOutQueue = new PriorityPacketQueue(OUT_QUEUE_CONTROL_CAPACITY, OUT_QUEUE_BULK_CAPACITY);
+    private BlockingQueue<CrtpPacket> mInQueue = new LinkedBlockingQueue<CrtpPacket>();
 
     private ConnectionData mConnectionData;
+
+    // zero allocation mode: reused ack and receive buffer, pooled incoming packets
+    private final static int IN_QUEUE_CAPACITY = 256;
+    private boolean mZeroAllocation = false;
+    private CrtpPacketPool mPacketPool = null;
+
+    private PollingStrategy mPollingStrategy = new FixedPollingStrategy();
+
+    // incoming packets dropped because the in queue was full, only written by the radio driver thread
+    private volatile long mDroppedInPackets = 0;
     
     /**
      * Create the link driver
@@ -126,9 +142,80 @@ public class RadioDriver extends CrtpDriver {
         this.mConnectionData = connectionData;
     }
 
+    /**
+     * Enable or disable the zero allocation mode of the send/receive loop.
+     * Must be set before connecting.
+     *
+     * In zero allocation mode the ack and the USB receive buffer are reused for every transfer,
+     * the in queue is array-backed and received packets are taken from a {@link CrtpPacketPool}.
+     * Packets returned by {@link #receivePacket(int)} then belong to the caller, who should call
+     * {@link CrtpPacket#release()} when done with them. Packets that are not released are garbage collected
+     * and replaced by new ones, so releasing is an optimization and never required for correctness.
+     *
+     * @param zeroAllocation <code>true</code> to enable the zero allocation mode
+     */
+    public void setZeroAllocation(boolean zeroAllocation) {
+        if (mRadioDriverThread != null) {
+            throw new IllegalStateException("Zero allocation mode must be set before connecting.");
+        }
+        this.mZeroAllocation = zeroAllocation;
+        if (zeroAllocation) {
+            this.mPacketPool = new CrtpPacketPool(IN_QUEUE_CAPACITY);
+            this.mInQueue = new ArrayBlockingQueue<CrtpPacket>(IN_QUEUE_CAPACITY);
+        } else {
+            this.mPacketPool = null;
+            this.mInQueue = new LinkedBlockingQueue<CrtpPacket>();
+        }
+    }
+
+    /**
+     * Set the strategy that decides how long the driver waits for outgoing packets
+     * before polling the Crazyflie with a null packet. Must be set before connecting.
+     *
+     * @param pollingStrategy polling strategy (default: {@link FixedPollingStrategy})
+     */
+    public void setPollingStrategy(PollingStrategy pollingStrategy) {
+        if (pollingStrategy == null) {
+            throw new IllegalArgumentException("Polling strategy must not be null");
+        }
+        if (mRadioDriverThread != null) {
+            throw new IllegalStateException("Polling strategy must be set before connecting.");
+        }
+        this.mPollingStrategy = pollingStrategy;
+    }
+
+    public PollingStrategy getPollingStrategy() {
+        return mPollingStrategy;
+    }
+
+    public boolean isZeroAllocation() {
+        return mZeroAllocation;
+    }
+
+    /**
+     * Returns the pool used for incoming packets in zero allocation mode
+     *
+     * @return packet pool or <code>null</code> if zero allocation mode is disabled
+     */
+    public CrtpPacketPool getPacketPool() {
+        return mPacketPool;
+    }
+
+    /**
+     * Returns the number of incoming packets that have been dropped because nobody received them
+     * and the in queue was full (only possible in zero allocation mode)
+     *
+     * @return number of dropped incoming packets
+     */
+    public long getDroppedInPacketCount() {
+        return mDroppedInPackets;
+    }
+
     /*
      *  Receive a packet though the link. This call is blocking but will
      *  timeout and return None if a timeout is supplied.
+     *
+     *  In zero allocation mode the returned packet is pooled, see setZeroAllocation(boolean).
      */
     @Override
     public CrtpPacket receivePacket(int time) {
@@ -163,9 +250,11 @@ public class RadioDriver extends CrtpDriver {
                 self.link_error_callback("RadioDriver: Could not send packet to copter")
         */
 
-        // this.mOutQueue.addLast(packet);
         try {
-            this.mOutQueue.put(packet);
+            if (!this.mOutQueue.offer(packet, OUT_QUEUE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                mLogger.warn("Out queue is full: " + mOutQueue);
+                notifyConnectionLost("RadioDriver: Could not send packet to copter");
+            }
         } catch (InterruptedException e) {
             mLogger.error("InterruptedException: " + e.getMessage());
         }
@@ -195,6 +284,15 @@ public class RadioDriver extends CrtpDriver {
         notifyDisconnected();
     }
 
+    /**
+     * Returns the outgoing packet queue, e.g. to read queue depth and packet age metrics
+     *
+     * @return outgoing packet queue
+     */
+    public PriorityPacketQueue getOutQueue() {
+        return mOutQueue;
+    }
+
     public List<ConnectionData> scanInterface() {
         return scanInterface(mCradio, mUsbInterface);
     }
@@ -314,6 +412,11 @@ public class RadioDriver extends CrtpDriver {
         private final static int RETRYCOUNT_BEFORE_DISCONNECT = 10;
         private int mRetryBeforeDisconnect;
 
+        // only used in zero allocation mode
+        private final RadioAck mAck = new RadioAck();
+        private int mLastLinkQuality = -1;
+        private boolean mLinkEstablished = false;
+
         /**
          * Create the object
          */
@@ -330,8 +433,8 @@ public class RadioDriver extends CrtpDriver {
         public void run() {
             byte[] dataOut = Crazyradio.NULL_PACKET;
 
-            double waitTime = 0;
-            int emptyCtr = 0;
+            final PollingStrategy pollingStrategy = mPollingStrategy;
+            pollingStrategy.reset();
 
             while(mCradio != null && !Thread.currentThread().isInterrupted()) {
                 try {
@@ -346,7 +449,7 @@ public class RadioDriver extends CrtpDriver {
                                                  "Exception:%s\n\n%s" % (e,
                                                  traceback.format_exc()))
                     */
-                    RadioAck ackStatus = mCradio.sendPacket(dataOut);
+                    RadioAck ackStatus = mZeroAllocation ? mCradio.sendPacket(dataOut, mAck) : mCradio.sendPacket(dataOut);
 
                     // Analyze the data packet
                     if (ackStatus == null) {
@@ -355,7 +458,14 @@ public class RadioDriver extends CrtpDriver {
                         continue;
                     }
 
-                    notifyLinkQualityUpdated((10 - ackStatus.getRetry()) * 10);
+                    int linkQuality = (10 - ackStatus.getRetry()) * 10;
+                    if (!mZeroAllocation) {
+                        notifyLinkQualityUpdated(linkQuality);
+                    } else if (linkQuality != mLastLinkQuality) {
+                        // iterating over the listeners allocates, only notify about changes
+                        mLastLinkQuality = linkQuality;
+                        notifyLinkQualityUpdated(linkQuality);
+                    }
 
                     // If no copter, retry
                     //TODO: how is this actually possible?
@@ -369,28 +479,31 @@ public class RadioDriver extends CrtpDriver {
                     }
                     this.mRetryBeforeDisconnect = RETRYCOUNT_BEFORE_DISCONNECT;
 
-                    byte[] data = ackStatus.getData();
+                    int dataLength = ackStatus.getDataLength();
 
-                    // if there is a copter in range, the packet is analyzed and the next packet to send is prepared
-                    if (data != null && data.length > 0) {
-                        CrtpPacket inPacket = new CrtpPacket(data);
-                        mInQueue.put(inPacket);
+                    // the Crazyflie fills empty acks with a null packet (0xF3), that is neither queued nor data for the polling strategy
+                    boolean receivedData = dataLength > 1 || (dataLength == 1 && (ackStatus.getDataBuffer()[0] & 0xF3) != 0xF3);
 
-                        waitTime = 0;
-                        emptyCtr = 0;
-                    } else {
-                        emptyCtr += 1;
-                        if (emptyCtr > 10) {
-                            emptyCtr = 10;
-                            // Relaxation time if the last 10 packets where empty
-                            waitTime = 0.01;
+                    // if there is a copter in range, the packet is analyzed and the next packet to send is prepared,
+                    // the first ack is queued even if it is empty, the Crazyflie takes it as the sign that the link is up
+                    if (receivedData || (dataLength > 0 && !mLinkEstablished)) {
+                        mLinkEstablished = true;
+                        CrtpPacket inPacket;
+                        if (mZeroAllocation) {
+                            inPacket = mPacketPool.acquire(ackStatus.getDataBuffer(), 0, dataLength);
                         } else {
-                            waitTime = 0;
+                            inPacket = new CrtpPacket(ackStatus.getData());
+                        }
+                        // never block the radio thread (and the commander setpoints) on a stalled consumer
+                        if (!mInQueue.offer(inPacket)) {
+                            inPacket.release();
+                            mDroppedInPackets++;
                         }
                     }
 
-                    // get the next packet to send after relaxation (wait 10ms)
-                    CrtpPacket outPacket = mOutQueue.poll((long) waitTime, TimeUnit.SECONDS);
+                    // get the next packet to send, wait for it if the polling strategy asks for relaxation
+                    long waitTime = pollingStrategy.nextWaitTimeMicros(receivedData, mOutQueue.size());
+                    CrtpPacket outPacket = mOutQueue.poll(waitTime, TimeUnit.MICROSECONDS);
 
                     if (outPacket != null) {
                         dataOut = outPacket.toByteArray();
@@ -0,0 +1,369 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.crazyradio;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import se.bitcraze.crazyflie.lib.Utilities;
+import se.bitcraze.crazyflie.lib.crtp.CrtpDriver;
+import se.bitcraze.crazyflie.lib.crtp.CrtpPacket;
+import se.bitcraze.crazyflie.lib.usb.CrazyUsbInterface;
+
+/**
+ * Shares one Crazyradio between several Crazyflies on different channels, data rates or radio addresses.
+ *
+ * Every link created by {@link #createLink(ConnectionData, byte[])} is a {@link CrtpDriver} with its own packet queues.
+ * A single thread serves the connected links in turn: a link that has packets to send gets a burst of up to
+ * {@link #setBurstSize(int)} transfers, an idle link is polled once per round to receive its replies. The radio is
+ * only reconfigured when the next link uses another channel, data rate or address, because every change is a USB
+ * control transfer.
+ */
+public class RadioMultiplexer {
+
+    private final static Logger mLogger = LoggerFactory.getLogger("RadioMultiplexer");
+
+    public final static int DEFAULT_BURST_SIZE = 8;
+
+    private final static int OUT_QUEUE_CAPACITY = 64;
+    private final static int OUT_QUEUE_TIMEOUT_MS = 2000;
+    // time the thread waits when no link has anything to send or receive, sending a packet wakes it up
+    private final static long IDLE_WAIT_MICROS = 500;
+    private final static int RETRYCOUNT_BEFORE_DISCONNECT = 10;
+
+    private final CrazyUsbInterface mUsbInterface;
+    private final List<Link> mLinks = new CopyOnWriteArrayList<Link>();
+    private Crazyradio mCradio;
+    private Thread mMultiplexerThread;
+    private volatile int mBurstSize = DEFAULT_BURST_SIZE;
+
+    // current radio configuration, only used by the multiplexer thread
+    private int mChannel = -1;
+    private int mDataRate = -1;
+    private byte[] mAddress = null;
+
+    private volatile long mTransfers = 0;
+    private volatile long mReconfigurations = 0;
+
+    public RadioMultiplexer(CrazyUsbInterface usbInterface) {
+        this.mUsbInterface = usbInterface;
+    }
+
+    /**
+     * Create a link to a Crazyflie, the link uses the radio once it is connected
+     *
+     * @param connectionData channel and data rate of the Crazyflie
+     * @param address radio address of the Crazyflie (5 bytes)
+     * @return link driver
+     */
+    public Link createLink(ConnectionData connectionData, byte[] address) {
+        if (address.length != 5) {
+            throw new IllegalArgumentException("Radio address must be 5 bytes long");
+        }
+        return new Link(connectionData, address.clone());
+    }
+
+    /**
+     * Set the maximum number of transfers of a link before the next link is served
+     *
+     * @param burstSize number of transfers (default: {@link #DEFAULT_BURST_SIZE})
+     */
+    public void setBurstSize(int burstSize) {
+        if (burstSize < 1) {
+            throw new IllegalArgumentException("Burst size must be at least 1");
+        }
+        this.mBurstSize = burstSize;
+    }
+
+    public int getBurstSize() {
+        return mBurstSize;
+    }
+
+    /**
+     * @return number of transfers to all links
+     */
+    public long getTransferCount() {
+        return mTransfers;
+    }
+
+    /**
+     * @return number of radio configuration changes (channel, data rate or address) between links
+     */
+    public long getReconfigurationCount() {
+        return mReconfigurations;
+    }
+
+    /**
+     * Disconnect all links and close the radio
+     */
+    public void close() {
+        for (Link link : mLinks) {
+            link.disconnect();
+        }
+    }
+
+    private synchronized void connectLink(Link link) {
+        if (mLinks.contains(link)) {
+            mLogger.error("Link " + link + " already connected");
+            return;
+        }
+        mLinks.add(link);
+        if (mMultiplexerThread == null) {
+            this.mCradio = new Crazyradio(mUsbInterface);
+            if (this.mCradio.getVersion() >= 0.4) {
+                this.mCradio.setArc(10);
+            } else {
+                mLogger.warn("Radio version <0.4 will be obsolete soon!");
+            }
+            // the radio has been reset to its power up settings
+            mChannel = -1;
+            mDataRate = -1;
+            mAddress = null;
+            mMultiplexerThread = new Thread(new MultiplexerThread(), "RadioMultiplexer");
+            mMultiplexerThread.start();
+        }
+    }
+
+    private synchronized void disconnectLink(Link link) {
+        if (!mLinks.remove(link) || !mLinks.isEmpty() || mMultiplexerThread == null) {
+            return;
+        }
+        mMultiplexerThread.interrupt();
+        try {
+            mMultiplexerThread.join(OUT_QUEUE_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            mLogger.error("Interrupted during disconnect: " + e.getMessage());
+        }
+        mMultiplexerThread = null;
+        this.mCradio.disconnect();
+        this.mCradio = null;
+    }
+
+    private void wakeUp() {
+        Thread thread = mMultiplexerThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Link to one Crazyflie through the shared radio
+     */
+    public class Link extends CrtpDriver {
+
+        private final ConnectionData mConnectionData;
+        private final byte[] mAddress;
+        private final BlockingQueue<CrtpPacket> mOutQueue = new LinkedBlockingQueue<CrtpPacket>(OUT_QUEUE_CAPACITY);
+        private final BlockingQueue<CrtpPacket> mInQueue = new LinkedBlockingQueue<CrtpPacket>();
+        private volatile boolean mConnected = false;
+
+        // only used by the multiplexer thread
+        private byte[] mDataOut = null;
+        private int mRetryBeforeDisconnect = RETRYCOUNT_BEFORE_DISCONNECT;
+
+        private Link(ConnectionData connectionData, byte[] address) {
+            this.mConnectionData = connectionData;
+            this.mAddress = address;
+        }
+
+        public ConnectionData getConnectionData() {
+            return mConnectionData;
+        }
+
+        public byte[] getAddress() {
+            return mAddress.clone();
+        }
+
+        @Override
+        public void connect() {
+            if (mConnected) {
+                return;
+            }
+            notifyConnectionRequested();
+            mConnected = true;
+            connectLink(this);
+        }
+
+        @Override
+        public void disconnect() {
+            if (!mConnected) {
+                return;
+            }
+            mConnected = false;
+            disconnectLink(this);
+            mOutQueue.clear();
+            mInQueue.clear();
+            notifyDisconnected();
+        }
+
+        @Override
+        public boolean isConnected() {
+            return mConnected;
+        }
+
+        @Override
+        public void sendPacket(CrtpPacket packet) {
+            if (!mConnected) {
+                return;
+            }
+            try {
+                if (!this.mOutQueue.offer(packet, OUT_QUEUE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    mLogger.warn("Out queue of " + this + " is full");
+                    notifyConnectionLost("RadioMultiplexer: Could not send packet to copter");
+                }
+            } catch (InterruptedException e) {
+                mLogger.error("InterruptedException: " + e.getMessage());
+            }
+            wakeUp();
+        }
+
+        /*
+         * Receive a packet though the link, waits up to time seconds like the RadioDriver
+         */
+        @Override
+        public CrtpPacket receivePacket(int time) {
+            try {
+                return mInQueue.poll((long) time, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                mLogger.error("InterruptedException: " + e.getMessage());
+                return null;
+            }
+        }
+
+        private void connectionLost(String msg) {
+            notifyConnectionLost(msg);
+        }
+
+        @Override
+        public String toString() {
+            return "Link [" + mConnectionData + ", address=" + Utilities.getHexString(mAddress) + "]";
+        }
+    }
+
+    /**
+     * Serves the connected links round robin
+     */
+    private class MultiplexerThread implements Runnable {
+
+        public void run() {
+            while (!Thread.currentThread().isInterrupted()) {
+                boolean active = false;
+                for (Link link : mLinks) {
+                    if (link.mConnected && serve(link)) {
+                        active = true;
+                    }
+                }
+                if (!active) {
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(IDLE_WAIT_MICROS));
+                }
+            }
+            mLogger.debug("MultiplexerThread was interrupted.");
+        }
+
+        /**
+         * @return true if packets have been sent to or received from the link
+         */
+        private boolean serve(Link link) {
+            Crazyradio cradio = mCradio;
+            if (cradio == null) {
+                return false;
+            }
+            configure(cradio, link);
+            boolean active = false;
+            for (int i = 0; i < mBurstSize; i++) {
+                // a packet that has not been acked is sent again
+                if (link.mDataOut == null) {
+                    CrtpPacket outPacket = link.mOutQueue.poll();
+                    link.mDataOut = (outPacket != null) ? outPacket.toByteArray() : Crazyradio.NULL_PACKET;
+                }
+                RadioAck ackStatus = cradio.sendPacket(link.mDataOut);
+                mTransfers++;
+                if (ackStatus == null) {
+                    link.connectionLost("Dongle communication error (ackStatus == null)");
+                    mLogger.warn("Dongle communication error (ackStatus == null)");
+                    return active;
+                }
+                if (!ackStatus.isAck()) {
+                    link.mRetryBeforeDisconnect--;
+                    if (link.mRetryBeforeDisconnect == 0) {
+                        link.connectionLost("Too many packets lost");
+                        mLogger.warn("Too many packets lost: " + link);
+                    }
+                    return active;
+                }
+                link.mRetryBeforeDisconnect = RETRYCOUNT_BEFORE_DISCONNECT;
+                boolean sentData = link.mDataOut != Crazyradio.NULL_PACKET;
+                link.mDataOut = null;
+
+                // the Crazyflie fills empty acks with a null packet (0xF3), nobody waits for those
+                int dataLength = ackStatus.getDataLength();
+                boolean receivedData = dataLength > 1 || (dataLength == 1 && (ackStatus.getDataBuffer()[0] & 0xF3) != 0xF3);
+                if (receivedData) {
+                    link.mInQueue.offer(new CrtpPacket(ackStatus.getData()));
+                }
+                if (sentData || receivedData) {
+                    active = true;
+                }
+                if (!receivedData && link.mOutQueue.isEmpty()) {
+                    break;
+                }
+            }
+            return active;
+        }
+
+        private void configure(Crazyradio cradio, Link link) {
+            boolean reconfigured = false;
+            if (mChannel != link.mConnectionData.getChannel()) {
+                mChannel = link.mConnectionData.getChannel();
+                cradio.setChannel(mChannel);
+                reconfigured = true;
+            }
+            if (mDataRate != link.mConnectionData.getDataRate()) {
+                mDataRate = link.mConnectionData.getDataRate();
+                cradio.setDatarate(mDataRate);
+                reconfigured = true;
+            }
+            if (!Arrays.equals(mAddress, link.mAddress)) {
+                mAddress = link.mAddress;
+                cradio.setAddress(mAddress);
+                reconfigured = true;
+            }
+            if (reconfigured) {
+                mReconfigurations++;
+            }
+        }
+    }
+}
@@ -59,6 +59,15 @@ public class CrtpPacket {
 
     public static class Header {
 
+        // immutable headers for every possible header byte, used when parsing packets without allocating
+        private static final Header[] HEADER_CACHE = new Header[256];
+
+        static {
+            for (int i = 0; i < HEADER_CACHE.length; i++) {
+                HEADER_CACHE[i] = new Header((byte) i);
+            }
+        }
+
         private int mChannel;
         private CrtpPort mPort;
         private boolean isNullPacketHeader = false;
@@ -73,7 +82,8 @@ public class CrtpPacket {
 
         public Header(byte header) {
             if(header != -1){
-                this.mPort = CrtpPort.getByNumber((byte) (header >> 4));
+                // mask the sign extension, otherwise ports 8-15 (eg. LINKCTRL) are not found
+                this.mPort = CrtpPort.getByNumber((byte) ((header >> 4) & 0x0F));
                 this.mChannel = header & 0x03;
             }else{
                 isNullPacketHeader = true;
@@ -82,6 +92,16 @@ public class CrtpPacket {
             }
         }
 
+        /**
+         * Returns a shared header instance for the given header byte.
+         *
+         * @param header header byte
+         * @return cached header
+         */
+        public static Header valueOf(byte header) {
+            return HEADER_CACHE[header & 0xFF];
+        }
+
         //TODO: change order of parameters according to python cflib?
         public Header(int channel, CrtpPort port){
             this.mChannel = channel;
@@ -134,14 +154,19 @@ public class CrtpPacket {
         }
     }
 
-    private final Header mPacketHeader;
-    private final byte[] mPacketPayload;
+    private Header mPacketHeader;
+    private byte[] mPacketPayload;
     private byte[] mSerializedPacket;
     private byte[] mExpectedReply;
 
+    // only set for packets owned by a CrtpPacketPool
+    private final CrtpPacketPool mPool;
+    private boolean mReleased;
+
     public CrtpPacket() {
         mPacketHeader = null;
         mPacketPayload = null;
+        mPool = null;
     }
 
     /**
@@ -154,6 +179,7 @@ public class CrtpPacket {
         this.mPacketHeader = new Header(channel, port);
         this.mPacketPayload = new byte[0];
         this.mSerializedPacket = null;
+        this.mPool = null;
     }
 
     /**
@@ -166,6 +192,7 @@ public class CrtpPacket {
         this.mPacketHeader = new Header(packetHeader);
         this.mPacketPayload = packetPayload;
         this.mSerializedPacket = null;
+        this.mPool = null;
     }
 
     /**
@@ -177,6 +204,60 @@ public class CrtpPacket {
         this.mPacketHeader = new Header(packetData[0]);
         this.mPacketPayload = Arrays.copyOfRange(packetData, 1, packetData.length);
         this.mSerializedPacket = null;
+        this.mPool = null;
+    }
+
+    /**
+     * Create a reusable packet owned by a pool.
+     *
+     * @param pool the pool the packet is returned to on {@link #release()}
+     * @param payloadLength fixed length of the payload
+     */
+    /* package private */ CrtpPacket(CrtpPacketPool pool, int payloadLength) {
+        this.mPacketPayload = new byte[payloadLength];
+        this.mPool = pool;
+        this.mReleased = true;
+    }
+
+    /**
+     * (Re)initialize a pooled packet with the given raw data.
+     *
+     * @param packetData raw data containing header and payload
+     * @param offset position of the header byte in packetData
+     */
+    /* package private */ void fill(byte[] packetData, int offset) {
+        this.mPacketHeader = Header.valueOf(packetData[offset]);
+        System.arraycopy(packetData, offset + 1, mPacketPayload, 0, mPacketPayload.length);
+        this.mSerializedPacket = null;
+        this.mExpectedReply = null;
+        this.mReleased = false;
+    }
+
+    /* package private */ boolean markReleased() {
+        if (mReleased) {
+            return false;
+        }
+        mReleased = true;
+        return true;
+    }
+
+    /**
+     * Returns true if this packet is owned by a {@link CrtpPacketPool} and will be reused after {@link #release()}.
+     *
+     * @return true if packet is pooled
+     */
+    public boolean isPooled() {
+        return mPool != null;
+    }
+
+    /**
+     * Hand the packet back to its pool. The packet (and its payload array) must not be used afterwards.
+     * Does nothing for packets that are not pooled.
+     */
+    public void release() {
+        if (mPool != null) {
+            mPool.release(this);
+        }
     }
 
     /**
@@ -0,0 +1,118 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.crtp;
+
+/**
+ * Pool of reusable {@link CrtpPacket}s for the receive path.
+ *
+ * Packets are kept per payload length, so that {@link CrtpPacket#getPayload()} still returns an array
+ * of the exact payload length. After warm-up, acquiring and releasing packets does not allocate.
+ *
+ * Ownership: a packet returned by {@link #acquire(byte[], int, int)} belongs to the caller until
+ * {@link CrtpPacket#release()} is called. After that the packet and its payload array are reused
+ * and must not be accessed anymore. Packets that are never released are simply garbage collected.
+ */
+public class CrtpPacketPool {
+
+    // header byte + 31 byte payload is the largest packet the Crazyradio can deliver in one ack
+    public final static int MAX_PACKET_SIZE = 32;
+
+    private final CrtpPacket[][] mFreePackets;
+    private final int[] mFreeCount;
+    private int mMisses = 0;
+
+    /**
+     * Create a packet pool
+     *
+     * @param capacityPerLength number of released packets that are kept for each payload length
+     */
+    public CrtpPacketPool(int capacityPerLength) {
+        if (capacityPerLength < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+        this.mFreePackets = new CrtpPacket[MAX_PACKET_SIZE][capacityPerLength];
+        this.mFreeCount = new int[MAX_PACKET_SIZE];
+    }
+
+    /**
+     * Get a packet from the pool and fill it with the given raw data (header byte followed by the payload)
+     *
+     * @param packetData raw packet data
+     * @param offset position of the header byte
+     * @param length number of bytes including the header (1 - {@link #MAX_PACKET_SIZE})
+     * @return packet owned by the caller until it is released
+     */
+    public CrtpPacket acquire(byte[] packetData, int offset, int length) {
+        if (length < 1 || length > MAX_PACKET_SIZE) {
+            throw new IllegalArgumentException("Packet length must be in range 1-" + MAX_PACKET_SIZE);
+        }
+        int payloadLength = length - 1;
+        CrtpPacket packet = null;
+        synchronized (this) {
+            int count = mFreeCount[payloadLength];
+            if (count > 0) {
+                count--;
+                packet = mFreePackets[payloadLength][count];
+                mFreePackets[payloadLength][count] = null;
+                mFreeCount[payloadLength] = count;
+            } else {
+                mMisses++;
+            }
+        }
+        if (packet == null) {
+            packet = new CrtpPacket(this, payloadLength);
+        }
+        packet.fill(packetData, offset);
+        return packet;
+    }
+
+    /* package private */ void release(CrtpPacket packet) {
+        if (!packet.markReleased()) {
+            // already released, don't add it twice
+            return;
+        }
+        int payloadLength = packet.getPayload().length;
+        synchronized (this) {
+            int count = mFreeCount[payloadLength];
+            if (count < mFreePackets[payloadLength].length) {
+                mFreePackets[payloadLength][count] = packet;
+                mFreeCount[payloadLength] = count + 1;
+            }
+        }
+    }
+
+    /**
+     * Returns how often a packet had to be allocated because the pool was empty
+     *
+     * @return number of pool misses
+     */
+    public synchronized int getMisses() {
+        return mMisses;
+    }
+
+}
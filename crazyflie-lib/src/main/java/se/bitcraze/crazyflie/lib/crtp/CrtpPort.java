@@ -45,6 +45,17 @@ public enum CrtpPort {
 
     private byte mNumber;
 
+    // ports indexed by the 4 bit port number of the CRTP header
+    private final static CrtpPort[] PORTS_BY_NUMBER = new CrtpPort[16];
+
+    static {
+        for (CrtpPort p : CrtpPort.values()) {
+            if (p.mNumber >= 0 && p.mNumber < PORTS_BY_NUMBER.length) {
+                PORTS_BY_NUMBER[p.mNumber] = p;
+            }
+        }
+    }
+
     private CrtpPort(int number) {
         this.mNumber = (byte) number;
     }
@@ -66,11 +77,9 @@ public enum CrtpPort {
      * @return the port or <code>null</code> if no port with the specified number exists.
      */
     public static CrtpPort getByNumber(byte number) {
-        for (CrtpPort p : CrtpPort.values()) {
-            if (p.getNumber() == number) {
-                return p;
-            }
+        if (number >= 0 && number < PORTS_BY_NUMBER.length) {
+            return PORTS_BY_NUMBER[number];
         }
-        return null;
+        return (number == ALL.mNumber) ? ALL : null;
     }
 }
@@ -0,0 +1,360 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.crtp;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded outgoing packet queue with priority classes.
+ *
+ * Packets are sent in the order: commander setpoints, control traffic (param/log settings, link control),
+ * bulk traffic (TOC, memory, bootloader). Packets within one class keep their order.
+ * There is at most one pending commander setpoint: a newer setpoint replaces the one that has not been sent yet.
+ *
+ * The queue does not allocate when adding or removing packets, it also keeps metrics about queue depth and
+ * the age of packets when they are taken from the queue.
+ */
+public class PriorityPacketQueue {
+
+    public enum Priority {
+        COMMANDER,
+        CONTROL,
+        BULK;
+
+        /**
+         * Returns the priority class of a packet
+         *
+         * @param packet outgoing packet
+         * @return priority class
+         */
+        public static Priority of(CrtpPacket packet) {
+            CrtpPort port = packet.getHeader().getPort();
+            if (port == null) {
+                return BULK;
+            }
+            switch (port) {
+                case COMMANDER:
+                case COMMANDER_GENERIC:
+                    return COMMANDER;
+                case LOGGING:
+                case PARAMETERS:
+                    // channel 0 is the TOC channel
+                    return packet.getHeader().getChannel() == 0 ? BULK : CONTROL;
+                case LINKCTRL:
+                case CONSOLE:
+                case DEBUGDRIVER:
+                    return CONTROL;
+                default:
+                    // memory and bootloader packets (0xFF) must stay in order with each other
+                    return BULK;
+            }
+        }
+    }
+
+    private final static int NO_OF_PRIORITIES = Priority.values().length;
+
+    private final ReentrantLock mLock = new ReentrantLock();
+    private final Condition mNotEmpty = mLock.newCondition();
+    // one condition per priority class, so that a dequeue only wakes producers that can actually add a packet
+    private final Condition[] mNotFull = new Condition[NO_OF_PRIORITIES];
+
+    // one ring buffer per priority class, the commander ring has a capacity of one
+    private final CrtpPacket[][] mPackets = new CrtpPacket[NO_OF_PRIORITIES][];
+    private final long[][] mEnqueueTimes = new long[NO_OF_PRIORITIES][];
+    private final int[] mHead = new int[NO_OF_PRIORITIES];
+    private final int[] mCount = new int[NO_OF_PRIORITIES];
+
+    // metrics
+    private final int[] mMaxDepth = new int[NO_OF_PRIORITIES];
+    private final long[] mDequeued = new long[NO_OF_PRIORITIES];
+    private final long[] mTotalAgeNanos = new long[NO_OF_PRIORITIES];
+    private final long[] mMaxAgeNanos = new long[NO_OF_PRIORITIES];
+    private long mReplacedSetpoints = 0;
+    private long mRejected = 0;
+
+    /**
+     * Create the queue
+     *
+     * @param controlCapacity max. number of pending control packets
+     * @param bulkCapacity max. number of pending bulk packets
+     */
+    public PriorityPacketQueue(int controlCapacity, int bulkCapacity) {
+        if (controlCapacity < 1 || bulkCapacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+        int[] capacities = new int[NO_OF_PRIORITIES];
+        capacities[Priority.COMMANDER.ordinal()] = 1;
+        capacities[Priority.CONTROL.ordinal()] = controlCapacity;
+        capacities[Priority.BULK.ordinal()] = bulkCapacity;
+        for (int i = 0; i < NO_OF_PRIORITIES; i++) {
+            mPackets[i] = new CrtpPacket[capacities[i]];
+            mEnqueueTimes[i] = new long[capacities[i]];
+            mNotFull[i] = mLock.newCondition();
+        }
+    }
+
+    /**
+     * Add a packet to the queue, waiting if necessary for space to become available.
+     * Commander setpoints never wait, they replace a pending setpoint instead.
+     *
+     * @param packet packet to send
+     * @param timeout how long to wait before giving up
+     * @param unit unit of the timeout
+     * @return <code>true</code> if the packet was added, <code>false</code> if the queue stayed full
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean offer(CrtpPacket packet, long timeout, TimeUnit unit) throws InterruptedException {
+        if (packet == null) {
+            throw new IllegalArgumentException("Packet must not be null");
+        }
+        int prio = Priority.of(packet).ordinal();
+        long nanos = unit.toNanos(timeout);
+        mLock.lockInterruptibly();
+        try {
+            if (prio == Priority.COMMANDER.ordinal() && mCount[prio] == 1) {
+                // stale setpoint has not been sent yet, replace it with the newest one
+                mPackets[prio][mHead[prio]] = packet;
+                mEnqueueTimes[prio][mHead[prio]] = System.nanoTime();
+                mReplacedSetpoints++;
+                return true;
+            }
+            while (mCount[prio] == mPackets[prio].length) {
+                if (nanos <= 0) {
+                    mRejected++;
+                    return false;
+                }
+                nanos = mNotFull[prio].awaitNanos(nanos);
+            }
+            int capacity = mPackets[prio].length;
+            int tail = (mHead[prio] + mCount[prio]) % capacity;
+            mPackets[prio][tail] = packet;
+            mEnqueueTimes[prio][tail] = System.nanoTime();
+            mCount[prio]++;
+            if (mCount[prio] > mMaxDepth[prio]) {
+                mMaxDepth[prio] = mCount[prio];
+            }
+            mNotEmpty.signal();
+            return true;
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * Retrieve and remove the packet with the highest priority, waiting up to the given time
+     * if the queue is empty.
+     *
+     * @param timeout how long to wait before giving up
+     * @param unit unit of the timeout
+     * @return the next packet to send or <code>null</code> if the queue is empty
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public CrtpPacket poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        mLock.lockInterruptibly();
+        try {
+            while (size() == 0) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = mNotEmpty.awaitNanos(nanos);
+            }
+            for (int prio = 0; prio < NO_OF_PRIORITIES; prio++) {
+                if (mCount[prio] > 0) {
+                    return dequeue(prio);
+                }
+            }
+            return null;
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    private CrtpPacket dequeue(int prio) {
+        int head = mHead[prio];
+        CrtpPacket packet = mPackets[prio][head];
+        long age = System.nanoTime() - mEnqueueTimes[prio][head];
+        mPackets[prio][head] = null;
+        mHead[prio] = (head + 1) % mPackets[prio].length;
+        mCount[prio]--;
+
+        mDequeued[prio]++;
+        mTotalAgeNanos[prio] += age;
+        if (age > mMaxAgeNanos[prio]) {
+            mMaxAgeNanos[prio] = age;
+        }
+        mNotFull[prio].signal();
+        return packet;
+    }
+
+    /**
+     * Remove all pending packets
+     */
+    public void clear() {
+        mLock.lock();
+        try {
+            for (int prio = 0; prio < NO_OF_PRIORITIES; prio++) {
+                for (int i = 0; i < mPackets[prio].length; i++) {
+                    mPackets[prio][i] = null;
+                }
+                mHead[prio] = 0;
+                mCount[prio] = 0;
+                mNotFull[prio].signalAll();
+            }
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the total number of pending packets
+     *
+     * @return number of pending packets
+     */
+    public int size() {
+        mLock.lock();
+        try {
+            int size = 0;
+            for (int prio = 0; prio < NO_OF_PRIORITIES; prio++) {
+                size += mCount[prio];
+            }
+            return size;
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /* Metrics */
+
+    /**
+     * Returns the number of pending packets of a priority class
+     */
+    public int getQueueDepth(Priority priority) {
+        mLock.lock();
+        try {
+            return mCount[priority.ordinal()];
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the highest number of pending packets of a priority class since the last reset
+     */
+    public int getMaxQueueDepth(Priority priority) {
+        mLock.lock();
+        try {
+            return mMaxDepth[priority.ordinal()];
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the mean time packets of a priority class spent in the queue (in microseconds)
+     */
+    public long getMeanPacketAgeMicros(Priority priority) {
+        mLock.lock();
+        try {
+            int prio = priority.ordinal();
+            return mDequeued[prio] == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(mTotalAgeNanos[prio] / mDequeued[prio]);
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the longest time a packet of a priority class spent in the queue (in microseconds)
+     */
+    public long getMaxPacketAgeMicros(Priority priority) {
+        mLock.lock();
+        try {
+            return TimeUnit.NANOSECONDS.toMicros(mMaxAgeNanos[priority.ordinal()]);
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of commander setpoints that were replaced by a newer setpoint before being sent
+     */
+    public long getReplacedSetpoints() {
+        mLock.lock();
+        try {
+            return mReplacedSetpoints;
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of packets that could not be added because the queue stayed full
+     */
+    public long getRejected() {
+        mLock.lock();
+        try {
+            return mRejected;
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * Reset all metrics
+     */
+    public void resetMetrics() {
+        mLock.lock();
+        try {
+            for (int prio = 0; prio < NO_OF_PRIORITIES; prio++) {
+                mMaxDepth[prio] = mCount[prio];
+                mDequeued[prio] = 0;
+                mTotalAgeNanos[prio] = 0;
+                mMaxAgeNanos[prio] = 0;
+            }
+            mReplacedSetpoints = 0;
+            mRejected = 0;
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("PriorityPacketQueue:");
+        for (Priority priority : Priority.values()) {
+            sb.append(" ").append(priority).append(" [depth: ").append(getQueueDepth(priority))
+              .append(", max depth: ").append(getMaxQueueDepth(priority))
+              .append(", mean age: ").append(getMeanPacketAgeMicros(priority)).append("us")
+              .append(", max age: ").append(getMaxPacketAgeMicros(priority)).append("us]");
+        }
+        sb.append(" replaced setpoints: ").append(getReplacedSetpoints()).append(" rejected: ").append(getRejected());
+        return sb.toString();
+    }
+}
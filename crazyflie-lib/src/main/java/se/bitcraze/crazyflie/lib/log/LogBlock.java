@@ -0,0 +1,165 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One firmware log block of a {@link LogConfig}.
+ *
+ * The log data of a log block has to fit into one log data packet, so larger log configurations
+ * are split into several log blocks. Their samples are merged again in the {@link LogRecord}.
+ */
+/* package private */ final class LogBlock {
+
+    // payload of a log data packet (30 bytes) without log block ID and timestamp
+    final static int MAX_DATA_LENGTH = 30 - LogRecord.DATA_OFFSET;
+
+    private final LogConfig mLogConfig;
+    private final int mIndex;
+    private final int mFirstVariable;
+    private final List<LogVariable> mLogVariables;
+    private final LogBlockDecoder mDecoder;
+
+    private int mId = -1;
+    private byte[][] mPackets;
+    private int mConfirmedPackets = 0;
+    private boolean mStarted = false;
+
+    private LogBlock(LogConfig logConfig, int index, int firstVariable, List<LogVariable> logVariables) {
+        this.mLogConfig = logConfig;
+        this.mIndex = index;
+        this.mFirstVariable = firstVariable;
+        this.mLogVariables = logVariables;
+        this.mDecoder = new LogBlockDecoder(logVariables);
+    }
+
+    /**
+     * Split the variables of a log configuration into log blocks of at most {@link #MAX_DATA_LENGTH} bytes.
+     * The types of all variables must be known.
+     */
+    static List<LogBlock> split(LogConfig logConfig) {
+        List<LogVariable> logVariables = logConfig.getLogVariables();
+        List<LogBlock> logBlocks = new ArrayList<LogBlock>();
+        int first = 0;
+        int dataLength = 0;
+        for (int i = 0; i < logVariables.size(); i++) {
+            LogVariable logVariable = logVariables.get(i);
+            if (logVariable.getVariableType() == null) {
+                throw new IllegalStateException("Type of log variable " + logVariable.getName() + " is not resolved.");
+            }
+            int size = logVariable.getVariableType().getSize();
+            if (dataLength + size > MAX_DATA_LENGTH) {
+                logBlocks.add(new LogBlock(logConfig, logBlocks.size(), first, logVariables.subList(first, i)));
+                first = i;
+                dataLength = 0;
+            }
+            dataLength += size;
+        }
+        if (first < logVariables.size()) {
+            logBlocks.add(new LogBlock(logConfig, logBlocks.size(), first, logVariables.subList(first, logVariables.size())));
+        }
+        return logBlocks;
+    }
+
+    LogConfig getLogConfig() {
+        return mLogConfig;
+    }
+
+    /**
+     * Returns the position of this log block in the log configuration
+     */
+    int getIndex() {
+        return mIndex;
+    }
+
+    /**
+     * Returns the position of the first variable of this log block in the log configuration
+     */
+    int getFirstVariable() {
+        return mFirstVariable;
+    }
+
+    List<LogVariable> getLogVariables() {
+        return mLogVariables;
+    }
+
+    LogBlockDecoder getDecoder() {
+        return mDecoder;
+    }
+
+    int getId() {
+        return mId;
+    }
+
+    void setId(int id) {
+        this.mId = id;
+    }
+
+    /**
+     * Called before the log block is sent to the Crazyflie as one create and several append packets.
+     * Only one of them is in flight at a time, an append is sent once the previous packet is confirmed.
+     */
+    void setPackets(byte[][] packets) {
+        this.mPackets = packets;
+        this.mConfirmedPackets = 0;
+    }
+
+    /**
+     * Returns the packet that waits for its reply, or null when all packets have been confirmed
+     */
+    byte[] getPendingPacket() {
+        return (mPackets != null && mConfirmedPackets < mPackets.length) ? mPackets[mConfirmedPackets] : null;
+    }
+
+    /**
+     * Confirms the pending packet and returns the next packet to send, or null when the log block is added
+     */
+    byte[] packetConfirmed() {
+        if (getPendingPacket() != null) {
+            mConfirmedPackets++;
+        }
+        return getPendingPacket();
+    }
+
+    /**
+     * Returns true when the create and all append packets have been confirmed
+     */
+    boolean isAdded() {
+        return mPackets != null && mConfirmedPackets == mPackets.length;
+    }
+
+    boolean isStarted() {
+        return mStarted;
+    }
+
+    void setStarted(boolean started) {
+        this.mStarted = started;
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.log;
+
+import java.util.List;
+
+import se.bitcraze.crazyflie.lib.toc.VariableType;
+
+/**
+ * Decoder for the log data of one log block (or a complete log configuration), built once when the configuration is added.
+ *
+ * The layout of the log block is flattened into arrays of offsets and type codes,
+ * so a payload is decoded in one loop with a single length check per packet.
+ */
+/* package private */ final class LogBlockDecoder {
+
+    private final static byte CODE_UINT8 = 0;
+    private final static byte CODE_INT8 = 1;
+    private final static byte CODE_UINT16 = 2;
+    private final static byte CODE_INT16 = 3;
+    // uint32_t, int32_t and float (as bit pattern)
+    private final static byte CODE_32BIT = 4;
+
+    private final int[] mOffsets;
+    private final byte[] mTypeCodes;
+    private final int mDataLength;
+
+    LogBlockDecoder(List<LogVariable> logVariables) {
+        int size = logVariables.size();
+        this.mOffsets = new int[size];
+        this.mTypeCodes = new byte[size];
+        int offset = 0;
+        for (int i = 0; i < size; i++) {
+            LogVariable logVariable = logVariables.get(i);
+            VariableType type = logVariable.getVariableType();
+            if (type == null) {
+                throw new IllegalStateException("Type of log variable " + logVariable.getName() + " is not resolved.");
+            }
+            mOffsets[i] = offset;
+            mTypeCodes[i] = getTypeCode(type);
+            offset += type.getSize();
+        }
+        this.mDataLength = offset;
+    }
+
+    private static byte getTypeCode(VariableType type) {
+        switch (type) {
+            case UINT8_T:
+                return CODE_UINT8;
+            case INT8_T:
+                return CODE_INT8;
+            case UINT16_T:
+                return CODE_UINT16;
+            case INT16_T:
+                return CODE_INT16;
+            case UINT32_T:
+            case INT32_T:
+            case FLOAT:
+                return CODE_32BIT;
+            default:
+                throw new IllegalArgumentException("VariableType " + type + " is not supported for logging.");
+        }
+    }
+
+    /**
+     * Returns the number of bytes of log data
+     */
+    int getDataLength() {
+        return mDataLength;
+    }
+
+    int size() {
+        return mTypeCodes.length;
+    }
+
+    /**
+     * Decode the log data into raw 32 bit values (floats as bit pattern).
+     * The caller has to make sure that data contains {@link #getDataLength()} bytes starting at dataOffset.
+     *
+     * @param data array containing the log data
+     * @param dataOffset start of the log data
+     * @param values target array, one value per log variable
+     * @param valueOffset index of the value of the first log variable
+     */
+    void decode(byte[] data, int dataOffset, int[] values, int valueOffset) {
+        final int[] offsets = mOffsets;
+        final byte[] typeCodes = mTypeCodes;
+        for (int i = 0; i < typeCodes.length; i++) {
+            int o = dataOffset + offsets[i];
+            switch (typeCodes[i]) {
+                case CODE_UINT8:
+                    values[valueOffset + i] = data[o] & 0xFF;
+                    break;
+                case CODE_INT8:
+                    values[valueOffset + i] = data[o];
+                    break;
+                case CODE_UINT16:
+                    values[valueOffset + i] = (data[o] & 0xFF) | (data[o + 1] & 0xFF) << 8;
+                    break;
+                case CODE_INT16:
+                    values[valueOffset + i] = (short) ((data[o] & 0xFF) | (data[o + 1] & 0xFF) << 8);
+                    break;
+                default:
+                    values[valueOffset + i] = (data[o] & 0xFF) | (data[o + 1] & 0xFF) << 8 | (data[o + 2] & 0xFF) << 16 | (data[o + 3] & 0xFF) << 24;
+                    break;
+            }
+        }
+    }
+}
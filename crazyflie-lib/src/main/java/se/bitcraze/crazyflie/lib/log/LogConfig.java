@@ -27,13 +27,11 @@
 
 package se.bitcraze.crazyflie.lib.log;
 
-import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
-import se.bitcraze.crazyflie.lib.crtp.CrtpPacket;
 import se.bitcraze.crazyflie.lib.toc.VariableType;
 
 
@@ -60,6 +58,12 @@ public class LogConfig {
     private boolean mStarted = false;
     private boolean mValid = false;
 
+    // built by Logg when the configuration is added, reused for every log data packet
+    private LogBlockDecoder mDecoder;
+    private List<LogBlock> mLogBlocks;
+    private LogRecord mLogRecord;
+    private int mAddAttempts = 0;
+
     /**
      * Create a log configuration
      *
@@ -90,6 +94,9 @@ public class LogConfig {
         LogVariable newLogVariable = new LogVariable(name, type);
         if (!logVariables.contains(newLogVariable)) {
             logVariables.add(newLogVariable);
+            mDecoder = null;
+            mLogBlocks = null;
+            mLogRecord = null;
         }
     }
 
@@ -102,6 +109,9 @@ public class LogConfig {
         LogVariable newLogVariable = new LogVariable(name);
         if (!logVariables.contains(newLogVariable)) {
             logVariables.add(newLogVariable);
+            mDecoder = null;
+            mLogBlocks = null;
+            mLogRecord = null;
         }
     }
 
@@ -116,6 +126,9 @@ public class LogConfig {
         LogVariable newLogVariable = new LogVariable(name, type, LogVariable.MEM_TYPE, address);
         if (!logVariables.contains(newLogVariable)) {
             logVariables.add(newLogVariable);
+            mDecoder = null;
+            mLogBlocks = null;
+            mLogRecord = null;
         }
     }
 
@@ -147,7 +160,7 @@ public class LogConfig {
     }
 
     /**
-     * Returns the ID of the log configuration
+     * Returns the ID of the log configuration (ID of the first log block if the configuration is split)
      *
      * @return the ID of the log configuration
      */
@@ -222,20 +235,62 @@ public class LogConfig {
         this.mValid = valid;
     }
 
+    /**
+     * Build the decoder, the log blocks and the record for the log data, the types of all variables must be known
+     */
+    /* package private */ void compileDecoder() {
+        mDecoder = new LogBlockDecoder(logVariables);
+        mLogBlocks = LogBlock.split(this);
+        mLogRecord = new LogRecord(this, mLogBlocks.size());
+    }
+
+    /**
+     * Returns the firmware log blocks this configuration is split into
+     */
+    /* package private */ List<LogBlock> getLogBlocks() {
+        if (mLogBlocks == null) {
+            compileDecoder();
+        }
+        return mLogBlocks;
+    }
+
+    /**
+     * Returns the record the log data of this configuration is decoded into
+     */
+    /* package private */ LogRecord getLogRecord() {
+        if (mLogRecord == null) {
+            compileDecoder();
+        }
+        return mLogRecord;
+    }
+
+    /**
+     * Returns how often Logg has sent this configuration to the Crazyflie since it was last created
+     */
+    /* package private */ int getAddAttempts() {
+        return mAddAttempts;
+    }
+
+    /* package private */ void setAddAttempts(int addAttempts) {
+        this.mAddAttempts = addAttempts;
+    }
+
     /**
      * Unpack received logging data so it represent real values according to the configuration in the entry
      * @return
      */
     // def unpack_log_data(self, log_data, timestamp):
     public Map<String, Number> unpackLogData(byte[] logData) {
-        ByteBuffer logVariablesRaw = ByteBuffer.wrap(logData).order(CrtpPacket.BYTE_ORDER);
+        LogRecord logRecord = getLogRecord();
+        if (logData.length < mDecoder.getDataLength()) {
+            throw new IllegalStateException("Size of log data (" + logData.length + ") must match the size of LogConfig " + mName + " (" + mDecoder.getDataLength() + ")");
+        }
+        int[] values = new int[mDecoder.size()];
+        mDecoder.decode(logData, 0, values, 0);
         Map<String, Number> logDataMap = new ConcurrentHashMap<String, Number>();
-        for(LogVariable logVariable : this.getLogVariables()) {
-            Number parsedValue = logVariable.getVariableType().parse(logVariablesRaw);
-            logDataMap.put(logVariable.getName(), parsedValue);
-            //TODO: write to logger?
+        for (int i = 0; i < values.length; i++) {
+            logDataMap.put(logRecord.getName(i), LogRecord.toNumber(logRecord.getVariableType(i), values[i]));
         }
-        //TODO: timestamps and callback
         return logDataMap;
         /*
         ret_data = {}
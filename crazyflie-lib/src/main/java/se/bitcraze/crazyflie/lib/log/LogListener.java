@@ -37,6 +37,10 @@ public interface LogListener {
 
     public void logConfigStarted(LogConfig logConfig);
 
+    /**
+     * Log data as a new map of boxed values for every packet.
+     * Use a {@link LogRecordListener} to receive the values without allocations.
+     */
     public void logDataReceived(LogConfig logConfig, Map<String, Number> data, int timestamp);
 
 }
@@ -0,0 +1,246 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.log;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import se.bitcraze.crazyflie.lib.toc.VariableType;
+
+/**
+ * Typed values of one log data packet of a {@link LogConfig}.
+ *
+ * The values are indexed by the position of the variable in the log configuration and can be read without boxing.
+ * A LogRecord is allocated once per log configuration and overwritten by every packet,
+ * so it must only be read while {@link LogRecordListener#logRecordReceived(LogRecord)} is running.
+ */
+public class LogRecord {
+
+    // log data starts after the log config ID and the 3 byte timestamp
+    /* package private */ final static int DATA_OFFSET = 4;
+
+    private final LogConfig mLogConfig;
+    private final String[] mNames;
+    private final VariableType[] mTypes;
+    // raw value of each variable, floats are stored as their bit pattern
+    private final int[] mValues;
+    private int mTimestamp;
+
+    // log blocks of the current sample that have been received
+    private final boolean[] mReceived;
+    private int mReceivedCount;
+    private int mIncompleteSampleCount;
+
+    /* package private */ LogRecord(LogConfig logConfig, int noOfLogBlocks) {
+        this.mLogConfig = logConfig;
+        this.mReceived = new boolean[noOfLogBlocks];
+        List<LogVariable> logVariables = logConfig.getLogVariables();
+        int size = logVariables.size();
+        this.mNames = new String[size];
+        this.mTypes = new VariableType[size];
+        this.mValues = new int[size];
+        for (int i = 0; i < size; i++) {
+            mNames[i] = logVariables.get(i).getName();
+            mTypes[i] = logVariables.get(i).getVariableType();
+        }
+    }
+
+    /**
+     * Decode a log data packet of one log block into this record
+     *
+     * If the log configuration is split into several log blocks, the packets with (nearly) the same timestamp
+     * are merged into one sample. A sample that misses a log block is dropped when the next one starts.
+     *
+     * @param logBlock log block the packet belongs to
+     * @param payload payload of the log data packet (log block ID, timestamp, log data)
+     * @return false if the payload is too short for the log block
+     */
+    /* package private */ boolean decode(LogBlock logBlock, byte[] payload) {
+        LogBlockDecoder decoder = logBlock.getDecoder();
+        if (payload.length < DATA_OFFSET + decoder.getDataLength()) {
+            return false;
+        }
+        int timestamp = (payload[1] & 0xFF) | (payload[2] & 0xFF) << 8 | (payload[3] & 0xFF) << 16;
+        int index = logBlock.getIndex();
+        if (mReceivedCount == mReceived.length) {
+            clearReceived();
+        } else if (mReceivedCount > 0 && (mReceived[index] || !isSamePeriod(timestamp))) {
+            mIncompleteSampleCount++;
+            clearReceived();
+        }
+        if (mReceivedCount == 0) {
+            mTimestamp = timestamp;
+        }
+        decoder.decode(payload, DATA_OFFSET, mValues, logBlock.getFirstVariable());
+        mReceived[index] = true;
+        mReceivedCount++;
+        return true;
+    }
+
+    private void clearReceived() {
+        Arrays.fill(mReceived, false);
+        mReceivedCount = 0;
+    }
+
+    // the timers of the log blocks are not in phase, allow half a period between their timestamps (24 bit, wrapping)
+    private boolean isSamePeriod(int timestamp) {
+        int diff = (timestamp - mTimestamp) & 0xFFFFFF;
+        diff = Math.min(diff, 0x1000000 - diff);
+        return diff <= mLogConfig.getPeriodInMs() / 2;
+    }
+
+    /**
+     * Returns true when the log data of all log blocks of the current sample has been decoded
+     */
+    /* package private */ boolean isComplete() {
+        return mReceivedCount == mReceived.length;
+    }
+
+    /**
+     * Returns the number of samples that have been dropped because a log block was missing
+     */
+    public int getIncompleteSampleCount() {
+        return mIncompleteSampleCount;
+    }
+
+    public LogConfig getLogConfig() {
+        return mLogConfig;
+    }
+
+    /**
+     * Returns the timestamp of the sample (of the first received log block if the configuration is split)
+     */
+    public int getTimestamp() {
+        return mTimestamp;
+    }
+
+    /**
+     * Returns the number of variables
+     */
+    public int size() {
+        return mValues.length;
+    }
+
+    public String getName(int index) {
+        return mNames[index];
+    }
+
+    public VariableType getVariableType(int index) {
+        return mTypes[index];
+    }
+
+    /**
+     * Returns the position of a variable in the log configuration
+     *
+     * @param name complete name of the variable (group.name)
+     * @return index of the variable or -1 if the log configuration does not contain it
+     */
+    public int indexOf(String name) {
+        for (int i = 0; i < mNames.length; i++) {
+            if (mNames[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the value of a variable as float
+     */
+    public float getFloat(int index) {
+        if (mTypes[index] == VariableType.FLOAT) {
+            return Float.intBitsToFloat(mValues[index]);
+        }
+        return getLong(index);
+    }
+
+    /**
+     * Returns the value of a variable as int (floats are truncated, uint32_t values above 2^31-1 overflow)
+     */
+    public int getInt(int index) {
+        if (mTypes[index] == VariableType.FLOAT) {
+            return (int) Float.intBitsToFloat(mValues[index]);
+        }
+        return mValues[index];
+    }
+
+    /**
+     * Returns the value of a variable as long (floats are truncated)
+     */
+    public long getLong(int index) {
+        switch (mTypes[index]) {
+            case FLOAT:
+                return (long) Float.intBitsToFloat(mValues[index]);
+            case UINT32_T:
+                return mValues[index] & 0xFFFFFFFFL;
+            default:
+                return mValues[index];
+        }
+    }
+
+    /**
+     * Returns the value of a variable boxed into the same Number types as {@link VariableType#parse(java.nio.ByteBuffer)}
+     */
+    public Number getNumber(int index) {
+        return toNumber(mTypes[index], mValues[index]);
+    }
+
+    /* package private */ static Number toNumber(VariableType type, int value) {
+        switch (type) {
+            case FLOAT:
+                return Float.intBitsToFloat(value);
+            case UINT32_T:
+                return value & 0xFFFFFFFFL;
+            case INT8_T:
+                return (byte) value;
+            case INT16_T:
+                return (short) value;
+            default:
+                return value;
+        }
+    }
+
+    /**
+     * Put all values (boxed) into the given map, eg. for {@link LogListener#logDataReceived(LogConfig, Map, int)}
+     */
+    public void copyTo(Map<String, Number> logDataMap) {
+        for (int i = 0; i < mValues.length; i++) {
+            logDataMap.put(mNames[i], getNumber(i));
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("LogRecord '" + mLogConfig.getName() + "', timestamp: " + mTimestamp);
+        for (int i = 0; i < mValues.length; i++) {
+            sb.append(", ").append(mNames[i]).append(": ").append(getNumber(i));
+        }
+        return sb.toString();
+    }
+}
@@ -5,7 +5,7 @@
  * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
  *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
  *
- * Copyright (C) 2013 Bitcraze AB
+ * Copyright (C) 2026 Bitcraze AB
  *
  * Crazyflie Nano Quadcopter Client
  *
@@ -25,32 +25,21 @@
  *
  */
 
-package se.bitcraze.crazyflie.lib.crazyflie;
-
-import se.bitcraze.crazyflie.lib.crtp.CrtpPacket;
-import se.bitcraze.crazyflie.lib.crtp.CrtpPort;
+package se.bitcraze.crazyflie.lib.log;
 
 /**
- * Interface for receiving notifications about data received from the Crazyflie.
- *
- * TODO:
- * -add channel?
- * -add port mask (or use CrtpPort.ALL?)
- * -add channel mask
+ * Receives the log data of started log configurations as typed {@link LogRecord}s.
  *
+ * Unlike {@link LogListener#logDataReceived(LogConfig, java.util.Map, int)} no map and no boxed values are created per packet.
  */
-public abstract class DataListener {
-
-    private CrtpPort mPort;
-
-    public DataListener(CrtpPort port) {
-        mPort = port;
-    }
-
-    public CrtpPort getPort() {
-        return mPort;
-    }
-
-    public abstract void dataReceived(CrtpPacket packet);
+public interface LogRecordListener {
+
+    /**
+     * Called for every log data packet.
+     * The record is reused for the next packet of the same log configuration, copy the values to keep them.
+     *
+     * @param logRecord decoded log data
+     */
+    public void logRecordReceived(LogRecord logRecord);
 
 }
@@ -29,6 +29,7 @@ package se.bitcraze.crazyflie.lib.log;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -63,6 +64,15 @@ public class Logg {
     // The max size of a CRTP packet payload
     private final static int MAX_LOG_DATA_PACKET_SIZE = 30;
 
+    // type and ID of a log variable take 2 bytes after the command and the log block ID
+    private final static int MAX_VARIABLES_PER_PACKET = (MAX_LOG_DATA_PACKET_SIZE - 2) / 2;
+
+    // error code of a create for a log block ID that is in use
+    private final static int EEXIST = 17;
+
+    // a log config that fails is deleted and sent again with new log block IDs up to this many times
+    private final static int MAX_ADD_ATTEMPTS = 3;
+
     private Crazyflie mCrazyflie;
     private Toc mToc = null;
     private TocCache mTocCache = null;
@@ -71,7 +81,11 @@ public class Logg {
     private List<LogConfig> mLogConfigs = new ArrayList<LogConfig>();
     private int mLogConfigIdCounter = 0;
 
+    // log blocks of the added log configs indexed by log block ID
+    private final LogBlock[] mLogBlocksById = new LogBlock[0xFF + 1];
+
     private Set<LogListener> mLogListeners = new CopyOnWriteArraySet<LogListener>();
+    private Set<LogRecordListener> mLogRecordListeners = new CopyOnWriteArraySet<LogRecordListener>();
 
     private static Map<Integer, String> mErrCodes = new HashMap<Integer, String>();
 
@@ -185,11 +199,7 @@ public class Logg {
 
         // TODO: iterate only once over all log variables?
 
-        int size = 0;
         for (LogVariable logVariable : logConfig.getLogVariables()) {
-            // size += LogTocElement.get_size_from_id(var.fetch_as)
-            size += logVariable.getVariableType().getSize();
-
             /*
              * Check that we are able to find the variable in the TOC so
              * we can return error already now and not when the config is sent
@@ -206,14 +216,24 @@ public class Logg {
             }
         }
 
-        if (size <= MAX_LOG_DATA_PACKET_SIZE && (logConfig.getPeriod() > 0 && logConfig.getPeriod() < 0xFF)) {
+        // log configurations that do not fit into one log data packet are split into several log blocks
+        if (!logConfig.getLogVariables().isEmpty() && (logConfig.getPeriod() > 0 && logConfig.getPeriod() < 0xFF)) {
             logConfig.setValid(true);
             // logconf.cf = self.cf         -> not necessary in Java
 
-            // set log config ID
-            logConfig.setId((mLogConfigIdCounter + 1) % 255);
+            // the types of all variables are known now, build the decoder once instead of per packet
+            logConfig.compileDecoder();
+
+            // set log block IDs, the log config ID is the ID of the first log block
+            for (LogBlock logBlock : logConfig.getLogBlocks()) {
+                logBlock.setId(nextLogBlockId());
+            }
+            logConfig.setId(logConfig.getLogBlocks().get(0).getId());
 
             mLogConfigs.add(logConfig);
+            for (LogBlock logBlock : logConfig.getLogBlocks()) {
+                mLogBlocksById[logBlock.getId()] = logBlock;
+            }
             // TODO: self.block_added_cb.call(logconf)
         } else {
             logConfig.setValid(false);
@@ -234,13 +254,18 @@ public class Logg {
         sendLoggPacket(new byte[] {CMD_RESET_LOGGING}, new byte[]{CMD_RESET_LOGGING});
     }
 
-    private LogConfig findLogConfig (int id) {
-        for (LogConfig logConfig : mLogConfigs) {
-            if (logConfig.getId() == id) {
-                return logConfig;
+    private LogBlock findLogBlock(int id) {
+        return mLogBlocksById[id];
+    }
+
+    private int nextLogBlockId() {
+        for (int i = 0; i < 0xFF; i++) {
+            mLogConfigIdCounter = (mLogConfigIdCounter + 1) % 0xFF;
+            if (findLogBlock(mLogConfigIdCounter) == null) {
+                return mLogConfigIdCounter;
             }
         }
-        return null;
+        throw new IllegalStateException("No free log block ID left.");
     }
 
     /**
@@ -248,7 +273,7 @@ public class Logg {
      *
      * @param packet
      */
-    private void newPacketReceived(CrtpPacket packet) {
+    /* package private */ void newPacketReceived(CrtpPacket packet) {
         int channel = packet.getHeader().getChannel();
 
         //TODO: cmd vs id in payload[0] !?!
@@ -261,20 +286,44 @@ public class Logg {
         byte[] payload = packet.getPayload();
 
         if (channel == CHAN_SETTINGS) {
-            int id = payload[1];
+            int id = payload[1] & 0xFF;
             int errorStatus = payload[2];
-            LogConfig logConfig = findLogConfig(id);
+            LogBlock logBlock = findLogBlock(id);
+            LogConfig logConfig = (logBlock != null) ? logBlock.getLogConfig() : null;
 
             //TODO: use switch instead of if?
-            if (cmd == CMD_CREATE_LOGCONFIG) {
+            if (cmd == CMD_CREATE_LOGCONFIG || cmd == CMD_APPEND_LOGCONFIG) {
                 if (logConfig != null) {
+                    // replies to resent packets are ignored, only the pending packet of the log block is confirmed
+                    byte[] pendingPacket = logBlock.getPendingPacket();
+                    if (pendingPacket == null || pendingPacket[0] != cmd) {
+                        mLogger.debug("Ignoring reply " + cmd + " for log block ID=" + id + ", it is not pending.");
+                        return;
+                    }
+                    // the reply to a create got lost and the resent create found the log block the first one made,
+                    // the log block IDs are fresh for every attempt and all log blocks are removed by the reset on connect
+                    if (cmd == CMD_CREATE_LOGCONFIG && errorStatus == EEXIST) {
+                        mLogger.debug("Log block ID=" + id + " already exists, create was resent.");
+                        errorStatus = 0x00;
+                    }
                     if (errorStatus == 0x00) {
                         if (!logConfig.isAdded()) {
-                            mLogger.debug("Successfully added log config ID=" + id);
+                            // an append is only sent after the previous packet has been confirmed
+                            byte[] nextPacket = logBlock.packetConfirmed();
+                            if (nextPacket != null) {
+                                sendLoggPacket(nextPacket, new byte[]{nextPacket[0], nextPacket[1]});
+                                return;
+                            }
+                            // wait until all log blocks of the log config are added
+                            if (!isAdded(logConfig)) {
+                                return;
+                            }
+                            logConfig.setAddAttempts(0);
+                            mLogger.debug("Successfully added log config ID=" + logConfig.getId() + " (" + logConfig.getLogBlocks().size() + " log block(s))");
 
                             // TODO: call start(LogConfig) instead?
                             // TODO: double check with start method (add & start vs just add)
-                            sendLoggPacket(new byte[] {CMD_START_LOGGING, (byte) id, (byte) logConfig.getPeriod()}, new byte[]{CMD_START_LOGGING, (byte) id});
+                            sendStartLogging(logConfig);
                             logConfig.setAdded(true);
                             notifyLogAdded(logConfig);
                         } else {
@@ -286,6 +335,10 @@ public class Logg {
                         // msg = self._err_codes[error_status]
                         String msg = getErrorMsg(errorStatus);
                         mLogger.warn("Error " + errorStatus + " when adding ID=" + id + " (" + msg + ")");
+                        // the log block is in an unknown state in the Crazyflie, start over with the whole log config
+                        if (retryLogConfig(logConfig)) {
+                            return;
+                        }
                         logConfig.setErrNo(errorStatus);
                         /*
                         TODO:
@@ -300,10 +353,13 @@ public class Logg {
                 }
             } else if (cmd == CMD_START_LOGGING) {
                 if (errorStatus == 0x00) {
-                    mLogger.info("Successfully started logging for log config ID=" +id);
+                    mLogger.info("Successfully started logging for log block ID=" +id);
                     if (logConfig != null) {
-                        logConfig.setStarted(true);
-                        notifyLogStarted(logConfig);
+                        logBlock.setStarted(true);
+                        if (!logConfig.isStarted() && isStarted(logConfig)) {
+                            logConfig.setStarted(true);
+                            notifyLogStarted(logConfig);
+                        }
                     }
                 } else {
                     // msg = self._err_codes[error_status]
@@ -327,8 +383,11 @@ public class Logg {
                 if (errorStatus == 0x00) {
                     mLogger.info("Successfully stopped logging for ID=" + id);
                     if (logConfig != null) {
-                        logConfig.setStarted(false);
-                        notifyLogStarted(logConfig);
+                        logBlock.setStarted(false);
+                        if (logConfig.isStarted()) {
+                            logConfig.setStarted(false);
+                            notifyLogStarted(logConfig);
+                        }
                     }
                 } else {
                     mLogger.warn("Problem when stopping logging for ID=" +id);
@@ -338,14 +397,9 @@ public class Logg {
                  * Accept deletion of a log config that hasn't been added. This could
                  * happen due to timing (i.e add/start/delete in fast sequence)
                  */
+                // the log blocks are unregistered when the delete is sent, their IDs might already be reused
                 if (errorStatus == 0x00) {
                     mLogger.info("Successfully deleted log config ID=" + id);
-                    if (logConfig != null) {
-//                        logConfig.setStarted(false);
-                        logConfig.setAdded(false);
-//                        notifyLogStarted(logConfig);
-                        notifyLogAdded(logConfig);
-                    }
                 } else {
                     mLogger.warn("Problem when deleting log config ID=" +id);
                 }
@@ -354,23 +408,49 @@ public class Logg {
                 if (mToc == null) {
                     mLogger.debug("Logging reset, continue with TOC download");
                     mLogConfigs = new ArrayList<LogConfig>();
+                    Arrays.fill(mLogBlocksById, null);
 
                     mToc = new Toc();
                     // toc_fetcher = TocFetcher(self.cf, LogTocElement, CRTPPort.LOGGING, self.toc, self._refresh_callback, self._toc_cache)
                     TocFetcher tocFetcher = new TocFetcher(mCrazyflie, CrtpPort.LOGGING, mToc, mTocCache);
+                    tocFetcher.setWindowSize(mCrazyflie.getTocFetchWindowSize());
                     tocFetcher.addTocFetchFinishedListener(mTocFetchFinishedListener);
                     tocFetcher.start();
                 }
             }
         } else if (channel == CHAN_LOGDATA) {
             // TODO: fix payload offset
-            int id = payload[0];
-            LogConfig logConfig = findLogConfig(id);
-
-            if (logConfig != null) {
-                Map<String, Number> logDataMap = new HashMap<String, Number>();
-                int timestamp = parseLogData(payload, logConfig, logDataMap);
-                notifyLogDataReceived(logConfig, logDataMap, timestamp);
+            int id = payload[0] & 0xFF;
+            LogBlock logBlock = findLogBlock(id);
+
+            if (logBlock != null) {
+                LogConfig logConfig = logBlock.getLogConfig();
+                // an append that is resent after its reply got lost adds its variables twice
+                if (payload.length > LogRecord.DATA_OFFSET + logBlock.getDecoder().getDataLength()) {
+                    mLogger.warn("Log data packet for id=" + id + " is too long (" + payload.length + " bytes), the log block does not match log config " + logConfig.getName());
+                    if (!retryLogConfig(logConfig)) {
+                        delete(logConfig);
+                        notifyLogError(logConfig);
+                    }
+                    return;
+                }
+                // decode directly from the packet into the preallocated record
+                LogRecord logRecord = logConfig.getLogRecord();
+                if (!logRecord.decode(logBlock, payload)) {
+                    mLogger.warn("Log data packet for id=" + id + " is too short (" + payload.length + " bytes)");
+                    return;
+                }
+                // a split log config is delivered once the log blocks of the period have been merged
+                if (!logRecord.isComplete()) {
+                    return;
+                }
+                notifyLogRecordReceived(logRecord);
+                // the map is only created for LogListeners
+                if (!mLogListeners.isEmpty()) {
+                    Map<String, Number> logDataMap = new HashMap<String, Number>();
+                    logRecord.copyTo(logDataMap);
+                    notifyLogDataReceived(logConfig, logDataMap, logRecord.getTimestamp());
+                }
             } else {
                 mLogger.warn("Error no LogEntry to handle id=" + id);
             }
@@ -421,65 +501,60 @@ public class Logg {
 
     /**
      * Save the log configuration in the Crazyflie
+     *
+     * Every log block is created with one packet, log variables that do not fit
+     * into this packet are added with append packets. Appends are not idempotent, so
+     * each one is only sent after the previous packet of the log block has been confirmed.
+     * If the Crazyflie reports an error the log config is deleted and sent again with
+     * new log block IDs, which also changes the ID of the log config.
      */
     public void create(LogConfig logConfig) {
         if (logConfig == null) {
             throw new IllegalArgumentException("LogConfig is null!");
         }
-        int logConfigId = logConfig.getId();
-
-        ByteBuffer bb = ByteBuffer.allocate(31);
-        bb.put((byte) CMD_CREATE_LOGCONFIG);
-        bb.put((byte) logConfigId);
-
-        List<LogVariable> logVariables = logConfig.getLogVariables();
-        if (logVariables.isEmpty()) {
+        if (logConfig.getLogVariables().isEmpty()) {
             throw new IllegalStateException("LogConfig " + logConfig.getName() + " is empty!");
         }
-        // currently the number of LogVariables per LogConfig is limited by the size of one packet: 31 bytes - 2 bytes (header)
-        // TODO: it should be possible to add more LogVariables in additional packets
-        if (logVariables.size() >= (bb.capacity()-2)/2) {
-            throw new IllegalStateException("Maximum number of LogVariables per packet has been reached (" + logVariables.size() + ").");
+        if (!logConfig.isValid()) {
+            throw new IllegalStateException("LogConfig " + logConfig.getName() + " has not been added.");
         }
-        checkTotalSizeOfVariables(logVariables);
         if (mToc == null) {
             throw new IllegalStateException("TOC is null.");
         }
+        logConfig.setAddAttempts(0);
+        sendLogConfig(logConfig);
+    }
 
-        int noOfCheckedLogVariables = 0;
-        for (LogVariable variable : logVariables) {
-            if(!variable.isTocVariable()) { // Memory location
-                createMemoryLocationElement(bb, variable);
-                noOfCheckedLogVariables++;
-            } else { // Item in TOC
-                boolean successful = createTocElement(bb, variable);
-                if (successful) {
-                    noOfCheckedLogVariables++;
+    private void sendLogConfig(LogConfig logConfig) {
+        logConfig.setAddAttempts(logConfig.getAddAttempts() + 1);
+        for (LogBlock logBlock : logConfig.getLogBlocks()) {
+            List<LogVariable> logVariables = logBlock.getLogVariables();
+            ByteBuffer bb = ByteBuffer.allocate(logVariables.size() * 2);
+            for (LogVariable variable : logVariables) {
+                if(!variable.isTocVariable()) { // Memory location
+                    createMemoryLocationElement(bb, variable);
+                } else if (!createTocElement(bb, variable)) { // Item in TOC
+                    // skipping the variable would shift the log data of all following variables
+                    mLogger.error("Log variable " + variable.getName() + " could not be added, skipped creating log config " + logConfig.getName());
+                    return;
                 }
             }
-        }
-
-        if (noOfCheckedLogVariables > 0) {
-            sendLoggPacket(bb.array(), new byte[]{CMD_CREATE_LOGCONFIG, (byte) logConfig.getId()});
-            mLogger.debug("Added log config ID " + logConfigId + " containing " + noOfCheckedLogVariables + " log variables.");
-        } else {
-            mLogger.error("No log variables added to log config, skipped creating log config " + logConfig.getName());
-        }
-    }
 
-    private void checkTotalSizeOfVariables(List<LogVariable> logVariables) {
-        int logVariableSize = 0;
-        for (LogVariable logVariable : logVariables) {
-            if (logVariable == null) {
-                throw new IllegalStateException("LogVariable is null.");
-            }
-            if (logVariable.getVariableType() == null) {
-                throw new IllegalStateException("LogVariable " + logVariable.getName() + " has no VariableType.");
+            byte[] elements = bb.array();
+            int elementsPerPacket = MAX_VARIABLES_PER_PACKET * 2;
+            int noOfPackets = (elements.length + elementsPerPacket - 1) / elementsPerPacket;
+            byte[][] packets = new byte[noOfPackets][];
+            for (int i = 0; i < noOfPackets; i++) {
+                int offset = i * elementsPerPacket;
+                int length = Math.min(elementsPerPacket, elements.length - offset);
+                packets[i] = new byte[2 + length];
+                packets[i][0] = (byte) ((i == 0) ? CMD_CREATE_LOGCONFIG : CMD_APPEND_LOGCONFIG);
+                packets[i][1] = (byte) logBlock.getId();
+                System.arraycopy(elements, offset, packets[i], 2, length);
             }
-            logVariableSize += logVariable.getVariableType().getSize();
-        }
-        if (logVariableSize > 27) {
-            throw new IllegalStateException("Total size of LogVariables per packet has been reached (Number of variables: " + logVariables.size() + ", Total size:" + logVariableSize + ").");
+            logBlock.setPackets(packets);
+            sendLoggPacket(packets[0], new byte[]{packets[0][0], packets[0][1]});
+            mLogger.debug("Added log block ID " + logBlock.getId() + " containing " + logVariables.size() + " log variables.");
         }
     }
 
@@ -488,7 +563,7 @@ public class Logg {
         VariableType variableType = variable.getVariableType();
         TocElement memLogTocElement = new TocElement();
         memLogTocElement.setCtype(variableType);
-        int variableTypeId = mToc.getVariableTypeIdLog(variableType);
+        int variableTypeId = Toc.getLogTypeCode(variableType);
 
         // logger.debug("Logging to raw memory %d, 0x%04X", var.get_storage_and_fetch_byte(), var.address)
         mLogger.debug("Logging to raw memory " + variableType.name() + ", address: " + variable.getAddress());
@@ -511,7 +586,7 @@ public class Logg {
 
         TocElement logTocElement = mToc.getElementByCompleteName(name);
         if (logTocElement != null) {
-            int variableTypeId = mToc.getVariableTypeIdLog(variableType);
+            int variableTypeId = Toc.getLogTypeCode(variableType);
             if (variableTypeId == -1) {
                 mLogger.error("No variableType found for TOC element " + logTocElement.getCompleteName() + ".");
                 //TODO: notifyLogError(logConfig);?
@@ -527,6 +602,32 @@ public class Logg {
         return false;
     }
 
+    /**
+     * Deletes the log blocks of a failed log config and sends it again with new log block IDs,
+     * late replies and log data for the old IDs can then no longer be mistaken for the new attempt.
+     *
+     * @return false if the log config has failed too often
+     */
+    private boolean retryLogConfig(LogConfig logConfig) {
+        if (logConfig.getAddAttempts() >= MAX_ADD_ATTEMPTS) {
+            return false;
+        }
+        mLogger.warn("Deleting log config " + logConfig.getName() + " and adding it again with new log block IDs");
+        for (LogBlock logBlock : logConfig.getLogBlocks()) {
+            sendLoggPacket(new byte[] {CMD_DELETE_LOGCONFIG, (byte) logBlock.getId()}, new byte[]{CMD_DELETE_LOGCONFIG, (byte) logBlock.getId()});
+            mLogBlocksById[logBlock.getId()] = null;
+        }
+        for (LogBlock logBlock : logConfig.getLogBlocks()) {
+            logBlock.setId(nextLogBlockId());
+            logBlock.setStarted(false);
+            mLogBlocksById[logBlock.getId()] = logBlock;
+        }
+        logConfig.setId(logConfig.getLogBlocks().get(0).getId());
+        logConfig.setAdded(false);
+        sendLogConfig(logConfig);
+        return true;
+    }
+
     /**
      * Start the logging for this entry
      */
@@ -539,13 +640,39 @@ public class Logg {
         // if (mCrazyflie.getDriver() != null && mCrazyflie.getDriver().isConnected()) {
         if (mCrazyflie.getDriver() != null) {
             if (!logConfig.isAdded()) {
+                // logging is started once all log blocks have been confirmed
                 create(logConfig);
                 mLogger.debug("First time log config is started, add log config");
             } else {
                 mLogger.debug("Log config already registered, starting logging for ID=" + logConfig.getId());
+                sendStartLogging(logConfig);
+            }
+        }
+    }
+
+    // the log blocks are started back to back to keep the phase difference of their timers small
+    private void sendStartLogging(LogConfig logConfig) {
+        for (LogBlock logBlock : logConfig.getLogBlocks()) {
+            sendLoggPacket(new byte[] {CMD_START_LOGGING, (byte) logBlock.getId(), (byte) logConfig.getPeriod()}, new byte[]{CMD_START_LOGGING, (byte) logBlock.getId()});
+        }
+    }
+
+    private static boolean isAdded(LogConfig logConfig) {
+        for (LogBlock logBlock : logConfig.getLogBlocks()) {
+            if (!logBlock.isAdded()) {
+                return false;
             }
-            sendLoggPacket(new byte[] {CMD_START_LOGGING, (byte) logConfig.getId(), (byte) logConfig.getPeriod()}, new byte[]{CMD_START_LOGGING, (byte) logConfig.getId()});
         }
+        return true;
+    }
+
+    private static boolean isStarted(LogConfig logConfig) {
+        for (LogBlock logBlock : logConfig.getLogBlocks()) {
+            if (!logBlock.isStarted()) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -562,7 +689,9 @@ public class Logg {
                 mLogger.warn("Stopping log config, but no log config registered");
             } else {
                 mLogger.debug("Sending stop logging for ID=" + logConfig.getId());
-                sendLoggPacket(new byte[] {CMD_STOP_LOGGING, (byte) logConfig.getId()}, new byte[]{CMD_STOP_LOGGING, (byte) logConfig.getId()});
+                for (LogBlock logBlock : logConfig.getLogBlocks()) {
+                    sendLoggPacket(new byte[] {CMD_STOP_LOGGING, (byte) logBlock.getId()}, new byte[]{CMD_STOP_LOGGING, (byte) logBlock.getId()});
+                }
             }
         }
     }
@@ -581,12 +710,19 @@ public class Logg {
                 mLogger.warn("Delete log config, but no log config registered");
             } else {
                 mLogger.debug("Sending delete logging for ID=" + logConfig.getId());
-                sendLoggPacket(new byte[] {CMD_DELETE_LOGCONFIG, (byte) logConfig.getId()}, new byte[]{CMD_DELETE_LOGCONFIG, (byte) logConfig.getId()});
+                for (LogBlock logBlock : logConfig.getLogBlocks()) {
+                    sendLoggPacket(new byte[] {CMD_DELETE_LOGCONFIG, (byte) logBlock.getId()}, new byte[]{CMD_DELETE_LOGCONFIG, (byte) logBlock.getId()});
+                }
             }
         }
         //hacky workarounds
         logConfig.setAdded(false);
         mLogConfigs.remove(logConfig);
+        for (int i = 0; i < mLogBlocksById.length; i++) {
+            if (mLogBlocksById[i] != null && mLogBlocksById[i].getLogConfig() == logConfig) {
+                mLogBlocksById[i] = null;
+            }
+        }
     }
 
     public List<LogConfig> getLogConfigs() {
@@ -616,6 +752,20 @@ public class Logg {
         mLogListeners.remove(logListener);
     }
 
+    /**
+     * Add a listener for the log data as typed records
+     */
+    public void addLogRecordListener(LogRecordListener logRecordListener) {
+        mLogRecordListeners.add(logRecordListener);
+    }
+
+    /**
+     * Remove the log record listener
+     */
+    public void removeLogRecordListener(LogRecordListener logRecordListener) {
+        mLogRecordListeners.remove(logRecordListener);
+    }
+
     private void notifyLogAdded(LogConfig logConfig) {
         for(LogListener ll : this.mLogListeners) {
             ll.logConfigAdded(logConfig);
@@ -634,6 +784,12 @@ public class Logg {
         }
     }
 
+    private void notifyLogRecordReceived(LogRecord logRecord) {
+        for(LogRecordListener lrl : this.mLogRecordListeners) {
+            lrl.logRecordReceived(logRecord);
+        }
+    }
+
     private void notifyLogDataReceived(LogConfig logConfig, Map<String, Number> data, int timestamp) {
         for(LogListener ll : this.mLogListeners) {
             ll.logDataReceived(logConfig, data, timestamp);
@@ -5,7 +5,7 @@
  * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
  *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
  *
- * Copyright (C) 2015 Bitcraze AB
+ * Copyright (C) 2026 Bitcraze AB
  *
  * Crazyflie Nano Quadcopter Client
  *
@@ -25,36 +25,13 @@
  *
  */
 
-package se.bitcraze.crazyflie.lib.crazyradio;
+package se.bitcraze.crazyflie.lib.param;
 
-public class RadioAck {
-    private boolean ack = false;
-    private boolean powerDet = false;
-    private int retry = 0;
-    private byte[] data;
+/**
+ * Called when all parameters of the TOC have been read, see {@link Param#requestUpdateOfAllParams(AllParamsUpdatedListener)}
+ */
+public interface AllParamsUpdatedListener {
+
+    public void allParamsUpdated();
 
-    public boolean isAck() {
-        return ack;
-    }
-    public void setAck(boolean ack) {
-        this.ack = ack;
-    }
-    public boolean isPowerDet() {
-        return powerDet;
-    }
-    public void setPowerDet(boolean powerDet) {
-        this.powerDet = powerDet;
-    }
-    public int getRetry() {
-        return retry;
-    }
-    public void setRetry(int retry) {
-        this.retry = retry;
-    }
-    public byte[] getData() {
-        return data;
-    }
-    public void setData(byte[] data) {
-        this.data = data;
-    }
-}
\ No newline at end of file
+}
@@ -64,13 +64,24 @@ public class Param {
 
     private Thread mParamUpdaterThread;
     private ParamUpdaterThread mPut;
-    private Map<String, Map<String, Number>> mValues = new HashMap<String, Map<String, Number>>();
-    private boolean mHaveUpdated = false;
+    private volatile ParamValueStore mValueStore;
+
+    public final static int DEFAULT_READ_WINDOW_SIZE = 8;
+    private int mReadWindowSize = DEFAULT_READ_WINDOW_SIZE;
+    private volatile ParamBulkReader mBulkReader;
+
+    public final static long DEFAULT_WRITE_INTERVAL_MS = 20;
+    private final ParamWriter mWriter;
+    private final Thread mWriterThread;
 
     // TODO: use only one map for both
     // TODO: ParamListener already contains group/completeName
     private Map<String, ParamListener> mUpdateListeners = new HashMap<String, ParamListener>();         // completeName
     private Map<String, ParamListener> mGroupUpdateListeners = new HashMap<String, ParamListener>();    // group
+    // name and group listeners by ident, rebuilt from the maps above when they or the TOC change
+    private volatile ParamListener[][] mListenersById;
+    private Toc mListenersToc;
+    private int mListenersTocSize = -1;
 
     // Possible states
     private int IDLE = 0;
@@ -102,11 +113,16 @@ public class Param {
             mParamUpdaterThread = new Thread(mPut);
             mParamUpdaterThread.start();
         }
+        mWriter = new ParamWriter(mCrazyflie, WRITE_CHANNEL, DEFAULT_WRITE_INTERVAL_MS);
+        mWriterThread = new Thread(mWriter);
+        mWriterThread.start();
 
         // self.cf.disconnected.add_callback(self.param_updater.close)
         mCrazyflie.getDriver().addConnectionListener(new ConnectionAdapter() {
             @Override
             public void disconnected() {
+                mBulkReader = null;
+                mWriter.close();
                 mPut.close();
                 if (mParamUpdaterThread != null) {
                     mParamUpdaterThread.interrupt();
@@ -121,42 +137,93 @@ public class Param {
      * Request an update of all the parameters in the TOC
      */
     public void requestUpdateOfAllParams() {
-        for (TocElement tocElement : mToc.getElements()) {
-            requestParamUpdate(tocElement.getCompleteName());
+        requestUpdateOfAllParams(null);
+    }
+
+    /**
+     * Request an update of all the parameters in the TOC, with a window of outstanding
+     * read requests (see {@link #setReadWindowSize(int)}). A running update of all parameters is replaced.
+     *
+     * @param listener called when all parameters have been read, can be null
+     */
+    public void requestUpdateOfAllParams(AllParamsUpdatedListener listener) {
+        ParamBulkReader bulkReader = new ParamBulkReader(mCrazyflie, mToc, READ_CHANNEL, mReadWindowSize, listener);
+        mBulkReader = bulkReader;
+        bulkReader.start();
+    }
+
+    /**
+     * Set the number of outstanding read requests of {@link #requestUpdateOfAllParams(AllParamsUpdatedListener)}
+     *
+     * @param windowSize number of outstanding requests, at least 1
+     */
+    public void setReadWindowSize(int windowSize) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("Window size must be at least 1.");
         }
+        this.mReadWindowSize = windowSize;
+    }
+
+    public int getReadWindowSize() {
+        return mReadWindowSize;
     }
 
     /**
      * Check if all parameters from the TOC have at least been fetched once
      */
     public boolean checkIfAllUpdated() {
-        /*
-        for g in self.toc.toc:
-            if not g in self.values:
-                return False
-            for n in self.toc.toc[g]:
-                if not n in self.values[g]:
-                    return False
-
-        return True
-        */
-        for (TocElement tocElement : mToc.getElements()) {
-            if (mValues.get(tocElement.getGroup()) == null) {
-                return false;
-            } else {
-                if (mValues.get(tocElement.getGroup()).get(tocElement.getName()) == null) {
-                    return false;
+        return getValueStore().isAllUpdated();
+    }
+
+    /**
+     * @return the value store of the current TOC, a new one if the TOC has changed
+     */
+    private ParamValueStore getValueStore() {
+        ParamValueStore valueStore = mValueStore;
+        Toc toc = mToc;
+        if (valueStore == null || valueStore.getToc() != toc || valueStore.getTocSize() != toc.getTocSize()) {
+            synchronized (this) {
+                valueStore = mValueStore;
+                if (valueStore == null || valueStore.getToc() != toc || valueStore.getTocSize() != toc.getTocSize()) {
+                    valueStore = new ParamValueStore(toc);
+                    mValueStore = valueStore;
                 }
             }
         }
-        return true;
+        return valueStore;
+    }
+
+    /**
+     * @return name listeners ([0]) and group listeners ([1]) by ident, rebuilt if the listeners or the TOC have changed
+     */
+    private ParamListener[][] getListenersById() {
+        ParamListener[][] listenersById = mListenersById;
+        Toc toc = mToc;
+        if (listenersById != null && mListenersToc == toc && mListenersTocSize == toc.getTocSize()) {
+            return listenersById;
+        }
+        synchronized (mUpdateListeners) {
+            int maxIdent = -1;
+            for (TocElement tocElement : toc.getElements()) {
+                maxIdent = Math.max(maxIdent, tocElement.getIdent());
+            }
+            listenersById = new ParamListener[2][maxIdent + 1];
+            for (TocElement tocElement : toc.getElements()) {
+                listenersById[0][tocElement.getIdent()] = mUpdateListeners.get(tocElement.getCompleteName());
+                listenersById[1][tocElement.getIdent()] = mGroupUpdateListeners.get(tocElement.getGroup());
+            }
+            mListenersToc = toc;
+            mListenersTocSize = toc.getTocSize();
+            mListenersById = listenersById;
+            return listenersById;
+        }
     }
 
     /**
      * Callback with data for an updated parameter
      */
     public void paramUpdated(CrtpPacket packet) {
-        int varId = packet.getPayload()[0];
+        int varId = packet.getPayload()[0] & 0xFF;
         TocElement tocElement = mToc.getElementById(varId);
         if (tocElement != null) {
             //s = struct.unpack(element.pytype, pk.data[1:])[0]
@@ -168,46 +235,69 @@ public class Param {
             String completeName = tocElement.getCompleteName();
 
             // Save the value for synchronous access
-            if (!mValues.containsKey(tocElement.getGroup())) {
-                mValues.put(tocElement.getGroup(), new HashMap<String, Number>());
+            if (getValueStore().update(varId, number)) {
+                mLogger.debug("All parameters have been updated");
             }
-            mValues.get(tocElement.getGroup()).put(tocElement.getName(), number);
 
-            // This will only be called once
-            if (checkIfAllUpdated() && !mHaveUpdated) {
-                mHaveUpdated = true;
-                // self.all_updated.call()
+            ParamListener[][] listenersById = getListenersById();
+            if (varId < listenersById[0].length) {
+                if (listenersById[0][varId] != null) {
+                    listenersById[0][varId].updated(completeName, number);
+                }
+                if (listenersById[1][varId] != null) {
+                    listenersById[1][varId].updated(completeName, number);
+                }
             }
-//                mLogger.debug("Updated parameter " + completeName);
 
-            if (mUpdateListeners.containsKey(completeName)) {
-                mUpdateListeners.get(completeName).updated(completeName, number);
+            ParamBulkReader bulkReader = mBulkReader;
+            if (bulkReader != null && packet.getHeader().getChannel() == READ_CHANNEL) {
+                bulkReader.replyReceived(varId);
             }
-            if (mGroupUpdateListeners.containsKey(tocElement.getGroup())) {
-                mGroupUpdateListeners.get(tocElement.getGroup()).updated(completeName, number);
+            if (packet.getHeader().getChannel() == WRITE_CHANNEL) {
+                mWriter.echoReceived(varId);
             }
         } else {
             mLogger.debug("Variable id {} not found in TOC", varId);
         }
     }
 
+    /**
+     * Get a copy of all parameter values that have been updated, by group and name
+     */
     public Map<String, Map<String, Number>> getValuesMap() {
-        return mValues;
+        Map<String, Map<String, Number>> valuesMap = new HashMap<String, Map<String, Number>>();
+        ParamValueStore valueStore = getValueStore();
+        Number[] values = valueStore.snapshot();
+        for (TocElement tocElement : valueStore.getToc().getElements()) {
+            Number value = values[tocElement.getIdent()];
+            if (value != null) {
+                Map<String, Number> groupValues = valuesMap.get(tocElement.getGroup());
+                if (groupValues == null) {
+                    groupValues = new HashMap<String, Number>();
+                    valuesMap.put(tocElement.getGroup(), groupValues);
+                }
+                groupValues.put(tocElement.getName(), value);
+            }
+        }
+        return valuesMap;
     }
 
     /**
      * Remove the listener for a group or a complete name (group.name)
      */
     public void removeParamListeners(String group, String name) {
-        if (name == null || name.isEmpty()) {
-            if (mGroupUpdateListeners.containsKey(group)) {
-                mGroupUpdateListeners.remove(group);
-            }
-        } else {
-            String completeName = group + "." + name;
-            if (mUpdateListeners.containsKey(completeName)) {
-                mUpdateListeners.remove(completeName);
+        synchronized (mUpdateListeners) {
+            if (name == null || name.isEmpty()) {
+                if (mGroupUpdateListeners.containsKey(group)) {
+                    mGroupUpdateListeners.remove(group);
+                }
+            } else {
+                String completeName = group + "." + name;
+                if (mUpdateListeners.containsKey(completeName)) {
+                    mUpdateListeners.remove(completeName);
+                }
             }
+            mListenersById = null;
         }
     }
 
@@ -216,14 +306,17 @@ public class Param {
      * executed when a new value is read from the Crazyflie.
      */
     public void addParamListener(ParamListener paramListener) {
-        if (paramListener.getName() == null || paramListener.getName().isEmpty()) {
-            if (!mGroupUpdateListeners.containsKey(paramListener.getGroup())) {
-                mGroupUpdateListeners.put(paramListener.getGroup(), paramListener);
-            }
-        } else {
-            if (!mUpdateListeners.containsKey(paramListener.getCompleteName())) {
-                mUpdateListeners.put(paramListener.getCompleteName(), paramListener);
+        synchronized (mUpdateListeners) {
+            if (paramListener.getName() == null || paramListener.getName().isEmpty()) {
+                if (!mGroupUpdateListeners.containsKey(paramListener.getGroup())) {
+                    mGroupUpdateListeners.put(paramListener.getGroup(), paramListener);
+                }
+            } else {
+                if (!mUpdateListeners.containsKey(paramListener.getCompleteName())) {
+                    mUpdateListeners.put(paramListener.getCompleteName(), paramListener);
+                }
             }
+            mListenersById = null;
         }
     }
 
@@ -235,6 +328,7 @@ public class Param {
        this.mToc = new Toc();
        // toc_fetcher = TocFetcher(self.cf, ParamTocElement, CRTPPort.PARAM, self.toc, refresh_done_callback, toc_cache)
        TocFetcher tocFetcher = new TocFetcher(mCrazyflie, CrtpPort.PARAMETERS, mToc, tocCache);
+       tocFetcher.setWindowSize(mCrazyflie.getTocFetchWindowSize());
        tocFetcher.addTocFetchFinishedListener(listener);
        tocFetcher.start();
     }
@@ -269,6 +363,10 @@ public class Param {
     /**
      * Set the value for the supplied parameter.
      *
+     * Writes are coalesced: a parameter is written at most once per write interval
+     * (see {@link #setWriteInterval(long)}) and not before the Crazyflie has confirmed the previous write,
+     * values that are set in the meantime replace each other and only the latest one is sent.
+     *
      * @param completeName
      * @param value
      */
@@ -280,26 +378,59 @@ public class Param {
         } else if (tocElement.getAccess() == TocElement.RO_ACCESS) {
             mLogger.debug("{} is read only, not trying to set value", completeName);
         } else {
-            //TODO: extract into method
-            Header header = new Header(WRITE_CHANNEL, CrtpPort.PARAMETERS);
-            //pk.data = struct.pack('<B', varid)
-            //pk.data += struct.pack(element.pytype, eval(value))
-            //TODO: value.byteValue() might not be the right method to use, because it can involve rounding or truncation!
-            byte[] parse = tocElement.getCtype().parse(value);
-            ByteBuffer bb = ByteBuffer.allocate(parse.length+1);
-            bb.put((byte) tocElement.getIdent());
-            bb.put(parse);
-            CrtpPacket packet = new CrtpPacket(header.getByte(), bb.array());
-            //self.param_updater.request_param_setvalue(pk)
-            mPut.addParamRequest(packet);
+            mWriter.write(tocElement, value);
+        }
+    }
+
+    /**
+     * Set the minimum time between two writes of the same parameter
+     *
+     * @param intervalMillis interval in ms, 0 to send the next value as soon as the previous write is confirmed
+     */
+    public void setWriteInterval(long intervalMillis) {
+        if (intervalMillis < 0) {
+            throw new IllegalArgumentException("Write interval must not be negative.");
         }
+        mWriter.setInterval(intervalMillis);
+    }
+
+    public long getWriteInterval() {
+        return mWriter.getInterval();
+    }
+
+    /**
+     * Number of parameter writes that have been sent to the Crazyflie
+     */
+    public long getSentWriteCount() {
+        return mWriter.getSentCount();
+    }
+
+    /**
+     * Number of parameter writes that have been confirmed by the Crazyflie
+     */
+    public long getConfirmedWriteCount() {
+        return mWriter.getConfirmedCount();
+    }
+
+    /**
+     * Number of values that have been replaced by a newer value of the same parameter before they were sent
+     */
+    public long getCoalescedWriteCount() {
+        return mWriter.getCoalescedCount();
+    }
+
+    /**
+     * Number of values that have not been sent because the link has been disconnected
+     */
+    public long getDroppedWriteCount() {
+        return mWriter.getDroppedCount();
     }
 
     /**
      * Get the value for the supplied parameter
      *
      * @param completeName
-     * @return
+     * @return the last value read from the Crazyflie, null if it has not been read yet
      */
     public Number getValue(String completeName) {
         TocElement tocElement = mToc.getElementByCompleteName(completeName);
@@ -307,8 +438,9 @@ public class Param {
             mLogger.warn("Cannot get value for {}, it's not in the TOC!", completeName);
             return -1;
         }
-        if (getValuesMap().size() > 0) {
-            return getValuesMap().get(tocElement.getGroup()).get(tocElement.getName());
+        ParamValueStore valueStore = getValueStore();
+        if (valueStore.getUpdatedCount() > 0) {
+            return valueStore.getValue(tocElement.getIdent());
         } else {
             mLogger.warn("Parameters values map is empty!");
             return -2;
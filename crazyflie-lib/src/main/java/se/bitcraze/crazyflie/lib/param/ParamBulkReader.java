@@ -0,0 +1,170 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.param;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import se.bitcraze.crazyflie.lib.crazyflie.Crazyflie;
+import se.bitcraze.crazyflie.lib.crtp.CrtpPacket;
+import se.bitcraze.crazyflie.lib.crtp.CrtpPacket.Header;
+import se.bitcraze.crazyflie.lib.crtp.CrtpPort;
+import se.bitcraze.crazyflie.lib.toc.Toc;
+import se.bitcraze.crazyflie.lib.toc.TocElement;
+
+/**
+ * Reads all parameters of a TOC with a window of outstanding read requests.
+ *
+ * The Crazyflie answers the requests in order, so when a reply arrives while the reply to an earlier
+ * request is still missing, the earlier request is sent again right away instead of waiting for the
+ * resend timeout. The requests are packet objects that are reused for the resends.
+ */
+final class ParamBulkReader {
+
+    final Logger mLogger = LoggerFactory.getLogger("ParamBulkReader");
+
+    private final Crazyflie mCrazyflie;
+    private final AllParamsUpdatedListener mListener;
+    private final int mWindowSize;
+    private final TocElement[] mElements;
+    private final CrtpPacket[] mRequests;
+    private final boolean[] mReceived;
+    private final boolean[] mGapRequested;
+    // request index by var id, -1 if the var id is not read
+    private final int[] mIndexById = new int[256];
+    private final long mStartTime;
+
+    private int mNextIndex = 0;
+    private int mFirstMissingIndex = 0;
+    private int mReceivedCount = 0;
+    private int mGapRequestCount = 0;
+    private boolean mFinished = false;
+
+    /**
+     * @param crazyflie Crazyflie to send the requests to
+     * @param toc param TOC
+     * @param readChannel channel of the read requests
+     * @param windowSize maximum number of outstanding requests
+     * @param listener called when all parameters have been read, can be null
+     */
+    ParamBulkReader(Crazyflie crazyflie, Toc toc, int readChannel, int windowSize, AllParamsUpdatedListener listener) {
+        this.mCrazyflie = crazyflie;
+        this.mListener = listener;
+        this.mWindowSize = windowSize;
+        List<TocElement> elements = toc.getElements();
+        this.mElements = elements.toArray(new TocElement[elements.size()]);
+        this.mRequests = new CrtpPacket[mElements.length];
+        this.mReceived = new boolean[mElements.length];
+        this.mGapRequested = new boolean[mElements.length];
+        Arrays.fill(mIndexById, -1);
+        byte header = new Header(readChannel, CrtpPort.PARAMETERS).getByte();
+        for (int i = 0; i < mElements.length; i++) {
+            int varId = mElements[i].getIdent() & 0xFF;
+            mIndexById[varId] = i;
+            mRequests[i] = new CrtpPacket(header, new byte[] {(byte) varId});
+            mRequests[i].setExpectedReply(new byte[] {(byte) varId});
+        }
+        this.mStartTime = System.currentTimeMillis();
+    }
+
+    void start() {
+        boolean finished;
+        synchronized (this) {
+            finished = mElements.length == 0;
+            if (finished) {
+                mFinished = true;
+            } else {
+                fillWindow();
+            }
+        }
+        if (finished) {
+            notifyFinished();
+        }
+    }
+
+    /**
+     * Called for every reply on the read channel
+     *
+     * @param varId var id of the reply
+     */
+    void replyReceived(int varId) {
+        synchronized (this) {
+            int index = mIndexById[varId & 0xFF];
+            if (mFinished || index < 0 || mReceived[index]) {
+                return;
+            }
+            mReceived[index] = true;
+            mReceivedCount++;
+            if (mReceivedCount < mElements.length) {
+                // the replies to lower indexes that are still missing have been lost
+                for (int i = mFirstMissingIndex; i < index; i++) {
+                    if (!mReceived[i] && !mGapRequested[i]) {
+                        mGapRequested[i] = true;
+                        mGapRequestCount++;
+                        mCrazyflie.sendPacket(mRequests[i]);
+                    }
+                }
+                while (mFirstMissingIndex < mElements.length && mReceived[mFirstMissingIndex]) {
+                    mFirstMissingIndex++;
+                }
+                fillWindow();
+                return;
+            }
+            mFinished = true;
+        }
+        notifyFinished();
+    }
+
+    /**
+     * Send requests until the window is full
+     */
+    private void fillWindow() {
+        while (mNextIndex < mElements.length && mNextIndex - mReceivedCount < mWindowSize) {
+            mCrazyflie.sendPacket(mRequests[mNextIndex]);
+            mNextIndex++;
+        }
+    }
+
+    private void notifyFinished() {
+        mLogger.debug("Read {} params in {}ms, {} early re-requests.", new Object[] {mElements.length, System.currentTimeMillis() - mStartTime, getGapRequestCount()});
+        if (mListener != null) {
+            mListener.allParamsUpdated();
+        }
+    }
+
+    synchronized boolean isFinished() {
+        return mFinished;
+    }
+
+    synchronized int getGapRequestCount() {
+        return mGapRequestCount;
+    }
+}
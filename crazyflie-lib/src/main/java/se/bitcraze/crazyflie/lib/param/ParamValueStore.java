@@ -0,0 +1,199 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.param;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import se.bitcraze.crazyflie.lib.toc.Toc;
+import se.bitcraze.crazyflie.lib.toc.TocElement;
+import se.bitcraze.crazyflie.lib.toc.VariableType;
+
+/**
+ * Parameter values of a param TOC, indexed by ident.
+ *
+ * Every value is stored as the raw bits of its type in a long together with a version that counts
+ * the updates of the slot. The version is odd while the slot is written (sequence lock), so readers
+ * never block and retry when they see a slot that is being written. A global sequence does the same
+ * for snapshots of all values. Values are written by the thread that receives the param packets.
+ */
+final class ParamValueStore {
+
+    private final Toc mToc;
+    private final int mTocSize;
+    private final VariableType[] mTypes;
+    private final AtomicLongArray mValues;
+    private final AtomicIntegerArray mVersions;
+    private volatile int mSequence = 0;
+    private volatile int mUpdatedCount = 0;
+
+    ParamValueStore(Toc toc) {
+        this.mToc = toc;
+        this.mTocSize = toc.getTocSize();
+        int maxIdent = -1;
+        for (TocElement tocElement : toc.getElements()) {
+            maxIdent = Math.max(maxIdent, tocElement.getIdent());
+        }
+        this.mTypes = new VariableType[maxIdent + 1];
+        for (TocElement tocElement : toc.getElements()) {
+            mTypes[tocElement.getIdent()] = tocElement.getCtype();
+        }
+        this.mValues = new AtomicLongArray(mTypes.length);
+        this.mVersions = new AtomicIntegerArray(mTypes.length);
+    }
+
+    Toc getToc() {
+        return mToc;
+    }
+
+    int getTocSize() {
+        return mTocSize;
+    }
+
+    /**
+     * Store a new value
+     *
+     * @return true if this was the last value that had not been updated before
+     */
+    synchronized boolean update(int ident, Number value) {
+        if (ident < 0 || ident >= mTypes.length || mTypes[ident] == null) {
+            return false;
+        }
+        long bits = toBits(mTypes[ident], value);
+        int version = mVersions.get(ident);
+        mSequence++;
+        mVersions.set(ident, version + 1);
+        mValues.set(ident, bits);
+        mVersions.set(ident, version + 2);
+        mSequence++;
+        if (version == 0) {
+            mUpdatedCount++;
+            return mUpdatedCount == mTocSize;
+        }
+        return false;
+    }
+
+    /**
+     * @return the value or null if the parameter has not been updated yet
+     */
+    Number getValue(int ident) {
+        if (ident < 0 || ident >= mTypes.length || mTypes[ident] == null) {
+            return null;
+        }
+        while (true) {
+            int version = mVersions.get(ident);
+            if ((version & 1) == 0) {
+                long bits = mValues.get(ident);
+                if (mVersions.get(ident) == version) {
+                    return version == 0 ? null : fromBits(mTypes[ident], bits);
+                }
+            }
+            Thread.yield();
+        }
+    }
+
+    /**
+     * @return number of updates of the parameter, 0 if it has not been updated yet
+     */
+    int getVersion(int ident) {
+        if (ident < 0 || ident >= mTypes.length) {
+            return 0;
+        }
+        return (mVersions.get(ident) + 1) / 2;
+    }
+
+    boolean isAllUpdated() {
+        return mUpdatedCount == mTocSize;
+    }
+
+    int getUpdatedCount() {
+        return mUpdatedCount;
+    }
+
+    /**
+     * Consistent copy of all values, indexed by ident
+     *
+     * @return the values, null for parameters that have not been updated yet
+     */
+    Number[] snapshot() {
+        long[] bits = new long[mTypes.length];
+        boolean[] updated = new boolean[mTypes.length];
+        while (true) {
+            int sequence = mSequence;
+            if ((sequence & 1) == 0) {
+                for (int i = 0; i < bits.length; i++) {
+                    updated[i] = mVersions.get(i) != 0;
+                    bits[i] = mValues.get(i);
+                }
+                if (mSequence == sequence) {
+                    break;
+                }
+            }
+            Thread.yield();
+        }
+        Number[] values = new Number[mTypes.length];
+        for (int i = 0; i < values.length; i++) {
+            if (updated[i]) {
+                values[i] = fromBits(mTypes[i], bits[i]);
+            }
+        }
+        return values;
+    }
+
+    private static long toBits(VariableType type, Number value) {
+        switch (type) {
+            case FLOAT:
+                return Float.floatToRawIntBits(value.floatValue());
+            case DOUBLE:
+                return Double.doubleToRawLongBits(value.doubleValue());
+            default:
+                return value.longValue();
+        }
+    }
+
+    /**
+     * @return the value boxed like {@link VariableType#parse(java.nio.ByteBuffer)} returns it
+     */
+    private static Number fromBits(VariableType type, long bits) {
+        switch (type) {
+            case INT8_T:
+                return Byte.valueOf((byte) bits);
+            case INT16_T:
+                return Short.valueOf((short) bits);
+            case UINT32_T:
+            case INT64_T:
+                return Long.valueOf(bits);
+            case FLOAT:
+                return Float.intBitsToFloat((int) bits);
+            case DOUBLE:
+                return Double.longBitsToDouble(bits);
+            default:
+                return Integer.valueOf((int) bits);
+        }
+    }
+}
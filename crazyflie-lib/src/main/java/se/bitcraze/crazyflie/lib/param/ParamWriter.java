@@ -0,0 +1,228 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.param;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import se.bitcraze.crazyflie.lib.crazyflie.Crazyflie;
+import se.bitcraze.crazyflie.lib.crtp.CrtpPacket;
+import se.bitcraze.crazyflie.lib.crtp.CrtpPacket.Header;
+import se.bitcraze.crazyflie.lib.crtp.CrtpPort;
+import se.bitcraze.crazyflie.lib.toc.TocElement;
+
+/**
+ * Sends parameter writes, keeping only the latest value per var id.
+ *
+ * There is at most one write per parameter on the link: the next value of a parameter is sent when
+ * the Crazyflie has echoed the previous write and the write interval has passed since it was sent.
+ * Values that are set in the meantime replace the pending value (coalesced). A write that is due
+ * after its interval is sent by the writer thread.
+ */
+final class ParamWriter implements Runnable {
+
+    final Logger mLogger = LoggerFactory.getLogger("ParamWriter");
+
+    private final Crazyflie mCrazyflie;
+    private final byte mHeader;
+
+    // by var id
+    private final TocElement[] mPendingElements = new TocElement[256];
+    private final Number[] mPendingValues = new Number[256];
+    private final boolean[] mInFlight = new boolean[256];
+    private final long[] mLastSentNanos = new long[256];
+    private int mPendingCount = 0;
+
+    private long mIntervalNanos;
+    private boolean mClosed = false;
+
+    // statistics
+    private long mWriteCount = 0;
+    private long mSentCount = 0;
+    private long mConfirmedCount = 0;
+    private long mCoalescedCount = 0;
+    private long mDroppedCount = 0;
+
+    /**
+     * @param crazyflie Crazyflie to send the writes to
+     * @param writeChannel channel of the write packets
+     * @param intervalMillis minimum time between two writes of the same parameter
+     */
+    ParamWriter(Crazyflie crazyflie, int writeChannel, long intervalMillis) {
+        this.mCrazyflie = crazyflie;
+        this.mHeader = new Header(writeChannel, CrtpPort.PARAMETERS).getByte();
+        setInterval(intervalMillis);
+        // nanoTime has an arbitrary origin, the first write of a parameter is never delayed
+        Arrays.fill(mLastSentNanos, System.nanoTime() - TimeUnit.DAYS.toNanos(1));
+    }
+
+    synchronized void setInterval(long intervalMillis) {
+        this.mIntervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        notifyAll();
+    }
+
+    synchronized long getInterval() {
+        return TimeUnit.NANOSECONDS.toMillis(mIntervalNanos);
+    }
+
+    /**
+     * Set the value of a parameter, replacing the value that is waiting to be sent
+     */
+    synchronized void write(TocElement tocElement, Number value) {
+        int varId = tocElement.getIdent() & 0xFF;
+        mWriteCount++;
+        if (mClosed) {
+            mDroppedCount++;
+            return;
+        }
+        if (mPendingValues[varId] != null) {
+            mCoalescedCount++;
+        } else {
+            mPendingCount++;
+        }
+        mPendingElements[varId] = tocElement;
+        mPendingValues[varId] = value;
+        if (!sendIfDue(varId, System.nanoTime())) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Called for every packet on the write channel, the Crazyflie echoes every write
+     *
+     * @param varId var id of the echo
+     */
+    synchronized void echoReceived(int varId) {
+        varId &= 0xFF;
+        if (!mInFlight[varId]) {
+            return;
+        }
+        mInFlight[varId] = false;
+        mConfirmedCount++;
+        if (mPendingValues[varId] != null && !sendIfDue(varId, System.nanoTime())) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Send the pending value of a parameter if there is no write in flight and the interval has passed
+     *
+     * @return true if the value has been sent or there is nothing to send
+     */
+    private boolean sendIfDue(int varId, long now) {
+        if (mPendingValues[varId] == null) {
+            return true;
+        }
+        if (mInFlight[varId] || now - mLastSentNanos[varId] < mIntervalNanos) {
+            return false;
+        }
+        TocElement tocElement = mPendingElements[varId];
+        byte[] value = tocElement.getCtype().parse(mPendingValues[varId]);
+        ByteBuffer bb = ByteBuffer.allocate(value.length + 1);
+        bb.put((byte) varId);
+        bb.put(value);
+        CrtpPacket packet = new CrtpPacket(mHeader, bb.array());
+        packet.setExpectedReply(new byte[] {(byte) varId});
+        mPendingElements[varId] = null;
+        mPendingValues[varId] = null;
+        mPendingCount--;
+        mInFlight[varId] = true;
+        mLastSentNanos[varId] = now;
+        mSentCount++;
+        mLogger.debug("Setting param with ID {}", varId);
+        mCrazyflie.sendPacket(packet);
+        return true;
+    }
+
+    /**
+     * Sends the writes that are waiting for their interval
+     */
+    public void run() {
+        synchronized (this) {
+            try {
+                while (!mClosed) {
+                    long now = System.nanoTime();
+                    long waitNanos = Long.MAX_VALUE;
+                    if (mPendingCount > 0) {
+                        for (int varId = 0; varId < mPendingValues.length; varId++) {
+                            if (mPendingValues[varId] != null && !mInFlight[varId] && !sendIfDue(varId, now)) {
+                                waitNanos = Math.min(waitNanos, mLastSentNanos[varId] + mIntervalNanos - now);
+                            }
+                        }
+                    }
+                    if (waitNanos == Long.MAX_VALUE) {
+                        wait();
+                    } else {
+                        TimeUnit.NANOSECONDS.timedWait(this, Math.max(waitNanos, 1));
+                    }
+                }
+            } catch (InterruptedException e) {
+                mLogger.debug("ParamWriter was interrupted.");
+            }
+        }
+    }
+
+    /**
+     * Drop the pending writes and stop the writer thread
+     */
+    synchronized void close() {
+        mDroppedCount += mPendingCount;
+        for (int varId = 0; varId < mPendingValues.length; varId++) {
+            mPendingElements[varId] = null;
+            mPendingValues[varId] = null;
+            mInFlight[varId] = false;
+        }
+        mPendingCount = 0;
+        mClosed = true;
+        notifyAll();
+    }
+
+    synchronized long getWriteCount() {
+        return mWriteCount;
+    }
+
+    synchronized long getSentCount() {
+        return mSentCount;
+    }
+
+    synchronized long getConfirmedCount() {
+        return mConfirmedCount;
+    }
+
+    synchronized long getCoalescedCount() {
+        return mCoalescedCount;
+    }
+
+    synchronized long getDroppedCount() {
+        return mDroppedCount;
+    }
+}
@@ -0,0 +1,256 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.sim;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import se.bitcraze.crazyflie.lib.bootloader.Cloader;
+import se.bitcraze.crazyflie.lib.bootloader.Target.TargetTypes;
+
+/**
+ * In-process model of the Crazyflie 2.0 bootloader (protocol version 0x10).
+ *
+ * Both targets (STM32 and nRF51) keep a page buffer and a flash memory. LOAD_BUFFER fills the buffer,
+ * WRITE_FLASH copies buffer pages to flash and replies after the configured page write time,
+ * READ_FLASH returns 25 bytes of flash per request.
+ */
+public class SimulatedBootloader {
+
+    public final static int PROTOCOL_VERSION = 0x10;
+    public final static int READ_FLASH_CHUNK_SIZE = 25;
+
+    private final static int RESET_INIT = 0xFF;
+    private final static int ERROR_BOUNDARIES = 1;
+
+    private final SimulatedCrazyflie mCrazyflie;
+    private final Map<Integer, SimulatedTarget> mTargets = new HashMap<Integer, SimulatedTarget>();
+
+    private long mPageWriteTimeNanos = 0;
+
+    // statistics
+    private long mLoadBufferPackets = 0;
+    private long mReadFlashPackets = 0;
+    private long mWrittenPages = 0;
+
+    SimulatedBootloader(SimulatedCrazyflie crazyflie) {
+        this.mCrazyflie = crazyflie;
+        // Crazyflie 2.0: STM32F405 with 1MB flash (bootloader in the first 16 pages), nRF51822 with 232kB flash
+        mTargets.put(TargetTypes.STM32, new SimulatedTarget(TargetTypes.STM32, 1024, 10, 1024, 16));
+        mTargets.put(TargetTypes.NRF51, new SimulatedTarget(TargetTypes.NRF51, 1024, 1, 232, 88));
+    }
+
+    /**
+     * Set the time the flash needs to erase and program one page
+     *
+     * @param pageWriteTimeMicros write time in microseconds
+     */
+    public synchronized void setPageWriteTimeMicros(long pageWriteTimeMicros) {
+        this.mPageWriteTimeNanos = TimeUnit.MICROSECONDS.toNanos(pageWriteTimeMicros);
+    }
+
+    /**
+     * Returns a copy of the flash content of the given target
+     */
+    public synchronized byte[] getFlash(int targetId) {
+        return getTarget(targetId).mFlash.clone();
+    }
+
+    /**
+     * Overwrite the flash content of the given target, starting at the first page after the bootloader
+     */
+    public synchronized void setFlash(int targetId, byte[] image) {
+        SimulatedTarget target = getTarget(targetId);
+        int offset = target.mStartPage * target.mPageSize;
+        if (image.length > target.mFlash.length - offset) {
+            throw new IllegalArgumentException("Image (" + image.length + " bytes) does not fit into flash of target " + targetId);
+        }
+        System.arraycopy(image, 0, target.mFlash, offset, image.length);
+    }
+
+    private SimulatedTarget getTarget(int targetId) {
+        SimulatedTarget target = mTargets.get(targetId);
+        if (target == null) {
+            throw new IllegalArgumentException("Unknown target " + targetId);
+        }
+        return target;
+    }
+
+    synchronized void handlePacket(byte[] payload, long nowNanos) {
+        if (payload.length < 2) {
+            return;
+        }
+        SimulatedTarget target = mTargets.get(payload[0] & 0xFF);
+        if (target == null) {
+            return;
+        }
+        ByteBuffer bb = ByteBuffer.wrap(payload, 2, payload.length - 2).order(ByteOrder.LITTLE_ENDIAN);
+        int cmd = payload[1] & 0xFF;
+        switch (cmd) {
+            case Cloader.GET_INFO:
+                reply(target, cmd, target.getInfo(), nowNanos, 0);
+                break;
+            case Cloader.GET_MAPPING:
+                if (target.mId == TargetTypes.STM32) {
+                    // 4 sectors of 16kB, 1 of 64kB and 7 of 128kB
+                    reply(target, cmd, new byte[] {4, 16, 1, 64, 7, (byte) 128}, nowNanos, 0);
+                }
+                break;
+            case Cloader.LOAD_BUFFER:
+                if (bb.remaining() >= 4) {
+                    mLoadBufferPackets++;
+                    target.loadBuffer(bb.getShort() & 0xFFFF, bb.getShort() & 0xFFFF, bb);
+                }
+                break;
+            case Cloader.WRITE_FLASH:
+                if (bb.remaining() >= 6) {
+                    int bufferPage = bb.getShort() & 0xFFFF;
+                    int flashPage = bb.getShort() & 0xFFFF;
+                    int pageCount = bb.getShort() & 0xFFFF;
+                    int error = target.writeFlash(bufferPage, flashPage, pageCount);
+                    if (error == 0) {
+                        mWrittenPages += pageCount;
+                    }
+                    reply(target, cmd, new byte[] {(byte) (error == 0 ? 1 : 0), (byte) error}, nowNanos, pageCount * mPageWriteTimeNanos);
+                }
+                break;
+            case Cloader.READ_FLASH:
+                if (bb.remaining() >= 4) {
+                    mReadFlashPackets++;
+                    int page = bb.getShort() & 0xFFFF;
+                    int address = bb.getShort() & 0xFFFF;
+                    ByteBuffer data = ByteBuffer.allocate(4 + READ_FLASH_CHUNK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                    data.putShort((short) page);
+                    data.putShort((short) address);
+                    data.put(target.readFlash(page, address, READ_FLASH_CHUNK_SIZE));
+                    reply(target, cmd, data.array(), nowNanos, 0);
+                }
+                break;
+            case RESET_INIT:
+                // reply with the new radio address (first 4 bytes of the CPU ID)
+                if (payload.length == 2) {
+                    reply(target, cmd, Arrays.copyOf(target.mCpuId, 4), nowNanos, 0);
+                } else {
+                    reply(target, cmd, new byte[0], nowNanos, 0);
+                }
+                break;
+            default:
+                // reset (0xF0) and unknown commands are not answered
+                break;
+        }
+    }
+
+    private void reply(SimulatedTarget target, int cmd, byte[] data, long nowNanos, long delayNanos) {
+        byte[] packet = new byte[3 + data.length];
+        packet[0] = (byte) 0xFF;
+        packet[1] = (byte) target.mId;
+        packet[2] = (byte) cmd;
+        System.arraycopy(data, 0, packet, 3, data.length);
+        mCrazyflie.queueDelayedPacket(packet, nowNanos, delayNanos);
+    }
+
+    /* Statistics */
+
+    public synchronized long getLoadBufferPacketCount() {
+        return mLoadBufferPackets;
+    }
+
+    public synchronized long getReadFlashPacketCount() {
+        return mReadFlashPackets;
+    }
+
+    public synchronized long getWrittenPageCount() {
+        return mWrittenPages;
+    }
+
+    private static class SimulatedTarget {
+        private final int mId;
+        private final int mPageSize;
+        private final int mBufferPages;
+        private final int mFlashPages;
+        private final int mStartPage;
+        private final byte[] mCpuId = new byte[12];
+        private final byte[] mBuffer;
+        private final byte[] mFlash;
+
+        SimulatedTarget(int id, int pageSize, int bufferPages, int flashPages, int startPage) {
+            this.mId = id;
+            this.mPageSize = pageSize;
+            this.mBufferPages = bufferPages;
+            this.mFlashPages = flashPages;
+            this.mStartPage = startPage;
+            for (int i = 0; i < mCpuId.length; i++) {
+                mCpuId[i] = (byte) (id + i);
+            }
+            this.mBuffer = new byte[pageSize * bufferPages];
+            this.mFlash = new byte[pageSize * flashPages];
+            Arrays.fill(mFlash, (byte) 0xFF);
+        }
+
+        byte[] getInfo() {
+            ByteBuffer bb = ByteBuffer.allocate(8 + mCpuId.length + 1).order(ByteOrder.LITTLE_ENDIAN);
+            bb.putShort((short) mPageSize);
+            bb.putShort((short) mBufferPages);
+            bb.putShort((short) mFlashPages);
+            bb.putShort((short) mStartPage);
+            bb.put(mCpuId);
+            bb.put((byte) PROTOCOL_VERSION);
+            return bb.array();
+        }
+
+        void loadBuffer(int page, int address, ByteBuffer data) {
+            if (page >= mBufferPages || address >= mPageSize) {
+                return;
+            }
+            // data beyond the end of the page is ignored (the last packet of a page is padded)
+            int length = Math.min(data.remaining(), mPageSize - address);
+            data.get(mBuffer, page * mPageSize + address, length);
+        }
+
+        int writeFlash(int bufferPage, int flashPage, int pageCount) {
+            if (bufferPage + pageCount > mBufferPages || flashPage < mStartPage || flashPage + pageCount > mFlashPages) {
+                return ERROR_BOUNDARIES;
+            }
+            System.arraycopy(mBuffer, bufferPage * mPageSize, mFlash, flashPage * mPageSize, pageCount * mPageSize);
+            return 0;
+        }
+
+        byte[] readFlash(int page, int address, int length) {
+            byte[] data = new byte[length];
+            int offset = page * mPageSize + address;
+            if (page < mFlashPages && offset < mFlash.length) {
+                System.arraycopy(mFlash, offset, data, 0, Math.min(length, mFlash.length - offset));
+            }
+            return data;
+        }
+    }
+}
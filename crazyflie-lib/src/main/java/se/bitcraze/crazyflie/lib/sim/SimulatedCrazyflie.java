@@ -0,0 +1,660 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.sim;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import se.bitcraze.crazyflie.lib.crtp.CrtpPacket;
+import se.bitcraze.crazyflie.lib.crtp.CrtpPacket.Header;
+import se.bitcraze.crazyflie.lib.crtp.CrtpPort;
+import se.bitcraze.crazyflie.lib.log.Logg;
+import se.bitcraze.crazyflie.lib.toc.Toc;
+import se.bitcraze.crazyflie.lib.toc.TocFetcher;
+import se.bitcraze.crazyflie.lib.toc.VariableType;
+
+/**
+ * In-process model of the Crazyflie firmware as seen over the radio link.
+ *
+ * Answers TOC requests of the log and param subsystems, reads and writes parameters,
+ * creates/starts/stops log blocks and produces log data at the requested period,
+ * echoes link control packets and forwards bootloader packets (header 0xFF) to
+ * a {@link SimulatedBootloader}.
+ *
+ * Packets to the host are queued and piggybacked on the acks of the {@link SimulatedCrazyradio}.
+ * Subclasses can hook into {@link #update(long)} and {@link #handleCommanderPacket(byte[])}
+ * to generate additional traffic or to inspect setpoints.
+ */
+public class SimulatedCrazyflie {
+
+    final Logger mLogger = LoggerFactory.getLogger("SimulatedCrazyflie");
+
+    // firmware log block limits
+    public final static int MAX_LOG_DATA_LENGTH = 26;
+    public final static int MAX_QUEUE_LENGTH = 64;
+    public final static int MAX_PAYLOAD_LENGTH = 30;
+
+    // the nRF51 firmware answers with a null packet (port 15, channel 3) if it has nothing to send
+    private final static byte[] NULL_PACKET = new byte[] {(byte) 0xF3};
+
+    private final static Charset CHARSET = Charset.forName("US-ASCII");
+
+    private final static int CHAN_TOC = 0;
+    private final static int CHAN_SETTINGS = 1;
+    private final static int CHAN_LOGDATA = 2;
+    private final static int CHAN_PARAM_READ = 1;
+    private final static int CHAN_PARAM_WRITE = 2;
+
+    private final static int ENOENT = 2;
+    private final static int E2BIG = 7;
+    private final static int EEXIST = 17;
+
+    private final List<Variable> mLogToc = new ArrayList<Variable>();
+    private final List<Variable> mParamToc = new ArrayList<Variable>();
+    private final Map<Integer, LogBlock> mLogBlocks = new LinkedHashMap<Integer, LogBlock>();
+    private final ArrayDeque<QueuedPacket> mOutQueue = new ArrayDeque<QueuedPacket>();
+    private final List<QueuedPacket> mDelayedPackets = new ArrayList<QueuedPacket>();
+    private final SimulatedBootloader mBootloader = new SimulatedBootloader(this);
+    private final long mStartTime = System.nanoTime();
+
+    private double mDownlinkLossRate = 0.0;
+    private Random mRandom = new Random(0);
+
+    // statistics
+    private long mReceivedPackets = 0;
+    private long mCommanderPackets = 0;
+    private long mDeliveredPackets = 0;
+    private long mDroppedPackets = 0;
+    private long mLostPackets = 0;
+    private long mDownlinkLatencySumNanos = 0;
+    private long mMaxDownlinkLatencyNanos = 0;
+
+    /**
+     * Creates a Crazyflie with a small set of typical log variables and parameters
+     *
+     * @return simulated Crazyflie
+     */
+    public static SimulatedCrazyflie createDefault() {
+        SimulatedCrazyflie crazyflie = new SimulatedCrazyflie();
+        crazyflie.addLogVariable("stabilizer", "roll", VariableType.FLOAT);
+        crazyflie.addLogVariable("stabilizer", "pitch", VariableType.FLOAT);
+        crazyflie.addLogVariable("stabilizer", "yaw", VariableType.FLOAT);
+        crazyflie.addLogVariable("stabilizer", "thrust", VariableType.UINT16_T);
+        crazyflie.addLogVariable("acc", "x", VariableType.FLOAT);
+        crazyflie.addLogVariable("acc", "y", VariableType.FLOAT);
+        crazyflie.addLogVariable("acc", "z", VariableType.FLOAT);
+        crazyflie.addLogVariable("gyro", "x", VariableType.FLOAT);
+        crazyflie.addLogVariable("gyro", "y", VariableType.FLOAT);
+        crazyflie.addLogVariable("gyro", "z", VariableType.FLOAT);
+        crazyflie.addLogVariable("baro", "asl", VariableType.FLOAT);
+        crazyflie.addLogVariable("pm", "vbat", VariableType.FLOAT);
+        crazyflie.addLogVariable("pm", "state", VariableType.INT8_T);
+        crazyflie.addLogVariable("radio", "rssi", VariableType.UINT8_T);
+        crazyflie.addLogVariable("sys", "canfly", VariableType.UINT8_T);
+        crazyflie.addLogVariable("motor", "m1", VariableType.INT32_T);
+        crazyflie.addLogVariable("motor", "m2", VariableType.INT32_T);
+        crazyflie.addLogVariable("motor", "m3", VariableType.INT32_T);
+        crazyflie.addLogVariable("motor", "m4", VariableType.INT32_T);
+        crazyflie.setLogValue("pm.vbat", 3.9f);
+
+        crazyflie.addParam("cpu", "flash", VariableType.UINT16_T, true, 1024);
+        crazyflie.addParam("cpu", "id0", VariableType.UINT32_T, true, 0x00300033);
+        crazyflie.addParam("firmware", "revision0", VariableType.UINT32_T, true, 0x12345678);
+        crazyflie.addParam("firmware", "modified", VariableType.UINT8_T, true, 0);
+        crazyflie.addParam("imu_sensors", "HMC5883L", VariableType.UINT8_T, true, 1);
+        crazyflie.addParam("imu_sensors", "MS5611", VariableType.UINT8_T, true, 1);
+        crazyflie.addParam("flightmode", "althold", VariableType.UINT8_T, false, 0);
+        crazyflie.addParam("flightmode", "xmode", VariableType.UINT8_T, false, 1);
+        crazyflie.addParam("ring", "effect", VariableType.UINT8_T, false, 6);
+        crazyflie.addParam("ring", "headlightEnable", VariableType.UINT8_T, false, 0);
+        crazyflie.addParam("ring", "fadeTime", VariableType.FLOAT, false, 0.5f);
+        crazyflie.addParam("pid_rate", "roll_kp", VariableType.FLOAT, false, 70.0f);
+        crazyflie.addParam("pid_rate", "pitch_kp", VariableType.FLOAT, false, 70.0f);
+        crazyflie.addParam("pid_rate", "yaw_kp", VariableType.FLOAT, false, 70.0f);
+        crazyflie.addParam("sound", "effect", VariableType.UINT8_T, false, 0);
+        return crazyflie;
+    }
+
+    /* Configuration */
+
+    /**
+     * Add a variable to the log TOC
+     *
+     * @return the ident of the new variable
+     */
+    public synchronized int addLogVariable(String group, String name, VariableType type) {
+        return addVariable(mLogToc, CrtpPort.LOGGING, group, name, type, true, 0);
+    }
+
+    /**
+     * Add a parameter to the param TOC
+     *
+     * @return the ident of the new parameter
+     */
+    public synchronized int addParam(String group, String name, VariableType type, boolean readOnly, Number value) {
+        return addVariable(mParamToc, CrtpPort.PARAMETERS, group, name, type, readOnly, value);
+    }
+
+    private int addVariable(List<Variable> toc, CrtpPort port, String group, String name, VariableType type, boolean readOnly, Number value) {
+        if (toc.size() > 0xFF) {
+            throw new IllegalStateException("TOC of port " + port + " is full.");
+        }
+        Variable variable = new Variable(toc.size(), group, name, type, readOnly, value);
+        variable.mTypeId = (port == CrtpPort.LOGGING) ? getTypeIdLog(type) : getTypeIdParam(type);
+        if (variable.mTypeId == -1) {
+            throw new IllegalArgumentException("VariableType " + type + " is not supported on port " + port);
+        }
+        if (3 + group.length() + name.length() + 2 > MAX_PAYLOAD_LENGTH) {
+            throw new IllegalArgumentException("Name of TOC element " + variable.getCompleteName() + " is too long.");
+        }
+        toc.add(variable);
+        return variable.mIdent;
+    }
+
+    public synchronized void setLogValue(String completeName, Number value) {
+        getVariable(mLogToc, completeName).mValue = value;
+    }
+
+    public synchronized void setParamValue(String completeName, Number value) {
+        getVariable(mParamToc, completeName).mValue = value;
+    }
+
+    public synchronized Number getParamValue(String completeName) {
+        return getVariable(mParamToc, completeName).mValue;
+    }
+
+    private static Variable getVariable(List<Variable> toc, String completeName) {
+        for (Variable variable : toc) {
+            if (variable.getCompleteName().equals(completeName)) {
+                return variable;
+            }
+        }
+        throw new IllegalArgumentException("TOC element " + completeName + " does not exist.");
+    }
+
+    public synchronized int getLogTocSize() {
+        return mLogToc.size();
+    }
+
+    public synchronized int getParamTocSize() {
+        return mParamToc.size();
+    }
+
+    public synchronized int getLogTocCrc() {
+        return getTocCrc(mLogToc);
+    }
+
+    public synchronized int getParamTocCrc() {
+        return getTocCrc(mParamToc);
+    }
+
+    public SimulatedBootloader getBootloader() {
+        return mBootloader;
+    }
+
+    /* Radio link */
+
+    /**
+     * Handles one packet received over the radio and returns the packet for the ack payload
+     *
+     * @param packet header byte followed by the payload, the null packet (0xFF) is ignored
+     * @param nowNanos current time ({@link System#nanoTime()})
+     * @return header and payload of the next packet to the host or a null packet (0xF3)
+     */
+    public synchronized byte[] transfer(byte[] packet, long nowNanos) {
+        if (packet != null && packet.length > 0 && !(packet.length == 1 && packet[0] == (byte) 0xFF)) {
+            mReceivedPackets++;
+            handlePacket(packet, nowNanos);
+        }
+        update(nowNanos);
+        return nextPacket(nowNanos);
+    }
+
+    private void handlePacket(byte[] packet, long nowNanos) {
+        byte header = packet[0];
+        byte[] payload = new byte[packet.length - 1];
+        System.arraycopy(packet, 1, payload, 0, payload.length);
+
+        if (header == (byte) 0xFF) {
+            mBootloader.handlePacket(payload, nowNanos);
+            return;
+        }
+        int port = (header & 0xF0) >> 4;
+        int channel = header & 0x03;
+        if (port == CrtpPort.LOGGING.getNumber()) {
+            handleLogPacket(channel, payload, nowNanos);
+        } else if (port == CrtpPort.PARAMETERS.getNumber()) {
+            handleParamPacket(channel, payload, nowNanos);
+        } else if (port == CrtpPort.COMMANDER.getNumber() || port == CrtpPort.COMMANDER_GENERIC.getNumber()) {
+            mCommanderPackets++;
+            handleCommanderPacket(packet);
+        } else if (port == CrtpPort.LINKCTRL.getNumber() && channel == 0) {
+            // echo
+            queuePacket(packet, nowNanos);
+        }
+    }
+
+    /**
+     * Called for every commander packet (header and payload)
+     */
+    protected void handleCommanderPacket(byte[] packet) {
+    }
+
+    /**
+     * Called for every transfer, generates the log data of started log blocks
+     *
+     * @param nowNanos current time ({@link System#nanoTime()})
+     */
+    protected void update(long nowNanos) {
+        for (LogBlock logBlock : mLogBlocks.values()) {
+            if (!logBlock.mStarted) {
+                continue;
+            }
+            // catch up with missed periods, like the firmware timers that keep running without radio traffic
+            while (logBlock.mNextTime - nowNanos <= 0) {
+                queuePacket(createLogDataPacket(logBlock, logBlock.mNextTime), logBlock.mNextTime);
+                logBlock.mNextTime += logBlock.mPeriodNanos;
+            }
+        }
+    }
+
+    /**
+     * Queue a packet to the host
+     *
+     * @param packet header byte followed by the payload
+     * @param timeNanos time the packet was created ({@link System#nanoTime()})
+     */
+    public synchronized void queuePacket(byte[] packet, long timeNanos) {
+        if (mOutQueue.size() >= MAX_QUEUE_LENGTH) {
+            mDroppedPackets++;
+            return;
+        }
+        if (mDownlinkLossRate > 0 && mRandom.nextDouble() < mDownlinkLossRate) {
+            mLostPackets++;
+            return;
+        }
+        mOutQueue.add(new QueuedPacket(packet, timeNanos, timeNanos));
+    }
+
+    /**
+     * Queue a packet to the host that is sent when the given delay has passed, eg. the reply to a flash write
+     */
+    synchronized void queueDelayedPacket(byte[] packet, long timeNanos, long delayNanos) {
+        if (delayNanos <= 0) {
+            queuePacket(packet, timeNanos);
+        } else {
+            mDelayedPackets.add(new QueuedPacket(packet, timeNanos, timeNanos + delayNanos));
+        }
+    }
+
+    private byte[] nextPacket(long nowNanos) {
+        Iterator<QueuedPacket> iterator = mDelayedPackets.iterator();
+        while (iterator.hasNext()) {
+            QueuedPacket delayed = iterator.next();
+            if (delayed.mReadyTime - nowNanos <= 0) {
+                iterator.remove();
+                queuePacket(delayed.mData, delayed.mReadyTime);
+            }
+        }
+        QueuedPacket queued = mOutQueue.poll();
+        if (queued == null) {
+            return NULL_PACKET;
+        }
+        long latency = nowNanos - queued.mTime;
+        mDeliveredPackets++;
+        mDownlinkLatencySumNanos += latency;
+        mMaxDownlinkLatencyNanos = Math.max(mMaxDownlinkLatencyNanos, latency);
+        return queued.mData;
+    }
+
+    /* Log subsystem */
+
+    private void handleLogPacket(int channel, byte[] payload, long nowNanos) {
+        if (payload.length == 0) {
+            return;
+        }
+        int cmd = payload[0];
+        if (channel == CHAN_TOC) {
+            handleTocPacket(CrtpPort.LOGGING, mLogToc, payload, nowNanos);
+        } else if (channel == CHAN_SETTINGS) {
+            int id = (payload.length > 1) ? payload[1] & 0xFF : 0;
+            int error = 0;
+            LogBlock logBlock = mLogBlocks.get(id);
+            switch (cmd) {
+                case Logg.CMD_CREATE_LOGCONFIG:
+                    if (logBlock != null) {
+                        error = EEXIST;
+                    } else {
+                        logBlock = new LogBlock(id);
+                        error = appendLogVariables(logBlock, payload);
+                        if (error == 0) {
+                            mLogBlocks.put(id, logBlock);
+                        }
+                    }
+                    break;
+                case Logg.CMD_APPEND_LOGCONFIG:
+                    error = (logBlock == null) ? ENOENT : appendLogVariables(logBlock, payload);
+                    break;
+                case Logg.CMD_DELETE_LOGCONFIG:
+                    error = (mLogBlocks.remove(id) == null) ? ENOENT : 0;
+                    break;
+                case Logg.CMD_START_LOGGING:
+                    if (logBlock == null) {
+                        error = ENOENT;
+                    } else {
+                        int period = (payload.length > 2) ? payload[2] & 0xFF : 1;
+                        logBlock.mPeriodNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(period, 1) * 10);
+                        logBlock.mNextTime = nowNanos + logBlock.mPeriodNanos;
+                        logBlock.mStarted = true;
+                    }
+                    break;
+                case Logg.CMD_STOP_LOGGING:
+                    if (logBlock == null) {
+                        error = ENOENT;
+                    } else {
+                        logBlock.mStarted = false;
+                    }
+                    break;
+                case Logg.CMD_RESET_LOGGING:
+                    mLogBlocks.clear();
+                    id = 0;
+                    break;
+                default:
+                    return;
+            }
+            queuePacket(createPacket(CrtpPort.LOGGING, CHAN_SETTINGS, new byte[] {(byte) cmd, (byte) id, (byte) error}), nowNanos);
+        }
+    }
+
+    private int appendLogVariables(LogBlock logBlock, byte[] payload) {
+        List<VariableType> types = new ArrayList<VariableType>(logBlock.mTypes);
+        List<Variable> variables = new ArrayList<Variable>(logBlock.mVariables);
+        int size = logBlock.getDataSize();
+        // (type, ident) pairs, the packet might be padded with zeros (type 0 is not a valid log type)
+        for (int i = 2; i + 1 < payload.length; i += 2) {
+            int typeId = payload[i] & 0x0F;
+            if (typeId == 0) {
+                break;
+            }
+            VariableType type = Toc.getLogVariableType(typeId);
+            if (type == null) {
+                return ENOENT;
+            }
+            int ident = payload[i + 1] & 0xFF;
+            // idents outside of the TOC are treated as memory locations
+            variables.add(ident < mLogToc.size() ? mLogToc.get(ident) : null);
+            types.add(type);
+            size += type.getSize();
+            if (size > MAX_LOG_DATA_LENGTH) {
+                return E2BIG;
+            }
+        }
+        logBlock.mTypes.clear();
+        logBlock.mTypes.addAll(types);
+        logBlock.mVariables.clear();
+        logBlock.mVariables.addAll(variables);
+        return 0;
+    }
+
+    private byte[] createLogDataPacket(LogBlock logBlock, long timeNanos) {
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 4 + logBlock.getDataSize()).order(CrtpPacket.BYTE_ORDER);
+        buffer.put(createHeader(CrtpPort.LOGGING, CHAN_LOGDATA));
+        buffer.put((byte) logBlock.mId);
+        int timestamp = (int) TimeUnit.NANOSECONDS.toMillis(timeNanos - mStartTime);
+        buffer.put((byte) timestamp);
+        buffer.put((byte) (timestamp >> 8));
+        buffer.put((byte) (timestamp >> 16));
+        for (int i = 0; i < logBlock.mTypes.size(); i++) {
+            VariableType type = logBlock.mTypes.get(i);
+            Variable variable = logBlock.mVariables.get(i);
+            Number value = (variable != null) ? variable.mValue : 0;
+            buffer.put(type.parse(value), 0, type.getSize());
+        }
+        return buffer.array();
+    }
+
+    /* Param subsystem */
+
+    private void handleParamPacket(int channel, byte[] payload, long nowNanos) {
+        if (payload.length == 0) {
+            return;
+        }
+        if (channel == CHAN_TOC) {
+            handleTocPacket(CrtpPort.PARAMETERS, mParamToc, payload, nowNanos);
+            return;
+        }
+        int ident = payload[0] & 0xFF;
+        if (ident >= mParamToc.size()) {
+            return;
+        }
+        Variable param = mParamToc.get(ident);
+        if (channel == CHAN_PARAM_WRITE) {
+            if (param.mReadOnly || payload.length < 1 + param.mType.getSize()) {
+                return;
+            }
+            param.mValue = param.mType.parse(ByteBuffer.wrap(payload, 1, param.mType.getSize()));
+        } else if (channel != CHAN_PARAM_READ) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(2 + param.mType.getSize());
+        buffer.put(createHeader(CrtpPort.PARAMETERS, channel));
+        buffer.put((byte) ident);
+        buffer.put(param.mType.parse(param.mValue), 0, param.mType.getSize());
+        queuePacket(buffer.array(), nowNanos);
+    }
+
+    /* TOC */
+
+    private void handleTocPacket(CrtpPort port, List<Variable> toc, byte[] payload, long nowNanos) {
+        if (payload[0] == TocFetcher.CMD_TOC_INFO) {
+            int crc = getTocCrc(toc);
+            byte[] info = new byte[] {TocFetcher.CMD_TOC_INFO, (byte) toc.size(),
+                    (byte) crc, (byte) (crc >> 8), (byte) (crc >> 16), (byte) (crc >> 24)};
+            queuePacket(createPacket(port, CHAN_TOC, info), nowNanos);
+        } else if (payload[0] == TocFetcher.CMD_TOC_ELEMENT && payload.length > 1) {
+            int index = payload[1] & 0xFF;
+            if (index < toc.size()) {
+                byte[] element = toc.get(index).toTocElement();
+                byte[] data = new byte[element.length + 1];
+                data[0] = TocFetcher.CMD_TOC_ELEMENT;
+                System.arraycopy(element, 0, data, 1, element.length);
+                queuePacket(createPacket(port, CHAN_TOC, data), nowNanos);
+            }
+        }
+    }
+
+    private static int getTocCrc(List<Variable> toc) {
+        CRC32 crc = new CRC32();
+        for (Variable variable : toc) {
+            crc.update(variable.toTocElement());
+        }
+        return (int) crc.getValue();
+    }
+
+    private static int getTypeIdLog(VariableType type) {
+        return Toc.getLogTypeCode(type);
+    }
+
+    private static int getTypeIdParam(VariableType type) {
+        return Toc.getParamTypeCode(type);
+    }
+
+    /* Helpers */
+
+    static byte createHeader(CrtpPort port, int channel) {
+        return new Header(channel, port).getByte();
+    }
+
+    static byte[] createPacket(CrtpPort port, int channel, byte[] payload) {
+        byte[] packet = new byte[payload.length + 1];
+        packet[0] = createHeader(port, channel);
+        System.arraycopy(payload, 0, packet, 1, payload.length);
+        return packet;
+    }
+
+    /**
+     * Set the probability that a packet to the host is lost end-to-end, eg. dropped by a full
+     * queue in the nRF51 or the host. Unlike the losses of the {@link SimulatedCrazyradio}
+     * these are not recovered by the radio and have to be resent by the library.
+     *
+     * @param lossRate probability between 0 and 1
+     * @param seed seed for the loss simulation
+     */
+    public synchronized void setDownlinkLossRate(double lossRate, long seed) {
+        if (lossRate < 0 || lossRate > 1) {
+            throw new IllegalArgumentException("Loss rate must be between 0 and 1.");
+        }
+        this.mDownlinkLossRate = lossRate;
+        this.mRandom = new Random(seed);
+    }
+
+    /* Statistics */
+
+    public synchronized long getReceivedPacketCount() {
+        return mReceivedPackets;
+    }
+
+    public synchronized long getCommanderPacketCount() {
+        return mCommanderPackets;
+    }
+
+    public synchronized long getDeliveredPacketCount() {
+        return mDeliveredPackets;
+    }
+
+    /**
+     * @return number of packets to the host dropped because the queue was full
+     */
+    public synchronized long getDroppedPacketCount() {
+        return mDroppedPackets;
+    }
+
+    /**
+     * @return number of packets to the host lost because of {@link #setDownlinkLossRate(double, long)}
+     */
+    public synchronized long getLostPacketCount() {
+        return mLostPackets;
+    }
+
+    /**
+     * @return mean time in microseconds between creating a packet and sending it to the host
+     */
+    public synchronized long getMeanDownlinkLatencyMicros() {
+        return (mDeliveredPackets == 0) ? 0 : TimeUnit.NANOSECONDS.toMicros(mDownlinkLatencySumNanos / mDeliveredPackets);
+    }
+
+    public synchronized long getMaxDownlinkLatencyMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(mMaxDownlinkLatencyNanos);
+    }
+
+    public synchronized int getQueueLength() {
+        return mOutQueue.size();
+    }
+
+    private static class Variable {
+        private final int mIdent;
+        private final String mGroup;
+        private final String mName;
+        private final VariableType mType;
+        private final boolean mReadOnly;
+        private int mTypeId;
+        private Number mValue;
+
+        Variable(int ident, String group, String name, VariableType type, boolean readOnly, Number value) {
+            this.mIdent = ident;
+            this.mGroup = group;
+            this.mName = name;
+            this.mType = type;
+            this.mReadOnly = readOnly;
+            this.mValue = value;
+        }
+
+        String getCompleteName() {
+            return mGroup + "." + mName;
+        }
+
+        /**
+         * ident, type and access, group and name as zero terminated strings
+         */
+        byte[] toTocElement() {
+            byte[] group = mGroup.getBytes(CHARSET);
+            byte[] name = mName.getBytes(CHARSET);
+            byte[] element = new byte[2 + group.length + 1 + name.length + 1];
+            element[0] = (byte) mIdent;
+            element[1] = (byte) (mTypeId | (mReadOnly ? 0x40 : 0x00));
+            System.arraycopy(group, 0, element, 2, group.length);
+            System.arraycopy(name, 0, element, 3 + group.length, name.length);
+            return element;
+        }
+    }
+
+    private static class LogBlock {
+        private final int mId;
+        private final List<VariableType> mTypes = new ArrayList<VariableType>();
+        private final List<Variable> mVariables = new ArrayList<Variable>();
+        private boolean mStarted = false;
+        private long mPeriodNanos;
+        private long mNextTime;
+
+        LogBlock(int id) {
+            this.mId = id;
+        }
+
+        int getDataSize() {
+            int size = 0;
+            for (VariableType type : mTypes) {
+                size += type.getSize();
+            }
+            return size;
+        }
+    }
+
+    private static class QueuedPacket {
+        private final byte[] mData;
+        private final long mTime;
+        private final long mReadyTime;
+
+        QueuedPacket(byte[] data, long time, long readyTime) {
+            this.mData = data;
+            this.mTime = time;
+            this.mReadyTime = readyTime;
+        }
+    }
+}
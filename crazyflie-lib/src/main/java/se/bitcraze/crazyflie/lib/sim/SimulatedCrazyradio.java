@@ -0,0 +1,357 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.sim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import se.bitcraze.crazyflie.lib.crazyradio.ConnectionData;
+import se.bitcraze.crazyflie.lib.crazyradio.Crazyradio;
+import se.bitcraze.crazyflie.lib.usb.CrazyUsbInterface;
+
+/**
+ * In-process simulation of a Crazyradio dongle with one or more {@link SimulatedCrazyflie}s in range.
+ *
+ * Vendor control requests configure the simulated radio (channel, address, data rate, ARC, ...).
+ * Every bulk transfer delivers a packet to the Crazyflie if it listens on the configured channel,
+ * data rate and address, and returns the ack with the next packet the Crazyflie wants to send.
+ * Transfer latency, packet loss and the resulting retries are configurable; the random number
+ * generator is seeded, so simulations are reproducible.
+ *
+ * Not thread safe, like the real dongle it must only be used by one thread at a time.
+ */
+public class SimulatedCrazyradio implements CrazyUsbInterface {
+
+    // Dongle configuration requests (see Crazyradio)
+    private final static int SET_RADIO_CHANNEL = 0x01;
+    private final static int SET_RADIO_ADDRESS = 0x02;
+    private final static int SET_DATA_RATE = 0x03;
+    private final static int SET_RADIO_POWER = 0x04;
+    private final static int SET_RADIO_ARD = 0x05;
+    private final static int SET_RADIO_ARC = 0x06;
+    private final static int ACK_ENABLE = 0x10;
+    private final static int SET_CONT_CARRIER = 0x20;
+    private final static int SCAN_CHANNELS = 0x21;
+
+    private final static long RETRY_DELAY_MICROS = 250;
+
+    // Crazyflies in range, each on its own channel/data rate/address
+    private final List<SimulatedCrazyflie> mCrazyflies = new ArrayList<SimulatedCrazyflie>();
+    private final List<ConnectionData> mCrazyflieConnections = new ArrayList<ConnectionData>();
+    private final List<byte[]> mCrazyflieAddresses = new ArrayList<byte[]>();
+    private final Random mRandom;
+
+    private float mFirmwareVersion = 0.53f;
+    private boolean mConnected = false;
+
+    // radio configuration
+    private int mChannel = 2;
+    private int mDatarate = Crazyradio.DR_2MPS;
+    private byte[] mAddress = new byte[] {(byte) 0xE7, (byte) 0xE7, (byte) 0xE7, (byte) 0xE7, (byte) 0xE7};
+    private int mArc = 3;
+    private int mPower = Crazyradio.P_0DBM;
+    private boolean mContinuousCarrier = false;
+    private int mScanStart = 0;
+    private int mScanStop = 125;
+
+    // link model
+    private long mTransferLatencyMicros = 0;
+    private long mControlTransferLatencyMicros = 0;
+    private double mPacketLossRate = 0.0;
+
+    // statistics
+    private long mTransfers = 0;
+    private long mRetries = 0;
+    private long mLostPackets = 0;
+    private long mControlTransfers = 0;
+
+    /**
+     * Create a simulated Crazyradio with a Crazyflie on the given channel/data rate and the default address
+     *
+     * @param crazyflie the simulated Crazyflie in range
+     * @param connectionData channel and data rate of the Crazyflie
+     */
+    public SimulatedCrazyradio(SimulatedCrazyflie crazyflie, ConnectionData connectionData) {
+        this(crazyflie, connectionData, new byte[] {(byte) 0xE7, (byte) 0xE7, (byte) 0xE7, (byte) 0xE7, (byte) 0xE7}, 0);
+    }
+
+    /**
+     * Create a simulated Crazyradio
+     *
+     * @param crazyflie the simulated Crazyflie in range
+     * @param connectionData channel and data rate of the Crazyflie
+     * @param address radio address of the Crazyflie
+     * @param seed seed for the packet loss simulation
+     */
+    public SimulatedCrazyradio(SimulatedCrazyflie crazyflie, ConnectionData connectionData, byte[] address, long seed) {
+        this.mRandom = new Random(seed);
+        addCrazyflie(crazyflie, connectionData, address);
+    }
+
+    /**
+     * Put another Crazyflie in range of the radio, e.g. to simulate a fleet of copters in bootloader mode
+     *
+     * @param crazyflie the simulated Crazyflie
+     * @param connectionData channel and data rate of the Crazyflie
+     * @param address radio address of the Crazyflie
+     */
+    public void addCrazyflie(SimulatedCrazyflie crazyflie, ConnectionData connectionData, byte[] address) {
+        this.mCrazyflies.add(crazyflie);
+        this.mCrazyflieConnections.add(connectionData);
+        this.mCrazyflieAddresses.add(address.clone());
+    }
+
+    /* Link model */
+
+    /**
+     * Set the time every bulk transfer takes (USB + radio round trip)
+     *
+     * @param latencyMicros transfer time in microseconds
+     */
+    public void setTransferLatencyMicros(long latencyMicros) {
+        this.mTransferLatencyMicros = latencyMicros;
+    }
+
+    /**
+     * Set the time every control transfer takes, e.g. changing the channel or the address of the radio
+     *
+     * @param latencyMicros control transfer time in microseconds
+     */
+    public void setControlTransferLatencyMicros(long latencyMicros) {
+        this.mControlTransferLatencyMicros = latencyMicros;
+    }
+
+    /**
+     * Set the probability that a single transmission attempt is lost.
+     * A lost attempt is retried up to ARC times before the transfer fails without ack.
+     *
+     * @param lossRate probability in range 0-1
+     */
+    public void setPacketLossRate(double lossRate) {
+        if (lossRate < 0 || lossRate > 1) {
+            throw new IllegalArgumentException("Packet loss rate must be in range 0-1");
+        }
+        this.mPacketLossRate = lossRate;
+    }
+
+    public void setFirmwareVersion(float firmwareVersion) {
+        this.mFirmwareVersion = firmwareVersion;
+    }
+
+    /**
+     * @return the Crazyflie the radio has been created with
+     */
+    public SimulatedCrazyflie getCrazyflie() {
+        return mCrazyflies.get(0);
+    }
+
+    /* CrazyUsbInterface */
+
+    @Override
+    public void initDevice(int usbVid, int usbPid) {
+        mConnected = true;
+    }
+
+    @Override
+    public void releaseInterface() {
+        mConnected = false;
+    }
+
+    @Override
+    public boolean isUsbConnected() {
+        return mConnected;
+    }
+
+    @Override
+    public int sendControlTransfer(int requestType, int request, int value, int index, byte[] data) {
+        mControlTransfers++;
+        if (mControlTransferLatencyMicros > 0) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(mControlTransferLatencyMicros));
+        }
+        if ((requestType & 0x80) != 0) { // device to host
+            if (request == SCAN_CHANNELS && data != null) {
+                int found = 0;
+                for (int channel = mScanStart; channel <= mScanStop && found < data.length; channel++) {
+                    if (getCrazyflieInRange(channel, mDatarate, mAddress) != null) {
+                        data[found++] = (byte) channel;
+                    }
+                }
+                return found;
+            }
+            return 0;
+        }
+        switch (request) {
+            case SET_RADIO_CHANNEL:
+                mChannel = value;
+                break;
+            case SET_RADIO_ADDRESS:
+                mAddress = Arrays.copyOf(data, data.length);
+                break;
+            case SET_DATA_RATE:
+                mDatarate = value;
+                break;
+            case SET_RADIO_POWER:
+                mPower = value;
+                break;
+            case SET_RADIO_ARD:
+                // ACK retry delay/payload length is not simulated
+                break;
+            case SET_RADIO_ARC:
+                mArc = value;
+                break;
+            case ACK_ENABLE:
+                break;
+            case SET_CONT_CARRIER:
+                mContinuousCarrier = value != 0;
+                break;
+            case SCAN_CHANNELS:
+                mScanStart = value;
+                mScanStop = index;
+                break;
+            default:
+                break;
+        }
+        return (data == null) ? 0 : data.length;
+    }
+
+    @Override
+    public int sendBulkTransfer(byte[] data, byte[] receiveData) {
+        mTransfers++;
+        Arrays.fill(receiveData, (byte) 0);
+        if (!mConnected || mContinuousCarrier) {
+            return -1;
+        }
+        SimulatedCrazyflie crazyflie = getCrazyflieInRange(mChannel, mDatarate, mAddress);
+        if (crazyflie == null) {
+            simulateLatency(mArc);
+            return 1;
+        }
+        // every attempt can be lost, the radio retries up to ARC times
+        int retries = 0;
+        while (mPacketLossRate > 0 && mRandom.nextDouble() < mPacketLossRate) {
+            if (retries == mArc) {
+                mLostPackets++;
+                simulateLatency(retries);
+                return 1;
+            }
+            retries++;
+        }
+        mRetries += retries;
+        simulateLatency(retries);
+
+        byte[] ackPayload = crazyflie.transfer(data, System.nanoTime());
+        // status byte: ack received, retry count in the upper nibble
+        receiveData[0] = (byte) (0x01 | ((retries & 0x0F) << 4));
+        if (ackPayload == null) {
+            return 1;
+        }
+        int length = Math.min(ackPayload.length, receiveData.length - 1);
+        System.arraycopy(ackPayload, 0, receiveData, 1, length);
+        return length + 1;
+    }
+
+    private SimulatedCrazyflie getCrazyflieInRange(int channel, int datarate, byte[] address) {
+        for (int i = 0; i < mCrazyflies.size(); i++) {
+            ConnectionData connectionData = mCrazyflieConnections.get(i);
+            if (connectionData.getChannel() == channel
+                    && connectionData.getDataRate() == datarate
+                    && Arrays.equals(mCrazyflieAddresses.get(i), address)) {
+                return mCrazyflies.get(i);
+            }
+        }
+        return null;
+    }
+
+    private void simulateLatency(int retries) {
+        long micros = mTransferLatencyMicros + retries * RETRY_DELAY_MICROS;
+        if (micros > 0) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(micros));
+        }
+    }
+
+    @Override
+    public float getFirmwareVersion() {
+        return mFirmwareVersion;
+    }
+
+    @Override
+    public String getSerialNumber() {
+        return "SIMULATED";
+    }
+
+    @Override
+    public void bulkWrite(byte[] data) {
+    }
+
+    @Override
+    public byte[] bulkRead() {
+        return null;
+    }
+
+    /* Statistics */
+
+    public long getTransferCount() {
+        return mTransfers;
+    }
+
+    public long getRetryCount() {
+        return mRetries;
+    }
+
+    public long getLostPacketCount() {
+        return mLostPackets;
+    }
+
+    public long getControlTransferCount() {
+        return mControlTransfers;
+    }
+
+    public int getChannel() {
+        return mChannel;
+    }
+
+    public int getDatarate() {
+        return mDatarate;
+    }
+
+    public int getPower() {
+        return mPower;
+    }
+
+    public int getArc() {
+        return mArc;
+    }
+
+    public byte[] getAddress() {
+        return mAddress.clone();
+    }
+}
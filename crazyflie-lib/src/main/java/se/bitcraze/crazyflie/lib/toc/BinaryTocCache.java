@@ -0,0 +1,491 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.toc;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import se.bitcraze.crazyflie.lib.crtp.CrtpPort;
+
+/**
+ * TOC cache that keeps all TOCs in a single memory-mapped binary file.
+ *
+ * The records are keyed by port and TOC CRC. An index of the records is built once when the cache
+ * is used for the first time, so a lookup is a hash map access followed by decoding the record from the mapped file.
+ * Every element is stored as ident, type, access and the indexes of its group and name in the string
+ * table of the record, where every group and name is stored only once.
+ *
+ * The size of the file is limited, the least recently used TOCs are evicted when a new TOC does not fit.
+ *
+ * File format (little endian): magic, version, then the records:
+ * length (int), checksum (int), last use (long), port (byte), CRC (int), number of strings (short),
+ * strings (length byte + US-ASCII), number of elements (short), elements (ident, type, access, group, name).
+ * The checksum covers everything after the last use, which is updated in place on every hit.
+ */
+public class BinaryTocCache extends TocCache {
+
+    final Logger mLogger = LoggerFactory.getLogger("BinaryTocCache");
+
+    public static final String CACHE_FILE_NAME = "toccache.bin";
+    public static final int DEFAULT_MAX_SIZE = 256 * 1024;
+
+    private static final int MAGIC = 0x43544643; // "CFTC"
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 8;
+
+    private static final int LENGTH_OFFSET = 0;
+    private static final int CHECKSUM_OFFSET = 4;
+    private static final int LAST_USE_OFFSET = 8;
+    private static final int BODY_OFFSET = 16;
+    private static final int RECORD_HEADER_SIZE = BODY_OFFSET + 5;
+    private static final int ELEMENT_SIZE = 7;
+
+    private static final Charset US_ASCII = Charset.forName("US-ASCII");
+    private static final VariableType[] VARIABLE_TYPES = VariableType.values();
+
+    private final File mFile;
+    private final int mMaxSize;
+    private MappedByteBuffer mBuffer;
+    private int mFileSize;
+    private int mLiveSize;
+    private long mUseCounter;
+    private boolean mLoaded = false;
+
+    // in access order, the eldest entry is the least recently used TOC
+    private final LinkedHashMap<Long, Entry> mIndex = new LinkedHashMap<Long, Entry>(16, 0.75f, true);
+
+    private static class Entry {
+        int offset;
+        int length;
+        long lastUse;
+
+        Entry(int offset, int length, long lastUse) {
+            this.offset = offset;
+            this.length = length;
+            this.lastUse = lastUse;
+        }
+    }
+
+    public BinaryTocCache(File cacheDir) {
+        this(cacheDir, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param cacheDir directory of the cache file
+     * @param maxSize maximum size of the cache file in bytes
+     */
+    public BinaryTocCache(File cacheDir, int maxSize) {
+        super();
+        if (maxSize <= FILE_HEADER_SIZE) {
+            throw new IllegalArgumentException("Max size must be larger than " + FILE_HEADER_SIZE + " bytes.");
+        }
+        this.mFile = new File(cacheDir, CACHE_FILE_NAME);
+        this.mMaxSize = maxSize;
+    }
+
+    private void ensureLoaded() {
+        if (!mLoaded) {
+            loadIndex();
+        }
+    }
+
+    /**
+     * Map the cache file and build the index, a damaged tail of the file is cut off
+     */
+    private void loadIndex() {
+        mLoaded = true;
+        mIndex.clear();
+        mLiveSize = 0;
+        mUseCounter = 0;
+        mBuffer = null;
+        mFileSize = 0;
+        if (!mFile.exists()) {
+            return;
+        }
+        try {
+            map();
+            if (mFileSize < FILE_HEADER_SIZE || mBuffer.getInt(0) != MAGIC || mBuffer.getInt(4) != VERSION) {
+                mLogger.warn("Ignoring TOC cache file with unknown format: " + mFile.getAbsolutePath());
+                reset();
+                return;
+            }
+            List<Map.Entry<Long, Entry>> entries = new ArrayList<Map.Entry<Long, Entry>>();
+            Map<Long, Entry> byKey = new HashMap<Long, Entry>();
+            int offset = FILE_HEADER_SIZE;
+            while (offset < mFileSize) {
+                int length = recordLength(offset);
+                if (length < 0) {
+                    mLogger.warn("Damaged TOC cache record at offset " + offset + ", dropping the rest of the file.");
+                    truncate(offset);
+                    break;
+                }
+                long key = ((long) mBuffer.get(offset + BODY_OFFSET) << 32) | (mBuffer.getInt(offset + BODY_OFFSET + 1) & 0xFFFFFFFFL);
+                Entry entry = new Entry(offset, length, mBuffer.getLong(offset + LAST_USE_OFFSET));
+                Entry replaced = byKey.put(key, entry);
+                if (replaced != null) {
+                    mLiveSize -= replaced.length;
+                }
+                mLiveSize += length;
+                mUseCounter = Math.max(mUseCounter, entry.lastUse);
+                offset += length;
+            }
+            for (Map.Entry<Long, Entry> e : byKey.entrySet()) {
+                entries.add(e);
+            }
+            Collections.sort(entries, new Comparator<Map.Entry<Long, Entry>>() {
+                public int compare(Map.Entry<Long, Entry> a, Map.Entry<Long, Entry> b) {
+                    return Long.valueOf(a.getValue().lastUse).compareTo(Long.valueOf(b.getValue().lastUse));
+                }
+            });
+            for (Map.Entry<Long, Entry> e : entries) {
+                mIndex.put(e.getKey(), e.getValue());
+            }
+            mLogger.debug("Loaded TOC cache index with " + mIndex.size() + " entries.");
+        } catch (IOException ioe) {
+            mLogger.error("Could not read TOC cache file " + mFile.getName() + ": " + ioe.getMessage());
+            mIndex.clear();
+            mLiveSize = 0;
+            mBuffer = null;
+        }
+    }
+
+    /**
+     * @return the length of the valid record at the offset or -1
+     */
+    private int recordLength(int offset) {
+        if (mFileSize - offset < RECORD_HEADER_SIZE) {
+            return -1;
+        }
+        int length = mBuffer.getInt(offset + LENGTH_OFFSET);
+        if (length < RECORD_HEADER_SIZE || length > mFileSize - offset) {
+            return -1;
+        }
+        if (checksum(mBuffer, offset, length) != mBuffer.getInt(offset + CHECKSUM_OFFSET)) {
+            return -1;
+        }
+        return length;
+    }
+
+    private static int checksum(ByteBuffer buffer, int offset, int length) {
+        CRC32 crc32 = new CRC32();
+        ByteBuffer body = buffer.duplicate();
+        body.limit(offset + length);
+        body.position(offset + BODY_OFFSET);
+        if (body.hasArray()) {
+            crc32.update(body.array(), body.arrayOffset() + body.position(), body.remaining());
+        } else {
+            byte[] bytes = new byte[body.remaining()];
+            body.get(bytes);
+            crc32.update(bytes, 0, bytes.length);
+        }
+        return (int) crc32.getValue();
+    }
+
+    private void map() throws IOException {
+        RandomAccessFile file = new RandomAccessFile(mFile, "rw");
+        try {
+            FileChannel channel = file.getChannel();
+            mFileSize = (int) channel.size();
+            // the mapping stays valid after the channel is closed
+            mBuffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, mFileSize);
+            mBuffer.order(ByteOrder.LITTLE_ENDIAN);
+        } finally {
+            file.close();
+        }
+    }
+
+    private void truncate(int size) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(mFile, "rw");
+        try {
+            file.setLength(size);
+        } finally {
+            file.close();
+        }
+        map();
+    }
+
+    /**
+     * Start a new, empty cache file
+     */
+    private void reset() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION);
+        writeFile(mFile, Collections.singletonList(header.array()));
+        mIndex.clear();
+        mLiveSize = 0;
+        map();
+    }
+
+    private static void writeFile(File target, List<byte[]> chunks) throws IOException {
+        File parent = target.getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        RandomAccessFile file = new RandomAccessFile(target, "rw");
+        try {
+            file.setLength(0);
+            for (byte[] chunk : chunks) {
+                file.write(chunk);
+            }
+        } finally {
+            file.close();
+        }
+    }
+
+    @Override
+    public synchronized Toc fetch(int crc, CrtpPort port) {
+        ensureLoaded();
+        Entry entry = mIndex.get(cacheKey(crc, port));
+        if (entry == null) {
+            return null;
+        }
+        entry.lastUse = ++mUseCounter;
+        mBuffer.putLong(entry.offset + LAST_USE_OFFSET, entry.lastUse);
+        Toc toc = decode(mBuffer, entry.offset);
+        mLogger.debug("Found TOC for port " + port + " in cache: " + toc.getTocSize() + " elements.");
+        return toc;
+    }
+
+    private static Toc decode(ByteBuffer mapped, int offset) {
+        ByteBuffer buffer = mapped.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(offset + RECORD_HEADER_SIZE);
+
+        String[] strings = new String[buffer.getShort() & 0xFFFF];
+        byte[] chars = new byte[255];
+        for (int i = 0; i < strings.length; i++) {
+            int length = buffer.get() & 0xFF;
+            buffer.get(chars, 0, length);
+            strings[i] = new String(chars, 0, length, US_ASCII);
+        }
+
+        int noOfElements = buffer.getShort() & 0xFFFF;
+        Map<String, TocElement> elements = new HashMap<String, TocElement>(noOfElements * 4 / 3 + 1);
+        for (int i = 0; i < noOfElements; i++) {
+            TocElement tocElement = new TocElement();
+            tocElement.setIdent(buffer.get() & 0xFF);
+            tocElement.setCtype(VARIABLE_TYPES[buffer.get()]);
+            tocElement.setAccess(buffer.get());
+            tocElement.setGroup(strings[buffer.getShort() & 0xFFFF]);
+            tocElement.setName(strings[buffer.getShort() & 0xFFFF]);
+            elements.put(tocElement.getCompleteName(), tocElement);
+        }
+        Toc toc = new Toc();
+        toc.setTocElementMap(elements);
+        return toc;
+    }
+
+    private byte[] encode(int crc, CrtpPort port, Toc toc, long lastUse) {
+        Map<String, Integer> stringIndexes = new HashMap<String, Integer>();
+        List<byte[]> strings = new ArrayList<byte[]>();
+        int stringBytes = 0;
+        List<TocElement> elements = toc.getElements();
+        int[] groupIndexes = new int[elements.size()];
+        int[] nameIndexes = new int[elements.size()];
+        for (int i = 0; i < elements.size(); i++) {
+            TocElement tocElement = elements.get(i);
+            if (tocElement.getCtype() == null) {
+                throw new IllegalArgumentException("TOC element has no type: " + tocElement.getCompleteName());
+            }
+            groupIndexes[i] = intern(tocElement.getGroup(), stringIndexes, strings);
+            nameIndexes[i] = intern(tocElement.getName(), stringIndexes, strings);
+        }
+        for (byte[] string : strings) {
+            stringBytes += 1 + string.length;
+        }
+
+        int length = RECORD_HEADER_SIZE + 2 + stringBytes + 2 + elements.size() * ELEMENT_SIZE;
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(length);
+        buffer.putInt(0);
+        buffer.putLong(lastUse);
+        buffer.put(port.getNumber());
+        buffer.putInt(crc);
+        buffer.putShort((short) strings.size());
+        for (byte[] string : strings) {
+            buffer.put((byte) string.length);
+            buffer.put(string);
+        }
+        buffer.putShort((short) elements.size());
+        for (int i = 0; i < elements.size(); i++) {
+            TocElement tocElement = elements.get(i);
+            buffer.put((byte) tocElement.getIdent());
+            buffer.put((byte) tocElement.getCtype().ordinal());
+            buffer.put((byte) tocElement.getAccess());
+            buffer.putShort((short) groupIndexes[i]);
+            buffer.putShort((short) nameIndexes[i]);
+        }
+        buffer.putInt(CHECKSUM_OFFSET, checksum(buffer, 0, length));
+        return buffer.array();
+    }
+
+    private static int intern(String string, Map<String, Integer> stringIndexes, List<byte[]> strings) {
+        Integer index = stringIndexes.get(string);
+        if (index == null) {
+            byte[] bytes = string.getBytes(US_ASCII);
+            if (bytes.length > 255) {
+                throw new IllegalArgumentException("TOC name is too long: " + string);
+            }
+            index = strings.size();
+            strings.add(bytes);
+            stringIndexes.put(string, index);
+        }
+        return index;
+    }
+
+    @Override
+    public synchronized void insert(int crc, CrtpPort port, Toc toc) {
+        ensureLoaded();
+        long key = cacheKey(crc, port);
+        byte[] record;
+        try {
+            record = encode(crc, port, toc, ++mUseCounter);
+        } catch (IllegalArgumentException iae) {
+            mLogger.error("Could not save TOC to cache: " + iae.getMessage());
+            return;
+        }
+        if (FILE_HEADER_SIZE + record.length > mMaxSize) {
+            mLogger.warn("TOC for port " + port + " is too large for the cache (" + record.length + " bytes).");
+            return;
+        }
+        try {
+            if (mBuffer == null) {
+                reset();
+            }
+            Entry replaced = mIndex.remove(key);
+            if (replaced != null) {
+                mLiveSize -= replaced.length;
+            }
+            if (mFileSize + record.length <= mMaxSize) {
+                append(key, record);
+            } else {
+                evictAndCompact(key, record);
+            }
+            mLogger.info("Saved TOC for port " + port + " to cache (" + record.length + " bytes).");
+        } catch (IOException ioe) {
+            mLogger.error("Could not save TOC to cache file " + mFile.getName() + ": " + ioe.getMessage());
+            loadIndex();
+        }
+    }
+
+    private void append(long key, byte[] record) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(mFile, "rw");
+        try {
+            file.seek(mFileSize);
+            file.write(record);
+        } finally {
+            file.close();
+        }
+        int offset = mFileSize;
+        map();
+        mIndex.put(key, new Entry(offset, record.length, mUseCounter));
+        mLiveSize += record.length;
+    }
+
+    /**
+     * Drop the least recently used TOCs until the new one fits and rewrite the file without the dropped and replaced records
+     */
+    private void evictAndCompact(long key, byte[] record) throws IOException {
+        Iterator<Entry> eldest = mIndex.values().iterator();
+        while (FILE_HEADER_SIZE + mLiveSize + record.length > mMaxSize && eldest.hasNext()) {
+            Entry entry = eldest.next();
+            mLiveSize -= entry.length;
+            eldest.remove();
+            mLogger.debug("Evicted TOC from cache (" + entry.length + " bytes).");
+        }
+
+        List<byte[]> chunks = new ArrayList<byte[]>();
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        chunks.add(header.putInt(MAGIC).putInt(VERSION).array());
+        int offset = FILE_HEADER_SIZE;
+        for (Entry entry : mIndex.values()) {
+            byte[] bytes = new byte[entry.length];
+            ByteBuffer source = mBuffer.duplicate();
+            source.position(entry.offset);
+            source.get(bytes);
+            chunks.add(bytes);
+            entry.offset = offset;
+            offset += entry.length;
+        }
+        chunks.add(record);
+
+        File tmpFile = new File(mFile.getParentFile(), CACHE_FILE_NAME + ".tmp");
+        writeFile(tmpFile, chunks);
+        if (!tmpFile.renameTo(mFile)) {
+            throw new IOException("Could not replace " + mFile.getName());
+        }
+        map();
+        mIndex.put(key, new Entry(offset, record.length, mUseCounter));
+        mLiveSize += record.length;
+    }
+
+    @Override
+    public synchronized void clear() {
+        mLoaded = true;
+        mIndex.clear();
+        mLiveSize = 0;
+        mBuffer = null;
+        mFileSize = 0;
+        if (mFile.exists() && !mFile.delete()) {
+            mLogger.error("Deleting cache file " + mFile.getAbsolutePath() + " failed.");
+        }
+    }
+
+    /**
+     * @return number of TOCs in the cache
+     */
+    public synchronized int size() {
+        ensureLoaded();
+        return mIndex.size();
+    }
+
+    /**
+     * @return size of the cache file in bytes
+     */
+    public synchronized int getFileSize() {
+        ensureLoaded();
+        return mFileSize;
+    }
+}
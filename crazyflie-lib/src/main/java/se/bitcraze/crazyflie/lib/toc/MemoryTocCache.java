@@ -0,0 +1,167 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.toc;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import se.bitcraze.crazyflie.lib.crtp.CrtpPort;
+
+/**
+ * Process-wide cache of parsed TOCs in front of a disk cache.
+ *
+ * The TOCs are kept in memory and shared by all instances, so reconnecting to a Crazyflie whose TOC CRC
+ * has not changed neither reads nor parses a cache file, even when a new Crazyflie (and cache) is created
+ * for every connection. The TOCs are kept frozen, so they can be shared and their lookup tables are only
+ * built once (see {@link Toc#freeze()}). When more than the maximum
+ * number of TOCs are kept, the least recently used one is dropped.
+ */
+public class MemoryTocCache extends TocCache {
+
+    final Logger mLogger = LoggerFactory.getLogger("MemoryTocCache");
+
+    public static final int DEFAULT_MAX_ENTRIES = 8;
+
+    private static int mMaxEntries = DEFAULT_MAX_ENTRIES;
+    private static int mHitCount = 0;
+    private static int mMissCount = 0;
+
+    // in access order, guarded by itself
+    private static final LinkedHashMap<Long, Toc> mTocs = new LinkedHashMap<Long, Toc>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Toc> eldest) {
+            return size() > mMaxEntries;
+        }
+    };
+
+    private final TocCache mDiskCache;
+
+    /**
+     * @param diskCache cache that is used when a TOC is not in memory, e.g. a BinaryTocCache, or null
+     */
+    public MemoryTocCache(TocCache diskCache) {
+        super();
+        this.mDiskCache = diskCache;
+    }
+
+    @Override
+    public Toc fetch(int crc, CrtpPort port) {
+        long key = cacheKey(crc, port);
+        Toc toc;
+        synchronized (mTocs) {
+            toc = mTocs.get(key);
+            if (toc != null) {
+                mHitCount++;
+            } else {
+                mMissCount++;
+            }
+        }
+        if (toc != null) {
+            mLogger.debug("Found TOC for port {} in memory.", port);
+            return toc;
+        }
+        Toc diskToc = (mDiskCache != null) ? mDiskCache.fetch(crc, port) : null;
+        if (diskToc == null) {
+            return null;
+        }
+        return put(key, crc, diskToc);
+    }
+
+    /**
+     * @return the frozen TOC that is kept in memory
+     */
+    private Toc put(long key, int crc, Toc toc) {
+        Toc frozenToc = toc;
+        if (!toc.isFrozen()) {
+            frozenToc = new Toc();
+            frozenToc.setCrc(crc);
+            frozenToc.setTocElementMap(new HashMap<String, TocElement>(toc.getTocElementMap()));
+            frozenToc.freeze();
+        }
+        synchronized (mTocs) {
+            mTocs.put(key, frozenToc);
+        }
+        return frozenToc;
+    }
+
+    @Override
+    public void insert(int crc, CrtpPort port, Toc toc) {
+        put(cacheKey(crc, port), crc, toc);
+        if (mDiskCache != null) {
+            mDiskCache.insert(crc, port, toc);
+        }
+    }
+
+    /**
+     * Clears the TOCs in memory (of all instances) and the disk cache
+     */
+    @Override
+    public void clear() {
+        synchronized (mTocs) {
+            mTocs.clear();
+        }
+        if (mDiskCache != null) {
+            mDiskCache.clear();
+        }
+    }
+
+    /**
+     * Set the maximum number of TOCs that are kept in memory
+     *
+     * @param maxEntries maximum number of TOCs, log and param TOC count separately
+     */
+    public static void setMaxEntries(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Max entries must be at least 1.");
+        }
+        synchronized (mTocs) {
+            mMaxEntries = maxEntries;
+            while (mTocs.size() > mMaxEntries) {
+                mTocs.remove(mTocs.keySet().iterator().next());
+            }
+        }
+    }
+
+    public static int getHitCount() {
+        synchronized (mTocs) {
+            return mHitCount;
+        }
+    }
+
+    public static int getMissCount() {
+        synchronized (mTocs) {
+            return mMissCount;
+        }
+    }
+}
@@ -0,0 +1,482 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2015 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+package se.bitcraze.crazyflie.lib.toc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Container for TocElements
+ *
+ * A TOC is filled while it is fetched and frozen when the fetch is complete (see {@link #freeze()}).
+ * A frozen TOC can not be changed anymore and has precomputed lookup tables: the elements indexed
+ * by ident, a perfect hash of the complete names and the elements sorted by ident.
+ */
+public class Toc {
+
+    final Logger mLogger = LoggerFactory.getLogger("Toc");
+
+    private int mCrc;
+
+    private Map<String, TocElement> mTocElementMap = new HashMap<String, TocElement>();
+
+    // TOC elements indexed by ident, built on the first lookup after the TOC has changed
+    private volatile TocElement[] mElementsById;
+
+    // set by freeze(), the lookup tables are shared with copies of the TOC
+    private volatile boolean mFrozen = false;
+    private List<TocElement> mSortedElements;
+    private NameIndex mNameIndex;
+
+    private final static Map<Integer, VariableType> mVariableTypeMapParam = new HashMap<Integer, VariableType>(10);
+    private final static Map<Integer, VariableType> mVariableTypeMapLog = new HashMap<Integer, VariableType>(10);
+
+    // type codes are 4 bits, -1 if the type has no code
+    private final static VariableType[] mLogTypesByCode = new VariableType[16];
+    private final static VariableType[] mParamTypesByCode = new VariableType[16];
+    private final static int[] mLogTypeCodes = new int[VariableType.values().length];
+    private final static int[] mParamTypeCodes = new int[VariableType.values().length];
+
+    static {
+        fillVariableTypeMapParam();
+        fillVariableTypeMapLog();
+        fillTypeCodeTables(mVariableTypeMapLog, mLogTypesByCode, mLogTypeCodes);
+        fillTypeCodeTables(mVariableTypeMapParam, mParamTypesByCode, mParamTypeCodes);
+    }
+    
+    public Toc() {
+    }
+
+    public void setCrc(int crc) {
+        this.mCrc = crc;
+    }
+
+    public int getCrc() {
+        return this.mCrc;
+    }
+
+    /**
+     * Clear the TOC
+     */
+    public void clear() {
+        checkNotFrozen();
+        this.mTocElementMap.clear();
+        this.mElementsById = null;
+    }
+
+    /**
+     * Add a new TocElement to the TOC container
+     *
+     * @param tocElement
+     */
+    public void addElement(TocElement tocElement) {
+        checkNotFrozen();
+        if (tocElement.getGroup().isEmpty()) {
+            throw new IllegalStateException("TocElement has no group!");
+        }
+        mTocElementMap.put(tocElement.getCompleteName(), tocElement);
+        mElementsById = null;
+    }
+
+    private void checkNotFrozen() {
+        if (mFrozen) {
+            throw new IllegalStateException("TOC is frozen and can not be changed.");
+        }
+    }
+
+    /**
+     * Build the lookup tables and make the TOC unmodifiable, called when the TOC has been fetched.
+     * Calling it again has no effect.
+     */
+    public synchronized void freeze() {
+        if (mFrozen) {
+            return;
+        }
+        mTocElementMap = Collections.unmodifiableMap(mTocElementMap);
+        mSortedElements = Collections.unmodifiableList(sortElements());
+        TocElement[] elementsById = buildIdIndex();
+        mNameIndex = NameIndex.build(mSortedElements);
+        if (mNameIndex == null) {
+            mLogger.debug("Could not build a perfect hash of the TOC names, using the map for name lookups.");
+        }
+        mElementsById = elementsById;
+        mFrozen = true;
+    }
+
+    public boolean isFrozen() {
+        return mFrozen;
+    }
+
+    /**
+     * Replace the content of this TOC with the content of another TOC,
+     * a frozen TOC shares its lookup tables and this TOC is frozen as well.
+     *
+     * @param toc the TOC to copy
+     */
+    public synchronized void copyFrom(Toc toc) {
+        checkNotFrozen();
+        if (toc.isFrozen()) {
+            mTocElementMap = toc.mTocElementMap;
+            mSortedElements = toc.mSortedElements;
+            mNameIndex = toc.mNameIndex;
+            mElementsById = toc.mElementsById;
+            mFrozen = true;
+        } else {
+            setTocElementMap(toc.getTocElementMap());
+        }
+    }
+
+    /**
+     * Get a TocElement element identified by complete name from the container.
+     *
+     * @param completeName
+     * @return
+     */
+    public TocElement getElementByCompleteName(String completeName) {
+        if (mFrozen && mNameIndex != null) {
+            return mNameIndex.get(completeName);
+        }
+        return mTocElementMap.get(completeName);
+    }
+
+    /**
+     * Get the TocElement element id-number of the element with the supplied name.
+     *
+     * @param completeName
+     * @return
+     */
+    public int getElementId(String completeName) {
+        TocElement tocElement = getElementByCompleteName(completeName);
+        if(tocElement != null) {
+            return tocElement.getIdent();
+        }
+        mLogger.warn("Unable to find TOC element for complete name '" + completeName + "'");
+        return -1;
+    }
+
+    /**
+     * Get a TocElement element identified by name and group from the container
+     *
+     * @param group
+     * @param name
+     * @return
+     */
+    public TocElement getElement(String group, String name) {
+        return getElementByCompleteName(group + "." + name);
+    }
+
+    /**
+     * Get a TocElement element identified by index number from the container
+     *
+     * @param ident
+     * @return the TocElement or null if the TOC does not contain the ident
+     */
+    public TocElement getElementById(int ident) {
+        TocElement[] elementsById = mElementsById;
+        if (elementsById == null) {
+            elementsById = buildIdIndex();
+            mElementsById = elementsById;
+        }
+        if (ident < 0 || ident >= elementsById.length) {
+            return null;
+        }
+        return elementsById[ident];
+    }
+
+    private TocElement[] buildIdIndex() {
+        int maxIdent = -1;
+        for (TocElement tocElement : mTocElementMap.values()) {
+            maxIdent = Math.max(maxIdent, tocElement.getIdent());
+        }
+        TocElement[] elementsById = new TocElement[maxIdent + 1];
+        for (TocElement tocElement : mTocElementMap.values()) {
+            if (tocElement.getIdent() >= 0) {
+                elementsById[tocElement.getIdent()] = tocElement;
+            }
+        }
+        return elementsById;
+    }
+
+    /**
+     * Get TocElements as list sorted by ID
+     *
+     * @return list of TocElements sorted by ID, unmodifiable if the TOC is frozen
+     */
+    public List<TocElement> getElements() {
+        if (mFrozen) {
+            return mSortedElements;
+        }
+        return sortElements();
+    }
+
+    private List<TocElement> sortElements() {
+        List<TocElement> values = new ArrayList<TocElement>(mTocElementMap.values());
+        Collections.sort(values);
+        return values;
+    }
+
+    /**
+     * Returns the map of the TOC elements, use {@link #addElement(TocElement)} to change the TOC
+     */
+    public Map<String, TocElement> getTocElementMap() {
+        return mTocElementMap;
+    }
+
+    public void setTocElementMap(Map<String, TocElement> map) {
+        checkNotFrozen();
+        this.mTocElementMap = map;
+        this.mElementsById = null;
+    }
+
+    public int getTocSize() {
+        return mTocElementMap.size();
+    }
+
+    /**
+     * Perfect hash of the complete names of a frozen TOC (hash and displace)
+     *
+     * The names are distributed into buckets by their hash code. For every bucket, starting with the
+     * largest, a seed is searched that maps all names of the bucket to free slots of the table.
+     * A lookup therefore needs one probe and one string comparison.
+     */
+    private static final class NameIndex {
+
+        private static final int MAX_SEED = 1 << 16;
+
+        private final int[] mSeeds;
+        private final int mBucketShift;
+        private final String[] mNames;
+        private final TocElement[] mElements;
+        private final int mSlotShift;
+
+        private NameIndex(int[] seeds, String[] names, TocElement[] elements) {
+            this.mSeeds = seeds;
+            this.mBucketShift = shift(seeds.length);
+            this.mNames = names;
+            this.mElements = elements;
+            this.mSlotShift = shift(names.length);
+        }
+
+        // multiplicative hashing, the top bits of the product are used as index
+        private static int shift(int tableSize) {
+            return 32 - Integer.numberOfTrailingZeros(tableSize);
+        }
+
+        private static int bucket(int hash, int bucketShift) {
+            return bucketShift == 32 ? 0 : (hash * 0x85EBCA6B) >>> bucketShift;
+        }
+
+        private static int slot(int hash, int seed, int slotShift) {
+            return ((hash ^ seed) * 0x9E3779B9) >>> slotShift;
+        }
+
+        TocElement get(String completeName) {
+            int hash = completeName.hashCode();
+            int slot = slot(hash, mSeeds[bucket(hash, mBucketShift)], mSlotShift);
+            return completeName.equals(mNames[slot]) ? mElements[slot] : null;
+        }
+
+        /**
+         * @return the index or null if no perfect hash was found, e.g. for names with the same hash code
+         */
+        static NameIndex build(List<TocElement> elements) {
+            int size = Math.max(1, elements.size());
+            int noOfSlots = Integer.highestOneBit(size * 2 - 1) << 1;
+            int noOfBuckets = Math.max(1, Integer.highestOneBit(size) >> 1);
+            int bucketShift = shift(noOfBuckets);
+            int slotShift = shift(noOfSlots);
+
+            List<List<TocElement>> buckets = new ArrayList<List<TocElement>>(noOfBuckets);
+            for (int i = 0; i < noOfBuckets; i++) {
+                buckets.add(new ArrayList<TocElement>(4));
+            }
+            for (TocElement tocElement : elements) {
+                buckets.get(bucket(tocElement.getCompleteName().hashCode(), bucketShift)).add(tocElement);
+            }
+            Integer[] order = new Integer[noOfBuckets];
+            for (int i = 0; i < noOfBuckets; i++) {
+                order[i] = i;
+            }
+            final List<List<TocElement>> sizes = buckets;
+            Arrays.sort(order, new Comparator<Integer>() {
+                public int compare(Integer a, Integer b) {
+                    return sizes.get(b).size() - sizes.get(a).size();
+                }
+            });
+
+            int[] seeds = new int[noOfBuckets];
+            String[] names = new String[noOfSlots];
+            TocElement[] slotElements = new TocElement[noOfSlots];
+            int[] slots = new int[size];
+            for (Integer b : order) {
+                List<TocElement> bucket = buckets.get(b);
+                if (bucket.isEmpty()) {
+                    break;
+                }
+                int seed = findSeed(bucket, names, slots, slotShift);
+                if (seed < 0) {
+                    return null;
+                }
+                seeds[b] = seed;
+                for (int i = 0; i < bucket.size(); i++) {
+                    names[slots[i]] = bucket.get(i).getCompleteName();
+                    slotElements[slots[i]] = bucket.get(i);
+                }
+            }
+            return new NameIndex(seeds, names, slotElements);
+        }
+
+        private static int findSeed(List<TocElement> bucket, String[] names, int[] slots, int slotShift) {
+            for (int seed = 1; seed < MAX_SEED; seed++) {
+                boolean found = true;
+                for (int i = 0; i < bucket.size() && found; i++) {
+                    int slot = slot(bucket.get(i).getCompleteName().hashCode(), seed, slotShift);
+                    if (names[slot] != null) {
+                        found = false;
+                    }
+                    for (int j = 0; j < i && found; j++) {
+                        found = slots[j] != slot;
+                    }
+                    slots[i] = slot;
+                }
+                if (found) {
+                    return seed;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private static void fillVariableTypeMapParam() {
+        /*
+        types = {0x08: ("uint8_t",  '<B'),
+                 0x09: ("uint16_t", '<H'),
+                 0x0A: ("uint32_t", '<L'),
+                 0x0B: ("uint64_t", '<Q'),
+                 0x00: ("int8_t",   '<b'),
+                 0x01: ("int16_t",  '<h'),
+                 0x02: ("int32_t",  '<i'),
+                 0x03: ("int64_t",  '<q'),
+                 0x05: ("FP16",     ''),
+                 0x06: ("float",    '<f'),
+                 0x07: ("double",   '<d')}
+        */
+        
+        mVariableTypeMapParam.put(0x00, VariableType.INT8_T);
+        mVariableTypeMapParam.put(0x01, VariableType.INT16_T);
+        mVariableTypeMapParam.put(0x02, VariableType.INT32_T);
+        mVariableTypeMapParam.put(0x03, VariableType.INT64_T);
+        /*TODO: 0x05 FP16*/
+        mVariableTypeMapParam.put(0x06, VariableType.FLOAT);
+        mVariableTypeMapParam.put(0x07, VariableType.DOUBLE);
+        mVariableTypeMapParam.put(0x08, VariableType.UINT8_T);
+        mVariableTypeMapParam.put(0x09, VariableType.UINT16_T);
+        mVariableTypeMapParam.put(0x0A, VariableType.UINT32_T);
+        mVariableTypeMapParam.put(0x0B, VariableType.UINT64_T);
+    }
+
+    private static void fillVariableTypeMapLog() {
+        /*
+        types = {0x01: ("uint8_t",  '<B', 1),
+                 0x02: ("uint16_t", '<H', 2),
+                 0x03: ("uint32_t", '<L', 4),
+                 0x04: ("int8_t",   '<b', 1),
+                 0x05: ("int16_t",  '<h', 2),
+                 0x06: ("int32_t",  '<i', 4),
+                 0x08: ("FP16",     '<h', 2),
+                 0x07: ("float",    '<f', 4)}
+        */
+        
+        mVariableTypeMapLog.put(0x01, VariableType.UINT8_T);
+        mVariableTypeMapLog.put(0x02, VariableType.UINT16_T);
+        mVariableTypeMapLog.put(0x03, VariableType.UINT32_T);
+        mVariableTypeMapLog.put(0x04, VariableType.INT8_T);
+        mVariableTypeMapLog.put(0x05, VariableType.INT16_T);
+        mVariableTypeMapLog.put(0x06, VariableType.INT32_T);
+        mVariableTypeMapLog.put(0x07, VariableType.FLOAT);
+        /*TODO: 0x08 FP16*/
+    }
+
+    private static void fillTypeCodeTables(Map<Integer, VariableType> typeMap, VariableType[] typesByCode, int[] typeCodes) {
+        Arrays.fill(typeCodes, -1);
+        for (Map.Entry<Integer, VariableType> entry : typeMap.entrySet()) {
+            typesByCode[entry.getKey()] = entry.getValue();
+            typeCodes[entry.getValue().ordinal()] = entry.getKey();
+        }
+    }
+
+    public Map<Integer, VariableType> getVariableTypeMapParam() {
+        return mVariableTypeMapParam;
+    }
+
+    public Map<Integer, VariableType> getVariableTypeMapLog() {
+        return mVariableTypeMapLog;
+    }
+    
+    public int getVariableTypeIdLog (VariableType vt) {
+        return getLogTypeCode(vt);
+    }
+
+    /**
+     * @param code the 4 bit type code of a log TOC element
+     * @return the type or null if the code is unknown
+     */
+    public static VariableType getLogVariableType(int code) {
+        return (code >= 0 && code < mLogTypesByCode.length) ? mLogTypesByCode[code] : null;
+    }
+
+    /**
+     * @param code the 4 bit type code of a param TOC element
+     * @return the type or null if the code is unknown
+     */
+    public static VariableType getParamVariableType(int code) {
+        return (code >= 0 && code < mParamTypesByCode.length) ? mParamTypesByCode[code] : null;
+    }
+
+    /**
+     * @return the log type code of the type or -1 if the type can not be logged
+     */
+    public static int getLogTypeCode(VariableType vt) {
+        return (vt == null) ? -1 : mLogTypeCodes[vt.ordinal()];
+    }
+
+    /**
+     * @return the param type code of the type or -1 if there is no such param type
+     */
+    public static int getParamTypeCode(VariableType vt) {
+        return (vt == null) ? -1 : mParamTypeCodes[vt.ordinal()];
+    }
+    
+}
@@ -52,6 +52,8 @@ import se.bitcraze.crazyflie.lib.crtp.CrtpPort;
  *
  *  Heavily based on toccache.py
  *
+ *  The TOCs are stored as JSON files, see {@link BinaryTocCache} for a faster binary format.
+ *
  *
  */
 public class TocCache {
@@ -61,13 +63,37 @@ public class TocCache {
     private File mCacheDir = null;
     private static final String PARAM_CACHE_DIR = "paramCache";
     private static final String LOG_CACHE_DIR = "logCache";
-    private ObjectMapper mMapper = new ObjectMapper(); // can reuse, share globally
+    private ObjectMapper mMapper; // can reuse, share globally
+    private boolean mCacheFilesListed = false;
+
+    /**
+     * Constructor for caches that do not use the JSON files
+     */
+    protected TocCache() {
+    }
 
     public TocCache(File cacheDir) {
         this.mCacheDir = cacheDir;
-        //TODO: should it be possible to change the name of the dirs?
-        addExistingCacheFiles(LOG_CACHE_DIR);
-        addExistingCacheFiles(PARAM_CACHE_DIR);
+        this.mMapper = new ObjectMapper();
+    }
+
+    /**
+     * Key of a TOC in the caches
+     */
+    static long cacheKey(int crc, CrtpPort port) {
+        return ((long) port.getNumber() << 32) | (crc & 0xFFFFFFFFL);
+    }
+
+    /**
+     * List the existing cache files when the cache is used for the first time
+     */
+    private void listCacheFiles() {
+        if (!mCacheFilesListed) {
+            mCacheFilesListed = true;
+            //TODO: should it be possible to change the name of the dirs?
+            addExistingCacheFiles(LOG_CACHE_DIR);
+            addExistingCacheFiles(PARAM_CACHE_DIR);
+        }
     }
 
     private void addExistingCacheFiles(String cachePath) {
@@ -92,7 +118,8 @@ public class TocCache {
      * @param crc CRC code of the TOC
      * @param port CrtpPort of the TOC
      */
-    public Toc fetch(int crc, CrtpPort port) {
+    public synchronized Toc fetch(int crc, CrtpPort port) {
+        listCacheFiles();
         Toc fetchedToc = null;
         String pattern = String.format("%08X.json", crc);
         File hit = null;
@@ -129,7 +156,8 @@ public class TocCache {
     /**
      * Save a new cache to file
      */
-    public void insert (int crc, CrtpPort port,  Toc toc) {
+    public synchronized void insert (int crc, CrtpPort port,  Toc toc) {
+        listCacheFiles();
         String fileName = String.format("%08X.json", crc);
         String subDir = (port == CrtpPort.PARAMETERS) ? PARAM_CACHE_DIR : LOG_CACHE_DIR;
         File cacheDir = (mCacheDir != null) ? new File(mCacheDir, subDir) : new File(subDir);
@@ -154,12 +182,14 @@ public class TocCache {
         }
     }
 
-    public void clear() {
+    public synchronized void clear() {
+        listCacheFiles();
         for (File file : mCacheFiles) {
             boolean delete = file.delete();
             if (!delete) {
                 mLogger.error("Deleting cache file " + file.getAbsolutePath() + " failed.");
             }
         }
+        mCacheFiles.clear();
     }
 }
@@ -50,6 +50,7 @@ public class TocElement implements Comparable<TocElement> {
     private int mIdent = 0;
     private String mGroup = "";
     private String mName = "";
+    private String mCompleteName;
     private VariableType mCtype;
     private int mAccess = RO_ACCESS;
 
@@ -67,9 +68,9 @@ public class TocElement implements Comparable<TocElement> {
             setGroupAndName(data);
             setIdent(data[0] & 0x00ff);
             if (port == CrtpPort.LOGGING) {
-                setCtype(new Toc().getVariableTypeMapLog().get(data[1] & 0x0F)); 
+                setCtype(Toc.getLogVariableType(data[1] & 0x0F));
             } else {
-                setCtype(new Toc().getVariableTypeMapParam().get(data[1] & 0x0F));
+                setCtype(Toc.getParamVariableType(data[1] & 0x0F));
             }
 
             // setting pytype not needed in Java cf lib
@@ -101,6 +102,7 @@ public class TocElement implements Comparable<TocElement> {
 
     public void setGroup(String group) {
         this.mGroup = group;
+        this.mCompleteName = null;
     }
 
     public String getName() {
@@ -109,11 +111,17 @@ public class TocElement implements Comparable<TocElement> {
 
     public void setName(String name) {
         this.mName = name;
+        this.mCompleteName = null;
     }
 
     @JsonIgnore
     public String getCompleteName() {
-        return mGroup + "." + mName;
+        String completeName = mCompleteName;
+        if (completeName == null) {
+            completeName = mGroup + "." + mName;
+            mCompleteName = completeName;
+        }
+        return completeName;
     }
 
     public VariableType getCtype() {
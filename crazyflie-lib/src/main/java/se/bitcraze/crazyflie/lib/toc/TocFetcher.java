@@ -44,6 +44,10 @@ import se.bitcraze.crazyflie.lib.crtp.CrtpPort;
 /**
  * Fetches TOC entries from the Crazyflie
  *
+ * With a window size of 1 the elements are requested one after another (stop-and-wait).
+ * With a larger window up to that many element requests are outstanding at the same time,
+ * replies are accepted in any order and a missing element is requested again as soon as
+ * a later element has arrived, instead of waiting for the resend timeout.
  */
 public class TocFetcher {
 
@@ -60,8 +64,19 @@ public class TocFetcher {
     public static final int CMD_TOC_ELEMENT = 0;
     public static final int CMD_TOC_INFO= 1;
 
-    private int mRequestedIndex = -1;
+    public static final int DEFAULT_WINDOW_SIZE = 1;
+
     private int mNoOfItems = -1;
+    private int mWindowSize = DEFAULT_WINDOW_SIZE;
+
+    // received elements by index, and the requests to resend them when a gap is detected
+    private TocElement[] mElements;
+    private CrtpPacket[] mRequests;
+    private boolean[] mGapRequested;
+    private int mNextIndex;
+    private int mFirstMissingIndex;
+    private int mReceivedCount;
+    private int mGapRequestCount;
 
     private Set<TocFetchFinishedListener> mTocFetchFinishedListeners = new CopyOnWriteArraySet<TocFetchFinishedListener>();
 
@@ -92,7 +107,8 @@ public class TocFetcher {
         }
         mLogger.debug("Starting to fetch TOC (Port: {})...", this.mPort);
 
-        mDataListener = new DataListener(this.mPort) {
+        // only the TOC channel, eg. log data is not passed to the TOC fetcher
+        mDataListener = new DataListener(this.mPort, TOC_CHANNEL) {
             @Override
             public void dataReceived(CrtpPacket packet) {
                 newPacketReceived(packet);
@@ -108,6 +124,7 @@ public class TocFetcher {
      */
     private void tocFetchFinished() {
         this.mCrazyflie.removeDataListener(mDataListener);
+        mToc.freeze();
         long tocFetchDuration = System.currentTimeMillis() - tocFetchStartTime;
         mLogger.debug("Fetching TOC (Port: {}) done in {}ms.", this.mPort, tocFetchDuration);
         this.mState = TocState.TOC_FETCH_FINISHED;
@@ -119,6 +136,29 @@ public class TocFetcher {
         return this.mState;
     }
 
+    /**
+     * Set the number of element requests that can be outstanding at the same time
+     *
+     * @param windowSize 1 for stop-and-wait
+     */
+    public void setWindowSize(int windowSize) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("Window size must be at least 1.");
+        }
+        this.mWindowSize = windowSize;
+    }
+
+    public int getWindowSize() {
+        return this.mWindowSize;
+    }
+
+    /**
+     * Returns the number of elements that were requested again because a later element arrived first
+     */
+    public int getGapRequestCount() {
+        return this.mGapRequestCount;
+    }
+
     // TODO: only for testing?
     public int getNoOfItems() {
         return this.mNoOfItems;
@@ -140,22 +180,14 @@ public class TocFetcher {
             }
         } else if (mState == TocState.GET_TOC_ELEMENT) {
             if (packet.getPayload()[0] == CMD_TOC_ELEMENT) {
-                // Always add new element, but only request new if it's not the last one.
-                // if self.requested_index != ord(payload[0]):
                 // Fix for TOC > 128 items (fixed by Arnaud)
                 int actualIndex = payloadBuffer.get(0) & 0x00ff;
-                if (this.mRequestedIndex != actualIndex) {
-                    /*
-                        # TODO: There might be a timing issue here with resending old
-                        #       packets while loosing new ones. Then if 7 is requested
-                        #       but 6 is send back due to timing issues with the resend
-                        #       while 7 is lost then we will never resend for 7.
-                        #       This is pretty hard to reproduce but happens...
-                     */
-                    mLogger.warn("[" + this.mPort + "]: Was expecting " + this.mRequestedIndex + " but got " + actualIndex + ".");
+                if (actualIndex >= this.mNoOfItems || this.mElements[actualIndex] != null) {
+                    // reply to a resent request
+                    mLogger.debug("[{}]: Ignoring duplicate or unknown index {}.", this.mPort, actualIndex);
                     return;
                 }
-                handleCmdTocElement(payloadBuffer);
+                handleCmdTocElement(actualIndex, payloadBuffer);
             }
         }
     }
@@ -174,30 +206,52 @@ public class TocFetcher {
         if (cacheData != null) {
             // self.toc.toc = cache_data
             // assigning a toc to another toc directly does not work
-            mToc.setTocElementMap(cacheData.getTocElementMap());
+            mToc.copyFrom(cacheData);
             mLogger.info("TOC for port {} found in cache.", mPort);
             tocFetchFinished();
+        } else if (this.mNoOfItems == 0) {
+            mLogger.info("TOC for port {} is empty.", mPort);
+            tocFetchFinished();
         } else {
             this.mState = TocState.GET_TOC_ELEMENT;
-            this.mRequestedIndex = 0;
-            requestTocElement(this.mRequestedIndex);
+            this.mElements = new TocElement[mNoOfItems];
+            this.mRequests = new CrtpPacket[mNoOfItems];
+            this.mGapRequested = new boolean[mNoOfItems];
+            this.mNextIndex = 0;
+            this.mFirstMissingIndex = 0;
+            this.mReceivedCount = 0;
+            this.mGapRequestCount = 0;
+            fillWindow();
         }
     }
 
-    private void handleCmdTocElement(ByteBuffer payloadBuffer) {
+    private void handleCmdTocElement(int index, ByteBuffer payloadBuffer) {
         TocElement tocElement = new TocElement(mPort, payloadBuffer.array());
         mToc.addElement(tocElement);
+        mElements[index] = tocElement;
+        mReceivedCount++;
 
         mLogger.debug("Added "+ tocElement.getClass().getSimpleName() + " [" + tocElement.getIdent() + "] to TOC");
 
-        if(mRequestedIndex < (mNoOfItems - 1)) {
-            mLogger.debug("[{}]: More variables, requesting index {}", this.mPort, (this.mRequestedIndex + 1));
-            this.mRequestedIndex++;
-            requestTocElement(this.mRequestedIndex);
+        if (mReceivedCount < mNoOfItems) {
+            // the Crazyflie answers in order, so the replies to lower indexes that are still missing have been lost
+            for (int i = mFirstMissingIndex; i < index; i++) {
+                if (mElements[i] == null && !mGapRequested[i]) {
+                    mLogger.debug("[{}]: Got index {} before {}, requesting it again", new Object[] {this.mPort, index, i});
+                    mGapRequested[i] = true;
+                    mGapRequestCount++;
+                    mCrazyflie.sendPacket(mRequests[i]);
+                }
+            }
+            while (mFirstMissingIndex < mNoOfItems && mElements[mFirstMissingIndex] != null) {
+                mFirstMissingIndex++;
+            }
+            fillWindow();
         } else {
             // No more variables in TOC
             mLogger.info("No more variables in TOC.");
             if (mTocCache != null) {
+                mToc.freeze();
                 mTocCache.insert(mCrc, mPort, mToc);
                 tocFetchFinished();
             } else {
@@ -206,6 +260,17 @@ public class TocFetcher {
         }
     }
 
+    /**
+     * Request the next elements until the window is full
+     */
+    private void fillWindow() {
+        while (mNextIndex < mNoOfItems && mNextIndex - mReceivedCount < mWindowSize) {
+            mLogger.debug("[{}]: More variables, requesting index {}", this.mPort, mNextIndex);
+            mRequests[mNextIndex] = requestTocElement(mNextIndex);
+            mNextIndex++;
+        }
+    }
+
     /**
      * Request the TOC CRC
      */
@@ -220,9 +285,9 @@ public class TocFetcher {
      *
      * @param index of TOC element
      */
-    private void requestTocElement(int index) {
+    private CrtpPacket requestTocElement(int index) {
         mLogger.debug("Requesting index {} on port {}", index, this.mPort);
-        sendTocPacket(new byte[]{CMD_TOC_ELEMENT, (byte) index});
+        return sendTocPacket(new byte[]{CMD_TOC_ELEMENT, (byte) index});
     }
 
     /**
@@ -230,12 +295,13 @@ public class TocFetcher {
      *
      * @param data that should be sent
      */
-    private void sendTocPacket(byte[] data) {
-        if (mCrazyflie != null && mTocHeader != null) {
-            CrtpPacket packet = new CrtpPacket(mTocHeader.getByte(), data);
-            packet.setExpectedReply(data);
+    private CrtpPacket sendTocPacket(byte[] data) {
+        CrtpPacket packet = new CrtpPacket(mTocHeader.getByte(), data);
+        packet.setExpectedReply(data);
+        if (mCrazyflie != null) {
             this.mCrazyflie.sendPacket(packet);
         }
+        return packet;
     }
 
     /* TOC FETCH FINISHED LISTENER */
@@ -28,13 +28,12 @@
 package se.bitcraze.crazyflie.lib.usb;
 
 import java.io.IOException;
-import java.util.List;
-
-import android.hardware.usb.UsbDevice;
 
 /**
  * Abstract USB interface to be independent of different implementations (eg. Java/Android)
  *
+ * Finding and opening devices is platform specific and left to the implementation,
+ * the interface itself does not depend on any platform types.
  */
 public interface CrazyUsbInterface {
 
@@ -80,15 +79,6 @@ public interface CrazyUsbInterface {
      */
     public int sendBulkTransfer(byte[] data, byte[] receiveData);
 
-    /**
-     * Returns a list of CrazyRadio devices currently connected to the computer
-     *
-     * @param usbVid
-     * @param usbPid
-     * @return
-     */
-    public List<UsbDevice> findDevices(int usbVid, int usbPid);
-
     /**
      * Returns the firmware version of the USB device
      *
@@ -0,0 +1,206 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.bootloader;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import se.bitcraze.crazyflie.lib.bootloader.Target.TargetTypes;
+import se.bitcraze.crazyflie.lib.crazyradio.ConnectionData;
+import se.bitcraze.crazyflie.lib.crazyradio.Crazyradio;
+import se.bitcraze.crazyflie.lib.crazyradio.RadioDriver;
+import se.bitcraze.crazyflie.lib.sim.SimulatedCrazyflie;
+import se.bitcraze.crazyflie.lib.sim.SimulatedCrazyradio;
+
+/**
+ * Flashes images into the simulated bootloader and compares the flash byte for byte.
+ * The STM32 target has a page buffer of 10 pages, the nRF51 target a page buffer of one page.
+ */
+public class FlashPipelineTest {
+
+    private SimulatedCrazyflie mCrazyflie;
+    private Bootloader mBootloader;
+    private Cloader mCloader;
+
+    @Before
+    public void setUp() throws IOException {
+        mCrazyflie = SimulatedCrazyflie.createDefault();
+        ConnectionData connectionData = new ConnectionData(0, Crazyradio.DR_2MPS);
+        mBootloader = new Bootloader(new RadioDriver(new SimulatedCrazyradio(mCrazyflie, connectionData)));
+        mCloader = mBootloader.getCloader();
+        mCloader.setConnectionData(connectionData);
+        mCloader.openBootloaderConnection();
+        assertTrue(mCloader.checkLinkAndGetInfo(TargetTypes.STM32));
+    }
+
+    @After
+    public void tearDown() {
+        mBootloader.close();
+    }
+
+    @Test
+    public void imageLengthIsNoMultipleOfPageOrChunk() throws IOException {
+        // 23 pages do not fill the last page group, the last page ends in the middle of a chunk
+        int length = 22 * 1024 + 13 * 25 + 7;
+        flashAndCompare(TargetTypes.STM32, createImage(length, 1), true);
+        flashAndCompare(TargetTypes.STM32, createImage(length, 2), false);
+    }
+
+    @Test
+    public void imageShorterThanOneChunk() throws IOException {
+        flashAndCompare(TargetTypes.STM32, createImage(11, 3), true);
+    }
+
+    @Test
+    public void imageOfFullPageGroups() throws IOException {
+        flashAndCompare(TargetTypes.STM32, createImage(20 * 1024, 4), true);
+        flashAndCompare(TargetTypes.STM32, createImage(20 * 1024, 5), false);
+    }
+
+    @Test
+    public void onePageBufferWithoutOverlap() throws IOException {
+        Target target = getTarget(TargetTypes.NRF51);
+        assertEquals(1, target.getBufferPages());
+        flashAndCompare(TargetTypes.NRF51, createImage(9 * 1024 + 101, 6), false);
+    }
+
+    @Test
+    public void onePageBufferIgnoresOverlap() throws IOException {
+        flashAndCompare(TargetTypes.NRF51, createImage(5 * 1024 + 1, 7), true);
+    }
+
+    @Test
+    public void deltaFlashWritesOnlyChangedPages() throws IOException {
+        byte[] image = createImage(30 * 1024 + 500, 8);
+        flashAndCompare(TargetTypes.STM32, image, true);
+
+        image[5 * 1024 + 3]++;
+        image[17 * 1024]++;
+        image[image.length - 1]++;
+        FlashPipeline flashPipeline = flashAndCompare(TargetTypes.STM32, image, true, true);
+        assertEquals(3, flashPipeline.getWrittenPageCount());
+        assertEquals(28, flashPipeline.getSkippedPageCount());
+    }
+
+    @Test
+    public void deltaFlashRewritesPagesChangedBehindTheFirstChunk() throws IOException {
+        byte[] image = createImage(12 * 1024 + 77, 9);
+        flashAndCompare(TargetTypes.STM32, image, true);
+
+        // someone else changed the flash in the middle of page 4 and at the end of the last page
+        byte[] changed = image.clone();
+        changed[4 * 1024 + 500]++;
+        changed[changed.length - 1]++;
+        mCrazyflie.getBootloader().setFlash(TargetTypes.STM32, changed);
+
+        FlashPipeline flashPipeline = flashAndCompare(TargetTypes.STM32, image, true, true);
+        assertEquals(2, flashPipeline.getWrittenPageCount());
+        assertEquals(11, flashPipeline.getSkippedPageCount());
+    }
+
+    @Test
+    public void deltaFlashComparesWithImageFlashedByAnotherClient() throws IOException {
+        byte[] image = createImage(25 * 1024 + 300, 10);
+        mCrazyflie.getBootloader().setFlash(TargetTypes.STM32, image);
+
+        image[0]++;
+        image[12 * 1024 + 1000]++;
+        FlashPipeline flashPipeline = flashAndCompare(TargetTypes.STM32, image, true, true);
+        assertEquals(2, flashPipeline.getWrittenPageCount());
+        assertEquals(24, flashPipeline.getSkippedPageCount());
+    }
+
+    @Test
+    public void deltaFlashOfAnotherImageStopsReadingBack() throws IOException {
+        Target target = getTarget(TargetTypes.STM32);
+        flashAndCompare(TargetTypes.STM32, createImage(30 * 1024, 11), true);
+        long readFlashPackets = mCrazyflie.getBootloader().getReadFlashPacketCount();
+
+        FlashPipeline flashPipeline = flashAndCompare(TargetTypes.STM32, createImage(30 * 1024, 12), true, true);
+        assertEquals(30, flashPipeline.getWrittenPageCount());
+        // only the first read group has been read back
+        int chunksPerPage = (target.getPageSize() + FlashReader.CHUNK_SIZE - 1) / FlashReader.CHUNK_SIZE;
+        assertEquals(target.getBufferPages() * chunksPerPage, mCrazyflie.getBootloader().getReadFlashPacketCount() - readFlashPackets);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void imageLargerThanFlashIsRejected() throws IOException {
+        Target target = getTarget(TargetTypes.NRF51);
+        int length = (target.getFlashPages() - target.getStartPage() + 1) * target.getPageSize();
+        new FlashPipeline(mCloader, target, target.getStartPage(), true, null).flash(new ByteArrayInputStream(new byte[length]), length);
+    }
+
+    private FlashPipeline flashAndCompare(int targetId, byte[] image, boolean overlap) throws IOException {
+        return flashAndCompare(targetId, image, overlap, false);
+    }
+
+    private FlashPipeline flashAndCompare(int targetId, byte[] image, boolean overlap, boolean delta) throws IOException {
+        Target target = getTarget(targetId);
+        int offset = target.getStartPage() * target.getPageSize();
+        byte[] before = mCrazyflie.getBootloader().getFlash(targetId);
+
+        FlashPipeline flashPipeline = new FlashPipeline(mCloader, target, target.getStartPage(), overlap, null);
+        flashPipeline.setDelta(delta);
+        assertTrue(flashPipeline.flash(new ByteArrayInputStream(image), image.length));
+
+        byte[] flash = mCrazyflie.getBootloader().getFlash(targetId);
+        assertArrayEquals(image, Arrays.copyOfRange(flash, offset, offset + image.length));
+        // the pages before and after the image are not touched
+        int end = offset + ((image.length + target.getPageSize() - 1) / target.getPageSize()) * target.getPageSize();
+        assertArrayEquals(Arrays.copyOf(before, offset), Arrays.copyOf(flash, offset));
+        assertArrayEquals(Arrays.copyOfRange(before, end, before.length), Arrays.copyOfRange(flash, end, flash.length));
+
+        int pages = (image.length + target.getPageSize() - 1) / target.getPageSize();
+        assertEquals(pages, flashPipeline.getPageCount());
+        assertEquals(pages, flashPipeline.getWrittenPageCount() + flashPipeline.getSkippedPageCount());
+        return flashPipeline;
+    }
+
+    private Target getTarget(int targetId) {
+        Target target = (targetId == TargetTypes.STM32) ? mCloader.getTargets().get(targetId) : mCloader.requestInfoUpdate(targetId);
+        assertNotNull(target);
+        return target;
+    }
+
+    private static byte[] createImage(int length, long seed) {
+        byte[] image = new byte[length];
+        new Random(seed).nextBytes(image);
+        return image;
+    }
+}
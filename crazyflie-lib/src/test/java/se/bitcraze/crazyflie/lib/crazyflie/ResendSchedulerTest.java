@@ -0,0 +1,258 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.crazyflie;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import se.bitcraze.crazyflie.lib.crtp.CrtpPacket;
+import se.bitcraze.crazyflie.lib.crtp.CrtpPacket.Header;
+import se.bitcraze.crazyflie.lib.crtp.CrtpPort;
+
+/**
+ * The scheduler is driven with explicit timestamps instead of a clock, the packets it
+ * returns from expire() are what the driver would resend.
+ */
+public class ResendSchedulerTest {
+
+    private ResendScheduler mScheduler;
+    private List<CrtpPacket> mResends;
+
+    @Before
+    public void setUp() {
+        mScheduler = new ResendScheduler(5, 512);
+        mResends = new ArrayList<CrtpPacket>();
+        mScheduler.expire(0, mResends);
+    }
+
+    @Test
+    public void rtoAfterFirstAndSecondSample() {
+        mScheduler.setRtoLimits(1, 2000);
+        assertEquals(ResendScheduler.DEFAULT_INITIAL_RTO_MS, mScheduler.getRtoMillis());
+
+        // first sample: SRTT = R, RTTVAR = R / 2, RTO = SRTT + 4 * RTTVAR
+        assertTrue(mScheduler.add(packet(CrtpPort.PARAMETERS, 1), ms(0)));
+        assertTrue(mScheduler.ack(packet(CrtpPort.PARAMETERS, 1), ms(40)));
+        assertEquals(40000, mScheduler.getSmoothedRttMicros());
+        assertEquals(20000, mScheduler.getRttVariationMicros());
+        assertEquals(120, mScheduler.getRtoMillis());
+
+        // second sample of the same RTT: RTTVAR = 3/4 RTTVAR, SRTT unchanged
+        assertTrue(mScheduler.add(packet(CrtpPort.PARAMETERS, 2), ms(100)));
+        assertTrue(mScheduler.ack(packet(CrtpPort.PARAMETERS, 2), ms(140)));
+        assertEquals(40000, mScheduler.getSmoothedRttMicros());
+        assertEquals(15000, mScheduler.getRttVariationMicros());
+        assertEquals(100, mScheduler.getRtoMillis());
+        assertEquals(40000, mScheduler.getMinRttMicros());
+    }
+
+    @Test
+    public void rtoIsLimited() {
+        mScheduler.setRtoLimits(150, 2000);
+        mScheduler.add(packet(CrtpPort.PARAMETERS, 1), ms(0));
+        mScheduler.ack(packet(CrtpPort.PARAMETERS, 1), ms(10));
+        assertEquals(150, mScheduler.getRtoMillis());
+    }
+
+    @Test
+    public void rtoIsDoubledForEveryResend() {
+        mScheduler.setRtoLimits(20, 600);
+        CrtpPacket packet = packet(CrtpPort.MEMORY, 7);
+        mScheduler.add(packet, ms(0));
+
+        assertResends(ms(249));
+        assertResends(ms(250), packet);
+        // 500 ms
+        assertResends(ms(749));
+        assertResends(ms(750), packet);
+        // 1000 ms limited to 600 ms
+        assertResends(ms(1349));
+        assertResends(ms(1350), packet);
+        assertEquals(3, mScheduler.getResendCount());
+        assertEquals(1, mScheduler.getPendingCount());
+
+        // the backoff is per packet, the RTO for new packets is unchanged
+        assertEquals(ResendScheduler.DEFAULT_INITIAL_RTO_MS, mScheduler.getRtoMillis());
+    }
+
+    @Test
+    public void resentPacketGivesNoRttSample() {
+        CrtpPacket packet = packet(CrtpPort.LOGGING, 3);
+        mScheduler.add(packet, ms(0));
+        assertResends(ms(250), packet);
+
+        // the reply could belong to the first or the second transmission
+        assertTrue(mScheduler.ack(packet(CrtpPort.LOGGING, 3), ms(260)));
+        assertEquals(0, mScheduler.getSmoothedRttMicros());
+        assertEquals(0, mScheduler.getMinRttMicros());
+        assertEquals(ResendScheduler.DEFAULT_INITIAL_RTO_MS, mScheduler.getRtoMillis());
+        assertEquals(0, mScheduler.getPendingCount());
+        assertResends(ms(2000));
+    }
+
+    @Test
+    public void replyMatchesOldestPacketWithSameKey() {
+        CrtpPacket first = packet(CrtpPort.PARAMETERS, 1, 2);
+        CrtpPacket second = packet(CrtpPort.PARAMETERS, 1, 2);
+        CrtpPacket third = packet(CrtpPort.PARAMETERS, 1, 2);
+        mScheduler.add(first, ms(0));
+        mScheduler.add(second, ms(10));
+        mScheduler.add(third, ms(20));
+
+        // the RTT sample is taken from the first packet
+        assertTrue(mScheduler.ack(packet(CrtpPort.PARAMETERS, 1, 2), ms(30)));
+        assertEquals(30000, mScheduler.getSmoothedRttMicros());
+        assertEquals(2, mScheduler.getPendingCount());
+
+        // the other packets keep the RTO they were sent with
+        assertResends(ms(250));
+        assertResends(ms(260), second);
+        assertResends(ms(270), third);
+
+        // the resent second packet is now the oldest, the third one stays pending with its doubled RTO
+        assertTrue(mScheduler.ack(packet(CrtpPort.PARAMETERS, 1, 2), ms(280)));
+        assertEquals(1, mScheduler.getPendingCount());
+        assertResends(ms(769));
+        assertResends(ms(770), third);
+    }
+
+    @Test
+    public void replyOnOtherPortOrChannelDoesNotMatch() {
+        mScheduler.add(packet(CrtpPort.PARAMETERS, 1, 2), ms(0));
+        assertFalse(mScheduler.ack(packet(CrtpPort.LOGGING, 1, 2), ms(10)));
+        CrtpPacket otherChannel = new CrtpPacket(new Header(1, CrtpPort.PARAMETERS).getByte(), new byte[] {1, 2});
+        assertFalse(mScheduler.ack(otherChannel, ms(10)));
+        assertFalse(mScheduler.ack(packet(CrtpPort.PARAMETERS, 1, 3), ms(10)));
+        assertEquals(1, mScheduler.getPendingCount());
+    }
+
+    @Test
+    public void longRepliesAreComparedBeyondTheKey() {
+        CrtpPacket a = packet(CrtpPort.MEMORY, 1, 2, 3, 4, 5, 6, 7, 8);
+        CrtpPacket b = packet(CrtpPort.MEMORY, 1, 2, 3, 4, 5, 6, 7, 9);
+        mScheduler.add(a, ms(0));
+        mScheduler.add(b, ms(0));
+
+        // the reply can be longer than the expected reply
+        CrtpPacket reply = new CrtpPacket(new Header(0, CrtpPort.MEMORY).getByte(), new byte[] {1, 2, 3, 4, 5, 6, 7, 9, 0, 0});
+        assertTrue(mScheduler.ack(reply, ms(10)));
+        assertResends(ms(250), a);
+    }
+
+    @Test
+    public void samePacketIsAddedOnce() {
+        CrtpPacket packet = packet(CrtpPort.PARAMETERS, 1);
+        assertTrue(mScheduler.add(packet, ms(0)));
+        assertFalse(mScheduler.add(packet, ms(1)));
+        assertEquals(1, mScheduler.getPendingCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void packetOnUnknownPortIsRejected() {
+        mScheduler.add(packet((byte) 0xFF, 1), ms(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void packetWithoutExpectedReplyIsRejected() {
+        mScheduler.add(new CrtpPacket(new Header(0, CrtpPort.PARAMETERS).getByte(), new byte[] {1}), ms(0));
+    }
+
+    @Test
+    public void replyOnUnknownPortIsIgnored() {
+        mScheduler.add(packet(CrtpPort.PARAMETERS, 1), ms(0));
+        assertFalse(mScheduler.ack(new CrtpPacket((byte) 0xFF, new byte[] {1}), ms(10)));
+        assertEquals(1, mScheduler.getPendingCount());
+    }
+
+    @Test
+    public void manyKeysAreAddedAndRemoved() {
+        List<CrtpPacket> packets = new ArrayList<CrtpPacket>();
+        for (int i = 0; i < 1000; i++) {
+            CrtpPort port = (i % 2 == 0) ? CrtpPort.PARAMETERS : CrtpPort.LOGGING;
+            CrtpPacket packet = packet(port, i & 0xFF, i >> 8);
+            assertTrue(mScheduler.add(packet, ms(0)));
+            packets.add(packet);
+        }
+        assertEquals(1000, mScheduler.getPendingCount());
+        // remove every other key first, the remaining keys must still be found
+        for (int i = 0; i < packets.size(); i += 2) {
+            assertTrue(mScheduler.ack(packets.get(i), ms(1)));
+        }
+        for (int i = 1; i < packets.size(); i += 2) {
+            assertTrue(mScheduler.ack(packets.get(i), ms(1)));
+        }
+        assertEquals(0, mScheduler.getPendingCount());
+        assertFalse(mScheduler.ack(packets.get(0), ms(1)));
+    }
+
+    @Test
+    public void clearRemovesAllPackets() {
+        mScheduler.add(packet(CrtpPort.PARAMETERS, 1), ms(0));
+        mScheduler.add(packet(CrtpPort.LOGGING, 2), ms(0));
+        mScheduler.clear();
+        assertEquals(0, mScheduler.getPendingCount());
+        assertFalse(mScheduler.ack(packet(CrtpPort.PARAMETERS, 1), ms(1)));
+        assertResends(ms(1000));
+    }
+
+    private void assertResends(long nowNanos, CrtpPacket... expected) {
+        mResends.clear();
+        mScheduler.expire(nowNanos, mResends);
+        assertEquals(expected.length, mResends.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertSame(expected[i], mResends.get(i));
+        }
+    }
+
+    private static CrtpPacket packet(CrtpPort port, int... expectedReply) {
+        return packet(new Header(0, port).getByte(), expectedReply);
+    }
+
+    private static CrtpPacket packet(byte header, int... expectedReply) {
+        byte[] data = new byte[expectedReply.length];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) expectedReply[i];
+        }
+        CrtpPacket packet = new CrtpPacket(header, data);
+        packet.setExpectedReply(data);
+        return packet;
+    }
+
+    private static long ms(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.crtp;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import se.bitcraze.crazyflie.lib.crtp.CrtpPacket.Header;
+
+public class CrtpPacketTest {
+
+    @Test
+    public void headerRoundTripForEveryPortAndChannel() {
+        for (CrtpPort port : CrtpPort.values()) {
+            // ALL (0xFF) and UNKNOWN are no 4 bit port numbers
+            if (port == CrtpPort.ALL || port == CrtpPort.UNKNOWN) {
+                continue;
+            }
+            for (int channel = 0; channel < 4; channel++) {
+                Header header = new Header(channel, port);
+                Header parsed = new Header(header.getByte());
+                assertEquals(port, parsed.getPort());
+                assertEquals(channel, parsed.getChannel());
+                assertEquals(header, parsed);
+                assertSame(Header.valueOf(header.getByte()), Header.valueOf(header.getByte()));
+                assertEquals(header, Header.valueOf(header.getByte()));
+            }
+        }
+    }
+
+    @Test
+    public void nullPacketHeader() {
+        Header header = new Header((byte) 0xFF);
+        assertEquals(CrtpPort.UNKNOWN, header.getPort());
+        assertEquals((byte) 0xFF, header.getByte());
+        assertArrayEquals(new byte[] {(byte) 0xFF}, CrtpPacket.NULL_PACKET.toByteArray());
+    }
+
+    @Test
+    public void parseAndSerialize() {
+        byte[] data = {new Header(2, CrtpPort.PARAMETERS).getByte(), 1, 2, 3};
+        CrtpPacket packet = new CrtpPacket(data);
+        assertEquals(CrtpPort.PARAMETERS, packet.getHeader().getPort());
+        assertEquals(2, packet.getHeader().getChannel());
+        assertArrayEquals(new byte[] {1, 2, 3}, packet.getPayload());
+        assertArrayEquals(data, packet.toByteArray());
+        assertNotSame(data, packet.toByteArray());
+    }
+
+    @Test
+    public void commanderPacketLayout() {
+        byte[] data = new CommanderPacket(1.5f, 2.5f, -3.0f, (char) 40000).toByteArray();
+        assertEquals(1 + 14, data.length);
+        assertEquals(new Header(0, CrtpPort.COMMANDER).getByte(), data[0]);
+        ByteBuffer buffer = ByteBuffer.wrap(data, 1, 14).order(CrtpPacket.BYTE_ORDER);
+        assertEquals(1.5f, buffer.getFloat(), 0);
+        // the pitch axis is inverted
+        assertEquals(-2.5f, buffer.getFloat(), 0);
+        assertEquals(-3.0f, buffer.getFloat(), 0);
+        assertEquals(40000, buffer.getChar());
+    }
+
+    @Test
+    public void pooledPacketsAreReused() {
+        CrtpPacketPool pool = new CrtpPacketPool(4);
+        byte[] data = {new Header(0, CrtpPort.LOGGING).getByte(), 7, 8};
+        CrtpPacket packet = pool.acquire(data, 0, data.length);
+        assertTrue(packet.isPooled());
+        assertArrayEquals(new byte[] {7, 8}, packet.getPayload());
+        packet.release();
+        // releasing twice must not put the packet into the pool twice
+        packet.release();
+
+        data[1] = 9;
+        CrtpPacket reused = pool.acquire(data, 0, data.length);
+        assertSame(packet, reused);
+        assertArrayEquals(new byte[] {9, 8}, reused.getPayload());
+        CrtpPacket other = pool.acquire(data, 0, data.length);
+        assertNotSame(reused, other);
+        assertEquals(2, pool.getMisses());
+        assertFalse(new CrtpPacket(data).isPooled());
+    }
+}
@@ -0,0 +1,160 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+
+package se.bitcraze.crazyflie.lib.crtp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import se.bitcraze.crazyflie.lib.crtp.PriorityPacketQueue.Priority;
+
+public class PriorityPacketQueueTest {
+
+    private static CrtpPacket setpoint() {
+        return new CrtpPacket(0, CrtpPort.COMMANDER);
+    }
+
+    private static CrtpPacket control() {
+        return new CrtpPacket(1, CrtpPort.PARAMETERS);
+    }
+
+    private static CrtpPacket bulk() {
+        return new CrtpPacket(0, CrtpPort.MEMORY);
+    }
+
+    @Test
+    public void priorityClasses() {
+        assertEquals(Priority.COMMANDER, Priority.of(setpoint()));
+        assertEquals(Priority.CONTROL, Priority.of(control()));
+        assertEquals(Priority.BULK, Priority.of(new CrtpPacket(0, CrtpPort.PARAMETERS)));
+        assertEquals(Priority.BULK, Priority.of(bulk()));
+    }
+
+    @Test
+    public void higherPriorityIsSentFirstAndOrderIsKeptWithinClass() throws InterruptedException {
+        PriorityPacketQueue queue = new PriorityPacketQueue(4, 4);
+        CrtpPacket bulk1 = bulk();
+        CrtpPacket bulk2 = bulk();
+        CrtpPacket control = control();
+        CrtpPacket setpoint = setpoint();
+        assertTrue(queue.offer(bulk1, 0, TimeUnit.MILLISECONDS));
+        assertTrue(queue.offer(bulk2, 0, TimeUnit.MILLISECONDS));
+        assertTrue(queue.offer(control, 0, TimeUnit.MILLISECONDS));
+        assertTrue(queue.offer(setpoint, 0, TimeUnit.MILLISECONDS));
+
+        assertSame(setpoint, queue.poll(0, TimeUnit.MILLISECONDS));
+        assertSame(control, queue.poll(0, TimeUnit.MILLISECONDS));
+        assertSame(bulk1, queue.poll(0, TimeUnit.MILLISECONDS));
+        assertSame(bulk2, queue.poll(0, TimeUnit.MILLISECONDS));
+        assertNull(queue.poll(0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void newerSetpointReplacesPendingOne() throws InterruptedException {
+        PriorityPacketQueue queue = new PriorityPacketQueue(1, 1);
+        CrtpPacket newest = setpoint();
+        assertTrue(queue.offer(setpoint(), 0, TimeUnit.MILLISECONDS));
+        assertTrue(queue.offer(newest, 0, TimeUnit.MILLISECONDS));
+
+        assertEquals(1, queue.size());
+        assertEquals(1, queue.getReplacedSetpoints());
+        assertSame(newest, queue.poll(0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void fullClassRejectsAfterTimeout() throws InterruptedException {
+        PriorityPacketQueue queue = new PriorityPacketQueue(1, 1);
+        assertTrue(queue.offer(bulk(), 0, TimeUnit.MILLISECONDS));
+        assertFalse(queue.offer(bulk(), 10, TimeUnit.MILLISECONDS));
+        // other classes are not affected by a full bulk class
+        assertTrue(queue.offer(control(), 0, TimeUnit.MILLISECONDS));
+        assertEquals(1, queue.getRejected());
+    }
+
+    /**
+     * A bulk producer and a control producer both wait on a full queue and only the control class drains.
+     * The control producer must be woken, even though the bulk producer has been waiting longer.
+     */
+    @Test
+    public void dequeueWakesProducerOfDrainedClass() throws InterruptedException {
+        final PriorityPacketQueue queue = new PriorityPacketQueue(1, 1);
+        assertTrue(queue.offer(control(), 0, TimeUnit.MILLISECONDS));
+        assertTrue(queue.offer(bulk(), 0, TimeUnit.MILLISECONDS));
+
+        Thread bulkProducer = startProducer(queue, bulk(), new AtomicBoolean(), new CountDownLatch(1));
+        awaitWaiting(bulkProducer);
+        final AtomicBoolean controlAdded = new AtomicBoolean();
+        CountDownLatch controlDone = new CountDownLatch(1);
+        Thread controlProducer = startProducer(queue, control(), controlAdded, controlDone);
+        awaitWaiting(controlProducer);
+
+        // takes the control packet, the bulk class stays full
+        assertEquals(Priority.CONTROL, Priority.of(queue.poll(0, TimeUnit.MILLISECONDS)));
+
+        assertTrue("control producer was not woken", controlDone.await(500, TimeUnit.MILLISECONDS));
+        assertTrue(controlAdded.get());
+        assertEquals(1, queue.getQueueDepth(Priority.CONTROL));
+        assertEquals(1, queue.getQueueDepth(Priority.BULK));
+
+        bulkProducer.interrupt();
+        bulkProducer.join();
+        controlProducer.join();
+    }
+
+    private static Thread startProducer(final PriorityPacketQueue queue, final CrtpPacket packet,
+                                        final AtomicBoolean added, final CountDownLatch done) {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    added.set(queue.offer(packet, 2000, TimeUnit.MILLISECONDS));
+                } catch (InterruptedException e) {
+                    // test is done
+                }
+                done.countDown();
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    private static void awaitWaiting(Thread thread) throws InterruptedException {
+        while (thread.getState() != Thread.State.TIMED_WAITING) {
+            Thread.sleep(1);
+        }
+    }
+}
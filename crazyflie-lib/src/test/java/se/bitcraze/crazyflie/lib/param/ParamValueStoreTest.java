@@ -0,0 +1,181 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.param;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import se.bitcraze.crazyflie.lib.toc.Toc;
+import se.bitcraze.crazyflie.lib.toc.TocElement;
+import se.bitcraze.crazyflie.lib.toc.VariableType;
+
+public class ParamValueStoreTest {
+
+    // raw values of the parameters as they are received, little endian
+    private static final long[] RAW_VALUES = {
+        0L, -1L, 1L, 0x7F, 0x80, 0x7FFF, 0x8000, 0x7FFFFFFFL, 0x80000000L, 0x7FFFFFFFFFFFFFFFL,
+        0x8000000000000000L, 0x0123456789ABCDEFL, 0x7FC00000L, 0xFFF8000000000000L
+    };
+
+    @Test
+    public void everyTypeRoundTripsLikeParse() {
+        VariableType[] types = VariableType.values();
+        Toc toc = new Toc();
+        for (VariableType type : types) {
+            toc.addElement(createElement(type.ordinal(), type));
+        }
+        ParamValueStore store = new ParamValueStore(toc);
+
+        for (long raw : RAW_VALUES) {
+            for (VariableType type : types) {
+                ByteBuffer buffer = ByteBuffer.allocate(8);
+                buffer.order(ByteOrder.LITTLE_ENDIAN).putLong(raw).rewind();
+                buffer.limit(type.getSize());
+                Number parsed = type.parse(buffer);
+
+                store.update(type.ordinal(), parsed);
+                Number stored = store.getValue(type.ordinal());
+                // equals() compares the boxed type as well
+                assertEquals(type + " " + Long.toHexString(raw), parsed, stored);
+                assertEquals(parsed.getClass(), stored.getClass());
+            }
+        }
+    }
+
+    @Test
+    public void floatBitsArePreserved() {
+        Toc toc = new Toc();
+        toc.addElement(createElement(0, VariableType.FLOAT));
+        toc.addElement(createElement(1, VariableType.DOUBLE));
+        ParamValueStore store = new ParamValueStore(toc);
+
+        store.update(0, -0.0f);
+        store.update(1, Double.NaN);
+        assertEquals(Float.floatToRawIntBits(-0.0f), Float.floatToRawIntBits(store.getValue(0).floatValue()));
+        assertTrue(Double.isNaN(store.getValue(1).doubleValue()));
+    }
+
+    @Test
+    public void updateReturnsTrueExactlyOnce() {
+        for (int size = 1; size <= 20; size++) {
+            ParamValueStore store = new ParamValueStore(createToc(size, VariableType.UINT16_T));
+            for (int ident = 0; ident < size; ident++) {
+                assertNull(store.getValue(ident));
+                assertFalse(store.isAllUpdated());
+                assertEquals(ident == size - 1, store.update(ident, ident));
+                assertEquals(ident + 1, store.getUpdatedCount());
+            }
+            assertTrue(store.isAllUpdated());
+            // further updates never complete the TOC again
+            for (int ident = 0; ident < size; ident++) {
+                assertFalse(store.update(ident, ident + 1));
+                assertEquals(2, store.getVersion(ident));
+            }
+            assertFalse(store.update(size, 1));
+            assertFalse(store.update(-1, 1));
+            assertEquals(size, store.getUpdatedCount());
+        }
+    }
+
+    @Test
+    public void snapshotHasNullForMissingValues() {
+        ParamValueStore store = new ParamValueStore(createToc(3, VariableType.INT32_T));
+        store.update(1, 42);
+        Number[] values = store.snapshot();
+        assertEquals(3, values.length);
+        assertNull(values[0]);
+        assertEquals(Integer.valueOf(42), values[1]);
+        assertNull(values[2]);
+    }
+
+    @Test
+    public void readersNeverSeeTornValues() throws InterruptedException {
+        final ParamValueStore store = new ParamValueStore(createToc(2, VariableType.INT64_T));
+        store.update(0, 0L);
+        store.update(1, 0L);
+        final AtomicReference<String> failure = new AtomicReference<String>();
+        final int iterations = 200000;
+
+        // both halves of every written value are equal, parameter 0 is always written before parameter 1
+        Thread writer = new Thread(new Runnable() {
+            public void run() {
+                for (long i = 1; i <= iterations; i++) {
+                    store.update(0, i << 32 | i);
+                    store.update(1, i << 32 | i);
+                }
+            }
+        });
+        Thread reader = new Thread(new Runnable() {
+            public void run() {
+                for (int i = 0; i < iterations && failure.get() == null; i++) {
+                    long value = store.getValue(i & 1).longValue();
+                    if (value >>> 32 != (value & 0xFFFFFFFFL)) {
+                        failure.set("torn value " + Long.toHexString(value));
+                    }
+                    // a snapshot sees parameter 1 at most one update behind parameter 0
+                    Number[] values = store.snapshot();
+                    long difference = values[0].longValue() - values[1].longValue();
+                    if (difference != 0 && difference != (1L << 32 | 1)) {
+                        failure.set("inconsistent snapshot " + Long.toHexString(values[0].longValue()) + " " + Long.toHexString(values[1].longValue()));
+                    }
+                }
+            }
+        });
+        writer.start();
+        reader.start();
+        writer.join(60000);
+        reader.join(60000);
+        assertNull(failure.get());
+        assertEquals(iterations + 1, store.getVersion(0));
+    }
+
+    private static Toc createToc(int size, VariableType type) {
+        Toc toc = new Toc();
+        for (int i = 0; i < size; i++) {
+            toc.addElement(createElement(i, type));
+        }
+        return toc;
+    }
+
+    private static TocElement createElement(int ident, VariableType type) {
+        TocElement tocElement = new TocElement();
+        tocElement.setIdent(ident);
+        tocElement.setGroup("group");
+        tocElement.setName("param" + ident);
+        tocElement.setCtype(type);
+        return tocElement;
+    }
+}
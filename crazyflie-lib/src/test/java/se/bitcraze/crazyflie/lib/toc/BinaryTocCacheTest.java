@@ -0,0 +1,242 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.toc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import se.bitcraze.crazyflie.lib.crtp.CrtpPort;
+
+public class BinaryTocCacheTest {
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private File mCacheDir;
+
+    @Before
+    public void setUp() throws IOException {
+        mCacheDir = mFolder.newFolder("cache");
+    }
+
+    @Test
+    public void insertAndFetch() {
+        BinaryTocCache cache = new BinaryTocCache(mCacheDir);
+        Toc toc = createToc("stabilizer", 20, VariableType.FLOAT);
+        cache.insert(0x1234, CrtpPort.LOGGING, toc);
+
+        assertTocEquals(toc, cache.fetch(0x1234, CrtpPort.LOGGING));
+        assertNull(cache.fetch(0x1235, CrtpPort.LOGGING));
+        assertNull(cache.fetch(0x1234, CrtpPort.PARAMETERS));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void reloadAfterRestart() {
+        Toc logToc = createToc("acc", 10, VariableType.FLOAT);
+        Toc paramToc = createToc("pid", 30, VariableType.UINT16_T);
+        BinaryTocCache cache = new BinaryTocCache(mCacheDir);
+        cache.insert(1, CrtpPort.LOGGING, logToc);
+        cache.insert(1, CrtpPort.PARAMETERS, paramToc);
+
+        BinaryTocCache reloaded = new BinaryTocCache(mCacheDir);
+        assertEquals(2, reloaded.size());
+        assertEquals(cache.getFileSize(), reloaded.getFileSize());
+        assertTocEquals(logToc, reloaded.fetch(1, CrtpPort.LOGGING));
+        assertTocEquals(paramToc, reloaded.fetch(1, CrtpPort.PARAMETERS));
+    }
+
+    @Test
+    public void truncatedRecordIsCutOff() throws IOException {
+        BinaryTocCache cache = new BinaryTocCache(mCacheDir);
+        Toc first = createToc("first", 5, VariableType.INT8_T);
+        cache.insert(1, CrtpPort.LOGGING, first);
+        int validSize = cache.getFileSize();
+        cache.insert(2, CrtpPort.LOGGING, createToc("second", 5, VariableType.INT8_T));
+        setLength(cacheFile(), cache.getFileSize() - 3);
+
+        assertCutOffAfterFirstRecord(first, validSize);
+    }
+
+    @Test
+    public void corruptedRecordIsCutOff() throws IOException {
+        BinaryTocCache cache = new BinaryTocCache(mCacheDir);
+        Toc first = createToc("first", 5, VariableType.INT8_T);
+        cache.insert(1, CrtpPort.LOGGING, first);
+        int validSize = cache.getFileSize();
+        cache.insert(2, CrtpPort.LOGGING, createToc("second", 5, VariableType.INT8_T));
+        cache.insert(3, CrtpPort.LOGGING, createToc("third", 5, VariableType.INT8_T));
+        // flip a bit in the names of the second record, the third record is dropped with it
+        flipBit(cacheFile(), validSize + 30);
+
+        assertCutOffAfterFirstRecord(first, validSize);
+        assertNull(new BinaryTocCache(mCacheDir).fetch(3, CrtpPort.LOGGING));
+    }
+
+    private void assertCutOffAfterFirstRecord(Toc first, int validSize) {
+        BinaryTocCache reloaded = new BinaryTocCache(mCacheDir);
+        assertEquals(1, reloaded.size());
+        assertEquals(validSize, reloaded.getFileSize());
+        assertEquals(validSize, cacheFile().length());
+        assertTocEquals(first, reloaded.fetch(1, CrtpPort.LOGGING));
+        assertNull(reloaded.fetch(2, CrtpPort.LOGGING));
+
+        // new records are appended after the valid part
+        Toc next = createToc("next", 3, VariableType.UINT32_T);
+        reloaded.insert(4, CrtpPort.LOGGING, next);
+        BinaryTocCache again = new BinaryTocCache(mCacheDir);
+        assertEquals(2, again.size());
+        assertTocEquals(first, again.fetch(1, CrtpPort.LOGGING));
+        assertTocEquals(next, again.fetch(4, CrtpPort.LOGGING));
+    }
+
+    @Test
+    public void unknownFileFormatIsReplaced() throws IOException {
+        BinaryTocCache cache = new BinaryTocCache(mCacheDir);
+        cache.insert(1, CrtpPort.LOGGING, createToc("group", 3, VariableType.INT8_T));
+        flipBit(cacheFile(), 0);
+
+        BinaryTocCache reloaded = new BinaryTocCache(mCacheDir);
+        assertEquals(0, reloaded.size());
+        assertNull(reloaded.fetch(1, CrtpPort.LOGGING));
+    }
+
+    @Test
+    public void leastRecentlyUsedTocIsEvicted() {
+        int recordSize = recordSize(createToc("group", 10, VariableType.FLOAT));
+        // room for three records
+        BinaryTocCache cache = new BinaryTocCache(mCacheDir, 8 + 3 * recordSize);
+        cache.insert(1, CrtpPort.LOGGING, createToc("group", 10, VariableType.FLOAT));
+        cache.insert(2, CrtpPort.LOGGING, createToc("group", 10, VariableType.FLOAT));
+        cache.insert(3, CrtpPort.LOGGING, createToc("group", 10, VariableType.FLOAT));
+        assertNotNull(cache.fetch(1, CrtpPort.LOGGING));
+
+        // the use order is stored in the file, after a restart 2 is still the least recently used TOC
+        BinaryTocCache reloaded = new BinaryTocCache(mCacheDir, 8 + 3 * recordSize);
+        reloaded.insert(4, CrtpPort.LOGGING, createToc("group", 10, VariableType.FLOAT));
+        assertEquals(3, reloaded.size());
+        assertNull(reloaded.fetch(2, CrtpPort.LOGGING));
+        assertNotNull(reloaded.fetch(3, CrtpPort.LOGGING));
+
+        // 1 is now the least recently used TOC
+        reloaded.insert(5, CrtpPort.LOGGING, createToc("group", 10, VariableType.FLOAT));
+        assertNull(reloaded.fetch(1, CrtpPort.LOGGING));
+        assertNotNull(reloaded.fetch(3, CrtpPort.LOGGING));
+        assertNotNull(reloaded.fetch(4, CrtpPort.LOGGING));
+        assertNotNull(reloaded.fetch(5, CrtpPort.LOGGING));
+        assertTrue(reloaded.getFileSize() <= 8 + 3 * recordSize);
+        assertEquals(3, new BinaryTocCache(mCacheDir, 8 + 3 * recordSize).size());
+    }
+
+    @Test
+    public void replacedRecordWinsOnReload() {
+        BinaryTocCache cache = new BinaryTocCache(mCacheDir);
+        cache.insert(1, CrtpPort.PARAMETERS, createToc("old", 4, VariableType.UINT8_T));
+        Toc replacement = createToc("new", 6, VariableType.INT32_T);
+        cache.insert(1, CrtpPort.PARAMETERS, replacement);
+        assertEquals(1, cache.size());
+        assertTocEquals(replacement, cache.fetch(1, CrtpPort.PARAMETERS));
+
+        BinaryTocCache reloaded = new BinaryTocCache(mCacheDir);
+        assertEquals(1, reloaded.size());
+        assertTocEquals(replacement, reloaded.fetch(1, CrtpPort.PARAMETERS));
+    }
+
+    @Test
+    public void clearDeletesTheFile() {
+        BinaryTocCache cache = new BinaryTocCache(mCacheDir);
+        cache.insert(1, CrtpPort.LOGGING, createToc("group", 3, VariableType.INT8_T));
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertFalse(cacheFile().exists());
+        assertNull(new BinaryTocCache(mCacheDir).fetch(1, CrtpPort.LOGGING));
+    }
+
+    private int recordSize(Toc toc) {
+        File dir = new File(mCacheDir, "measure");
+        BinaryTocCache cache = new BinaryTocCache(dir);
+        cache.insert(0, CrtpPort.LOGGING, toc);
+        return cache.getFileSize() - 8;
+    }
+
+    private File cacheFile() {
+        return new File(mCacheDir, BinaryTocCache.CACHE_FILE_NAME);
+    }
+
+    private static Toc createToc(String group, int noOfElements, VariableType type) {
+        Toc toc = new Toc();
+        for (int i = 0; i < noOfElements; i++) {
+            TocElement tocElement = new TocElement();
+            tocElement.setIdent(i);
+            tocElement.setGroup(group);
+            tocElement.setName("var" + i);
+            tocElement.setCtype(type);
+            tocElement.setAccess(i % 2);
+            toc.addElement(tocElement);
+        }
+        return toc;
+    }
+
+    private static void assertTocEquals(Toc expected, Toc actual) {
+        assertNotNull(actual);
+        assertEquals(expected.getElements(), actual.getElements());
+    }
+
+    private static void setLength(File file, long length) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(length);
+        } finally {
+            raf.close();
+        }
+    }
+
+    private static void flipBit(File file, long offset) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.seek(offset);
+            int b = raf.read();
+            raf.seek(offset);
+            raf.write(b ^ 0x01);
+        } finally {
+            raf.close();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/**
+ *    ||          ____  _ __
+ * +------+      / __ )(_) /_______________ _____  ___
+ * | 0xBC |     / __  / / __/ ___/ ___/ __ `/_  / / _ \
+ * +------+    / /_/ / / /_/ /__/ /  / /_/ / / /_/  __/
+ *  ||  ||    /_____/_/\__/\___/_/   \__,_/ /___/\___/
+ *
+ * Copyright (C) 2026 Bitcraze AB
+ *
+ * Crazyflie Nano Quadcopter Client
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package se.bitcraze.crazyflie.lib.toc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class TocTest {
+
+    @Test
+    public void frozenTocReturnsSameElementAsMap() {
+        for (int size = 0; size <= 300; size++) {
+            Toc toc = createToc(size);
+            Map<String, TocElement> elements = new HashMap<String, TocElement>(toc.getTocElementMap());
+            toc.freeze();
+            assertTrue(toc.isFrozen());
+            assertEquals(size, toc.getTocSize());
+            for (Map.Entry<String, TocElement> entry : elements.entrySet()) {
+                TocElement tocElement = entry.getValue();
+                assertSame(tocElement, toc.getElementByCompleteName(entry.getKey()));
+                assertSame(tocElement, toc.getElement(tocElement.getGroup(), tocElement.getName()));
+                assertSame(tocElement, toc.getElementById(tocElement.getIdent()));
+                assertEquals(tocElement.getIdent(), toc.getElementId(entry.getKey()));
+            }
+        }
+    }
+
+    @Test
+    public void frozenTocReturnsNullForUnknownNames() {
+        for (int size = 0; size <= 100; size += 10) {
+            Toc toc = createToc(size);
+            toc.freeze();
+            assertNull(toc.getElementByCompleteName("unknown.name"));
+            assertNull(toc.getElementByCompleteName(""));
+            assertNull(toc.getElement("group0", "var" + size));
+            assertEquals(-1, toc.getElementId("group0.missing"));
+            assertNull(toc.getElementById(size));
+            assertNull(toc.getElementById(-1));
+        }
+    }
+
+    @Test
+    public void namesWithSameHashCode() {
+        // "Aa" and "BB" have the same hash code, no perfect hash exists and the map is used instead
+        assertEquals("g.Aa".hashCode(), "g.BB".hashCode());
+        Toc toc = new Toc();
+        TocElement aa = createElement(0, "g", "Aa");
+        toc.addElement(aa);
+        toc.freeze();
+        assertSame(aa, toc.getElementByCompleteName("g.Aa"));
+        assertNull(toc.getElementByCompleteName("g.BB"));
+
+        Toc both = new Toc();
+        TocElement bb = createElement(1, "g", "BB");
+        both.addElement(aa);
+        both.addElement(bb);
+        both.freeze();
+        assertSame(aa, both.getElementByCompleteName("g.Aa"));
+        assertSame(bb, both.getElementByCompleteName("g.BB"));
+        assertNull(both.getElementByCompleteName("g.C#"));
+    }
+
+    @Test
+    public void mutatorsThrowAfterFreeze() {
+        Toc toc = createToc(10);
+        toc.freeze();
+        try {
+            toc.addElement(createElement(10, "group", "added"));
+            fail("addElement() must throw");
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            toc.clear();
+            fail("clear() must throw");
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            toc.setTocElementMap(new HashMap<String, TocElement>());
+            fail("setTocElementMap() must throw");
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            toc.copyFrom(createToc(5));
+            fail("copyFrom() must throw");
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            toc.getTocElementMap().remove("group0.var0");
+            fail("the map must be unmodifiable");
+        } catch (UnsupportedOperationException expected) {
+        }
+        try {
+            toc.getElements().clear();
+            fail("the element list must be unmodifiable");
+        } catch (UnsupportedOperationException expected) {
+        }
+        assertEquals(10, toc.getTocSize());
+        assertEquals(10, toc.getElements().size());
+
+        // freezing again has no effect
+        toc.freeze();
+        assertEquals(10, toc.getTocSize());
+    }
+
+    @Test
+    public void copyOfFrozenTocIsFrozen() {
+        Toc frozen = createToc(50);
+        frozen.freeze();
+        Toc copy = new Toc();
+        copy.copyFrom(frozen);
+        assertTrue(copy.isFrozen());
+        assertSame(frozen.getElements(), copy.getElements());
+        for (TocElement tocElement : frozen.getElements()) {
+            assertSame(tocElement, copy.getElementByCompleteName(tocElement.getCompleteName()));
+        }
+
+        Toc unfrozenCopy = new Toc();
+        unfrozenCopy.copyFrom(createToc(5));
+        assertFalse(unfrozenCopy.isFrozen());
+        unfrozenCopy.addElement(createElement(5, "group", "added"));
+        assertEquals(6, unfrozenCopy.getTocSize());
+    }
+
+    @Test
+    public void elementsAreSortedById() {
+        Toc toc = createToc(40);
+        toc.freeze();
+        int ident = 0;
+        for (TocElement tocElement : toc.getElements()) {
+            assertEquals(ident++, tocElement.getIdent());
+        }
+    }
+
+    private static Toc createToc(int size) {
+        Toc toc = new Toc();
+        for (int i = 0; i < size; i++) {
+            toc.addElement(createElement(i, "group" + (i / 8), "var" + i));
+        }
+        return toc;
+    }
+
+    private static TocElement createElement(int ident, String group, String name) {
+        TocElement tocElement = new TocElement();
+        tocElement.setIdent(ident);
+        tocElement.setGroup(group);
+        tocElement.setName(name);
+        tocElement.setCtype(VariableType.FLOAT);
+        return tocElement;
+    }
+}
@@ -4,7 +4,8 @@ import android.util.Log;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import se.bitcraze.crazyflie.lib.crazyflie.ConnectionAdapter;
 import se.bitcraze.crazyflie.lib.crazyflie.Crazyflie;
@@ -13,12 +14,16 @@ import se.bitcraze.crazyflie.lib.crazyradio.RadioDriver;
 import se.bitcraze.crazyflie.lib.crtp.CommanderPacket;
 import se.bitcraze.crazyflie.lib.crtp.CrtpDriver;
 import se.bitcraze.crazyflie.lib.crtp.CrtpPacket;
+import se.bitcraze.crazyflie.lib.crtp.CrtpPort;
 import se.bitcraze.crazyflie.lib.crtp.ZDistancePacket;
-import se.bitcraze.crazyflie.lib.log.LogAdapter;
 import se.bitcraze.crazyflie.lib.log.LogConfig;
+import se.bitcraze.crazyflie.lib.log.LogRecord;
+import se.bitcraze.crazyflie.lib.log.LogRecordListener;
 import se.bitcraze.crazyflie.lib.log.Logg;
 import se.bitcraze.crazyflie.lib.param.Param;
 import se.bitcraze.crazyflie.lib.param.ParamListener;
+import se.bitcraze.crazyflie.lib.toc.BinaryTocCache;
+import se.bitcraze.crazyflie.lib.toc.MemoryTocCache;
 import se.bitcraze.crazyflie.lib.toc.Toc;
 import se.bitcraze.crazyflie.lib.toc.VariableType;
 import se.bitcraze.crazyfliecontrol.ble.BleLink;
@@ -52,6 +57,7 @@ public class MainPresenter {
 
     private Thread mSendJoystickDataThread;
     private ConsoleListener mConsoleListener;
+    private ExecutorService mConsoleExecutor;
 
     public MainPresenter(MainActivity mainActivity) {
         this.mainActivity = mainActivity;
@@ -231,7 +237,10 @@ public class MainPresenter {
         disconnect();
         mDriver = null;
         try {
-            mDriver = new RadioDriver(new UsbLinkAndroid(mainActivity));
+            RadioDriver radioDriver = new RadioDriver(new UsbLinkAndroid(mainActivity));
+            // reuse buffers and packets in the radio loop to reduce GC pressure while flying
+            radioDriver.setZeroAllocation(true);
+            mDriver = radioDriver;
         } catch (IllegalArgumentException e) {
             Log.d(LOG_TAG, e.getMessage());
             mainActivity.showToastie(e.getMessage());
@@ -256,7 +265,7 @@ public class MainPresenter {
             // add listener for connection status
             mDriver.addConnectionListener(crazyflieConnectionAdapter);
 
-            mCrazyflie = new Crazyflie(mDriver, mCacheDir);
+            mCrazyflie = new Crazyflie(mDriver, new MemoryTocCache(new BinaryTocCache(mCacheDir)));
             if (mDriver instanceof RadioDriver) {
                 mCrazyflie.setConnectionData(connectionData);
             }
@@ -267,6 +276,9 @@ public class MainPresenter {
             if (mCrazyflie != null) {
                 mConsoleListener = new ConsoleListener();
                 mConsoleListener.setMainActivity(mainActivity);
+                // parse console text on its own thread, so log and param packets are not delayed
+                mConsoleExecutor = Executors.newSingleThreadExecutor();
+                mCrazyflie.setDataListenerExecutor(CrtpPort.CONSOLE, mConsoleExecutor);
                 mCrazyflie.addDataListener(mConsoleListener);
             }
         } else {
@@ -287,6 +299,10 @@ public class MainPresenter {
             mCrazyflie.disconnect();
             mCrazyflie = null;
         }
+        if (mConsoleExecutor != null) {
+            mConsoleExecutor.shutdown();
+            mConsoleExecutor = null;
+        }
 
         if (mDriver != null) {
             mDriver.removeConnectionListener(crazyflieConnectionAdapter);
@@ -343,17 +359,14 @@ public class MainPresenter {
         return mCrazyflie;
     }
 
-    private LogAdapter standardLogAdapter = new LogAdapter() {
-
-        public void logDataReceived(LogConfig logConfig, Map<String, Number> data, int timestamp) {
-            super.logDataReceived(logConfig, data, timestamp);
+    private LogRecordListener standardLogRecordListener = new LogRecordListener() {
 
-            if ("Standard".equals(logConfig.getName())) {
-                final float battery = (float) data.get("pm.vbat");
-                mainActivity.setBatteryLevel(battery);
-            }
-            for (Map.Entry<String, Number> entry : data.entrySet()) {
-                Log.d(LOG_TAG, "\t Name: " + entry.getKey() + ", data: " + entry.getValue());
+        public void logRecordReceived(LogRecord logRecord) {
+            if ("Standard".equals(logRecord.getLogConfig().getName())) {
+                int vbatIndex = logRecord.indexOf("pm.vbat");
+                if (vbatIndex != -1) {
+                    mainActivity.setBatteryLevel(logRecord.getFloat(vbatIndex));
+                }
             }
         }
 
@@ -377,7 +390,7 @@ public class MainPresenter {
             Log.e(LOG_TAG, "startLogConfigs: Logg was null!!");
             return;
         }
-        mLogg.addLogListener(standardLogAdapter);
+        mLogg.addLogRecordListener(standardLogRecordListener);
         mLogg.addConfig(logConfig);
         mLogg.start(logConfig);
     }
@@ -396,6 +409,6 @@ public class MainPresenter {
         }
         mLogg.stop(logConfig);
         mLogg.delete(logConfig);
-        mLogg.removeLogListener(standardLogAdapter);
+        mLogg.removeLogRecordListener(standardLogRecordListener);
     }
 }
@@ -185,7 +185,6 @@ public class UsbLinkAndroid implements CrazyUsbInterface{
         return mConnection;
     }
 
-    @Override
     public List<UsbDevice> findDevices(int vid, int pid) {
         return findUsbDevices(mUsbManager, (short) vid, (short) pid);
     }